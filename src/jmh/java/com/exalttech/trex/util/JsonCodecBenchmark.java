@@ -0,0 +1,124 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.util;
+
+import com.cisco.trex.stateless.model.stats.PGIdStatsRPCResult;
+import com.cisco.trex.stateless.model.stats.Utilization;
+import com.exalttech.trex.remote.models.common.RPCError;
+import com.exalttech.trex.ui.models.PortStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of decoding the replies polled while the GUI is connected (port
+ * status, PGId stats and utilization) with a mapper created per call, as the
+ * RPC paths used to do, against the shared codec readers.
+ * <p>
+ * Run with {@code gradle jmh} or {@code mvn -Pjmh compile exec:exec}, the gc
+ * profiler reports the allocation per operation as gc.alloc.rate.norm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class JsonCodecBenchmark {
+
+    private static final String PORT_STATUS_REPLY = "["
+            + "{\"id\":\"1\",\"jsonrpc\":\"2.0\",\"result\":{\"owner\":\"trex\",\"state\":\"IDLE\",\"max_stream_id\":0,\"service\":false}},"
+            + "{\"id\":\"2\",\"jsonrpc\":\"2.0\",\"result\":{\"owner\":\"\",\"state\":\"TX\",\"max_stream_id\":3,\"service\":false}}"
+            + "]";
+
+    private static final String RPC_ERROR_REPLY = "{\"id\":\"1\",\"jsonrpc\":\"2.0\",\"error\":{\"code\":-32000,\"message\":\"port is not owned\",\"specific_err\":\"\"}}";
+
+    private static final String PGID_STATS_RESULT = "{"
+            + "\"flow_stats\":{\"5\":{"
+            + "\"rb\":{\"0\":0,\"1\":640000},\"rbs\":{\"0\":0.0,\"1\":51200.0},"
+            + "\"rp\":{\"0\":0,\"1\":10000},\"rps\":{\"0\":0.0,\"1\":800.0},"
+            + "\"tb\":{\"0\":640000,\"1\":0},\"tbs\":{\"0\":51200.0,\"1\":0.0},"
+            + "\"tp\":{\"0\":10000,\"1\":0},\"tps\":{\"0\":800.0,\"1\":0.0}}},"
+            + "\"latency\":{\"7\":{"
+            + "\"err_cntrs\":{\"drp\":0,\"dup\":0,\"ooo\":0,\"sth\":0,\"stl\":0},"
+            + "\"lat\":{\"average\":12.5,\"histogram\":{\"10\":300,\"20\":700},"
+            + "\"jit\":2,\"last_max\":20,\"total_max\":25,\"total_min\":9}}},"
+            + "\"ver_id\":{\"5\":1,\"7\":1}"
+            + "}";
+
+    private static final String UTILIZATION_RESULT = "{"
+            + "\"cpu\":["
+            + "{\"history\":[3,2,2,3,4,3,2,2,3,3,2,2,3,4,3,2,2,3,3,2],\"ports\":[0,1]},"
+            + "{\"history\":[1,1,2,1,1,1,2,1,1,1,1,1,2,1,1,1,2,1,1,1],\"ports\":[2,3]}],"
+            + "\"mbuf_stats\":{\"cpu-socket-0\":{"
+            + "\"64b\":[1200,16380],\"128b\":[800,8190],\"256b\":[300,8190],\"512b\":[120,8190],"
+            + "\"1024b\":[40,8190],\"2048b\":[900,8190],\"4096b\":[0,128],\"9kb\":[0,512]}}"
+            + "}";
+
+    private final JsonCodec codec = JsonCodec.getInstance();
+
+    @Benchmark
+    public List<PortStatus> portStatusNewMapper() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        return mapper.readValue(PORT_STATUS_REPLY, mapper.getTypeFactory().constructCollectionType(List.class, PortStatus.class));
+    }
+
+    @Benchmark
+    public List<PortStatus> portStatusSharedReader() throws IOException {
+        return codec.readPortStatusList(PORT_STATUS_REPLY);
+    }
+
+    @Benchmark
+    public PGIdStatsRPCResult pgIdStatsNewMapper() throws IOException {
+        return new ObjectMapper().readValue(PGID_STATS_RESULT, PGIdStatsRPCResult.class);
+    }
+
+    @Benchmark
+    public PGIdStatsRPCResult pgIdStatsSharedReader() throws IOException {
+        return codec.readPGIdStats(PGID_STATS_RESULT);
+    }
+
+    @Benchmark
+    public Utilization utilizationNewMapper() throws IOException {
+        return new ObjectMapper().readValue(UTILIZATION_RESULT, Utilization.class);
+    }
+
+    @Benchmark
+    public Utilization utilizationSharedReader() throws IOException {
+        return codec.readUtilization(UTILIZATION_RESULT);
+    }
+
+    @Benchmark
+    public RPCError rpcErrorNewMapper() throws IOException {
+        return new ObjectMapper().readValue(RPC_ERROR_REPLY, RPCError.class);
+    }
+
+    @Benchmark
+    public RPCError rpcErrorSharedReader() throws IOException {
+        return codec.readRPCError(RPC_ERROR_REPLY);
+    }
+}
@@ -1,8 +1,10 @@
 package com.cisco.trex.stl.gui.controllers.capture;
 
+import com.cisco.trex.stl.gui.models.CaptureSampling;
 import com.exalttech.trex.ui.PortsManager;
 import com.exalttech.trex.ui.models.Port;
 import com.exalttech.trex.util.Initialization;
+import com.exalttech.trex.util.Util;
 import javafx.collections.ListChangeListener;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
@@ -16,6 +18,8 @@ import java.util.List;
 import static java.util.stream.Collectors.toList;
 
 public class FilterController extends HBox {
+
+    private static final int MAX_SAMPLING_DIGITS = 7;
     
     @FXML
     private CheckComboBox<String> rxFilter;
@@ -26,6 +30,15 @@ public class FilterController extends HBox {
     @FXML
     private TextField bpfFilter;
 
+    @FXML
+    private TextField everyNth;
+
+    @FXML
+    private TextField maxPktsPerSecond;
+
+    @FXML
+    private TextField snapLength;
+
     @FXML
     private Button applyBtn;
 
@@ -59,6 +72,13 @@ public class FilterController extends HBox {
         bpfFilter
                 .textProperty()
                 .addListener((observableValue, oldValue, newValue) -> applyBtn.setDisable(!applyBtnDisabled));
+
+        for (TextField samplingField : new TextField[]{everyNth, maxPktsPerSecond, snapLength}) {
+            samplingField.setTextFormatter(Util.getNumberFilter(MAX_SAMPLING_DIGITS));
+            samplingField
+                    .textProperty()
+                    .addListener((observableValue, oldValue, newValue) -> applyBtn.setDisable(!applyBtnDisabled));
+        }
     }
 
     public void addOnFilterUpdateHandler(UpdateFilterHandler handler) {
@@ -94,6 +114,17 @@ public class FilterController extends HBox {
     public String getBPFFilter() {
         return bpfFilter.textProperty().getValue();
     }
+
+    public CaptureSampling getSampling() {
+        return new CaptureSampling(parseSamplingField(everyNth),
+                                   parseSamplingField(maxPktsPerSecond),
+                                   parseSamplingField(snapLength));
+    }
+
+    private static int parseSamplingField(TextField field) {
+        final String text = field.getText();
+        return text == null || text.isEmpty() ? 0 : Integer.parseInt(text);
+    }
     public static List<Integer> getSelectedPortIndexes(CheckComboBox<String> portFilter) {
         return portFilter.getCheckModel().getCheckedItems()
                                          .stream()
@@ -3,6 +3,8 @@ package com.cisco.trex.stl.gui.controllers.capture;
 import com.cisco.trex.stateless.model.capture.CapturedPackets;
 import com.cisco.trex.stateless.model.capture.CapturedPkt;
 import com.cisco.trex.stl.gui.models.CapturedPktModel;
+import com.cisco.trex.stl.gui.models.CapturedPktRingBuffer;
+import com.cisco.trex.stl.gui.models.CaptureSampling;
 import com.cisco.trex.stl.gui.services.capture.*;
 import com.exalttech.trex.application.TrexApp;
 import com.exalttech.trex.ui.PortsManager;
@@ -11,8 +13,10 @@ import com.exalttech.trex.ui.models.PortModel;
 import com.exalttech.trex.ui.models.datastore.Preferences;
 import com.exalttech.trex.ui.util.AlertUtils;
 import com.exalttech.trex.util.Initialization;
+import com.exalttech.trex.util.MemoryMonitor;
 import com.exalttech.trex.util.PreferencesManager;
 import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyStringWrapper;
 import javafx.concurrent.WorkerStateEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
@@ -21,11 +25,6 @@ import javafx.scene.layout.HBox;
 import javafx.scene.text.Text;
 import org.apache.commons.lang.SystemUtils;
 import org.apache.log4j.Logger;
-import org.pcap4j.packet.*;
-import org.pcap4j.packet.ArpPacket.ArpHeader;
-import org.pcap4j.packet.namednumber.ArpOperation;
-import org.pcap4j.packet.namednumber.EtherType;
-import org.pcap4j.packet.namednumber.IpNumber;
 import org.testng.util.Strings;
 
 import java.io.BufferedReader;
@@ -33,23 +32,57 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static java.lang.Math.abs;
 import static java.lang.Thread.sleep;
 import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toList;
 
-public class MonitorController extends BorderPane {
+public class MonitorController extends BorderPane implements MemoryMonitor.MemoryReleaser {
 
     private static Logger LOG = Logger.getLogger(MonitorController.class);
 
+    private static final int RETAINED_PKTS_ON_RELEASE = 1000;
+
+    private static final int MAX_DISPLAYED_PKTS = 50000;
+
+    private static final int MAX_DISPLAYED_BYTES = 32 * 1024 * 1024;
+
+    private static final int DECODE_SLICE_SIZE = 200;
+
     private Base64.Decoder decoder = Base64.getDecoder();
     
     private ExecutorService executorService = Executors.newCachedThreadPool();
 
+    private ExecutorService decoderPool = Executors.newFixedThreadPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors() - 1),
+            runnable -> {
+                Thread thread = new Thread(runnable, "capture-decoder");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private final CapturedPktRingBuffer pktBuffer = new CapturedPktRingBuffer(MAX_DISPLAYED_PKTS, MAX_DISPLAYED_BYTES);
+
+    // completes once the previous chunk is handed to the FX thread, keeps rows in fetch order
+    private CompletableFuture<Void> lastPublish = CompletableFuture.completedFuture(null);
+
+    private final AtomicInteger decodingPkts = new AtomicInteger();
+
+    private int pendingPkts = 0;
+
+    private long droppedPkts = 0;
+
+    private long sampledOutPkts = 0;
+
+    private PktSampler sampler = new PktSampler(CaptureSampling.NONE);
+
+    private int generation = 0;
+
     @FXML
     private FilterController filter;
     
@@ -82,6 +115,9 @@ public class MonitorController extends BorderPane {
     
     @FXML
     private TableColumn<CapturedPktModel, String> info;
+
+    @FXML
+    private Label pktCounters;
     
     private PktCaptureService pktCaptureService;
     
@@ -106,17 +142,24 @@ public class MonitorController extends BorderPane {
     public MonitorController() {
         Initialization.initializeFXML(this, "/fxml/pkt_capture/Monitor.fxml");
 
-        number.setCellValueFactory(cellData -> cellData.getValue().numberProperty().asString());
-        port.setCellValueFactory(cellData -> cellData.getValue().portProperty().asString());
-        mode.setCellValueFactory(cellData -> cellData.getValue().modeProperty());
-        time.setCellValueFactory(cellData -> cellData.getValue().timeProperty());
-        ipDst.setCellValueFactory(cellData -> cellData.getValue().dstProperty());
-        ipSrc.setCellValueFactory(cellData -> cellData.getValue().srcProperty());
-        type.setCellValueFactory(cellData -> cellData.getValue().typeProperty());
-        length.setCellValueFactory(cellData -> cellData.getValue().lengthProperty().asString());
-        info.setCellValueFactory(cellData -> cellData.getValue().infoProperty());
+        // cells are formatted only for the displayed rows
+        number.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(String.valueOf(cellData.getValue().getNumber())));
+        port.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(String.valueOf(cellData.getValue().getPort())));
+        mode.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(cellData.getValue().getMode()));
+        time.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(cellData.getValue().getTime()));
+        ipDst.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(cellData.getValue().getDst()));
+        ipSrc.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(cellData.getValue().getSrc()));
+        type.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(cellData.getValue().getType()));
+        length.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(String.valueOf(cellData.getValue().getLength())));
+        info.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(cellData.getValue().getInfo()));
+
+        // rows are kept in capture order, the ring buffer can't be sorted in place
+        capturedPkts.getColumns().forEach(column -> column.setSortable(false));
+        capturedPkts.setItems(pktBuffer);
+        updateCounters();
 
         filter.addOnFilterUpdateHandler(this::onFilterUpdate);
+        MemoryMonitor.getInstance().addReleaser(this);
         
         capturedPkts.setRowFactory( tv -> {
             TableRow<CapturedPktModel> row = new TableRow<>();
@@ -164,6 +207,7 @@ public class MonitorController extends BorderPane {
         try {
             pktNumberOffset = latestPktIndex;
             monitorId = pktCaptureService.updateMonitor(rxPorts, txPorts, bpfFilter);
+            sampler = new PktSampler(filter.getSampling());
         } catch (PktCaptureServiceException e) {
             stopHandler.onStop();
             filter.setApplyBtnDisabled(false);
@@ -179,6 +223,10 @@ public class MonitorController extends BorderPane {
     }
 
     private void openPacketViewer(CapturedPktModel rowData) throws IOException {
+        final byte[] pktBytes = rowData.getBytes();
+        if (pktBytes == null) {
+            return;
+        }
         DialogWindow dialogWindow = new DialogWindow("pkt_capture/PacketViewerLayout.fxml",
                 "Packet viewer",
                 10, 
@@ -188,7 +236,7 @@ public class MonitorController extends BorderPane {
                 false,
                 TrexApp.getPrimaryStage());
         PacketViewerController controller = (PacketViewerController) dialogWindow.getController();
-        controller.getPacketViewer().showPkt(rowData.getBytes());
+        controller.getPacketViewer().showPkt(pktBytes);
         
         dialogWindow.show(false);
     }
@@ -348,158 +396,93 @@ public class MonitorController extends BorderPane {
     }
     
     private void handleOnPktsReceived(WorkerStateEvent workerStateEvent) {
+        final CapturedPackets capturedPackets = pktCaptureService.getValue();
+        if (capturedPackets == null) {
+            return;
+        }
         if (starTs == 0) {
-            starTs = pktCaptureService.getValue().getStartTimeStamp();
+            starTs = capturedPackets.getStartTimeStamp();
+        }
+        pendingPkts = capturedPackets.getPendingPkts();
+        final List<CapturedPkt> pkts = sampler.sample(capturedPackets.getPkts());
+        sampledOutPkts += capturedPackets.getPkts().size() - pkts.size();
+        if (pkts.isEmpty()) {
+            updateCounters();
+        } else if (decodingPkts.get() >= pktBuffer.getCapacity()) {
+            // decoded rows would only push each other out of the table
+            droppedPkts += pkts.size();
+            updateCounters();
+        } else {
+            decode(pkts);
         }
-        pktCaptureService.getValue().getPkts().stream()
-                .map(this::toModel)
-                .filter(Objects::nonNull)
-                .forEach(pktModel -> capturedPkts.getItems().add(pktModel));
     }
 
-    private CapturedPktModel toModel(CapturedPkt pkt) {
-        byte[] pktBin;
-        try {
-            pktBin = Base64.getDecoder().decode(pkt.getBinary());
-
-            Stack<String> headers = new Stack<>();
-            headers.push("Ether");
-            EthernetPacket etherPkt = EthernetPacket.newPacket(pktBin, 0, pktBin.length);
-
-            Map<String, Object> info = new HashMap<>();
-            info.put("info", "");
-            
-            EtherType l3Type = etherPkt.getHeader().getType();
-            if(l3Type.equals(EtherType.ARP)) {
-                headers.push("ARP");
-                info.put("src", etherPkt.getHeader().getSrcAddr().toString());
-                info.put("dst", etherPkt.getHeader().getDstAddr().toString());
-                info.putAll(parseARP((ArpPacket) etherPkt.getPayload()));
-            } else if (l3Type.equals(EtherType.DOT1Q_VLAN_TAGGED_FRAMES)) {
-                headers.push("Dot1Q");
-                info = parseDot1Q(headers, (Dot1qVlanTagPacket) etherPkt.getPayload());
-            } else if (l3Type.equals(EtherType.IPV4)) {
-                headers.push("IPv4");
-                info = parseIP(headers, (IpV4Packet) etherPkt.getPayload());
-            } else if (l3Type.equals(EtherType.IPV6)) {
-                headers.push("IPv6");
-                info = parseIP(headers, (IpV6Packet) etherPkt.getPayload());
-            } else {
-                info.put("dst", etherPkt.getHeader().getDstAddr().toString());
-                info.put("src", etherPkt.getHeader().getSrcAddr().toString());
-                info.put("info", "Unknown or malformed packet");
-            }
-            
-            Double time = abs(starTs - pkt.getTimeStamp());
-
-            latestPktIndex = pkt.getIndex() + pktNumberOffset;
-            return new CapturedPktModel(latestPktIndex,
-                                        pkt.getPort(),
-                                        pkt.getOrigin(),
-                                        time,
-                                        (String) info.get("dst"),
-                                        (String) info.get("src"),
-                                        headers.peek(),
-                                        pktBin.length,
-                                        (String) info.get("info"),
-                                        pktBin);
-        } catch (Exception e) {
-            return null;
+    /**
+     * Decode packets on the decoder pool and append them to the table in
+     * fetch order
+     */
+    private void decode(final List<CapturedPkt> pkts) {
+        final double startTs = starTs;
+        final int numberOffset = pktNumberOffset;
+        final int pktsGeneration = generation;
+        final PktSampler pktsSampler = sampler;
+        decodingPkts.addAndGet(pkts.size());
+
+        final List<CompletableFuture<CapturedPktRingBuffer.Batch>> slices = new ArrayList<>();
+        for (int from = 0; from < pkts.size(); from += DECODE_SLICE_SIZE) {
+            final List<CapturedPkt> slice = pkts.subList(from, Math.min(pkts.size(), from + DECODE_SLICE_SIZE));
+            slices.add(CompletableFuture.supplyAsync(() -> toBatch(slice, pktsSampler, startTs, numberOffset), decoderPool));
         }
+        final CompletableFuture<Void> decoded = CompletableFuture.allOf(slices.toArray(new CompletableFuture[slices.size()]));
+        lastPublish = CompletableFuture.allOf(lastPublish, decoded)
+                .thenRun(() -> {
+                    final List<CapturedPktRingBuffer.Batch> batches = slices.stream()
+                            .map(CompletableFuture::join)
+                            .collect(toList());
+                    Platform.runLater(() -> publish(batches, pkts.size(), pktsGeneration));
+                })
+                .exceptionally(e -> {
+                    LOG.error("Unable to decode captured packets.", e);
+                    Platform.runLater(() -> publish(Collections.emptyList(), pkts.size(), pktsGeneration));
+                    return null;
+                });
     }
-    
-    private Map<String, Object> parseARP(ArpPacket pkt) {
-        Map<String, Object> pktInfo = new HashMap<>();
-
-        ArpHeader arp = pkt.getHeader();
-        if (arp.getOperation().equals(ArpOperation.REQUEST)) {
-            pktInfo.put("info", String.format("[Request] Who has %s tell %s", arp.getDstProtocolAddr().toString().substring(1), arp.getSrcProtocolAddr().toString().substring(1)));
-        } else if (arp.getOperation().equals(ArpOperation.REPLY)) {
-            pktInfo.put("info", String.format("[Reply] %s is at %s", arp.getSrcProtocolAddr().toString().substring(1), arp.getSrcHardwareAddr().toString()));
+
+    private void publish(List<CapturedPktRingBuffer.Batch> batches, int fetchedPkts, int pktsGeneration) {
+        decodingPkts.addAndGet(-fetchedPkts);
+        if (pktsGeneration == generation) {
+            batches.stream()
+                    .filter(batch -> batch.size() > 0)
+                    .reduce((first, second) -> second)
+                    .ifPresent(batch -> latestPktIndex = batch.getLastNumber());
+            droppedPkts += pktBuffer.append(batches);
         }
-        return pktInfo;
+        updateCounters();
     }
-    
-    private Map<String, Object> parseDot1Q(Stack<String> headers, Dot1qVlanTagPacket pkt) {
-        headers.push("Dot1Q");
-        
-        EtherType etherType = pkt.getHeader().getType();
-        
-        if(EtherType.DOT1Q_VLAN_TAGGED_FRAMES.equals(etherType)) {
-            return parseDot1Q(headers, (Dot1qVlanTagPacket) pkt.getPayload());
-        } else if (EtherType.IPV4.equals(etherType)) {
-            return parseIP(headers, (IpV4Packet) pkt.getPayload());
-        } else {
-            return parseIP(headers, (IpV6Packet) pkt.getPayload());
-        }
 
+    private void updateCounters() {
+        pktCounters.setText(String.format("Displayed: %d  Backlog: %d  Dropped: %d  Sampled out: %d",
+                                          pktBuffer.size(),
+                                          pendingPkts + decodingPkts.get(),
+                                          droppedPkts,
+                                          sampledOutPkts));
     }
-    
-    private <T extends IpPacket> Map<String, Object> parseIP(Stack<String> headers, T pkt) {
-        headers.push(pkt instanceof IpV4Packet ? "IPv4" : "IPv6");
-        Map<String, Object> result = new HashMap<>();
-        result.put("info", "");
-        String src = pkt.getHeader().getSrcAddr().toString();
-        String dst = pkt.getHeader().getDstAddr().toString();
-        result.put("src", pkt instanceof IpV4Packet ? src.substring(1) : src);
-        result.put("dst", pkt instanceof IpV4Packet ? dst.substring(1) : dst);
-
-        IpNumber protocol = pkt.getHeader().getProtocol();
-
-        if (IpNumber.UDP.equals(protocol)) {
-            result.putAll(parseUDP(headers, (UdpPacket) pkt.getPayload()));
-        } else if (IpNumber.TCP.equals(protocol)) {
-            result.putAll(parseTCP(headers, (TcpPacket) pkt.getPayload()));
-        }
 
-        return result;
-    }
-    
-    private Map<String, Object> parseTCP(Stack<String> headers, TcpPacket pkt) {
-        headers.push("TCP");
-        Map<String, Object> result = new HashMap<>();
-
-        TcpPacket.TcpHeader tcpHeader = pkt.getHeader();
-        List<String> enabledFlags = new ArrayList<>();
-        if (tcpHeader.getUrg()) {
-            enabledFlags.add("URG");
-        }
-        if (tcpHeader.getAck()) {
-            enabledFlags.add("ACK");
-        }
-        if (tcpHeader.getPsh()) {
-            enabledFlags.add("PSH");
-        }
-        if (tcpHeader.getRst()) {
-            enabledFlags.add("RST");
-        }
-        if (tcpHeader.getSyn()) {
-            enabledFlags.add("SYN");
-        }
-        if (tcpHeader.getFin()) {
-            enabledFlags.add("FIN");
+    private CapturedPktRingBuffer.Batch toBatch(List<CapturedPkt> pkts, PktSampler pktsSampler, double startTs, int numberOffset) {
+        final CapturedPktRingBuffer.Batch batch = new CapturedPktRingBuffer.Batch(pkts.size());
+        for (CapturedPkt pkt : pkts) {
+            try {
+                batch.add(pkt.getIndex() + numberOffset,
+                          pkt.getPort(),
+                          pkt.getOrigin(),
+                          abs(startTs - pkt.getTimeStamp()),
+                          pktsSampler.decode(pkt.getBinary()),
+                          PktSampler.getDecodedLength(pkt.getBinary()));
+            } catch (IllegalArgumentException e) {
+                LOG.warn("Unable to decode captured packet " + pkt.getIndex(), e);
+            }
         }
-        
-        String flags = enabledFlags.stream().collect(Collectors.joining(", "));
-        
-        String info = String.format("%s -> %s [%s] Seq=%s Win=%s Ack=%s Len=%s",
-                                    tcpHeader.getSrcPort().valueAsInt(),
-                                    tcpHeader.getDstPort().valueAsInt(),
-                                    flags,
-                                    tcpHeader.getSequenceNumber(),
-                                    tcpHeader.getWindowAsInt(),
-                                    tcpHeader.getAcknowledgmentNumber(),
-                                    tcpHeader.length());
-        result.put("info", info);
-        return result;
-    }
-    
-    private Map<String, Object> parseUDP(Stack<String> headers, UdpPacket pkt) {
-        headers.push("UDP");
-        Map<String, Object> result = new HashMap<>();
-        String info = String.format("Source port: %s Destination port: %s", pkt.getHeader().getSrcPort().toString(), pkt.getHeader().getDstPort().toString());
-        result.put("info", info);
-        return result;
+        return batch;
     }
 
     public void startCapture() {
@@ -525,6 +508,7 @@ public class MonitorController extends BorderPane {
                 return;
             }
             starTs = 0;
+            sampler = new PktSampler(filter.getSampling());
             monitorId = pktCaptureService.startMonitor(rxPorts, txPorts, bpfFilter, true);
             filter.setApplyBtnDisabled(true);
             startHandler.onStart();
@@ -548,12 +532,29 @@ public class MonitorController extends BorderPane {
 
             filter.setDisable(false);
             monitorId = 0;
+            pendingPkts = 0;
+            updateCounters();
             stopHandler.onStop();
         }
     }
 
     public void clearCapture() {
-        capturedPkts.getItems().clear();
+        generation++;
+        pktBuffer.clear();
+        droppedPkts = 0;
+        sampledOutPkts = 0;
+        updateCounters();
+    }
+
+    /**
+     * Keep only the latest captured packets in the table
+     */
+    @Override
+    public void releaseMemory() {
+        Platform.runLater(() -> {
+            pktBuffer.retainLast(RETAINED_PKTS_ON_RELEASE);
+            updateCounters();
+        });
     }
 
     public void startRecorder(
@@ -10,6 +10,7 @@ import com.exalttech.trex.ui.PortsManager;
 import com.exalttech.trex.ui.models.PortModel;
 import com.exalttech.trex.ui.util.AlertUtils;
 import com.exalttech.trex.util.Initialization;
+import com.exalttech.trex.util.files.PcapFileWriter;
 import javafx.collections.ObservableList;
 import javafx.concurrent.ScheduledService;
 import javafx.concurrent.Task;
@@ -23,15 +24,13 @@ import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
 import javafx.stage.FileChooser;
 import javafx.util.Duration;
 import org.apache.log4j.Logger;
-import org.pcap4j.core.*;
-import org.pcap4j.packet.EthernetPacket;
-import org.pcap4j.packet.IllegalRawDataException;
-import org.pcap4j.packet.namednumber.DataLinkType;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -41,6 +40,8 @@ import static java.util.stream.Collectors.toList;
 public class RecordController extends BorderPane {
 
     private static Logger LOG = Logger.getLogger(RecordController.class);
+
+    private static final int SAVE_CHUNK_SIZE = 1000;
     
     @FXML
     private TableView<Recorder> activeRecorders;
@@ -243,62 +244,92 @@ public class RecordController extends BorderPane {
     }
 
     public void handleSavePkts(int monitorId) {
-        List<CapturedPkt> capturedPkts = new ArrayList<>();
-        int pendingPkts = 1;
-        while (pendingPkts > 0) {
-            try {
-                CapturedPackets capturedPackets = pktCaptureService.fetchCapturedPkts(monitorId, 1000);
-                pendingPkts = capturedPackets.getPendingPkts();
-                capturedPkts.addAll(capturedPackets.getPkts());
-            } catch (PktCaptureServiceException e) {
-                LOG.error("Unable to fetch packets.", e);
-                break;
-            }
-        }
-
+        // fetching removes the packets from the recorder, so choose the file first
         File outFile = fileChooser.showSaveDialog(getScene().getWindow());
-        if (outFile != null) {
-            try {
-                dumpPkts(capturedPkts, outFile.getAbsolutePath());
-            } catch (Exception e) {
-                LOG.error("Unable to dump packets.", e);
-            }
+        if (outFile == null) {
+            return;
         }
+
+        final SavePktsTask task = new SavePktsTask(monitorId, outFile);
+        final Alert progressAlert = createSaveProgressAlert(task);
+        task.setOnSucceeded(event -> progressAlert.close());
+        task.setOnCancelled(event -> progressAlert.close());
+        task.setOnFailed(event -> {
+            progressAlert.close();
+            LOG.error("Unable to save packets.", task.getException());
+            AlertUtils.construct(
+                    Alert.AlertType.ERROR,
+                    "Recorder error",
+                    "Unable to save packets",
+                    task.getException().getLocalizedMessage())
+                    .showAndWait();
+        });
+
+        Thread thread = new Thread(task, "pcap-export");
+        thread.setDaemon(true);
+        thread.start();
+        progressAlert.show();
     }
 
-    private void dumpPkts(List<CapturedPkt> pkts, String filename) throws PcapNativeException, NotOpenException {
-        PcapHandle handle = Pcaps.openDead(DataLinkType.EN10MB, 65536);
-        PcapDumper dumper = handle.dumpOpen(filename);
-        
-        try {
-            pkts.stream().map(this::toEtherPkt)
-                    .filter(Objects::nonNull)
-                    .collect(toList())
-                    .forEach(ethPkt -> {
+    private Alert createSaveProgressAlert(SavePktsTask task) {
+        ProgressBar progressBar = new ProgressBar();
+        progressBar.setPrefWidth(350);
+        progressBar.progressProperty().bind(task.progressProperty());
+        Label message = new Label();
+        message.textProperty().bind(task.messageProperty());
+
+        Alert alert = new Alert(AlertType.NONE);
+        alert.setTitle("Recorder");
+        alert.setHeaderText("Saving packets");
+        alert.getDialogPane().setContent(new VBox(10, message, progressBar));
+        alert.getButtonTypes().setAll(ButtonType.CANCEL);
+        // the RPC connection must not be interrupted, the task stops after the current chunk
+        alert.setOnHidden(event -> task.cancel(false));
+        return alert;
+    }
+
+    /**
+     * Fetches the recorder packets chunk by chunk and appends them to a pcap
+     * file with their capture timestamps
+     */
+    private class SavePktsTask extends Task<Long> {
+        private final int monitorId;
+        private final File outFile;
+
+        SavePktsTask(int monitorId, File outFile) {
+            this.monitorId = monitorId;
+            this.outFile = outFile;
+        }
+
+        @Override
+        protected Long call() throws Exception {
+            final Base64.Decoder decoder = Base64.getDecoder();
+            try (PcapFileWriter writer = new PcapFileWriter(new FileOutputStream(outFile))) {
+                int pendingPkts = 1;
+                long fetchedPkts = 0;
+                while (pendingPkts > 0 && !isCancelled()) {
+                    CapturedPackets capturedPackets = pktCaptureService.fetchCapturedPkts(monitorId, SAVE_CHUNK_SIZE);
+                    List<CapturedPkt> pkts = capturedPackets.getPkts();
+                    pendingPkts = capturedPackets.getPendingPkts();
+                    if (pkts.isEmpty()) {
+                        break;
+                    }
+                    for (CapturedPkt pkt : pkts) {
                         try {
-                            dumper.dump(ethPkt);
-                        } catch (NotOpenException e) {
-                            LOG.error("Unable to dump pkt.", e);
+                            writer.write(decoder.decode(pkt.getBinary()), PcapFileWriter.toNanos(pkt.getTimeStamp()));
+                        } catch (IllegalArgumentException e) {
+                            LOG.error("Save PCAP. Unable to decode pkt from server.", e);
                         }
-                    });
-        } finally {
-            dumper.close();
-            handle.close();
-        }
-    }
-    
-    private EthernetPacket toEtherPkt(CapturedPkt pkt) {
-        byte[] pktBinary = Base64.getDecoder().decode(pkt.getBinary());
-        EthernetPacket ethPkt = null;
-        try {
-            ethPkt = EthernetPacket.newPacket(pktBinary, 0, pktBinary.length);
-        } catch (IllegalRawDataException e) {
-            LOG.error("Save PCAP. Unable to parse pkt from server.", e);
-            return null;
+                    }
+                    fetchedPkts += pkts.size();
+                    updateProgress(fetchedPkts, fetchedPkts + pendingPkts);
+                    updateMessage(String.format("%d of %d packets", fetchedPkts, fetchedPkts + pendingPkts));
+                }
+                return writer.getPacketsWritten();
+            }
         }
-        return ethPkt;
     }
-    
+
     public void handleRemoveRecorer(ActionEvent event) {
         Recorder selectedRecorder = activeRecorders.getSelectionModel().getSelectedItem();
         if (selectedRecorder == null) {
@@ -1,7 +1,6 @@
 package com.cisco.trex.stl.gui.controllers.dashboard.charts;
 
-import com.cisco.trex.stl.gui.models.CpuUtilStatPoint;
-import com.exalttech.trex.util.ArrayHistory;
+import com.cisco.trex.stl.gui.models.CpuUtilHistory;
 import com.exalttech.trex.util.Initialization;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.value.ObservableValue;
@@ -39,7 +38,7 @@ public class CPUUtilizationChartController extends AnchorPane {
         chart.setLegendVisible(true);
     }
     
-    public void render(Map<String, ArrayHistory<CpuUtilStatPoint>> cpuUtilizationHistoryMap) {
+    public void render(Map<String, CpuUtilHistory> cpuUtilizationHistoryMap) {
         chart.getData().clear();
 
         final List<XYChart.Series<Double, Number>> seriesList = new LinkedList<>();
@@ -49,17 +48,16 @@ public class CPUUtilizationChartController extends AnchorPane {
                                 .limit(colors.length)
                                 .forEach(entry -> {
                                     String core = entry.getKey();
-                                    ArrayHistory<CpuUtilStatPoint> history = entry.getValue();
+                                    CpuUtilHistory history = entry.getValue();
                                     XYChart.Series<Double, Number> series = new XYChart.Series<>();
                                     series.setName(core);
                         
-                                    double lastTime = history.last().getTime();
+                                    double lastTime = history.getTime(history.lastIndex());
                                     
                                     int size = history.size();
                                     for (int i = 0; i < size; ++i) {
-                                        final CpuUtilStatPoint point = history.get(i);
-                                        final double time = point.getTime();
-                                        series.getData().add(new XYChart.Data<>(time - lastTime, point.getValue()));
+                                        final double time = history.getTime(i);
+                                        series.getData().add(new XYChart.Data<>(time - lastTime, history.getValue(i)));
                                     }
                                     setSeriesColor(series, colors[index.getAndIncrement()]);
                                     seriesList.add(series);
@@ -13,12 +13,11 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
-import com.cisco.trex.stl.gui.models.LatencyStatPoint;
+import com.cisco.trex.stateless.model.stats.LatencyStat;
+import com.cisco.trex.stl.gui.models.LatencyStatHistory;
 import com.cisco.trex.stl.gui.storages.PGIDStatsStorage;
 import com.cisco.trex.stl.gui.storages.StatsStorage;
 
-import com.exalttech.trex.util.ArrayHistory;
-
 
 public class LatencyHistogramController extends FlowChartController {
     private static final int HISTOGRAM_SIZE = 11;
@@ -39,16 +38,16 @@ public class LatencyHistogramController extends FlowChartController {
         final Map<Integer, String> selectedPGIDs = statsStorage.getPGIDsStorage().getSelectedPGIds();
 
         final PGIDStatsStorage pgIDStatsStorage = statsStorage.getPGIDStatsStorage();
-        final Map<Integer, ArrayHistory<LatencyStatPoint>> latencyStatPointHistoryMap =
-                pgIDStatsStorage.getLatencyStatPointHistoryMap();
-        final Map<Integer, LatencyStatPoint> latencyStatPointShadowMap =
-                pgIDStatsStorage.getLatencyStatPointShadowMap();
+        final Map<Integer, LatencyStatHistory> latencyStatHistoryMap =
+                pgIDStatsStorage.getLatencyStatHistoryMap();
+        final Map<Integer, LatencyStat> latencyStatShadowMap =
+                pgIDStatsStorage.getLatencyStatShadowMap();
         final String[] histogramKeys = pgIDStatsStorage.getHistogramKeys(HISTOGRAM_SIZE);
 
         final List<XYChart.Series<String, Long>> seriesList = new LinkedList<>();
 
         synchronized (pgIDStatsStorage.getDataLock()) {
-            latencyStatPointHistoryMap.forEach((final Integer pgID, final ArrayHistory<LatencyStatPoint> history) -> {
+            latencyStatHistoryMap.forEach((final Integer pgID, final LatencyStatHistory history) -> {
                 if (history == null || history.isEmpty()) {
                     return;
                 }
@@ -58,12 +57,12 @@ public class LatencyHistogramController extends FlowChartController {
                     return;
                 }
 
-                final LatencyStatPoint latencyShadow = latencyStatPointShadowMap.get(pgID);
+                final LatencyStat latencyShadow = latencyStatShadowMap.get(pgID);
                 final Map<String, Long> shadowHistogram = latencyShadow != null ?
-                        latencyShadow.getLatencyStat().getLat().getHistogram() :
+                        latencyShadow.getLat().getHistogram() :
                         new HashMap<>();
 
-                final Map<String, Long> histogram = history.last().getLatencyStat().getLat().getHistogram();
+                final Map<String, Long> histogram = history.getLastLatencyStat().getLat().getHistogram();
                 final XYChart.Series<String, Long> series = new XYChart.Series<>();
                 series.setName(String.valueOf(pgID));
                 for (final String key : histogramKeys) {
@@ -2,7 +2,7 @@ package com.cisco.trex.stl.gui.controllers.dashboard.charts;
 
 import javafx.beans.property.IntegerProperty;
 
-import com.cisco.trex.stl.gui.models.LatencyStatPoint;
+import com.cisco.trex.stl.gui.models.LatencyStatHistory;
 
 
 public class LatencyJitterController extends LatencyLineChartController {
@@ -16,7 +16,7 @@ public class LatencyJitterController extends LatencyLineChartController {
     }
 
     @Override
-    protected Number getValue(final LatencyStatPoint point) {
-        return point.getLatencyStat().getLat().getJit();
+    protected Number getValue(final LatencyStatHistory history, final int index) {
+        return history.getJitter(index);
     }
 }
@@ -1,20 +1,14 @@
 package com.cisco.trex.stl.gui.controllers.dashboard.charts;
 
 import javafx.beans.property.IntegerProperty;
-import javafx.scene.chart.XYChart;
 
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Map;
 
-import com.cisco.trex.stl.gui.models.LatencyStatPoint;
+import com.cisco.trex.stl.gui.models.LatencyStatHistory;
 import com.cisco.trex.stl.gui.storages.PGIDStatsStorage;
-import com.cisco.trex.stl.gui.storages.StatsStorage;
 
-import com.exalttech.trex.util.ArrayHistory;
 
-
-public abstract class LatencyLineChartController extends LineFlowChartController {
+public abstract class LatencyLineChartController extends LineFlowChartController<LatencyStatHistory> {
     public LatencyLineChartController(final IntegerProperty interval) {
         super(interval);
 
@@ -24,46 +18,12 @@ public abstract class LatencyLineChartController extends LineFlowChartController
     protected abstract String getYChartLabel();
 
     @Override
-    protected void render() {
-        getChart().getData().clear();
-
-        final StatsStorage statsStorage = StatsStorage.getInstance();
-
-        final Map<Integer, String> selectedPGIDs = statsStorage.getPGIDsStorage().getSelectedPGIds();
-
-        final PGIDStatsStorage pgIDStatsStorage = statsStorage.getPGIDStatsStorage();
-        final Map<Integer, ArrayHistory<LatencyStatPoint>> latencyStatPointHistoryMap =
-                pgIDStatsStorage.getLatencyStatPointHistoryMap();
-        final List<XYChart.Series<Double, Number>> seriesList = new LinkedList<>();
-
-        synchronized (pgIDStatsStorage.getDataLock()) {
-            latencyStatPointHistoryMap.forEach((final Integer pgID, final ArrayHistory<LatencyStatPoint> history) -> {
-                if (history == null || history.isEmpty()) {
-                    return;
-                }
-
-                final String color = selectedPGIDs.get(pgID);
-                if (color == null) {
-                    return;
-                }
-
-                final double lastTime = history.last().getTime();
-
-                final XYChart.Series<Double, Number> series = new XYChart.Series<>();
-                series.setName(String.valueOf(pgID));
-                int size = history.size();
-                for (int i = 0; i < size; ++i) {
-                    final LatencyStatPoint point = history.get(i);
-                    final double time = point.getTime();
-                    series.getData().add(new XYChart.Data<>(time - lastTime, getValue(point)));
-                }
-                setSeriesColor(series, color);
-                seriesList.add(series);
-            });
-        }
-
-        getChart().getData().addAll(seriesList);
+    protected Map<Integer, LatencyStatHistory> getHistoryMap(final PGIDStatsStorage storage) {
+        return storage.getLatencyStatHistoryMap();
     }
 
-    protected abstract Number getValue(final LatencyStatPoint point);
+    @Override
+    protected double getTime(final LatencyStatHistory history, final int index) {
+        return history.getTime(index);
+    }
 }
@@ -2,14 +2,41 @@ package com.cisco.trex.stl.gui.controllers.dashboard.charts;
 
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.value.ObservableValue;
+import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.Node;
 import javafx.scene.chart.NumberAxis;
 import javafx.scene.chart.XYChart;
 import javafx.scene.layout.AnchorPane;
+import javafx.util.StringConverter;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
-public abstract class LineFlowChartController extends FlowChartController {
+import com.cisco.trex.stl.gui.storages.PGIDStatsStorage;
+import com.cisco.trex.stl.gui.storages.StatsStorage;
+
+import com.exalttech.trex.util.ColumnarHistory;
+import com.exalttech.trex.util.Formatter;
+
+
+/**
+ * Line chart of the per PGID histories, updated in place.
+ * <p>
+ * Samples are plotted against a fixed time origin, so on every render only
+ * the new samples are appended and the expired ones removed, while the
+ * x axis window slides. Points closer than one pixel are skipped. The
+ * largest plotted value of each series is tracked as points come and go, so
+ * the units prefix is chosen without scanning the points.
+ *
+ * @param <H> history type
+ */
+public abstract class LineFlowChartController<H extends ColumnarHistory> extends FlowChartController {
     @FXML
     private AnchorPane root;
     @FXML
@@ -19,8 +46,31 @@ public abstract class LineFlowChartController extends FlowChartController {
     @FXML
     private NumberAxis yAxis;
 
+    private final IntegerProperty interval;
+    private final Map<Integer, SeriesState> seriesStates = new HashMap<>();
+    private double origin = Double.NaN;
+    private double lastX = 0;
+    private Formatter formatter = new Formatter();
+
     public LineFlowChartController(final IntegerProperty interval) {
-        xAxis.lowerBoundProperty().bind(interval.negate());
+        this.interval = interval;
+        interval.addListener((observable, oldValue, newValue) -> {
+            // samples dropped from a smaller window are read again from the history
+            clearSeries();
+            render();
+        });
+        xAxis.setTickLabelFormatter(new StringConverter<Number>() {
+            @Override
+            public String toString(final Number value) {
+                return String.valueOf(Math.round(value.doubleValue() - lastX));
+            }
+
+            @Override
+            public Number fromString(final String value) {
+                return Double.valueOf(value) + lastX;
+            }
+        });
+        updateXAxis();
     }
 
     @Override
@@ -33,7 +83,7 @@ public abstract class LineFlowChartController extends FlowChartController {
         return root;
     }
 
-    protected javafx.scene.chart.LineChart getChart() {
+    protected javafx.scene.chart.LineChart<Number, Number> getChart() {
         return chart;
     }
 
@@ -48,4 +98,205 @@ public abstract class LineFlowChartController extends FlowChartController {
             }
         });
     }
+
+    protected abstract Map<Integer, H> getHistoryMap(final PGIDStatsStorage storage);
+
+    protected abstract double getTime(final H history, final int index);
+
+    protected abstract Number getValue(final H history, final int index);
+
+    /**
+     * @return true if values are shown with a K/M/G units prefix
+     */
+    protected boolean isUnitsScaled() {
+        return false;
+    }
+
+    protected void onUnitsPrefixChanged(final String unitsPrefix) {
+    }
+
+    @Override
+    protected void render() {
+        final StatsStorage statsStorage = StatsStorage.getInstance();
+
+        final Map<Integer, String> selectedPGIDs = statsStorage.getPGIDsStorage().getSelectedPGIds();
+
+        final PGIDStatsStorage pgIDStatsStorage = statsStorage.getPGIDStatsStorage();
+        final double minSpacing = interval.get() / Math.max(1.0, chart.getWidth());
+        double newestX = Double.NaN;
+
+        synchronized (pgIDStatsStorage.getDataLock()) {
+            final Map<Integer, H> historyMap = getHistoryMap(pgIDStatsStorage);
+
+            final Iterator<Map.Entry<Integer, SeriesState>> it = seriesStates.entrySet().iterator();
+            while (it.hasNext()) {
+                final Map.Entry<Integer, SeriesState> entry = it.next();
+                final H history = historyMap.get(entry.getKey());
+                final String color = selectedPGIDs.get(entry.getKey());
+                if (history == null || history.isEmpty() || color == null || !color.equals(entry.getValue().color)) {
+                    chart.getData().remove(entry.getValue().series);
+                    it.remove();
+                }
+            }
+
+            for (final Map.Entry<Integer, H> entry : historyMap.entrySet()) {
+                final H history = entry.getValue();
+                if (history == null || history.isEmpty()) {
+                    continue;
+                }
+
+                final String color = selectedPGIDs.get(entry.getKey());
+                if (color == null) {
+                    continue;
+                }
+
+                if (Double.isNaN(origin)) {
+                    origin = getTime(history, 0);
+                }
+                SeriesState state = seriesStates.get(entry.getKey());
+                if (state == null) {
+                    state = new SeriesState(entry.getKey(), color);
+                    seriesStates.put(entry.getKey(), state);
+                    chart.getData().add(state.series);
+                }
+                append(state, history, minSpacing);
+                if (Double.isNaN(newestX) || state.lastTime - origin > newestX) {
+                    newestX = state.lastTime - origin;
+                }
+            }
+        }
+
+        if (seriesStates.isEmpty()) {
+            clearSeries();
+        } else {
+            lastX = newestX;
+            removeExpired();
+            updateUnits();
+        }
+        updateXAxis();
+    }
+
+    private void clearSeries() {
+        chart.getData().clear();
+        seriesStates.clear();
+        origin = Double.NaN;
+        lastX = 0;
+    }
+
+    private void append(final SeriesState state, final H history, final double minSpacing) {
+        final int size = history.size();
+        final ObservableList<XYChart.Data<Number, Number>> data = state.series.getData();
+
+        // history was cleared or truncated since the last render
+        if (size < state.historySize || getTime(history, 0) > state.lastTime) {
+            data.clear();
+            state.maxValues.clear();
+            state.lastTime = Double.NEGATIVE_INFINITY;
+        }
+        state.historySize = size;
+
+        int first = size;
+        while (first > 0 && getTime(history, first - 1) > state.lastTime) {
+            --first;
+        }
+        if (first == size) {
+            return;
+        }
+
+        final List<XYChart.Data<Number, Number>> points = new ArrayList<>(size - first);
+        double lastAppendedX = data.isEmpty() ? Double.NEGATIVE_INFINITY : data.get(data.size() - 1).getXValue().doubleValue();
+        for (int i = first; i < size; ++i) {
+            final double x = getTime(history, i) - origin;
+            if (x - lastAppendedX < minSpacing && i != size - 1) {
+                continue;
+            }
+            final Number value = getValue(history, i);
+            final XYChart.Data<Number, Number> point = new XYChart.Data<>(x, formatter.getFormattedValue(value));
+            point.setExtraValue(value);
+            points.add(point);
+            state.addValue(value.doubleValue());
+            lastAppendedX = x;
+        }
+        data.addAll(points);
+        state.lastTime = getTime(history, size - 1);
+    }
+
+    private void removeExpired() {
+        final double lowerBound = lastX - interval.get();
+        seriesStates.values().forEach((final SeriesState state) -> {
+            final ObservableList<XYChart.Data<Number, Number>> data = state.series.getData();
+            // keep one point left of the window so the line reaches the edge
+            int expired = 0;
+            while (expired + 1 < data.size() && data.get(expired + 1).getXValue().doubleValue() <= lowerBound) {
+                ++expired;
+            }
+            if (expired > 0) {
+                for (int i = 0; i < expired; ++i) {
+                    state.removeValue(((Number) data.get(i).getExtraValue()).doubleValue());
+                }
+                data.remove(0, expired);
+            }
+        });
+    }
+
+    private void updateUnits() {
+        if (!isUnitsScaled()) {
+            return;
+        }
+
+        // the prefix only depends on the largest value
+        final Formatter newFormatter = new Formatter();
+        seriesStates.values().forEach((final SeriesState state) -> {
+            if (!state.maxValues.isEmpty()) {
+                newFormatter.addValue(state.maxValues.peekFirst());
+            }
+        });
+        if (newFormatter.getUnitsPrefix().equals(formatter.getUnitsPrefix())) {
+            return;
+        }
+
+        formatter = newFormatter;
+        seriesStates.values().forEach((final SeriesState state) -> {
+            state.series.getData().forEach((final XYChart.Data<Number, Number> data) -> {
+                data.setYValue(formatter.getFormattedValue((Number) data.getExtraValue()));
+            });
+        });
+        onUnitsPrefixChanged(formatter.getUnitsPrefix());
+    }
+
+    private void updateXAxis() {
+        xAxis.setUpperBound(lastX);
+        xAxis.setLowerBound(lastX - interval.get());
+    }
+
+    private class SeriesState {
+        private final XYChart.Series<Number, Number> series = new XYChart.Series<>();
+        private final String color;
+        // candidates for the max of the plotted values, decreasing, the first one is the max
+        private final Deque<Double> maxValues = new ArrayDeque<>();
+        private double lastTime = Double.NEGATIVE_INFINITY;
+        private int historySize = 0;
+
+        SeriesState(final int pgID, final String color) {
+            this.color = color;
+            series.setName(String.valueOf(pgID));
+            setSeriesColor(series, color);
+        }
+
+        void addValue(final double value) {
+            while (!maxValues.isEmpty() && maxValues.peekLast() < value) {
+                maxValues.pollLast();
+            }
+            maxValues.addLast(value);
+        }
+
+        /**
+         * Points are removed oldest first
+         */
+        void removeValue(final double value) {
+            if (!maxValues.isEmpty() && maxValues.peekFirst() == value) {
+                maxValues.pollFirst();
+            }
+        }
+    }
 }
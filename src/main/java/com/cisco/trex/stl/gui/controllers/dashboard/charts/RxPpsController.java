@@ -2,7 +2,7 @@ package com.cisco.trex.stl.gui.controllers.dashboard.charts;
 
 import javafx.beans.property.IntegerProperty;
 
-import com.cisco.trex.stl.gui.models.FlowStatPoint;
+import com.cisco.trex.stl.gui.models.FlowStatHistory;
 
 
 public class RxPpsController extends StreamLineChartController {
@@ -18,7 +18,7 @@ public class RxPpsController extends StreamLineChartController {
         return "pkt/s";
     }
 
-    protected Number getValue(final FlowStatPoint point) {
-        return point.getRps();
+    protected Number getValue(final FlowStatHistory history, final int index) {
+        return history.getRps(index);
     }
 }
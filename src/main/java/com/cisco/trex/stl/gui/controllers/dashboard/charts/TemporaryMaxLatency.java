@@ -2,7 +2,7 @@ package com.cisco.trex.stl.gui.controllers.dashboard.charts;
 
 import javafx.beans.property.IntegerProperty;
 
-import com.cisco.trex.stl.gui.models.LatencyStatPoint;
+import com.cisco.trex.stl.gui.models.LatencyStatHistory;
 
 
 public class TemporaryMaxLatency extends LatencyLineChartController {
@@ -15,7 +15,7 @@ public class TemporaryMaxLatency extends LatencyLineChartController {
     }
 
     @Override
-    protected Number getValue(final LatencyStatPoint point) {
-        return point.getLatencyStat().getLat().getLastMax();
+    protected Number getValue(final LatencyStatHistory history, final int index) {
+        return history.getLastMax(index);
     }
 }
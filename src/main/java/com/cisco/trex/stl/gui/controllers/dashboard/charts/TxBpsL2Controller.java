@@ -2,7 +2,7 @@ package com.cisco.trex.stl.gui.controllers.dashboard.charts;
 
 import javafx.beans.property.IntegerProperty;
 
-import com.cisco.trex.stl.gui.models.FlowStatPoint;
+import com.cisco.trex.stl.gui.models.FlowStatHistory;
 
 
 public class TxBpsL2Controller extends StreamLineChartController {
@@ -18,7 +18,7 @@ public class TxBpsL2Controller extends StreamLineChartController {
         return "b/s";
     }
 
-    protected Number getValue(final FlowStatPoint point) {
-        return point.getRbsL2();
+    protected Number getValue(final FlowStatHistory history, final int index) {
+        return history.getRbsL2(index);
     }
 }
@@ -6,10 +6,12 @@ import javafx.scene.control.Toggle;
 import javafx.scene.control.ToggleButton;
 import javafx.scene.control.ToggleGroup;
 import javafx.scene.layout.AnchorPane;
-import javafx.scene.layout.GridPane;
 import javafx.stage.WindowEvent;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
@@ -20,15 +22,14 @@ import com.cisco.trex.stateless.model.stats.LatencyStatLat;
 
 import com.cisco.trex.stl.gui.controllers.dashboard.FlowStatsBaseController;
 import com.cisco.trex.stl.gui.controllers.dashboard.selectors.streams.StreamsSelectorController;
+import com.cisco.trex.stl.gui.models.FlowStatHistory;
 import com.cisco.trex.stl.gui.models.FlowStatPoint;
-import com.cisco.trex.stl.gui.models.LatencyStatPoint;
+import com.cisco.trex.stl.gui.models.LatencyStatHistory;
 import com.cisco.trex.stl.gui.storages.PGIDStatsStorage;
 import com.cisco.trex.stl.gui.storages.StatsStorage;
 
+import com.exalttech.trex.ui.views.statistics.VirtualStatsTable;
 import com.exalttech.trex.ui.views.statistics.cells.CellType;
-import com.exalttech.trex.ui.views.statistics.cells.HeaderCell;
-import com.exalttech.trex.ui.views.statistics.cells.StatisticLabelCell;
-import com.exalttech.trex.util.ArrayHistory;
 import com.exalttech.trex.util.Initialization;
 import com.exalttech.trex.util.Util;
 
@@ -38,6 +39,9 @@ public class LatencyController extends FlowStatsBaseController {
     private static final int COLUMN_WIDTH = 150;
     private static final int WINDOW_SIZE = 10;
     private static final int HISTOGRAM_SIZE = 11;
+    private static final String[] WINDOW_ROW_NAMES = windowRowNames();
+    private static final CellType[] WINDOW_ROW_TYPES = windowRowTypes();
+    private static final String[] HISTOGRAM_ERROR_NAMES = {"Dropped", "Dup", "Out Of Order", "Seq To High", "Seq To Low"};
 
     @FXML
     private AnchorPane root;
@@ -46,12 +50,14 @@ public class LatencyController extends FlowStatsBaseController {
     @FXML
     private ToggleGroup toggleGroupMode;
     @FXML
-    private GridPane table;
+    private VirtualStatsTable table;
 
     public LatencyController() {
         Initialization.initializeFXML(this, "/fxml/dashboard/latency/Latency.fxml");
         Initialization.initializeCloseEvent(root, this::onWindowCloseRequest);
 
+        table.setColumnWidths(FIRST_COLUMN_WIDTH, COLUMN_WIDTH);
+
         toggleGroupMode.selectedToggleProperty().addListener(this::typeChanged);
     }
 
@@ -87,66 +93,39 @@ public class LatencyController extends FlowStatsBaseController {
     }
 
     private void renderWindow() {
-        table.getChildren().clear();
-
-        int hCol = 0;
-        table.add(new HeaderCell(FIRST_COLUMN_WIDTH, "PG ID"), 0, hCol++);
-        table.add(new StatisticLabelCell("Tx pkt", FIRST_COLUMN_WIDTH, hCol%2 == 0, CellType.DEFAULT_CELL, false), 0, hCol++);
-        table.add(new StatisticLabelCell("Rx pkt", FIRST_COLUMN_WIDTH, hCol%2 == 0, CellType.DEFAULT_CELL, false), 0, hCol++);
-        table.add(new StatisticLabelCell("Max Latency", FIRST_COLUMN_WIDTH, hCol%2 == 0, CellType.DEFAULT_CELL, false), 0, hCol++);
-        table.add(new StatisticLabelCell("Avg Latency", FIRST_COLUMN_WIDTH, hCol%2 == 0, CellType.DEFAULT_CELL, false), 0, hCol++);
-        table.add(new StatisticLabelCell("Last (max)", FIRST_COLUMN_WIDTH, hCol%2 == 0, CellType.DEFAULT_CELL, false), 0, hCol++);
-        for (int i = 0; i < WINDOW_SIZE - 1; ++i) {
-            table.add(new StatisticLabelCell(String.format("Last-%d", i + 1), FIRST_COLUMN_WIDTH, hCol%2 == 0, CellType.DEFAULT_CELL, false), 0, hCol++);
-        }
-        table.add(new StatisticLabelCell("Jitter", FIRST_COLUMN_WIDTH, hCol%2 == 0, CellType.DEFAULT_CELL, false), 0, hCol++);
-        table.add(new StatisticLabelCell("Errors", FIRST_COLUMN_WIDTH, hCol%2 == 0, CellType.DEFAULT_CELL, false), 0, hCol);
+        table.setRows("PG ID", WINDOW_ROW_NAMES, WINDOW_ROW_TYPES);
 
         final PGIDStatsStorage pgIDStatsStorage = StatsStorage.getInstance().getPGIDStatsStorage();
-        final Map<Integer, ArrayHistory<FlowStatPoint>> flowStatPointHistoryMap =
-                pgIDStatsStorage.getFlowStatPointHistoryMap();
+        final Map<Integer, FlowStatHistory> flowStatHistoryMap =
+                pgIDStatsStorage.getFlowStatHistoryMap();
         final Map<Integer, FlowStatPoint> flowStatPointShadowMap =
                 pgIDStatsStorage.getFlowStatPointShadowMap();
-        final Map<Integer, ArrayHistory<LatencyStatPoint>> latencyStatPointHistoryMap =
-                pgIDStatsStorage.getLatencyStatPointHistoryMap();
-        final Map<Integer, LatencyStatPoint> latencyStatPointShadowMap =
-                pgIDStatsStorage.getLatencyStatPointShadowMap();
+        final Map<Integer, LatencyStatHistory> latencyStatHistoryMap =
+                pgIDStatsStorage.getLatencyStatHistoryMap();
+        final Map<Integer, LatencyStat> latencyStatShadowMap =
+                pgIDStatsStorage.getLatencyStatShadowMap();
         final Map<Integer, Long> maxLatencyMap = pgIDStatsStorage.getMaxLatencyMap();
         final Set<Integer> stoppedPGIds = pgIDStatsStorage.getStoppedPGIds();
 
-        int rowIndex = 1;
+        final List<VirtualStatsTable.Column> columns = new ArrayList<>();
         synchronized (pgIDStatsStorage.getDataLock()) {
-            for (final Map.Entry<Integer, ArrayHistory<FlowStatPoint>> entry : flowStatPointHistoryMap.entrySet()) {
+            for (final Map.Entry<Integer, FlowStatHistory> entry : flowStatHistoryMap.entrySet()) {
                 final int pgID = entry.getKey();
 
-                final ArrayHistory<FlowStatPoint> flowHistory = entry.getValue();
+                final FlowStatHistory flowHistory = entry.getValue();
                 if (flowHistory == null || flowHistory.isEmpty()) {
                     continue;
                 }
-                final FlowStatPoint flowStatPoint = flowHistory.last();
+                final int lastFlow = flowHistory.lastIndex();
 
-                final ArrayHistory<LatencyStatPoint> latencyHistory = latencyStatPointHistoryMap.get(pgID);
+                final LatencyStatHistory latencyHistory = latencyStatHistoryMap.get(pgID);
                 if (latencyHistory == null || latencyHistory.isEmpty()) {
                     continue;
                 }
-                final LatencyStat latencyStat = latencyHistory.last().getLatencyStat();
-
-                final long[] window = new long[WINDOW_SIZE];
-                for (int i = 0; i < WINDOW_SIZE; ++i) {
-                    window[i] = 0;
-                }
-                final int latencyHistorySize = latencyHistory.size();
-                final int size = Math.min(latencyHistorySize, WINDOW_SIZE);
-                for (int i = 0; i < size; i++) {
-                    window[i] = latencyHistory
-                            .get(latencyHistorySize - 1 - i)
-                            .getLatencyStat()
-                            .getLat()
-                            .getLastMax();
-                }
+                final LatencyStat latencyStat = latencyHistory.getLastLatencyStat();
 
-                long tp = flowStatPoint.getTp();
-                long rp = flowStatPoint.getRp();
+                long tp = flowHistory.getTp(lastFlow);
+                long rp = flowHistory.getRp(lastFlow);
 
                 final FlowStatPoint flowShadow = flowStatPointShadowMap.get(pgID);
                 if (flowShadow != null) {
@@ -156,64 +135,59 @@ public class LatencyController extends FlowStatsBaseController {
 
                 long totalErr = latencyStat.getErr().getTotal();
 
-                final LatencyStatPoint latencyShadow = latencyStatPointShadowMap.get(pgID);
+                final LatencyStat latencyShadow = latencyStatShadowMap.get(pgID);
                 if (latencyShadow != null) {
-                    totalErr -= latencyShadow.getLatencyStat().getErr().getTotal();
+                    totalErr -= latencyShadow.getErr().getTotal();
                 }
 
                 final LatencyStatLat lat = latencyStat.getLat();
 
-                final boolean isStopped = stoppedPGIds.contains(pgID);
-
-                int col = 0;
-                table.add(new HeaderCell(COLUMN_WIDTH, String.valueOf(pgID), isStopped), rowIndex, col++);
-                table.add(new StatisticLabelCell(Util.getFormatted(String.valueOf(tp), true, "pkts"), COLUMN_WIDTH, col % 2 == 0, CellType.DEFAULT_CELL, true, isStopped), rowIndex, col++);
-                table.add(new StatisticLabelCell(Util.getFormatted(String.valueOf(rp), true, "pkts"), COLUMN_WIDTH, col % 2 == 0, CellType.DEFAULT_CELL, true, isStopped), rowIndex, col++);
-                table.add(new StatisticLabelCell(String.format("%d \u00B5s", maxLatencyMap.get(pgID)), COLUMN_WIDTH, col % 2 == 0, CellType.DEFAULT_CELL, true, isStopped), rowIndex, col++);
-                table.add(new StatisticLabelCell(String.format(Locale.US, "%.2f \u00B5s", round(lat.getAverage())), COLUMN_WIDTH, col % 2 == 0, CellType.DEFAULT_CELL, true, isStopped), rowIndex, col++);
+                final String[] values = new String[WINDOW_ROW_NAMES.length];
+                int row = 0;
+                values[row++] = Util.getFormatted(String.valueOf(tp), true, "pkts");
+                values[row++] = Util.getFormatted(String.valueOf(rp), true, "pkts");
+                values[row++] = String.format("%d \u00B5s", maxLatencyMap.get(pgID));
+                values[row++] = String.format(Locale.US, "%.2f \u00B5s", round(lat.getAverage()));
+                final int latencyHistorySize = latencyHistory.size();
                 for (int i = 0; i < WINDOW_SIZE; ++i) {
-                    table.add(new StatisticLabelCell(String.valueOf(window[i]), COLUMN_WIDTH, col % 2 == 0, CellType.DEFAULT_CELL, true, isStopped), rowIndex, col++);
+                    final long lastMax = i < latencyHistorySize ? latencyHistory.getLastMax(latencyHistorySize - 1 - i) : 0;
+                    values[row++] = String.valueOf(lastMax);
                 }
-                table.add(new StatisticLabelCell(String.format("%d \u00B5s", lat.getJit()), COLUMN_WIDTH, col % 2 == 0, CellType.DEFAULT_CELL, true, isStopped), rowIndex, col++);
-                table.add(new StatisticLabelCell(String.valueOf(totalErr), COLUMN_WIDTH, true, CellType.ERROR_CELL, true, isStopped), rowIndex, col++);
+                values[row++] = String.format("%d \u00B5s", lat.getJit());
+                values[row] = String.valueOf(totalErr);
 
-                rowIndex++;
+                columns.add(new VirtualStatsTable.Column(String.valueOf(pgID), stoppedPGIds.contains(pgID), values));
             }
         }
+        table.setColumns(columns);
     }
 
     private void renderHistogram() {
-        table.getChildren().clear();
-
         final PGIDStatsStorage pgIDStatsStorage = StatsStorage.getInstance().getPGIDStatsStorage();
-        final Map<Integer, ArrayHistory<LatencyStatPoint>> latencyStatPointHistoryMap =
-                pgIDStatsStorage.getLatencyStatPointHistoryMap();
-        final Map<Integer, LatencyStatPoint> latencyStatPointShadowMap =
-                pgIDStatsStorage.getLatencyStatPointShadowMap();
+        final Map<Integer, LatencyStatHistory> latencyStatHistoryMap =
+                pgIDStatsStorage.getLatencyStatHistoryMap();
+        final Map<Integer, LatencyStat> latencyStatShadowMap =
+                pgIDStatsStorage.getLatencyStatShadowMap();
         final String[] histogramKeys = pgIDStatsStorage.getHistogramKeys(HISTOGRAM_SIZE);
         final Set<Integer> stoppedPGIds = pgIDStatsStorage.getStoppedPGIds();
 
-        int hCol = 0;
-        table.add(new HeaderCell(FIRST_COLUMN_WIDTH, "PG ID"), 0, hCol++);
-        for (final String key : histogramKeys) {
-            table.add(new StatisticLabelCell(key, FIRST_COLUMN_WIDTH, hCol%2 == 0, CellType.DEFAULT_CELL, false), 0, hCol++);
-        }
-        table.add(new StatisticLabelCell("Dropped", FIRST_COLUMN_WIDTH, hCol%2 == 0, CellType.DEFAULT_CELL, false), 0, hCol++);
-        table.add(new StatisticLabelCell("Dup", FIRST_COLUMN_WIDTH, hCol%2 == 0, CellType.DEFAULT_CELL, false), 0, hCol++);
-        table.add(new StatisticLabelCell("Out Of Order", FIRST_COLUMN_WIDTH, hCol%2 == 0, CellType.DEFAULT_CELL, false), 0, hCol++);
-        table.add(new StatisticLabelCell("Seq To High", FIRST_COLUMN_WIDTH, hCol%2 == 0, CellType.DEFAULT_CELL, false), 0, hCol++);
-        table.add(new StatisticLabelCell("Seq To Low", FIRST_COLUMN_WIDTH, hCol%2 == 0, CellType.DEFAULT_CELL, false), 0, hCol);
+        final String[] rowNames = Arrays.copyOf(histogramKeys, histogramKeys.length + HISTOGRAM_ERROR_NAMES.length);
+        System.arraycopy(HISTOGRAM_ERROR_NAMES, 0, rowNames, histogramKeys.length, HISTOGRAM_ERROR_NAMES.length);
+        final CellType[] rowTypes = new CellType[rowNames.length];
+        Arrays.fill(rowTypes, 0, histogramKeys.length, CellType.DEFAULT_CELL);
+        Arrays.fill(rowTypes, histogramKeys.length, rowTypes.length, CellType.ERROR_CELL);
+        table.setRows("PG ID", rowNames, rowTypes);
 
-        int rowIndex = 1;
+        final List<VirtualStatsTable.Column> columns = new ArrayList<>();
         synchronized (pgIDStatsStorage.getDataLock()) {
-            for (final Map.Entry<Integer, ArrayHistory<LatencyStatPoint>> entry : latencyStatPointHistoryMap.entrySet()) {
+            for (final Map.Entry<Integer, LatencyStatHistory> entry : latencyStatHistoryMap.entrySet()) {
                 final int pgID = entry.getKey();
 
-                final ArrayHistory<LatencyStatPoint> latencyHistory = latencyStatPointHistoryMap.get(pgID);
+                final LatencyStatHistory latencyHistory = entry.getValue();
                 if (latencyHistory == null || latencyHistory.isEmpty()) {
                     continue;
                 }
-                final LatencyStat latencyStat = latencyHistory.last().getLatencyStat();
+                final LatencyStat latencyStat = latencyHistory.getLastLatencyStat();
 
                 final Map<String, Long> histogram = latencyStat.getLat().getHistogram();
 
@@ -224,39 +198,61 @@ public class LatencyController extends FlowStatsBaseController {
                 long sth = latencyStatErr.getSth();
                 long stl = latencyStatErr.getStl();
 
-                final LatencyStatPoint latencyShadow = latencyStatPointShadowMap.get(pgID);
+                final LatencyStat latencyShadow = latencyStatShadowMap.get(pgID);
                 Map<String, Long> shadowHistogram;
                 if (latencyShadow != null) {
-                    final LatencyStatErr latencyStatShadowErr = latencyShadow.getLatencyStat().getErr();
+                    final LatencyStatErr latencyStatShadowErr = latencyShadow.getErr();
                     drp -= latencyStatShadowErr.getDrp();
                     dup -= latencyStatShadowErr.getDup();
                     ooo -= latencyStatShadowErr.getOoo();
                     sth -= latencyStatShadowErr.getSth();
                     stl -= latencyStatShadowErr.getStl();
 
-                    shadowHistogram = latencyShadow.getLatencyStat().getLat().getHistogram();
+                    shadowHistogram = latencyShadow.getLat().getHistogram();
                 } else {
-                    shadowHistogram = new HashMap<>();
+                    shadowHistogram = Collections.emptyMap();
                 }
 
-                final boolean isStopped = stoppedPGIds.contains(pgID);
-
-                int col = 0;
-                table.add(new HeaderCell(COLUMN_WIDTH, String.valueOf(pgID), isStopped), rowIndex, col++);
+                final String[] values = new String[rowNames.length];
+                int row = 0;
                 for (final String key : histogramKeys) {
                     final long value = histogram.getOrDefault(key, 0L);
                     final long shadowValue = shadowHistogram.getOrDefault(key, 0L);
-                    table.add(new StatisticLabelCell(String.valueOf(value - shadowValue), COLUMN_WIDTH, col % 2 == 0, CellType.DEFAULT_CELL, true, isStopped), rowIndex, col++);
+                    values[row++] = String.valueOf(value - shadowValue);
                 }
-                table.add(new StatisticLabelCell(String.valueOf(drp), COLUMN_WIDTH, col % 2 == 0, CellType.ERROR_CELL, true, isStopped), rowIndex, col++);
-                table.add(new StatisticLabelCell(String.valueOf(dup), COLUMN_WIDTH, col % 2 == 0, CellType.ERROR_CELL, true, isStopped), rowIndex, col++);
-                table.add(new StatisticLabelCell(String.valueOf(ooo), COLUMN_WIDTH, col % 2 == 0, CellType.ERROR_CELL, true, isStopped), rowIndex, col++);
-                table.add(new StatisticLabelCell(String.valueOf(sth), COLUMN_WIDTH, col % 2 == 0, CellType.ERROR_CELL, true, isStopped), rowIndex, col++);
-                table.add(new StatisticLabelCell(String.valueOf(stl), COLUMN_WIDTH, col % 2 == 0, CellType.ERROR_CELL, true, isStopped), rowIndex, col);
+                values[row++] = String.valueOf(drp);
+                values[row++] = String.valueOf(dup);
+                values[row++] = String.valueOf(ooo);
+                values[row++] = String.valueOf(sth);
+                values[row] = String.valueOf(stl);
 
-                rowIndex++;
+                columns.add(new VirtualStatsTable.Column(String.valueOf(pgID), stoppedPGIds.contains(pgID), values));
             }
         }
+        table.setColumns(columns);
+    }
+
+    private static String[] windowRowNames() {
+        final String[] names = new String[WINDOW_SIZE + 6];
+        int row = 0;
+        names[row++] = "Tx pkt";
+        names[row++] = "Rx pkt";
+        names[row++] = "Max Latency";
+        names[row++] = "Avg Latency";
+        names[row++] = "Last (max)";
+        for (int i = 0; i < WINDOW_SIZE - 1; ++i) {
+            names[row++] = String.format("Last-%d", i + 1);
+        }
+        names[row++] = "Jitter";
+        names[row] = "Errors";
+        return names;
+    }
+
+    private static CellType[] windowRowTypes() {
+        final CellType[] types = new CellType[WINDOW_SIZE + 6];
+        Arrays.fill(types, CellType.DEFAULT_CELL);
+        types[types.length - 1] = CellType.ERROR_CELL;
+        return types;
     }
 
     static double round(double value) {
@@ -3,6 +3,7 @@ package com.cisco.trex.stl.gui.controllers.dashboard.ports;
 import javafx.event.Event;
 import javafx.fxml.FXML;
 import javafx.scene.layout.AnchorPane;
+import javafx.scene.layout.GridPane;
 import javafx.scene.layout.Pane;
 import javafx.stage.WindowEvent;
 
@@ -56,15 +57,16 @@ public class PortsController extends GlobalStatsBaseController {
     private void buildPortStatTable() {
         final PortsManager portsManager = PortsManager.getInstance();
 
-        statTableContainer.getChildren().clear();
-        statTableContainer.getChildren().add(
-                statsTableGenerator.getPortStatTable(
-                        StatsLoader.getInstance().getShadowStatsList(),
-                        portsManager.getPortList().size(),
-                        true,
-                        150,
-                        portsSelector.getSelectedPortIndexes()
-                )
+        final GridPane statTable = statsTableGenerator.getPortStatTable(
+                StatsLoader.getInstance().getShadowStatsList(),
+                portsManager.getPortList().size(),
+                true,
+                150,
+                portsSelector.getSelectedPortIndexes()
         );
+        // the table is updated in place, only attach it once
+        if (statTableContainer.getChildren().size() != 1 || statTableContainer.getChildren().get(0) != statTable) {
+            statTableContainer.getChildren().setAll(statTable);
+        }
     }
 }
@@ -2,13 +2,13 @@ package com.cisco.trex.stl.gui.controllers.dashboard.streams;
 
 import com.cisco.trex.stl.gui.controllers.dashboard.FlowStatsBaseController;
 import com.cisco.trex.stl.gui.controllers.dashboard.selectors.streams.StreamsSelectorController;
+import com.cisco.trex.stl.gui.models.FlowStatHistory;
 import com.cisco.trex.stl.gui.models.FlowStatPoint;
 import com.cisco.trex.stl.gui.storages.PGIDStatsStorage;
 import com.cisco.trex.stl.gui.storages.StatsStorage;
 import com.exalttech.trex.ui.views.statistics.cells.CellType;
 import com.exalttech.trex.ui.views.statistics.cells.HeaderCell;
 import com.exalttech.trex.ui.views.statistics.cells.StatisticLabelCell;
-import com.exalttech.trex.util.ArrayHistory;
 import com.exalttech.trex.util.Initialization;
 import com.exalttech.trex.util.Util;
 import javafx.fxml.FXML;
@@ -65,26 +65,26 @@ public class StreamsController extends FlowStatsBaseController {
         int rowIndex = 1;
 
         final PGIDStatsStorage pgIDStatsStorage = StatsStorage.getInstance().getPGIDStatsStorage();
-        final Map<Integer, ArrayHistory<FlowStatPoint>> flowStatPointHistoryMap =
-                pgIDStatsStorage.getFlowStatPointHistoryMap();
+        final Map<Integer, FlowStatHistory> flowStatHistoryMap =
+                pgIDStatsStorage.getFlowStatHistoryMap();
         final Map<Integer, FlowStatPoint> flowStatPointShadowMap =
                 pgIDStatsStorage.getFlowStatPointShadowMap();
         final Set<Integer> stoppedPGIds = pgIDStatsStorage.getStoppedPGIds();
 
         synchronized (pgIDStatsStorage.getDataLock()) {
-            for (final Map.Entry<Integer, ArrayHistory<FlowStatPoint>> entry : flowStatPointHistoryMap.entrySet()) {
+            for (final Map.Entry<Integer, FlowStatHistory> entry : flowStatHistoryMap.entrySet()) {
                 final int pgID = entry.getKey();
-                final ArrayHistory<FlowStatPoint> history = entry.getValue();
+                final FlowStatHistory history = entry.getValue();
                 if (history == null || history.isEmpty()) {
                     continue;
                 }
 
-                final FlowStatPoint flowStatPoint = history.last();
+                final int last = history.lastIndex();
 
-                long tp = flowStatPoint.getTp();
-                long rp = flowStatPoint.getRp();
-                long tb = flowStatPoint.getTb();
-                long rb = flowStatPoint.getRb();
+                long tp = history.getTp(last);
+                long rp = history.getRp(last);
+                long tb = history.getTb(last);
+                long rb = history.getRb(last);
 
                 final FlowStatPoint shadow = flowStatPointShadowMap.get(pgID);
                 if (shadow != null) {
@@ -97,12 +97,12 @@ public class StreamsController extends FlowStatsBaseController {
                 final boolean isStopped = stoppedPGIds.contains(pgID);
 
                 table.add(new HeaderCell(secondHeaderWidth, String.valueOf(pgID), isStopped), rowIndex, 0);
-                table.add(new StatisticLabelCell(Util.getFormatted(String.valueOf(round(flowStatPoint.getTps())), true, "pkt/s"), secondHeaderWidth, false, CellType.DEFAULT_CELL, true, isStopped), rowIndex, 1);
-                table.add(new StatisticLabelCell(Util.getFormatted(String.valueOf(round(flowStatPoint.getTbsL2())), true, "b/s"), secondHeaderWidth, true, CellType.DEFAULT_CELL, true, isStopped), rowIndex, 2);
-                table.add(new StatisticLabelCell(Util.getFormatted(String.valueOf(round(flowStatPoint.getTbsL1())), true, "b/s"), secondHeaderWidth, false, CellType.DEFAULT_CELL, true, isStopped), rowIndex, 3);
-                table.add(new StatisticLabelCell(Util.getFormatted(String.valueOf(round(flowStatPoint.getRps())), true, "pkt/s"), secondHeaderWidth, true, CellType.DEFAULT_CELL, true, isStopped), rowIndex, 4);
-                table.add(new StatisticLabelCell(Util.getFormatted(String.valueOf(round(flowStatPoint.getRbsL1())), true, "b/s"), secondHeaderWidth, false, CellType.DEFAULT_CELL, true, isStopped), rowIndex, 5);
-                table.add(new StatisticLabelCell(Util.getFormatted(String.valueOf(round(flowStatPoint.getRbsL2())), true, "b/s"), secondHeaderWidth, true, CellType.DEFAULT_CELL, true, isStopped), rowIndex, 6);
+                table.add(new StatisticLabelCell(Util.getFormatted(String.valueOf(round(history.getTps(last))), true, "pkt/s"), secondHeaderWidth, false, CellType.DEFAULT_CELL, true, isStopped), rowIndex, 1);
+                table.add(new StatisticLabelCell(Util.getFormatted(String.valueOf(round(history.getTbsL2(last))), true, "b/s"), secondHeaderWidth, true, CellType.DEFAULT_CELL, true, isStopped), rowIndex, 2);
+                table.add(new StatisticLabelCell(Util.getFormatted(String.valueOf(round(history.getTbsL1(last))), true, "b/s"), secondHeaderWidth, false, CellType.DEFAULT_CELL, true, isStopped), rowIndex, 3);
+                table.add(new StatisticLabelCell(Util.getFormatted(String.valueOf(round(history.getRps(last))), true, "pkt/s"), secondHeaderWidth, true, CellType.DEFAULT_CELL, true, isStopped), rowIndex, 4);
+                table.add(new StatisticLabelCell(Util.getFormatted(String.valueOf(round(history.getRbsL1(last))), true, "b/s"), secondHeaderWidth, false, CellType.DEFAULT_CELL, true, isStopped), rowIndex, 5);
+                table.add(new StatisticLabelCell(Util.getFormatted(String.valueOf(round(history.getRbsL2(last))), true, "b/s"), secondHeaderWidth, true, CellType.DEFAULT_CELL, true, isStopped), rowIndex, 6);
                 table.add(new StatisticLabelCell(Util.getFormatted(String.valueOf(tp), true, "pkts"), secondHeaderWidth, false, CellType.DEFAULT_CELL, true, isStopped), rowIndex, 7);
                 table.add(new StatisticLabelCell(Util.getFormatted(String.valueOf(rp), true, "pkts"), secondHeaderWidth, true, CellType.DEFAULT_CELL, true, isStopped), rowIndex, 8);
                 table.add(new StatisticLabelCell(Util.getFormatted(String.valueOf(tb), true, "B"), secondHeaderWidth, false, CellType.DEFAULT_CELL, true, isStopped), rowIndex, 9);
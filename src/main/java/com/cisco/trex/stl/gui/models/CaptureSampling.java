@@ -0,0 +1,39 @@
+package com.cisco.trex.stl.gui.models;
+
+/**
+ * Sampling settings of a capture monitor, 0 disables a limit
+ */
+public class CaptureSampling {
+    public static final CaptureSampling NONE = new CaptureSampling(0, 0, 0);
+
+    private final int everyNth;
+    private final int maxPktsPerSecond;
+    private final int snapLength;
+
+    /**
+     * @param everyNth keep one packet out of everyNth
+     * @param maxPktsPerSecond packets kept per second of capture time on each port
+     * @param snapLength bytes kept of each packet
+     */
+    public CaptureSampling(final int everyNth, final int maxPktsPerSecond, final int snapLength) {
+        this.everyNth = everyNth;
+        this.maxPktsPerSecond = maxPktsPerSecond;
+        this.snapLength = snapLength;
+    }
+
+    public int getEveryNth() {
+        return everyNth;
+    }
+
+    public int getMaxPktsPerSecond() {
+        return maxPktsPerSecond;
+    }
+
+    public int getSnapLength() {
+        return snapLength;
+    }
+
+    public boolean isEnabled() {
+        return everyNth > 1 || maxPktsPerSecond > 0 || snapLength > 0;
+    }
+}
@@ -1,147 +1,88 @@
 package com.cisco.trex.stl.gui.models;
 
-import javafx.beans.property.IntegerProperty;
-import javafx.beans.property.SimpleIntegerProperty;
-import javafx.beans.property.SimpleStringProperty;
-import javafx.beans.property.StringProperty;
+import com.cisco.trex.stl.gui.util.PktSummaryDissector;
 
 import java.text.DecimalFormat;
 
+/**
+ * Row of the capture monitor table, a view on a row of {@link CapturedPktRingBuffer}.
+ * Source, destination and info are formatted from the packet bytes on each call.
+ */
 public class CapturedPktModel {
-    private IntegerProperty number = new SimpleIntegerProperty();
-    private IntegerProperty port = new SimpleIntegerProperty();
-    private StringProperty mode = new SimpleStringProperty();
-    private StringProperty time = new SimpleStringProperty();
-    private StringProperty dst = new SimpleStringProperty();
-    private StringProperty src = new SimpleStringProperty();
-    private StringProperty type = new SimpleStringProperty();
-    private IntegerProperty length = new SimpleIntegerProperty();
-    private StringProperty info = new SimpleStringProperty();
-    private byte[] bytes;
     private static DecimalFormat decimalFormatter = new DecimalFormat("####.##");
-    
-    public CapturedPktModel(Integer number, Integer port, String mode, Double time, String dst, String src, String type, Integer length, String info, byte[] bytes) {
-        this.number.set(number);
-        this.port.set(port);
-        this.mode.set(mode);
-        this.time.set(decimalFormatter.format(time)+" s.");
-        this.dst.set(dst);
-        this.src.set(src);
-        this.type.set(type);
-        this.length.set(length);
-        this.info.set(info);
-        this.bytes = bytes; 
-    }
 
-    public byte[] getBytes() {
-        return bytes;
-    }
-    
-    public int getNumber() {
-        return number.get();
-    }
+    private final CapturedPktRingBuffer buffer;
+    private final long rowId;
 
-    public IntegerProperty numberProperty() {
-        return number;
+    CapturedPktModel(CapturedPktRingBuffer buffer, long rowId) {
+        this.buffer = buffer;
+        this.rowId = rowId;
     }
 
-    public void setNumber(int number) {
-        this.number.set(number);
-    }
-
-    public int getPort() {
-        return port.get();
+    /**
+     * @return packet bytes or null if the packet is no longer stored
+     */
+    public byte[] getBytes() {
+        return buffer.getBytes(rowId);
     }
 
-    public IntegerProperty portProperty() {
-        return port;
+    public int getNumber() {
+        return buffer.getNumber(rowId);
     }
 
-    public void setPort(int port) {
-        this.port.set(port);
+    public int getPort() {
+        return buffer.getPort(rowId);
     }
 
     public String getMode() {
-        return mode.get();
-    }
-
-    public StringProperty modeProperty() {
-        return mode;
-    }
-
-    public void setMode(String mode) {
-        this.mode.set(mode);
+        return buffer.getMode(rowId);
     }
 
     public String getTime() {
-        return time.get();
-    }
-
-    public StringProperty timeProperty() {
-        return time;
-    }
-
-    public void setTime(double time) {
-        this.time.set(String.format("%f", time));
+        return decimalFormatter.format(buffer.getTime(rowId)) + " s.";
     }
 
     public String getDst() {
-        return dst.get();
-    }
-
-    public StringProperty dstProperty() {
-        return dst;
-    }
-
-    public void setdst(String dst) {
-        this.dst.set(dst);
-    }
-
-    public String getsrc() {
-        return src.get();
-    }
-
-    public StringProperty srcProperty() {
-        return src;
+        final byte[] bytes = getBytes();
+        return bytes == null ? "" : PktSummaryDissector.getDst(bytes, buffer.getSummary(rowId));
     }
 
-    public void setSrc(String src) {
-        this.src.set(src);
+    public String getSrc() {
+        final byte[] bytes = getBytes();
+        return bytes == null ? "" : PktSummaryDissector.getSrc(bytes, buffer.getSummary(rowId));
     }
 
     public String getType() {
-        return type.get();
-    }
-
-    public StringProperty typeProperty() {
-        return type;
-    }
-
-    public void setType(String type) {
-        this.type.set(type);
+        final long summary = buffer.getSummary(rowId);
+        return summary == PktSummaryDissector.INVALID ? "" : PktSummaryDissector.getType(summary);
     }
 
+    /**
+     * @return length of the captured packet, the stored bytes may be truncated
+     */
     public int getLength() {
-        return length.get();
-    }
-
-    public IntegerProperty lengthProperty() {
-        return length;
-    }
-
-    public void setLength(int length) {
-        this.length.set(length);
+        return buffer.getLength(rowId);
     }
 
     public String getInfo() {
-        return info.get();
+        final byte[] bytes = getBytes();
+        return bytes == null ? "" : PktSummaryDissector.getInfo(bytes, buffer.getSummary(rowId));
     }
 
-    public StringProperty infoProperty() {
-        return info;
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CapturedPktModel)) {
+            return false;
+        }
+        CapturedPktModel that = (CapturedPktModel) o;
+        return buffer == that.buffer && rowId == that.rowId;
     }
 
-    public void setInfo(String info) {
-        this.info.set(info);
+    @Override
+    public int hashCode() {
+        return Long.hashCode(rowId);
     }
 }
@@ -0,0 +1,268 @@
+package com.cisco.trex.stl.gui.models;
+
+import com.cisco.trex.stl.gui.util.PktSummaryDissector;
+import javafx.collections.ObservableListBase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bounded list of captured packet rows backing the monitor table.
+ * <p>
+ * Rows are stored in columns of primitives and the packet bytes share one
+ * circular byte array. The oldest rows are evicted once either the row or the
+ * byte capacity is reached. Elements are light views on a row, addressed by a
+ * row id which stays valid until the row is evicted.
+ * Must be used from the FX thread, except {@link Batch} which is filled by the
+ * decoding threads.
+ */
+public class CapturedPktRingBuffer extends ObservableListBase<CapturedPktModel> {
+    private final int[] numbers;
+    private final int[] ports;
+    private final String[] modes;
+    private final double[] times;
+    private final long[] summaries;
+    private final long[] dataPositions;
+    private final int[] lengths;
+    private final int[] originalLengths;
+    private final byte[] data;
+
+    // total number of bytes ever written to data
+    private long dataEnd = 0;
+    private long firstRowId = 0;
+    private int head = 0;
+    private int size = 0;
+
+    public CapturedPktRingBuffer(final int capacity, final int dataCapacity) {
+        numbers = new int[capacity];
+        ports = new int[capacity];
+        modes = new String[capacity];
+        times = new double[capacity];
+        summaries = new long[capacity];
+        dataPositions = new long[capacity];
+        lengths = new int[capacity];
+        originalLengths = new int[capacity];
+        data = new byte[dataCapacity];
+    }
+
+    public int getCapacity() {
+        return numbers.length;
+    }
+
+    @Override
+    public CapturedPktModel get(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Row " + index + " of " + size);
+        }
+        return new CapturedPktModel(this, firstRowId + index);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Append decoded packets, evicting the oldest rows when the buffer is full
+     *
+     * @return number of rows evicted or not stored
+     */
+    public int append(final List<Batch> batches) {
+        final List<CapturedPktModel> removed = new ArrayList<>();
+        int added = 0;
+        int dropped = 0;
+
+        beginChange();
+        try {
+            for (Batch batch : batches) {
+                for (int i = 0; i < batch.size; i++) {
+                    final byte[] pkt = batch.pkts[i];
+                    if (pkt.length > data.length) {
+                        dropped++;
+                        continue;
+                    }
+                    while (size == numbers.length || (size > 0 && dataEnd + pkt.length - dataPositions[head] > data.length)) {
+                        // rows appended by this call are only reported once they survive it
+                        if (size > added) {
+                            removed.add(new CapturedPktModel(this, firstRowId));
+                        } else {
+                            added--;
+                        }
+                        evictFirst();
+                        dropped++;
+                    }
+                    final int slot = (head + size) % numbers.length;
+                    numbers[slot] = batch.numbers[i];
+                    ports[slot] = batch.ports[i];
+                    modes[slot] = batch.modes[i];
+                    times[slot] = batch.times[i];
+                    summaries[slot] = batch.summaries[i];
+                    lengths[slot] = pkt.length;
+                    originalLengths[slot] = batch.originalLengths[i];
+                    dataPositions[slot] = dataEnd;
+                    writeData(pkt);
+                    size++;
+                    added++;
+                }
+            }
+            if (!removed.isEmpty()) {
+                nextRemove(0, removed);
+            }
+            if (added > 0) {
+                nextAdd(size - added, size);
+            }
+        } finally {
+            endChange();
+        }
+        return dropped;
+    }
+
+    /**
+     * Keep only the latest rows
+     */
+    public void retainLast(final int count) {
+        if (size <= count) {
+            return;
+        }
+        final List<CapturedPktModel> removed = new ArrayList<>(size - count);
+        beginChange();
+        try {
+            while (size > count) {
+                removed.add(new CapturedPktModel(this, firstRowId));
+                evictFirst();
+            }
+            nextRemove(0, removed);
+        } finally {
+            endChange();
+        }
+    }
+
+    @Override
+    public void clear() {
+        retainLast(0);
+    }
+
+    private void evictFirst() {
+        modes[head] = null;
+        head = (head + 1) % numbers.length;
+        firstRowId++;
+        size--;
+    }
+
+    private void writeData(final byte[] pkt) {
+        final int position = (int) (dataEnd % data.length);
+        final int first = Math.min(pkt.length, data.length - position);
+        System.arraycopy(pkt, 0, data, position, first);
+        System.arraycopy(pkt, first, data, 0, pkt.length - first);
+        dataEnd += pkt.length;
+    }
+
+    /**
+     * @return slot of the row or -1 if the row was evicted
+     */
+    private int slot(final long rowId) {
+        if (rowId < firstRowId || rowId >= firstRowId + size) {
+            return -1;
+        }
+        return (int) ((head + (rowId - firstRowId)) % numbers.length);
+    }
+
+    int getNumber(final long rowId) {
+        final int slot = slot(rowId);
+        return slot < 0 ? 0 : numbers[slot];
+    }
+
+    int getPort(final long rowId) {
+        final int slot = slot(rowId);
+        return slot < 0 ? 0 : ports[slot];
+    }
+
+    String getMode(final long rowId) {
+        final int slot = slot(rowId);
+        return slot < 0 ? "" : modes[slot];
+    }
+
+    double getTime(final long rowId) {
+        final int slot = slot(rowId);
+        return slot < 0 ? 0 : times[slot];
+    }
+
+    int getLength(final long rowId) {
+        final int slot = slot(rowId);
+        return slot < 0 ? 0 : originalLengths[slot];
+    }
+
+    long getSummary(final long rowId) {
+        final int slot = slot(rowId);
+        return slot < 0 ? PktSummaryDissector.INVALID : summaries[slot];
+    }
+
+    /**
+     * @return copy of the packet bytes or null if the row was evicted
+     */
+    byte[] getBytes(final long rowId) {
+        final int slot = slot(rowId);
+        if (slot < 0) {
+            return null;
+        }
+        final byte[] pkt = new byte[lengths[slot]];
+        final int position = (int) (dataPositions[slot] % data.length);
+        final int first = Math.min(pkt.length, data.length - position);
+        System.arraycopy(data, position, pkt, 0, first);
+        System.arraycopy(data, 0, pkt, first, pkt.length - first);
+        return pkt;
+    }
+
+    /**
+     * Packets decoded off the FX thread, waiting to be appended
+     */
+    public static class Batch {
+        private final int[] numbers;
+        private final int[] ports;
+        private final String[] modes;
+        private final double[] times;
+        private final long[] summaries;
+        private final byte[][] pkts;
+        private final int[] originalLengths;
+        private int size = 0;
+
+        public Batch(final int capacity) {
+            numbers = new int[capacity];
+            ports = new int[capacity];
+            modes = new String[capacity];
+            times = new double[capacity];
+            summaries = new long[capacity];
+            pkts = new byte[capacity][];
+            originalLengths = new int[capacity];
+        }
+
+        /**
+         * Add packet, frames which can't be dissected are skipped
+         *
+         * @param pkt packet bytes, possibly truncated
+         * @param originalLength length of the captured packet
+         */
+        public void add(final int number, final int port, final String mode, final double time, final byte[] pkt, final int originalLength) {
+            final long summary = PktSummaryDissector.dissect(pkt);
+            if (summary == PktSummaryDissector.INVALID) {
+                return;
+            }
+            numbers[size] = number;
+            ports[size] = port;
+            modes[size] = mode;
+            times[size] = time;
+            summaries[size] = summary;
+            pkts[size] = pkt;
+            originalLengths[size] = originalLength;
+            size++;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public int getLastNumber() {
+            return numbers[size - 1];
+        }
+    }
+}
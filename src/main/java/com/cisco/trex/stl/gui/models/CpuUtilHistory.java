@@ -0,0 +1,27 @@
+package com.cisco.trex.stl.gui.models;
+
+import com.exalttech.trex.util.ColumnarHistory;
+
+
+public class CpuUtilHistory extends ColumnarHistory {
+    private static final int VALUE = 0;
+    private static final int TIME = 0;
+
+    public CpuUtilHistory(final int historyLength) {
+        super(historyLength, 1, 1);
+    }
+
+    public void add(final int value, final double time) {
+        final int slot = append();
+        setLong(VALUE, slot, value);
+        setDouble(TIME, slot, time);
+    }
+
+    public long getValue(final int index) {
+        return getLong(VALUE, index);
+    }
+
+    public double getTime(final int index) {
+        return getDouble(TIME, index);
+    }
+}
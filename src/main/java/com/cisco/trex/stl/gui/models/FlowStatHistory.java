@@ -0,0 +1,111 @@
+package com.cisco.trex.stl.gui.models;
+
+import com.cisco.trex.stateless.model.stats.FlowStat;
+import com.exalttech.trex.util.ColumnarHistory;
+
+import java.util.Map;
+
+
+public class FlowStatHistory extends ColumnarHistory {
+    private static final int TP = 0;
+    private static final int RP = 1;
+    private static final int TB = 2;
+    private static final int RB = 3;
+    private static final int LONG_COLUMNS = 4;
+
+    private static final int TIME = 0;
+    private static final int TPS = 1;
+    private static final int RPS = 2;
+    private static final int TBS_L2 = 3;
+    private static final int RBS_L2 = 4;
+    private static final int DOUBLE_COLUMNS = 5;
+
+    public FlowStatHistory(final int historyLength) {
+        super(historyLength, LONG_COLUMNS, DOUBLE_COLUMNS);
+    }
+
+    public void add(final FlowStat flowStat, final double time) {
+        final int slot = append();
+        setLong(TP, slot, sumLong(flowStat.getTp()));
+        setLong(RP, slot, sumLong(flowStat.getRp()));
+        setLong(TB, slot, sumLong(flowStat.getTb()));
+        setLong(RB, slot, sumLong(flowStat.getRb()));
+        setDouble(TIME, slot, time);
+        setDouble(TPS, slot, sumDouble(flowStat.getTps()));
+        setDouble(RPS, slot, sumDouble(flowStat.getRps()));
+        setDouble(TBS_L2, slot, sumDouble(flowStat.getTbs()));
+        setDouble(RBS_L2, slot, sumDouble(flowStat.getRbs()));
+    }
+
+    public long getTp(final int index) {
+        return getLong(TP, index);
+    }
+
+    public long getRp(final int index) {
+        return getLong(RP, index);
+    }
+
+    public long getTb(final int index) {
+        return getLong(TB, index);
+    }
+
+    public long getRb(final int index) {
+        return getLong(RB, index);
+    }
+
+    public double getTime(final int index) {
+        return getDouble(TIME, index);
+    }
+
+    public double getTps(final int index) {
+        return getDouble(TPS, index);
+    }
+
+    public double getRps(final int index) {
+        return getDouble(RPS, index);
+    }
+
+    public double getTbsL2(final int index) {
+        return getDouble(TBS_L2, index);
+    }
+
+    public double getRbsL2(final int index) {
+        return getDouble(RBS_L2, index);
+    }
+
+    public double getTbsL1(final int index) {
+        return getTbsL2(index) + 20 * getTps(index) * 8;
+    }
+
+    public double getRbsL1(final int index) {
+        return getRbsL2(index) + 20 * getRps(index) * 8;
+    }
+
+    /**
+     * @param index
+     * @return counters of the sample, to be kept as reset point
+     */
+    public FlowStatPoint getPoint(final int index) {
+        return new FlowStatPoint(getTp(index), getRp(index), getTb(index), getRb(index));
+    }
+
+    private static long sumLong(final Map<String, Long> values) {
+        long sum = 0;
+        if (values != null) {
+            for (final Long value : values.values()) {
+                sum += value;
+            }
+        }
+        return sum;
+    }
+
+    private static double sumDouble(final Map<String, Double> values) {
+        double sum = 0;
+        if (values != null) {
+            for (final Double value : values.values()) {
+                sum += value;
+            }
+        }
+        return sum;
+    }
+}
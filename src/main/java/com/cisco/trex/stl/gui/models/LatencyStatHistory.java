@@ -0,0 +1,63 @@
+package com.cisco.trex.stl.gui.models;
+
+import com.cisco.trex.stateless.model.stats.LatencyStat;
+import com.exalttech.trex.util.ColumnarHistory;
+
+
+public class LatencyStatHistory extends ColumnarHistory {
+    private static final int TOTAL_MAX = 0;
+    private static final int LAST_MAX = 1;
+    private static final int JITTER = 2;
+    private static final int LONG_COLUMNS = 3;
+
+    private static final int TIME = 0;
+    private static final int AVERAGE = 1;
+    private static final int DOUBLE_COLUMNS = 2;
+
+    // only the newest sample keeps its histogram and error counters
+    private LatencyStat lastLatencyStat;
+
+    public LatencyStatHistory(final int historyLength) {
+        super(historyLength, LONG_COLUMNS, DOUBLE_COLUMNS);
+    }
+
+    public void add(final LatencyStat latencyStat, final double time) {
+        final int slot = append();
+        setLong(TOTAL_MAX, slot, latencyStat.getLat().getTotalMax());
+        setLong(LAST_MAX, slot, latencyStat.getLat().getLastMax());
+        setLong(JITTER, slot, latencyStat.getLat().getJit());
+        setDouble(TIME, slot, time);
+        setDouble(AVERAGE, slot, latencyStat.getLat().getAverage());
+        lastLatencyStat = latencyStat;
+    }
+
+    public long getTotalMax(final int index) {
+        return getLong(TOTAL_MAX, index);
+    }
+
+    public long getLastMax(final int index) {
+        return getLong(LAST_MAX, index);
+    }
+
+    public long getJitter(final int index) {
+        return getLong(JITTER, index);
+    }
+
+    public double getTime(final int index) {
+        return getDouble(TIME, index);
+    }
+
+    public double getAverage(final int index) {
+        return getDouble(AVERAGE, index);
+    }
+
+    public LatencyStat getLastLatencyStat() {
+        return lastLatencyStat;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        lastLatencyStat = null;
+    }
+}
@@ -17,8 +17,14 @@ import java.util.stream.Collectors;
 
 public class PktCaptureService extends ScheduledService<CapturedPackets> {
     private static Logger LOG = Logger.getLogger(PktCaptureService.class);
-    
-    private int currentActiveMonitorId = 0;
+
+    private static final int MIN_CHUNK_SIZE = 10;
+    private static final int MAX_CHUNK_SIZE = 1000;
+    private static final long IDLE_INTERVAL_MS = 100;
+
+    private volatile int currentActiveMonitorId = 0;
+
+    private volatile int chunkSize = MIN_CHUNK_SIZE;
     
     private TRexClient tRexClient = ConnectionManager.getInstance().getTrexClient();
     
@@ -31,10 +37,19 @@ public class PktCaptureService extends ScheduledService<CapturedPackets> {
                     return null;
                 }
                 try {
-                    return fetchCapturedPkts(currentActiveMonitorId, 10);
+                    CapturedPackets capturedPackets = fetchCapturedPkts(currentActiveMonitorId, chunkSize);
+                    // size the next chunk by what is still queued on the server
+                    int pending = capturedPackets.getPendingPkts();
+                    chunkSize = Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, pending));
+                    if (capturedPackets.getPkts().isEmpty() && pending == 0) {
+                        Thread.sleep(IDLE_INTERVAL_MS);
+                    }
+                    return capturedPackets;
                 } catch (PktCaptureServiceException e) {
                     LOG.error("Unable to fetch pkts from monitor.", e);
                     return null;
+                } catch (InterruptedException e) {
+                    return null;
                 }
             }
         };
@@ -53,6 +68,7 @@ public class PktCaptureService extends ScheduledService<CapturedPackets> {
         guardNotFailed(result);
         int captureId = result.get().getCaptureId();
         if (serviceEnable) {
+            chunkSize = MIN_CHUNK_SIZE;
             currentActiveMonitorId = captureId;
             start();
         }
@@ -68,6 +84,7 @@ public class PktCaptureService extends ScheduledService<CapturedPackets> {
         TRexClientResult<CaptureMonitor> result = tRexClient.captureMonitorStart(rx, tx, filter);
         guardNotFailed(result);
         int captureId = result.get().getCaptureId();
+        chunkSize = MIN_CHUNK_SIZE;
         currentActiveMonitorId = captureId;
         return captureId;
     }
@@ -0,0 +1,94 @@
+package com.cisco.trex.stl.gui.services.capture;
+
+import com.cisco.trex.stateless.model.capture.CapturedPkt;
+import com.cisco.trex.stl.gui.models.CaptureSampling;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Applies {@link CaptureSampling} to fetched packets before they are decoded.
+ * Rate limits use the capture timestamps, so the kept packets are spread over
+ * the capture time rather than over the fetch time.
+ * Not thread safe.
+ */
+public class PktSampler {
+    private final CaptureSampling sampling;
+    private final Base64.Decoder decoder = Base64.getDecoder();
+
+    private long seenPkts = 0;
+    // port -> {second of capture time, packets kept in that second}
+    private final Map<Integer, long[]> portWindows = new HashMap<>();
+
+    public PktSampler(final CaptureSampling sampling) {
+        this.sampling = sampling;
+    }
+
+    public CaptureSampling getSampling() {
+        return sampling;
+    }
+
+    /**
+     * @return packets kept by the sampling, in fetch order
+     */
+    public List<CapturedPkt> sample(final List<CapturedPkt> pkts) {
+        if (sampling.getEveryNth() <= 1 && sampling.getMaxPktsPerSecond() <= 0) {
+            return pkts;
+        }
+        final List<CapturedPkt> sampled = new ArrayList<>(pkts.size());
+        for (CapturedPkt pkt : pkts) {
+            if (accept(pkt)) {
+                sampled.add(pkt);
+            }
+        }
+        return sampled;
+    }
+
+    private boolean accept(final CapturedPkt pkt) {
+        if (sampling.getEveryNth() > 1 && seenPkts++ % sampling.getEveryNth() != 0) {
+            return false;
+        }
+        if (sampling.getMaxPktsPerSecond() > 0) {
+            final long second = (long) Math.floor(pkt.getTimeStamp());
+            final long[] window = portWindows.computeIfAbsent(pkt.getPort(), port -> new long[]{second, 0});
+            if (window[0] != second) {
+                window[0] = second;
+                window[1] = 0;
+            }
+            if (window[1] >= sampling.getMaxPktsPerSecond()) {
+                return false;
+            }
+            window[1]++;
+        }
+        return true;
+    }
+
+    /**
+     * Decode packet bytes, only the first snap length bytes are decoded
+     */
+    public byte[] decode(final String binary) {
+        final int snapLength = sampling.getSnapLength();
+        if (snapLength <= 0 || getDecodedLength(binary) <= snapLength) {
+            return decoder.decode(binary);
+        }
+        // every 4 Base64 characters hold 3 bytes
+        final int chars = (snapLength + 2) / 3 * 4;
+        final byte[] decoded = decoder.decode(binary.substring(0, chars));
+        return decoded.length == snapLength ? decoded : Arrays.copyOf(decoded, snapLength);
+    }
+
+    /**
+     * @return length of the Base64 encoded packet
+     */
+    public static int getDecodedLength(final String binary) {
+        int padding = 0;
+        for (int i = binary.length() - 1; i >= 0 && binary.charAt(i) == '='; i--) {
+            padding++;
+        }
+        return binary.length() / 4 * 3 - padding;
+    }
+}
@@ -1,109 +1,162 @@
 package com.cisco.trex.stl.gui.services.capture;
 
 import com.cisco.trex.stateless.model.capture.CapturedPackets;
+import com.cisco.trex.stateless.model.capture.CapturedPkt;
+import com.exalttech.trex.util.files.PcapFileReader;
+import com.exalttech.trex.util.files.PcapFileWriter;
+import com.sun.jna.Library;
+import com.sun.jna.Native;
 import org.apache.log4j.Logger;
-import org.pcap4j.core.*;
-import org.pcap4j.packet.EthernetPacket;
-import org.pcap4j.packet.IllegalRawDataException;
-import org.pcap4j.packet.namednumber.DataLinkType;
 
-import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.Base64;
 
 public class UnixPktDumpService implements PktDumpService {
 
     private static Logger LOG = Logger.getLogger(UnixPktDumpService.class);
 
+    // flush the buffered records once either budget is exceeded
+    private static final long FLUSH_INTERVAL_MS = 100;
+    private static final int FLUSH_BYTES = 256 * 1024;
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    // a flush blocked longer than this means Wireshark doesn't keep up
+    private static final long BACKPRESSURE_THRESHOLD_MS = 50;
+    private static final long BACKPRESSURE_REPORT_INTERVAL_MS = 5000;
+
     private final String pipeName = "/var/tmp/WiresharkPipe_" + System.currentTimeMillis();
 
     private Process wiresharkProcess;
 
     private boolean initalized = false;
 
-    private boolean globalHeaderWrote = false;
+    private PcapFileWriter writer;
+
+    private long lastFlushTime;
+
+    private long flushedBytes;
+
+    private long blockedMillis;
 
-    PcapHandle handle;
+    private long lastBackpressureReport;
 
-    PcapDumper dumper;
     private Base64.Decoder decoder = Base64.getDecoder();
 
+    private interface CLibrary extends Library {
+        int mkfifo(String path, int mode);
+    }
+
     @Override
     public Process init(String wireSharkExecPath) throws PktDumpServiceInitException {
         createPipe();
         try {
             wiresharkProcess = new ProcessBuilder(new String[]{wireSharkExecPath, "-k", "-i", pipeName}).start();
-            handle = Pcaps.openDead(DataLinkType.EN10MB, 65536);
-            dumper = handle.dumpOpen(pipeName);
+            // blocks until Wireshark opens the pipe for reading
+            writer = new PcapFileWriter(new FileOutputStream(pipeName),
+                                        PcapFileReader.LINKTYPE_ETHERNET,
+                                        PcapFileWriter.DEFAULT_SNAP_LENGTH,
+                                        BUFFER_SIZE);
+            lastFlushTime = System.currentTimeMillis();
             initalized = true;
             return wiresharkProcess;
         } catch (IOException e) {
             LOG.error("Unable to start WireShark", e);
+            if (wiresharkProcess != null) {
+                wiresharkProcess.destroy();
+            }
             destroyPipe();
             throw new PktDumpServiceInitException(e.getMessage());
-        } catch (PcapNativeException | NotOpenException e) {
-            LOG.error("Unable to create dumper or open handler.", e );
-            throw new PktDumpServiceInitException(e.getMessage());
         }
     }
 
     @Override
     public void dump(CapturedPackets capturedPkts) throws PktDumpServiceException {
-        capturedPkts.getPkts().stream()
-                .map(capturedPkt -> toEtherPkt(decoder.decode(capturedPkt.getBinary())))
-                .forEach(ethPkt -> {
-                    try {
-                        dumper.dump(ethPkt);
-                        dumper.flush();
-                    } catch (NotOpenException | PcapNativeException e) {
-                        LOG.error("Unable to dump pkt.", e);
-                    }
-                });
-    }
-    private EthernetPacket toEtherPkt(byte[] pkt) {
-        EthernetPacket ethPkt = null;
+        if (!initalized) {
+            throw new PktDumpServiceException("Service is not initialized yet.");
+        }
         try {
-            ethPkt = EthernetPacket.newPacket(pkt, 0, pkt.length);
-        } catch (IllegalRawDataException e) {
-            LOG.error("Save PCAP. Unable to parse pkt from server.", e);
-            return null;
+            for (CapturedPkt pkt : capturedPkts.getPkts()) {
+                try {
+                    writer.write(decoder.decode(pkt.getBinary()), PcapFileWriter.toNanos(pkt.getTimeStamp()));
+                } catch (IllegalArgumentException e) {
+                    LOG.error("Unable to decode pkt from server.", e);
+                }
+            }
+            long now = System.currentTimeMillis();
+            long unflushedBytes = writer.getBytesWritten() - flushedBytes;
+            if (unflushedBytes >= FLUSH_BYTES || (unflushedBytes > 0 && now - lastFlushTime >= FLUSH_INTERVAL_MS)) {
+                flush(now);
+            }
+        } catch (IOException e) {
+            throw new PktDumpServiceException("Unable to write pkts to the pipe: " + e.getMessage());
+        }
+    }
+
+    private void flush(long startTime) throws IOException {
+        writer.flush();
+        long now = System.currentTimeMillis();
+        flushedBytes = writer.getBytesWritten();
+        lastFlushTime = now;
+
+        long blocked = now - startTime;
+        if (blocked >= BACKPRESSURE_THRESHOLD_MS) {
+            blockedMillis += blocked;
+            if (now - lastBackpressureReport >= BACKPRESSURE_REPORT_INTERVAL_MS) {
+                LOG.warn(String.format("Wireshark reads slower than packets are captured, writing to the pipe blocked for %d ms in total", blockedMillis));
+                lastBackpressureReport = now;
+            }
         }
-        return ethPkt;
     }
+
     @Override
     public void close() {
         if(!initalized) {
             return;
         }
-        dumper.close();
-        handle.close();
+        try {
+            writer.close();
+        } catch (IOException e) {
+            LOG.debug("Unable to close the pipe: " + e.getMessage());
+        }
         wiresharkProcess.destroy();
         destroyPipe();
         initalized = false;
     }
 
     private void destroyPipe() {
-        String[] command = new String[] {"unlink", pipeName};
         try {
-            Process unlink = new ProcessBuilder(command).inheritIO().start();
-            unlink.waitFor();
-        } catch (InterruptedException | IOException e) {
+            Files.deleteIfExists(Paths.get(pipeName));
+        } catch (IOException e) {
             LOG.error("Unable to delete a pipe due to: " + e.getMessage(), e);
-            return;
         }
     }
 
     private void createPipe() throws PktDumpServiceInitException {
-        File fifo = new File(pipeName);
-        if (!fifo.exists()) {
-            String[] command = new String[] {"mkfifo", pipeName};
-            try {
-                Process mkfifo = new ProcessBuilder(command).inheritIO().start();
-                mkfifo.waitFor();
-            } catch (InterruptedException | IOException e) {
-                LOG.error("Unable to create a pipe due to: " + e.getMessage(), e);
-                return;
-            }
+        if (Files.exists(Paths.get(pipeName))) {
+            return;
+        }
+        int result;
+        try {
+            CLibrary libc = (CLibrary) Native.loadLibrary("c", CLibrary.class);
+            result = libc.mkfifo(pipeName, 0600);
+        } catch (UnsatisfiedLinkError e) {
+            LOG.warn("Unable to call mkfifo from libc, running mkfifo command instead.", e);
+            result = runMkfifo();
+        }
+        if (result != 0 || !Files.exists(Paths.get(pipeName))) {
+            throw new PktDumpServiceInitException("Unable to create a pipe: " + pipeName);
+        }
+    }
+
+    private int runMkfifo() {
+        try {
+            return new ProcessBuilder("mkfifo", pipeName).inheritIO().start().waitFor();
+        } catch (InterruptedException | IOException e) {
+            LOG.error("Unable to create a pipe due to: " + e.getMessage(), e);
+            return -1;
         }
     }
 }
@@ -3,10 +3,10 @@ package com.cisco.trex.stl.gui.storages;
 import com.cisco.trex.stateless.model.stats.FlowStat;
 import com.cisco.trex.stateless.model.stats.LatencyStat;
 import com.cisco.trex.stateless.model.stats.PGIdStatsRPCResult;
+import com.cisco.trex.stl.gui.models.FlowStatHistory;
 import com.cisco.trex.stl.gui.models.FlowStatPoint;
-import com.cisco.trex.stl.gui.models.LatencyStatPoint;
+import com.cisco.trex.stl.gui.models.LatencyStatHistory;
 import com.cisco.trex.stl.gui.services.PGIDStatsService;
-import com.exalttech.trex.util.ArrayHistory;
 import javafx.concurrent.WorkerStateEvent;
 import javafx.util.Duration;
 
@@ -25,13 +25,13 @@ public class PGIDStatsStorage {
 
     private final Object dataLock = new Object();
 
-    private final Map<Integer, ArrayHistory<FlowStatPoint>> flowStatPointHistoryMap = new HashMap<>();
+    private final Map<Integer, FlowStatHistory> flowStatHistoryMap = new HashMap<>();
     private final Set<Integer> stoppedPGIds = new HashSet<>();
     private final Map<Integer, FlowStatPoint> flowStatPointShadowMap = new HashMap<>();
 
-    private final Map<Integer, ArrayHistory<LatencyStatPoint>> latencyStatPointHistoryMap = new HashMap<>();
+    private final Map<Integer, LatencyStatHistory> latencyStatHistoryMap = new HashMap<>();
     private final Map<Integer, Long> maxLatencyMap = new HashMap<>();
-    private final Map<Integer, LatencyStatPoint> latencyStatPointShadowMap = new HashMap<>();
+    private final Map<Integer, LatencyStat> latencyStatShadowMap = new HashMap<>();
     private String[] histogramKeys = new String[0];
 
     private Map<String, Integer> lastVerId = new HashMap<>();
@@ -42,8 +42,8 @@ public class PGIDStatsStorage {
         return dataLock;
     }
 
-    public Map<Integer, ArrayHistory<FlowStatPoint>> getFlowStatPointHistoryMap() {
-        return flowStatPointHistoryMap;
+    public Map<Integer, FlowStatHistory> getFlowStatHistoryMap() {
+        return flowStatHistoryMap;
     }
 
     public Set<Integer> getStoppedPGIds() {
@@ -54,16 +54,16 @@ public class PGIDStatsStorage {
         return flowStatPointShadowMap;
     }
 
-    public Map<Integer, ArrayHistory<LatencyStatPoint>> getLatencyStatPointHistoryMap() {
-        return latencyStatPointHistoryMap;
+    public Map<Integer, LatencyStatHistory> getLatencyStatHistoryMap() {
+        return latencyStatHistoryMap;
     }
 
     public Map<Integer, Long> getMaxLatencyMap() {
         return maxLatencyMap;
     }
 
-    public Map<Integer, LatencyStatPoint> getLatencyStatPointShadowMap() {
-        return latencyStatPointShadowMap;
+    public Map<Integer, LatencyStat> getLatencyStatShadowMap() {
+        return latencyStatShadowMap;
     }
 
     public String[] getHistogramKeys(final int size) {
@@ -177,7 +177,7 @@ public class PGIDStatsStorage {
             final Map<String, Integer> verId,
             final double time
     ) {
-        final Set<Integer> unvisitedStreams = new HashSet<>(flowStatPointHistoryMap.keySet());
+        final Set<Integer> unvisitedStreams = new HashSet<>(flowStatHistoryMap.keySet());
 
         flowStatMap.forEach((final String pgID, final FlowStat flowStat) -> {
             int intPGID;
@@ -189,49 +189,55 @@ public class PGIDStatsStorage {
 
             unvisitedStreams.remove(intPGID);
 
-            final FlowStatPoint statsFlowHistoryPoint = new FlowStatPoint(flowStat, time);
-            ArrayHistory<FlowStatPoint> history = flowStatPointHistoryMap.get(intPGID);
+            FlowStatHistory history = flowStatHistoryMap.get(intPGID);
+            boolean checkStopped = false;
+            long previousTp = 0;
             if (history == null) {
-                history = new ArrayHistory<>(HISTORY_SIZE);
-                flowStatPointHistoryMap.put(intPGID, history);
+                history = new FlowStatHistory(HISTORY_SIZE);
+                flowStatHistoryMap.put(intPGID, history);
             } else if (!verId.get(pgID).equals(lastVerId.get(pgID))) {
                 history.clear();
                 stoppedPGIds.remove(intPGID);
                 flowStatPointShadowMap.remove(intPGID);
             } else if (!history.isEmpty()) {
-                final FlowStatPoint last = history.last();
-                if (last.getTp() == statsFlowHistoryPoint.getTp()) {
+                checkStopped = true;
+                previousTp = history.getTp(history.lastIndex());
+            }
+            history.add(flowStat, time);
+
+            final int last = history.lastIndex();
+            if (checkStopped) {
+                if (previousTp == history.getTp(last)) {
                     stoppedPGIds.add(intPGID);
                 } else {
                     stoppedPGIds.remove(intPGID);
                 }
             }
-            history.add(statsFlowHistoryPoint);
 
-            flowStatPointShadowMap.putIfAbsent(intPGID, statsFlowHistoryPoint);
+            if (!flowStatPointShadowMap.containsKey(intPGID)) {
+                flowStatPointShadowMap.put(intPGID, history.getPoint(last));
+            }
         });
 
         unvisitedStreams.forEach((final Integer pgID) -> {
-            flowStatPointHistoryMap.remove(pgID);
+            flowStatHistoryMap.remove(pgID);
             stoppedPGIds.remove(pgID);
             flowStatPointShadowMap.remove(pgID);
         });
     }
 
     private void clearFlowStats() {
-        flowStatPointHistoryMap.clear();
+        flowStatHistoryMap.clear();
         stoppedPGIds.clear();
         flowStatPointShadowMap.clear();
     }
 
     private void resetFlowStats() {
         flowStatPointShadowMap.clear();
-        flowStatPointHistoryMap.forEach((final Integer pgID, final ArrayHistory<FlowStatPoint> history) -> {
+        flowStatHistoryMap.forEach((final Integer pgID, final FlowStatHistory history) -> {
             if (!history.isEmpty()) {
-                final FlowStatPoint last = history.last();
-                flowStatPointShadowMap.put(pgID, history.last());
-                history.clear();
-                history.add(last);
+                flowStatPointShadowMap.put(pgID, history.getPoint(history.lastIndex()));
+                history.retainLast();
             }
         });
     }
@@ -241,7 +247,7 @@ public class PGIDStatsStorage {
             final Map<String, Integer> verId,
             final double time
     ) {
-        final Set<Integer> unvisitedStreams = new HashSet<>(latencyStatPointHistoryMap.keySet());
+        final Set<Integer> unvisitedStreams = new HashSet<>(latencyStatHistoryMap.keySet());
         final Set<String> histogramKeysSet = new HashSet<>();
 
         latencyStatMap.forEach((final String pgID, final LatencyStat latencyStat) -> {
@@ -254,17 +260,16 @@ public class PGIDStatsStorage {
 
             unvisitedStreams.remove(intPGID);
 
-            final LatencyStatPoint statsFlowHistoryPoint = new LatencyStatPoint(latencyStat, time);
-            ArrayHistory<LatencyStatPoint> history = latencyStatPointHistoryMap.get(intPGID);
+            LatencyStatHistory history = latencyStatHistoryMap.get(intPGID);
             if (history == null) {
-                history = new ArrayHistory<>(HISTORY_SIZE);
-                latencyStatPointHistoryMap.put(intPGID, history);
+                history = new LatencyStatHistory(HISTORY_SIZE);
+                latencyStatHistoryMap.put(intPGID, history);
             } else if (!verId.get(pgID).equals(lastVerId.get(pgID))) {
                 history.clear();
                 maxLatencyMap.remove(intPGID);
-                latencyStatPointShadowMap.remove(intPGID);
+                latencyStatShadowMap.remove(intPGID);
             }
-            history.add(statsFlowHistoryPoint);
+            history.add(latencyStat, time);
 
             final long lastMax = latencyStat.getLat().getLastMax();
             final Long maxLatency = maxLatencyMap.get(intPGID);
@@ -274,7 +279,7 @@ public class PGIDStatsStorage {
 
             histogramKeysSet.addAll(latencyStat.getLat().getHistogram().keySet());
 
-            latencyStatPointShadowMap.putIfAbsent(intPGID, statsFlowHistoryPoint);
+            latencyStatShadowMap.putIfAbsent(intPGID, latencyStat);
         });
 
         histogramKeys = new String[histogramKeysSet.size()];
@@ -282,28 +287,26 @@ public class PGIDStatsStorage {
         Arrays.sort(histogramKeys, PGIDStatsStorage::compareHistogramKeys);
 
         unvisitedStreams.forEach((final Integer pgID) -> {
-            latencyStatPointHistoryMap.remove(pgID);
+            latencyStatHistoryMap.remove(pgID);
             maxLatencyMap.remove(pgID);
-            latencyStatPointShadowMap.remove(pgID);
+            latencyStatShadowMap.remove(pgID);
         });
     }
 
     private void clearLatencyStats() {
-        latencyStatPointHistoryMap.clear();
+        latencyStatHistoryMap.clear();
         maxLatencyMap.clear();
-        latencyStatPointShadowMap.clear();
+        latencyStatShadowMap.clear();
     }
 
     private void resetLatencyStats() {
-        latencyStatPointShadowMap.clear();
+        latencyStatShadowMap.clear();
         maxLatencyMap.clear();
-        latencyStatPointHistoryMap.forEach((final Integer pgID, final ArrayHistory<LatencyStatPoint> history) -> {
+        latencyStatHistoryMap.forEach((final Integer pgID, final LatencyStatHistory history) -> {
             if (!history.isEmpty()) {
-                final LatencyStatPoint last = history.last();
-                maxLatencyMap.put(pgID, last.getLatencyStat().getLat().getLastMax());
-                latencyStatPointShadowMap.put(pgID, last);
-                history.clear();
-                history.add(last);
+                maxLatencyMap.put(pgID, history.getLastMax(history.lastIndex()));
+                latencyStatShadowMap.put(pgID, history.getLastLatencyStat());
+                history.retainLast();
             }
         });
     }
@@ -2,11 +2,10 @@ package com.cisco.trex.stl.gui.storages;
 
 import com.cisco.trex.stateless.model.stats.Utilization;
 import com.cisco.trex.stateless.model.stats.UtilizationCPU;
-import com.cisco.trex.stl.gui.models.CpuUtilStatPoint;
+import com.cisco.trex.stl.gui.models.CpuUtilHistory;
 import com.cisco.trex.stl.gui.models.MemoryUtilizationModel;
 import com.cisco.trex.stl.gui.models.UtilizationCPUModel;
 import com.cisco.trex.stl.gui.services.UtilizationService;
-import com.exalttech.trex.util.ArrayHistory;
 import javafx.concurrent.WorkerStateEvent;
 import javafx.util.Duration;
 
@@ -20,13 +19,14 @@ public class UtilizationStorage {
     private List<UtilizationCPUModel> cpuUtilsModels = new ArrayList<>();
     private List<MemoryUtilizationModel> memUtilsModels = new ArrayList<>();
     private Object utilizationStatsMonitor = new Object();
-    private Map<String, ArrayHistory<CpuUtilStatPoint>> cpuUtilizationHistoryMap = new HashMap<>();
+    private Map<String, CpuUtilHistory> cpuUtilizationHistoryMap = new HashMap<>();
 
     public interface UtilizationChangedListener {
         void utilizationChanged();
     }
 
     private static final Duration POLLING_INTERVAL = Duration.seconds(1);
+    private static final int HISTORY_SIZE = 303;
 
     private final UtilizationService utilizationService = new UtilizationService();
 
@@ -46,7 +46,7 @@ public class UtilizationStorage {
         return cpuUtilsModels;
     }
 
-    public Map<String, ArrayHistory<CpuUtilStatPoint>> getCpuUtilizationHistoryMap() {
+    public Map<String, CpuUtilHistory> getCpuUtilizationHistoryMap() {
         return cpuUtilizationHistoryMap;
     }
 
@@ -108,20 +108,20 @@ public class UtilizationStorage {
                     String key = String.format("Socket %s (%s)", idx, ports);
                     String socketKey = String.format("Socket %s", idx);
                     
-                    Optional<Map.Entry<String, ArrayHistory<CpuUtilStatPoint>>> entryOptional = cpuUtilizationHistoryMap.entrySet()
+                    Optional<Map.Entry<String, CpuUtilHistory>> entryOptional = cpuUtilizationHistoryMap.entrySet()
                                                                                                                  .stream()
                                                                                                                  .filter(entry -> entry.getKey().startsWith(socketKey))
                                                                                                                  .findFirst();
-                    ArrayHistory<CpuUtilStatPoint> history;
+                    CpuUtilHistory history;
                     if (entryOptional.isPresent()) {
                         history = entryOptional.get().getValue();
                         cpuUtilizationHistoryMap.remove(entryOptional.get().getKey());
                     } else {
-                        history = new ArrayHistory<>(303);
+                        history = new CpuUtilHistory(HISTORY_SIZE);
                     }
                     int value = cpuUtilizationStat.getHistory().get(0);
                     double time = System.currentTimeMillis() / 1000.0;
-                    history.add(new CpuUtilStatPoint(value, time));
+                    history.add(value, time);
                     cpuUtilizationHistoryMap.put(key, history);
                     idx++;
                 }
@@ -136,12 +136,6 @@ public class UtilizationStorage {
         handleUtilizationChanged();
     }
 
-    private ArrayHistory<Integer> toArrayHistory(List<Integer> utilizationHistory) {
-        ArrayHistory<Integer> result = new ArrayHistory<>(utilizationHistory.size());
-        utilizationHistory.forEach(result::add);
-        return result;
-    }
-
     private MemoryUtilizationModel percentageMemUtilization(Map<String, Map<String, List<Integer>>> mbufStats) {
         List<Map<String, Integer>> listOfUsedBanksPerSocket = mbufStats.entrySet().stream().map(socketEntry -> {
             Map<String, List<Integer>> socketStats = socketEntry.getValue();
@@ -0,0 +1,247 @@
+package com.cisco.trex.stl.gui.util;
+
+/**
+ * Summary dissector for the capture monitor table.
+ * <p>
+ * {@link #dissect(byte[])} only walks the Ethernet, 802.1Q, ARP, IPv4, IPv6,
+ * TCP and UDP headers and packs the detected layer and header offsets into a
+ * single long. The column strings are formatted from the raw bytes on demand,
+ * so only rows which are actually displayed are ever formatted.
+ */
+public final class PktSummaryDissector {
+    public static final long INVALID = -1;
+
+    private static final int ETHER = 0;
+    private static final int ARP = 1;
+    private static final int DOT1Q = 2;
+    private static final int IPV4 = 3;
+    private static final int IPV6 = 4;
+    private static final int TCP = 5;
+    private static final int UDP = 6;
+
+    private static final String[] TYPES = {"Ether", "ARP", "Dot1Q", "IPv4", "IPv6", "TCP", "UDP"};
+
+    private static final int ETHERTYPE_IPV4 = 0x0800;
+    private static final int ETHERTYPE_ARP = 0x0806;
+    private static final int ETHERTYPE_DOT1Q = 0x8100;
+    private static final int ETHERTYPE_IPV6 = 0x86dd;
+
+    private static final int IP_PROTOCOL_TCP = 6;
+    private static final int IP_PROTOCOL_UDP = 17;
+
+    private static final int ETHER_HEADER_SIZE = 14;
+    private static final int ARP_SIZE = 28;
+    private static final int IPV4_MIN_HEADER_SIZE = 20;
+    private static final int IPV6_HEADER_SIZE = 40;
+    private static final int TCP_MIN_HEADER_SIZE = 20;
+    private static final int UDP_HEADER_SIZE = 8;
+
+    private static final String UNKNOWN_INFO = "Unknown or malformed packet";
+
+    private PktSummaryDissector() {
+    }
+
+    /**
+     * @return packed summary, {@link #INVALID} for frames shorter than an Ethernet header
+     */
+    public static long dissect(final byte[] pkt) {
+        if (pkt.length < ETHER_HEADER_SIZE) {
+            return INVALID;
+        }
+        int offset = 12;
+        int kind = ETHER;
+        int etherType = getShort(pkt, offset);
+        while (etherType == ETHERTYPE_DOT1Q && offset + 6 <= pkt.length) {
+            kind = DOT1Q;
+            offset += 4;
+            etherType = getShort(pkt, offset);
+        }
+        offset += 2;
+
+        switch (etherType) {
+            case ETHERTYPE_ARP:
+                return offset + ARP_SIZE <= pkt.length ? pack(ARP, offset, 0) : pack(kind, 0, 0);
+            case ETHERTYPE_IPV4:
+                return dissectIPv4(pkt, offset, kind);
+            case ETHERTYPE_IPV6:
+                return dissectIPv6(pkt, offset, kind);
+            default:
+                return pack(kind, 0, 0);
+        }
+    }
+
+    private static long dissectIPv4(final byte[] pkt, final int offset, final int linkKind) {
+        if (offset + IPV4_MIN_HEADER_SIZE > pkt.length || (pkt[offset] & 0xf0) != 0x40) {
+            return pack(linkKind, 0, 0);
+        }
+        final int headerLength = (pkt[offset] & 0x0f) * 4;
+        // only unfragmented packets start with a transport header
+        final boolean fragment = (getShort(pkt, offset + 6) & 0x3fff) != 0;
+        final int protocol = pkt[offset + 9] & 0xff;
+        return fragment ? pack(IPV4, offset, 0) : dissectTransport(pkt, IPV4, offset, offset + headerLength, protocol);
+    }
+
+    private static long dissectIPv6(final byte[] pkt, final int offset, final int linkKind) {
+        if (offset + IPV6_HEADER_SIZE > pkt.length || (pkt[offset] & 0xf0) != 0x60) {
+            return pack(linkKind, 0, 0);
+        }
+        return dissectTransport(pkt, IPV6, offset, offset + IPV6_HEADER_SIZE, pkt[offset + 6] & 0xff);
+    }
+
+    private static long dissectTransport(final byte[] pkt, final int ipKind, final int ipOffset, final int l4Offset, final int protocol) {
+        if (protocol == IP_PROTOCOL_TCP && l4Offset + TCP_MIN_HEADER_SIZE <= pkt.length) {
+            return pack(TCP, ipOffset, l4Offset) | ipVersionBit(ipKind);
+        }
+        if (protocol == IP_PROTOCOL_UDP && l4Offset + UDP_HEADER_SIZE <= pkt.length) {
+            return pack(UDP, ipOffset, l4Offset) | ipVersionBit(ipKind);
+        }
+        return pack(ipKind, ipOffset, 0);
+    }
+
+    private static long ipVersionBit(final int ipKind) {
+        return ipKind == IPV6 ? 1L << 8 : 0;
+    }
+
+    private static long pack(final int kind, final int l3Offset, final int l4Offset) {
+        return kind | ((long) l3Offset << 16) | ((long) l4Offset << 32);
+    }
+
+    private static int kind(final long summary) {
+        return (int) (summary & 0xff);
+    }
+
+    private static boolean isIPv6(final long summary) {
+        return kind(summary) == IPV6 || (summary & (1L << 8)) != 0;
+    }
+
+    private static int l3Offset(final long summary) {
+        return (int) ((summary >>> 16) & 0xffff);
+    }
+
+    private static int l4Offset(final long summary) {
+        return (int) ((summary >>> 32) & 0xffff);
+    }
+
+    private static boolean hasIpHeader(final long summary) {
+        final int kind = kind(summary);
+        return kind == IPV4 || kind == IPV6 || kind == TCP || kind == UDP;
+    }
+
+    public static String getType(final long summary) {
+        return TYPES[kind(summary)];
+    }
+
+    public static String getSrc(final byte[] pkt, final long summary) {
+        if (hasIpHeader(summary)) {
+            return isIPv6(summary)
+                    ? formatIPv6(pkt, l3Offset(summary) + 8)
+                    : formatIPv4(pkt, l3Offset(summary) + 12);
+        }
+        return formatMac(pkt, 6);
+    }
+
+    public static String getDst(final byte[] pkt, final long summary) {
+        if (hasIpHeader(summary)) {
+            return isIPv6(summary)
+                    ? formatIPv6(pkt, l3Offset(summary) + 24)
+                    : formatIPv4(pkt, l3Offset(summary) + 16);
+        }
+        return formatMac(pkt, 0);
+    }
+
+    public static String getInfo(final byte[] pkt, final long summary) {
+        switch (kind(summary)) {
+            case ARP:
+                return getArpInfo(pkt, l3Offset(summary));
+            case TCP:
+                return getTcpInfo(pkt, l4Offset(summary));
+            case UDP:
+                return String.format("Source port: %d Destination port: %d",
+                                     getShort(pkt, l4Offset(summary)),
+                                     getShort(pkt, l4Offset(summary) + 2));
+            case IPV4:
+            case IPV6:
+                return "";
+            default:
+                return UNKNOWN_INFO;
+        }
+    }
+
+    private static String getArpInfo(final byte[] pkt, final int offset) {
+        final int operation = getShort(pkt, offset + 6);
+        if (operation == 1) {
+            return String.format("[Request] Who has %s tell %s",
+                                 formatIPv4(pkt, offset + 24),
+                                 formatIPv4(pkt, offset + 14));
+        } else if (operation == 2) {
+            return String.format("[Reply] %s is at %s",
+                                 formatIPv4(pkt, offset + 14),
+                                 formatMac(pkt, offset + 8));
+        }
+        return "";
+    }
+
+    private static String getTcpInfo(final byte[] pkt, final int offset) {
+        final int flags = pkt[offset + 13] & 0xff;
+        final StringBuilder enabledFlags = new StringBuilder();
+        appendFlag(enabledFlags, flags, 0x20, "URG");
+        appendFlag(enabledFlags, flags, 0x10, "ACK");
+        appendFlag(enabledFlags, flags, 0x08, "PSH");
+        appendFlag(enabledFlags, flags, 0x04, "RST");
+        appendFlag(enabledFlags, flags, 0x02, "SYN");
+        appendFlag(enabledFlags, flags, 0x01, "FIN");
+        return String.format("%d -> %d [%s] Seq=%d Win=%d Ack=%d Len=%d",
+                             getShort(pkt, offset),
+                             getShort(pkt, offset + 2),
+                             enabledFlags,
+                             getInt(pkt, offset + 4) & 0xffffffffL,
+                             getShort(pkt, offset + 14),
+                             getInt(pkt, offset + 8) & 0xffffffffL,
+                             ((pkt[offset + 12] & 0xf0) >>> 4) * 4);
+    }
+
+    private static void appendFlag(final StringBuilder flags, final int value, final int mask, final String name) {
+        if ((value & mask) != 0) {
+            if (flags.length() > 0) {
+                flags.append(", ");
+            }
+            flags.append(name);
+        }
+    }
+
+    private static String formatMac(final byte[] pkt, final int offset) {
+        final StringBuilder mac = new StringBuilder(17);
+        for (int i = 0; i < 6; i++) {
+            if (i > 0) {
+                mac.append(':');
+            }
+            final int value = pkt[offset + i] & 0xff;
+            mac.append(Character.forDigit(value >>> 4, 16)).append(Character.forDigit(value & 0x0f, 16));
+        }
+        return mac.toString();
+    }
+
+    private static String formatIPv4(final byte[] pkt, final int offset) {
+        return (pkt[offset] & 0xff) + "." + (pkt[offset + 1] & 0xff) + "."
+                + (pkt[offset + 2] & 0xff) + "." + (pkt[offset + 3] & 0xff);
+    }
+
+    private static String formatIPv6(final byte[] pkt, final int offset) {
+        final StringBuilder address = new StringBuilder(39);
+        for (int i = 0; i < 16; i += 2) {
+            if (i > 0) {
+                address.append(':');
+            }
+            address.append(Integer.toHexString(getShort(pkt, offset + i)));
+        }
+        return address.toString();
+    }
+
+    private static int getShort(final byte[] pkt, final int offset) {
+        return ((pkt[offset] & 0xff) << 8) | (pkt[offset + 1] & 0xff);
+    }
+
+    private static int getInt(final byte[] pkt, final int offset) {
+        return (getShort(pkt, offset) << 16) | getShort(pkt, offset + 2);
+    }
+}
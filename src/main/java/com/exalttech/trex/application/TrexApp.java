@@ -17,6 +17,7 @@ package com.exalttech.trex.application;
 
 import com.exalttech.trex.application.guice.StatelessGUIModule;
 import com.exalttech.trex.ui.controllers.MainViewController;
+import com.exalttech.trex.util.MemoryMonitor;
 import com.exalttech.trex.util.PreferencesManager;
 import com.exalttech.trex.util.Util;
 import com.google.inject.Guice;
@@ -99,12 +100,14 @@ public class TrexApp extends Application {
         packetBuilderAppController = injector.getInstance(AppController.class);
         PreferencesManager.getInstance().setPacketEditorConfigurations(packetBuilderAppController.getConfigurations());
         packetBuilderAppController.registerEventBusHandler(mainviewcontroller);
+        MemoryMonitor.getInstance().start();
 
         stage.show();
     }
 
     @Override
     public void stop(){
+        MemoryMonitor.getInstance().stop();
         packetBuilderAppController.terminate();
     }
 
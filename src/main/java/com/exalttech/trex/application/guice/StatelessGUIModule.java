@@ -3,6 +3,7 @@ package com.exalttech.trex.application.guice;
 import com.cisco.trex.stl.gui.util.RunningConfiguration;
 import com.exalttech.trex.core.RPCMethods;
 import com.exalttech.trex.ui.views.streams.builder.ProtocolDataView;
+import com.exalttech.trex.util.JsonCodec;
 import com.google.common.eventbus.EventBus;
 import com.google.inject.AbstractModule;
 import com.google.inject.Singleton;
@@ -14,6 +15,7 @@ public class StatelessGUIModule extends AbstractModule {
         bind(EventBus.class).in(Singleton.class);
         bind(RPCMethods.class).in(Singleton.class);
         bind(RunningConfiguration.class).in(Singleton.class);
+        bind(JsonCodec.class).toInstance(JsonCodec.getInstance());
         bind(ProtocolDataView.class).toProvider(ProtocolDataViewProvider.class);
     }
 }
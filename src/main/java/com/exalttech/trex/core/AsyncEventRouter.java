@@ -0,0 +1,269 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.core;
+
+import com.exalttech.trex.util.JsonCodec;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import org.apache.log4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Demultiplexer for the messages of the TRex async publisher.
+ * <p>
+ * Only the {@code name} field of a message is read to select the topic. The
+ * payload is decoded into the topic model once, on the async thread, and only
+ * when the topic has subscribers.
+ */
+public class AsyncEventRouter {
+
+    private static final Logger LOG = Logger.getLogger(AsyncEventRouter.class.getName());
+    private static final ObjectMapper MAPPER = JsonCodec.getInstance().getMapper();
+    private static final Gson GSON = new Gson();
+    private static final JsonFactory JSON_FACTORY = MAPPER.getFactory();
+    private static final String NAME_FIELD = "name";
+    private static final String DATA_FIELD = "data";
+
+    /**
+     * Global statistics, flattened "data" object
+     */
+    public static final Topic<Map<String, String>> GLOBAL_STATS = new Topic<>("trex-global", AsyncEventRouter::decodeDataFields);
+
+    /**
+     * Port and server events
+     */
+    public static final Topic<TrexEvent> EVENT = new Topic<>("trex-event", AsyncEventRouter::decodeEvent);
+
+    /**
+     * Latency statistics "data" object
+     */
+    public static final Topic<JsonNode> LATENCY_STATS = new Topic<>("latency_stats", AsyncEventRouter::decodeData);
+
+    /**
+     * Flow statistics "data" object
+     */
+    public static final Topic<JsonNode> FLOW_STATS = new Topic<>("flow_stats", AsyncEventRouter::decodeData);
+
+    private static AsyncEventRouter instance = null;
+
+    /**
+     *
+     * @return
+     */
+    public static synchronized AsyncEventRouter getInstance() {
+        if (instance == null) {
+            instance = new AsyncEventRouter();
+        }
+        return instance;
+    }
+
+    private final Map<String, Subscription<?>> subscriptions = new ConcurrentHashMap<>();
+
+    protected AsyncEventRouter() {
+    }
+
+    /**
+     * Subscribe to topic, the subscriber is called on the async thread
+     *
+     * @param topic
+     * @param subscriber
+     * @param <T>
+     */
+    @SuppressWarnings("unchecked")
+    public <T> void subscribe(Topic<T> topic, Consumer<T> subscriber) {
+        Subscription<T> subscription = (Subscription<T>) subscriptions.computeIfAbsent(topic.getName(), name -> new Subscription<>(topic));
+        subscription.subscribers.add(subscriber);
+    }
+
+    /**
+     *
+     * @param topic
+     * @param subscriber
+     * @param <T>
+     */
+    public <T> void unsubscribe(Topic<T> topic, Consumer<T> subscriber) {
+        Subscription<?> subscription = subscriptions.get(topic.getName());
+        if (subscription != null) {
+            subscription.subscribers.remove(subscriber);
+        }
+    }
+
+    /**
+     * Dispatch one uncompressed publisher message
+     *
+     * @param message
+     */
+    public void route(byte[] message) {
+        String name = readName(message);
+        if (name == null) {
+            return;
+        }
+        Subscription<?> subscription = subscriptions.get(name);
+        if (subscription != null) {
+            subscription.publish(message);
+        }
+    }
+
+    /**
+     * Read the top level name field, skipping the other values without
+     * materializing them
+     *
+     * @param message
+     * @return
+     */
+    static String readName(byte[] message) {
+        try (JsonParser parser = JSON_FACTORY.createParser(message)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (NAME_FIELD.equals(field)) {
+                    return value == JsonToken.VALUE_STRING ? parser.getText() : null;
+                }
+                parser.skipChildren();
+            }
+        } catch (IOException ex) {
+            LOG.warn("Unable to read async message name", ex);
+        }
+        return null;
+    }
+
+    private static JsonParser moveToData(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return null;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if (DATA_FIELD.equals(field)) {
+                return value == JsonToken.START_OBJECT ? parser : null;
+            }
+            parser.skipChildren();
+        }
+        return null;
+    }
+
+    private static Map<String, String> decodeDataFields(byte[] message) throws IOException {
+        Map<String, String> fields = new HashMap<>();
+        try (JsonParser parser = JSON_FACTORY.createParser(message)) {
+            if (moveToData(parser) == null) {
+                return fields;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (value.isScalarValue()) {
+                    fields.put(field, parser.getText());
+                } else {
+                    fields.put(field, MAPPER.readTree(parser).toString());
+                }
+            }
+        }
+        return fields;
+    }
+
+    private static JsonNode decodeData(byte[] message) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(message)) {
+            return moveToData(parser) != null ? MAPPER.readTree(parser) : null;
+        }
+    }
+
+    private static TrexEvent decodeEvent(byte[] message) throws IOException {
+        JsonObject event = GSON.fromJson(
+                new InputStreamReader(new ByteArrayInputStream(message), StandardCharsets.UTF_8),
+                JsonObject.class
+        );
+        return new TrexEvent(
+                event.get("type").getAsInt(),
+                event.get("name").getAsString(),
+                event.getAsJsonObject("data")
+        );
+    }
+
+    /**
+     * Decodes the payload of a message into the topic model
+     *
+     * @param <T>
+     */
+    public interface Decoder<T> {
+        T decode(byte[] message) throws IOException;
+    }
+
+    /**
+     * Message name bound to its model
+     *
+     * @param <T>
+     */
+    public static final class Topic<T> {
+        private final String name;
+        private final Decoder<T> decoder;
+
+        public Topic(String name, Decoder<T> decoder) {
+            this.name = name;
+            this.decoder = decoder;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    private static class Subscription<T> {
+        private final Topic<T> topic;
+        private final List<Consumer<T>> subscribers = new CopyOnWriteArrayList<>();
+
+        Subscription(Topic<T> topic) {
+            this.topic = topic;
+        }
+
+        void publish(byte[] message) {
+            if (subscribers.isEmpty()) {
+                return;
+            }
+            T model;
+            try {
+                model = topic.decoder.decode(message);
+            } catch (Exception ex) {
+                LOG.error("Unable to decode async message " + topic.getName(), ex);
+                return;
+            }
+            for (Consumer<T> subscriber : subscribers) {
+                try {
+                    subscriber.accept(model);
+                } catch (Exception ex) {
+                    LOG.error("Error handling async message " + topic.getName(), ex);
+                }
+            }
+        }
+    }
+}
@@ -16,18 +16,14 @@
 package com.exalttech.trex.core;
 
 import com.exalttech.trex.remote.models.AsyncEvent;
+import com.exalttech.trex.remote.models.AsyncEventData;
 import com.exalttech.trex.ui.views.logs.LogType;
 import com.exalttech.trex.ui.views.logs.LogsController;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.gson.Gson;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import javafx.beans.property.*;
-import javafx.beans.value.ChangeListener;
-import javafx.beans.value.ObservableValue;
 import org.apache.log4j.Logger;
 
-import java.io.IOException;
-
 /**
  *
  * @author Georgekh
@@ -37,7 +33,6 @@ public class AsyncResponseManager {
     private static final Logger LOG = Logger.getLogger(AsyncResponseManager.class.getName());
     private static AsyncResponseManager instance = null;
     private boolean muteLogger = false;
-    private Gson gson = new Gson();
     private boolean eventHandlingDisable;
 
     /**
@@ -50,12 +45,7 @@ public class AsyncResponseManager {
         }
         return instance;
     }
-    private StringProperty trexGlobalResponse = new SimpleStringProperty();
-    private StringProperty trexEventValueProperty = new SimpleStringProperty();
-    private StringProperty trexLatencyProperty = new SimpleStringProperty();
-    private StringProperty trexFlowStatsProperty = new SimpleStringProperty();
     private BooleanProperty trexEventProperty = new SimpleBooleanProperty();
-    private StringProperty asyncEventProperty = new SimpleStringProperty();
     private ObjectProperty<TrexEvent> asyncEventObjectProperty = new SimpleObjectProperty<>();
 
     /**
@@ -65,56 +55,10 @@ public class AsyncResponseManager {
         initializeDataBinding();
     }
 
-    public void setAsyncEvent(String asyncEvent) {
-        this.asyncEventProperty.set(asyncEvent);
-        
-        asyncEventObjectProperty.setValue(parseTrexEvent(asyncEvent));
-    }
-
-    private TrexEvent parseTrexEvent(String asyncEventJSON) {
-        JsonObject eventJson = gson.fromJson(asyncEventJSON, JsonObject.class);
-        return new TrexEvent(
-                eventJson.get("type").getAsInt(),
-                eventJson.get("name").getAsString(),
-                eventJson.getAsJsonObject("data")
-        );
-    }
-
     public ObjectProperty<TrexEvent> asyncEventObjectProperty() {
         return asyncEventObjectProperty;
     }
 
-    public StringProperty asyncEventProperty() {
-        return asyncEventProperty;
-    }
-
-    /**
-     * Return trex global property
-     *
-     * @return
-     */
-    public StringProperty getTrexGlobalProperty() {
-        return trexGlobalResponse;
-    }
-
-    /**
-     * Set trex global response
-     *
-     * @param trexGlobalResponse
-     */
-    public void setTrexGlobalResponse(String trexGlobalResponse) {
-        this.trexGlobalResponse.set(trexGlobalResponse);
-    }
-
-    /**
-     * Set event value
-     *
-     * @param val
-     */
-    public void setTRexEventValue(String val) {
-        this.trexEventValueProperty.setValue(val);
-    }
-
     /**
      * Return event property
      *
@@ -124,79 +68,59 @@ public class AsyncResponseManager {
         return trexEventProperty;
     }
 
-    /**
-     * Set trex latency response
-     *
-     * @param trexLatencyResponse
-     */
-    public void setTrexLatencyProperty(String trexLatencyResponse) {
-        this.trexLatencyProperty.set(trexLatencyResponse);
-    }
-
-    /**
-     * Set trex latency response
-     *
-     * @param trexFlowStatsResponse
-     */
-    public void setTrexFlowStatsProperty(String trexFlowStatsResponse) {
-        this.trexFlowStatsProperty.set(trexFlowStatsResponse);
-    }
-
-    /**
-     * Return trex latency property
-     *
-     * @return
-     */
-    public StringProperty getTrexLatencyProperty() {
-        return trexLatencyProperty;
-    }
-
-    /**
-     * Return trex latency property
-     *
-     * @return
-     */
-    public StringProperty getTrexFlowStatsProperty() {
-        return trexFlowStatsProperty;
-    }
-
     /**
      *
      * @param event
      */
-    public void handleAsyncEvent(String event) {
+    public void handleAsyncEvent(TrexEvent event) {
         if (eventHandlingDisable) {
             return;
         }
-        setAsyncEvent(event);
-        if (!event.contains("trex-event")) {
-            return;
-        }
+        asyncEventObjectProperty.setValue(event);
         trexEventProperty.set(!trexEventProperty.get());
         // Update Port status
-        ObjectMapper mapper = new ObjectMapper();
         try {
-            AsyncEvent serverEvent = mapper.readValue(event, AsyncEvent.class);
-            String eventMessage = serverEvent.toString();
+            String eventMessage = toAsyncEvent(event).toString();
             if (eventMessage != null && !muteLogger) {
                 LogsController.getInstance().appendText(LogType.SERVER_EVENT, eventMessage);
             }
-        } catch (IOException ex) {
+        } catch (RuntimeException ex) {
             LOG.error("Error handling async event", ex);
         }
     }
 
     /**
-     * Listening to changes on TRex event response property
+     * Build log model from the already parsed event
+     *
+     * @param event
+     * @return
      */
-    public void initializeDataBinding() {
-        trexEventValueProperty.addListener(new ChangeListener<String>() {
-            @Override
-            public void changed(ObservableValue<? extends String> observable, String oldValue, String newValue) {
-                handleAsyncEvent(newValue);
+    private AsyncEvent toAsyncEvent(TrexEvent event) {
+        JsonObject data = event.getData();
+        AsyncEventData eventData = new AsyncEventData();
+        if (data != null) {
+            JsonElement portId = data.get("port_id");
+            if (portId != null) {
+                eventData.setPortId(portId.getAsInt());
+            }
+            eventData.setWho(event.getUser());
+            JsonElement force = data.get("force");
+            if (force != null) {
+                eventData.setForce(force.getAsBoolean());
             }
-        });
+        }
+        AsyncEvent asyncEvent = new AsyncEvent();
+        asyncEvent.setName(event.getName());
+        asyncEvent.setType(event.getRawType());
+        asyncEvent.setData(eventData);
+        return asyncEvent;
+    }
 
+    /**
+     * Subscribe to TRex events published by the server
+     */
+    public void initializeDataBinding() {
+        AsyncEventRouter.getInstance().subscribe(AsyncEventRouter.EVENT, this::handleAsyncEvent);
     }
 
     /**
@@ -30,32 +30,30 @@ import com.exalttech.trex.ui.views.logs.LogType;
 import com.exalttech.trex.ui.views.logs.LogsController;
 import com.exalttech.trex.util.CompressionUtils;
 import com.exalttech.trex.util.Constants;
+import com.exalttech.trex.util.JsonCodec;
+import com.exalttech.trex.util.PreferencesManager;
 import com.exalttech.trex.util.Util;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.xored.javafx.packeteditor.scapy.ScapyServerClient;
 import javafx.application.Platform;
-import javafx.beans.property.SimpleStringProperty;
-import javafx.beans.property.StringProperty;
 import javafx.concurrent.Task;
 import org.apache.log4j.Logger;
 import org.zeromq.ZContext;
 import org.zeromq.ZMQ;
-import org.zeromq.ZMQException;
-import org.zeromq.ZPoller;
 import zmq.ZError;
 
-import javax.xml.bind.DatatypeConverter;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
-import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.zip.DataFormatException;
 
@@ -66,11 +64,8 @@ public class ConnectionManager {
     private ScapyServerClient scapyServerClient;
     private static final Logger LOG = Logger.getLogger(ConnectionManager.class.getName());
     private static ConnectionManager instance = null;
-    private static final StringProperty logProperty = new SimpleStringProperty();
     private final static String ASYNC_PASS_STATUS = "Pass";
 
-    private final Object sendRequestMonitor = new Object();
-
     private final List<DisconnectListener> disconnectListeners = Collections.synchronizedList(new ArrayList<>());
     private boolean serverRestarted = false;
     private final Object serverRestartedMonitor = new Object();
@@ -98,10 +93,10 @@ public class ConnectionManager {
 
     private AtomicBoolean connectionTimeout = new AtomicBoolean(false);
 
-    private ZMQ.Socket requester = null;
+    private PipelinedRPCTransport transport = null;
+    private final RPCCompressionPolicy compressionPolicy = new RPCCompressionPolicy();
     private Task task;
     private ZContext context = new ZContext();
-    private ZPoller poller = new ZPoller(context);
     private String connectionString;
 
 
@@ -137,6 +132,8 @@ public class ConnectionManager {
         }
 
         connectionTimeout.set(false);
+        compressionPolicy.reset();
+        compressionPolicy.setThreshold(PreferencesManager.getInstance().getCompressionThreshold());
 
         this.ip = ip;
         this.rpcPort = rpcPort;
@@ -162,9 +159,8 @@ public class ConnectionManager {
         connectionString = "tcp://" + ip + ":" + rpcPort;
         try {
             LogsController.getInstance().appendText(LogType.INFO, "Connecting to Trex server: " + connectionString);
-            requester = buildRequester();
-            requester.connect(connectionString);
-            poller.register(requester, ZMQ.Poller.POLLIN);
+            transport = new PipelinedRPCTransport(context, connectionString, timeout, this::decompressReply);
+            transport.start();
             LogsController.getInstance().appendText(LogType.INFO, "Connected");
         } catch (Exception ex) {
             LOG.error("Invalid hostname", ex);
@@ -177,13 +173,6 @@ public class ConnectionManager {
         return true;
     }
 
-    private ZMQ.Socket buildRequester() {
-        ZMQ.Socket s = context.createSocket(ZMQ.REQ);
-        s.setReceiveTimeOut(INTERNAL_TIMEOUT);
-        s.setSendTimeOut(INTERNAL_TIMEOUT);
-        return s;
-    }
-
     public boolean testConnection(boolean isAsync) {
         if (isAsync) {
             return !Util.isNullOrEmpty(getAsyncResponse());
@@ -231,168 +220,183 @@ public class ConnectionManager {
     }
 
     public String sendRequest(String cmd, String parameters) {
-
         try {
-            String param = parameters;
-            ObjectMapper mapper = new ObjectMapper();
-            if (parameters != null) {
-                String apiHParam = "\"api_h\": \"" + apiH + "\"";
-                if ("".equals(parameters)) {
-                    param = "{\"api_h\": \"" + apiH + "\"}";
-                } else if ("api_sync".equals(cmd)) {
-                    param = "{" + parameters + "}";
-                } else {
-                    param = "{" + apiHParam + " , " + parameters + "}";
-                }
+            return sendRequestAsync(cmd, parameters).get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            LOG.error("Error while sending request", ex.getCause());
+        }
+        return null;
+    }
 
+    /**
+     * Send request without waiting for the server response
+     *
+     * @param cmd
+     * @param parameters
+     * @return future completed with the server response
+     */
+    public CompletableFuture<String> sendRequestAsync(String cmd, String parameters) {
+        String param = parameters;
+        if (parameters != null) {
+            String apiHParam = "\"api_h\": \"" + apiH + "\"";
+            if ("".equals(parameters)) {
+                param = "{\"api_h\": \"" + apiH + "\"}";
+            } else if ("api_sync".equals(cmd)) {
+                param = "{" + parameters + "}";
+            } else {
+                param = "{" + apiHParam + " , " + parameters + "}";
             }
-            String request = "{   \"id\" : \"aggogxls\",   \"jsonrpc\" : \"2.0\",   \"method\" : \"" + cmd + "\",   \"params\" :" + param + " }";
-            LOG.trace("Sending request \n" + Util.toPrettyFormat(request));
-            logProperty.setValue("Sending request " + Util.toPrettyFormat(request));
-            byte[] reply = getServerRPCResponse(request);
-
-            if (reply != null) {
-                String serversResponse = new String(reply, "UTF-8");
-                LOG.trace("Received Server response \n" + Util.toPrettyFormat(serversResponse));
-                logProperty.setValue("Received Server response " + Util.toPrettyFormat(serversResponse));
-                if (serversResponse.contains("\"error\"")) {
-                    try {
-                        String rpcResponse = Util.removeFirstBrackets(serversResponse);
-                        RPCError rpcError = mapper.readValue(rpcResponse, RPCError.class);
-                        LOG.error(rpcError.getError().getSpecificErr());
-                        LogsController.getInstance().appendText(LogType.ERROR, rpcError.getError().getSpecificErr());
 
-                    } catch (IOException ex) {
-                        LOG.warn("Error parsing response", ex);
-                    }
-                }
-                return serversResponse;
-            }
-        } catch (UnsupportedEncodingException ex) {
-            LOG.error("Error while sending request", ex);
         }
+        String requestId = nextRequestId();
+        String request = "{   \"id\" : \"" + requestId + "\",   \"jsonrpc\" : \"2.0\",   \"method\" : \"" + cmd + "\",   \"params\" :" + param + " }";
+        return getServerRPCResponseAsync(cmd, requestId, request).thenApply(reply -> {
+            String serversResponse = new String(reply, StandardCharsets.UTF_8);
+            if (serversResponse.contains("\"error\"")) {
+                try {
+                    String rpcResponse = Util.removeFirstBrackets(serversResponse);
+                    RPCError rpcError = JsonCodec.getInstance().readRPCError(rpcResponse);
+                    LOG.error(rpcError.getError().getSpecificErr());
+                    LogsController.getInstance().appendText(LogType.ERROR, rpcError.getError().getSpecificErr());
 
-        return null;
+                } catch (IOException ex) {
+                    LOG.warn("Error parsing response", ex);
+                }
+            }
+            return serversResponse;
+        });
     }
 
     String sendRPCRequest(String method, Params params) throws JsonProcessingException, UnsupportedEncodingException, InvalidRPCResponseException, IncorrectRPCMethodException {
         RPCRequest rpcRequest = new RPCRequest();
-        ObjectMapper mapper = new ObjectMapper();
-        rpcRequest.setId(Util.getRandomID(Constants.RPC_REQUEST_ID_LENGTH));
+        rpcRequest.setId(nextRequestId());
         rpcRequest.setMethod(method);
         if (params != null) {
             rpcRequest.setParams(params);
         }
-        String jsonRequestString = mapper.writeValueAsString(rpcRequest);
+        String jsonRequestString = JsonCodec.getInstance().writeRPCRequest(rpcRequest);
         jsonRequestString = Util.tuneJSONParams(jsonRequestString, params, apiH);
-        LOG.trace("Sending request \n" + Util.toPrettyFormat(jsonRequestString));
-        logProperty.setValue("Sending request " + Util.toPrettyFormat(jsonRequestString));
-        byte[] serverResponse = getServerRPCResponse(jsonRequestString);
-        return handleResponse(serverResponse, true);
-    }
-
-    String sendAddStreamRequest(Profile[] profilesList) throws JsonProcessingException, UnsupportedEncodingException, IncorrectRPCMethodException, InvalidRPCResponseException {
-        List<String> addStreamCommandList = new ArrayList<>();
-        ObjectMapper mapper = new ObjectMapper();
+        byte[] serverResponse = getServerRPCResponse(method, rpcRequest.getId(), jsonRequestString);
+        return handleResponse(serverResponse);
+    }
+
+    /**
+     * Send RPC request without waiting for the server response
+     *
+     * @param method
+     * @param params
+     * @return future completed with the server response, or exceptionally
+     * with {@link IncorrectRPCMethodException} if the server returned an error
+     */
+    CompletableFuture<String> sendRPCRequestAsync(String method, Params params) {
         RPCRequest rpcRequest = new RPCRequest();
+        rpcRequest.setId(nextRequestId());
+        rpcRequest.setMethod(method);
+        if (params != null) {
+            rpcRequest.setParams(params);
+        }
         String jsonRequestString;
-        for (Profile aProfilesList : profilesList) {
-
-            rpcRequest.setId(Util.getRandomID(Constants.RPC_REQUEST_ID_LENGTH));
-            rpcRequest.setMethod(Constants.ADD_STREAM_METHOD);
-            rpcRequest.setParams(aProfilesList);
-
-            jsonRequestString = mapper.writeValueAsString(rpcRequest);
-            jsonRequestString = Util.tuneJSONParams(jsonRequestString, aProfilesList, apiH);
-            addStreamCommandList.add(jsonRequestString);
-
+        try {
+            jsonRequestString = JsonCodec.getInstance().writeRPCRequest(rpcRequest);
+        } catch (JsonProcessingException ex) {
+            return failedFuture(ex);
         }
-        String requestCommand = Util.toPrettyFormat(addStreamCommandList.toString());
-        LOG.info(requestCommand);
-        logProperty.setValue("Sending request " + requestCommand);
-        byte[] serverResponse = getServerRPCResponse(addStreamCommandList.toString());
-        return handleResponse(serverResponse, false);
+        jsonRequestString = Util.tuneJSONParams(jsonRequestString, params, apiH);
+        return getServerRPCResponseAsync(method, rpcRequest.getId(), jsonRequestString).thenApply(serverResponse -> {
+            try {
+                return handleResponse(serverResponse);
+            } catch (UnsupportedEncodingException | IncorrectRPCMethodException | InvalidRPCResponseException ex) {
+                throw new CompletionException(ex);
+            }
+        });
+    }
+
+    /**
+     * Upload streams in pipelined chunks, streams already added are removed
+     * again if any of them fails
+     *
+     * @param profilesList loaded profiles
+     * @param compiledStreams stream objects compiled from the profiles, may be null
+     * @param portID
+     * @param handler
+     * @param listener progress listener, may be null
+     * @throws IOException
+     * @throws IncorrectRPCMethodException
+     * @throws InvalidRPCResponseException
+     */
+    void sendAddStreamRequest(Profile[] profilesList, String[] compiledStreams, int portID, String handler, StreamUploader.ProgressListener listener) throws IOException, IncorrectRPCMethodException, InvalidRPCResponseException {
+        LOG.info("Send add_stream request for " + profilesList.length + " streams");
+        new StreamUploader(this).upload(profilesList, compiledStreams, portID, handler, listener);
     }
 
     public String sendPortStatusRequest(List<Port> portList) throws JsonProcessingException, UnsupportedEncodingException, IncorrectRPCMethodException, InvalidRPCResponseException {
         List<String> addStreamCommandList = new ArrayList<>();
-        ObjectMapper mapper = new ObjectMapper();
         RPCRequest rpcRequest = new RPCRequest();
         String jsonRequestString;
+        String firstRequestId = null;
         for (Port port : portList) {
-            rpcRequest.setId(Util.getRandomID(Constants.RPC_REQUEST_ID_LENGTH));
+            rpcRequest.setId(nextRequestId());
+            if (firstRequestId == null) {
+                firstRequestId = rpcRequest.getId();
+            }
             rpcRequest.setMethod(Constants.PORT_STATUS_METHOD);
             rpcRequest.setParams(port.getPortParam());
 
-            jsonRequestString = mapper.writeValueAsString(rpcRequest);
+            jsonRequestString = JsonCodec.getInstance().writeRPCRequest(rpcRequest);
             jsonRequestString = Util.tuneJSONParams(jsonRequestString, port.getPortParam(), apiH);
             addStreamCommandList.add(jsonRequestString);
 
         }
-        String requestCommand = Util.toPrettyFormat(addStreamCommandList.toString());
-        LOG.info("Send port status request \n " + requestCommand);
-        byte[] serverResponse = getServerRPCResponse(addStreamCommandList.toString());
+        byte[] serverResponse = getServerRPCResponse(Constants.PORT_STATUS_METHOD, firstRequestId, addStreamCommandList.toString());
 
-        return handleResponse(serverResponse, false);
+        return handleResponse(serverResponse);
     }
 
     public String sendPortXStatsNamesRequest(Port port) throws JsonProcessingException, UnsupportedEncodingException, IncorrectRPCMethodException, InvalidRPCResponseException {
         List<String> addStreamCommandList = new ArrayList<>();
-        ObjectMapper mapper = new ObjectMapper();
         RPCRequest rpcRequest = new RPCRequest();
         String jsonRequestString;
 
-        rpcRequest.setId(Util.getRandomID(Constants.RPC_REQUEST_ID_LENGTH));
+        rpcRequest.setId(nextRequestId());
         rpcRequest.setMethod(Constants.PORT_XSTATS_NAMES_METHOD);
         rpcRequest.setParams(port.getPortParam());
 
-        jsonRequestString = mapper.writeValueAsString(rpcRequest);
+        jsonRequestString = JsonCodec.getInstance().writeRPCRequest(rpcRequest);
         jsonRequestString = Util.tuneJSONParams(jsonRequestString, port.getPortParam(), apiH);
         addStreamCommandList.add(jsonRequestString);
 
-        String requestCommand = Util.toPrettyFormat(addStreamCommandList.toString());
-        LOG.info("Send port xstats_names request \n " + requestCommand);
+        byte[] serverResponse = getServerRPCResponse(rpcRequest.getMethod(), rpcRequest.getId(), addStreamCommandList.toString());
 
-        byte[] serverResponse = getServerRPCResponse(addStreamCommandList.toString());
-
-        return handleResponse(serverResponse, false);
+        return handleResponse(serverResponse);
     }
 
     public String sendPortXStatsValuesRequest(Port port) throws JsonProcessingException, UnsupportedEncodingException, IncorrectRPCMethodException, InvalidRPCResponseException {
         List<String> addStreamCommandList = new ArrayList<>();
-        ObjectMapper mapper = new ObjectMapper();
         RPCRequest rpcRequest = new RPCRequest();
         String jsonRequestString;
 
-        rpcRequest.setId(Util.getRandomID(Constants.RPC_REQUEST_ID_LENGTH));
+        rpcRequest.setId(nextRequestId());
         rpcRequest.setMethod(Constants.PORT_XSTATS_VALUES_METHOD);
         rpcRequest.setParams(port.getPortParam());
 
-        jsonRequestString = mapper.writeValueAsString(rpcRequest);
+        jsonRequestString = JsonCodec.getInstance().writeRPCRequest(rpcRequest);
         jsonRequestString = Util.tuneJSONParams(jsonRequestString, port.getPortParam(), apiH);
         addStreamCommandList.add(jsonRequestString);
 
-        String requestCommand = Util.toPrettyFormat(addStreamCommandList.toString());
-        LOG.info("Send port xstats_values request \n " + requestCommand);
-
-        byte[] serverResponse = getServerRPCResponse(addStreamCommandList.toString());
+        byte[] serverResponse = getServerRPCResponse(rpcRequest.getMethod(), rpcRequest.getId(), addStreamCommandList.toString());
 
-        return handleResponse(serverResponse, false);
+        return handleResponse(serverResponse);
     }
 
-    private String handleResponse(byte[] serverResponse, boolean writeToLog) throws UnsupportedEncodingException, IncorrectRPCMethodException, InvalidRPCResponseException {
+    private String handleResponse(byte[] serverResponse) throws UnsupportedEncodingException, IncorrectRPCMethodException, InvalidRPCResponseException {
         if (serverResponse != null) {
             String rpcResponse = new String(serverResponse, "UTF-8");
-
-            LOG.trace("Received Server response \n" + Util.toPrettyFormat(rpcResponse));
-
-            if (writeToLog) {
-                logProperty.setValue("Received Server response " + Util.toPrettyFormat(rpcResponse));
-            }
             if (rpcResponse.contains("\"error\"")) {
                 try {
                     rpcResponse = Util.removeFirstBrackets(rpcResponse);
-                    RPCError rpcError = new ObjectMapper().readValue(rpcResponse, RPCError.class);
+                    RPCError rpcError = JsonCodec.getInstance().readRPCError(rpcResponse);
                     LOG.error(rpcError.getError().getSpecificErr());
                     LogsController.getInstance().appendText(LogType.ERROR, rpcError.getError().getSpecificErr());
                     throw new IncorrectRPCMethodException(rpcError.getError().getSpecificErr() + "\n " + Util.toPrettyFormat(rpcResponse));
@@ -419,9 +423,9 @@ public class ConnectionManager {
                     subscriber.connect(address);
                     subscriber.subscribe(ZMQ.SUBSCRIPTION_ALL);
 
-                    String res;
+                    byte[] res;
                     try {
-                        res = getDecompressedString(subscriber.recv());
+                        res = getDecompressedBytes(subscriber.recv());
                         if (res != null) {
                             handleAsyncResponse(res);
                         } else {
@@ -458,7 +462,7 @@ public class ConnectionManager {
                     int failsCount = 0;
                     while (!isCancelled() && !Thread.currentThread().isInterrupted()) {
                         try {
-                            final String res = getDecompressedString(subscriber.recv());
+                            final byte[] res = getDecompressedBytes(subscriber.recv());
                             if (res != null) {
                                 handleAsyncResponse(res);
                                 failsCount = 0;
@@ -471,6 +475,9 @@ public class ConnectionManager {
                                 if (failsCount > timeout / INTERNAL_TIMEOUT) {
                                     LOG.error("Connection to server is down");
                                     connectionTimeout.set(true);
+                                    if (transport != null) {
+                                        transport.failPending(new IOException("Connection to server is down"));
+                                    }
                                     synchronized (disconnectListeners) {
                                         disconnectListeners.forEach(DisconnectListener::handle);
                                     }
@@ -524,46 +531,19 @@ public class ConnectionManager {
 
     }
 
-    private String getDecompressedString(byte[] data) {
+    private byte[] getDecompressedBytes(byte[] data) {
         if (data == null) return null;
 
-        // if the length is larger than 8 bytes
-        if (data.length > 8) {
-
-            // Take the first 4 bytes
-            byte[] magicBytes = Arrays.copyOfRange(data, 0, 4);
-
-            String magicString = DatatypeConverter.printHexBinary(magicBytes);
-
-            /* check MAGIC in the first 4 bytes in case we have it, it is compressed */
-            String MAGIC_STRING = "ABE85CEA";
-            if (magicString.equals(MAGIC_STRING)) {
-
-                // Skip another  4 bytes containing the uncompressed size of the  message
-                byte[] compressedData = Arrays.copyOfRange(data, 8, data.length);
-
-                try {
-                    return new String(CompressionUtils.decompress(compressedData));
-                } catch (IOException | DataFormatException ex) {
-                    LOG.error("Failed to decompress data ", ex);
-                }
-
-            }
-
-        }
-        return new String(data);
-    }
-
-    private void handleAsyncResponse(String res) {
-        if (res.contains(Constants.TREX_GLOBAL_TAG)) {
-            AsyncResponseManager.getInstance().setTrexGlobalResponse(res);
-        } else if (res.contains(Constants.TREX_EVENT)) {
-            AsyncResponseManager.getInstance().setTRexEventValue(res);
-        } else if (res.contains(Constants.TREX_LATENCY)) {
-            AsyncResponseManager.getInstance().setTrexLatencyProperty(res);
-        } else if (res.contains(Constants.TREX_FLOW_STATS)) {
-            AsyncResponseManager.getInstance().setTrexFlowStatsProperty(res);
+        try {
+            return CompressionUtils.decompressFrame(data);
+        } catch (DataFormatException ex) {
+            LOG.error("Failed to decompress data ", ex);
         }
+        return data;
+    }
+
+    private void handleAsyncResponse(byte[] res) {
+        AsyncEventRouter.getInstance().route(res);
     }
 
     private void disconnectSubscriber() {
@@ -580,8 +560,10 @@ public class ConnectionManager {
 
     private void disconnectRequester() {
         setConnected(false);
-        requester.disconnect(connectionString);
-        requester.close();
+        if (transport != null) {
+            transport.stop();
+            transport = null;
+        }
     }
 
     public String getIPAddress() {
@@ -604,86 +586,74 @@ public class ConnectionManager {
         this.connected = connected;
     }
 
-    private byte[] getServerRPCResponse(String request) {
+    private byte[] getServerRPCResponse(String method, String requestId, String request) {
         try {
-            // prepare compression header
-            ByteBuffer headerByteBuffer = ByteBuffer.allocate(8);
-            headerByteBuffer.put((byte) 0xAB);
-            headerByteBuffer.put((byte) 0xE8);
-            headerByteBuffer.put((byte) 0x5C);
-            headerByteBuffer.put((byte) 0xEA);
-            headerByteBuffer.putInt(request.length());
-            byte[] headerBytes = headerByteBuffer.array();
-            // compress request
-            byte[] compressedRequest = CompressionUtils.compress(request.getBytes());
-            byte[] finalRequest = concatByteArrays(headerBytes, compressedRequest);
-            byte[] serverResponse;
-            boolean success;
-
-            synchronized (sendRequestMonitor) {
-                if (connectionTimeout.get()) {
-                    return null;
-                }
-                try {
-                    success = requester.send(finalRequest);
-                } catch (ZMQException e) {
-                    if (e.getErrorCode() == ZError.EFSM) {
-                        success = resend(finalRequest);
-                    } else {
-                        throw e;
-                    }
-                }
-                if (success) {
-                    serverResponse = requester.recv(0);
-                    if (serverResponse == null) {
-                        if (requester.base().errno() == ZError.EAGAIN) {
-                            int retries = timeout / INTERNAL_TIMEOUT;
-                            while (serverResponse == null && retries > 0) {
-                                if (connectionTimeout.get()) {
-                                    return null;
-                                }
-
-                                retries--;
-                                serverResponse = requester.recv(0);
-                            }
-                            if (retries == 0 && resend(finalRequest)) {
-                                serverResponse = requester.recv(0);
-                            }
-                        } else {
-                            LOG.error("Error sending request");
-                        }
-                    }
-                } else {
-                    LOG.error("Error sending request");
-                    return null;
-                }
-            }
-
-            return serverResponse == null
-                ? null
-                : getDecompressedString(serverResponse).getBytes();
-        } catch (IOException ex) {
-            LOG.error("Error sending request", ex);
+            return getServerRPCResponseAsync(method, requestId, request).get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException ex) {
+            LOG.error("Error sending request", ex.getCause());
             return null;
         }
     }
 
-    private boolean resend(byte[] msg) {
-        if (connectionTimeout.get()) {
-            return false;
+    CompletableFuture<byte[]> getServerRPCResponseAsync(String method, String requestId, String request) {
+        PipelinedRPCTransport currentTransport = transport;
+        if (connectionTimeout.get() || currentTransport == null) {
+            return failedFuture(new IOException("Trex server is unreachable"));
+        }
+        byte[] requestBytes = request.getBytes(StandardCharsets.UTF_8);
+        RPCTrace.getInstance().record(RPCTrace.Direction.REQUEST, method, requestId, requestBytes);
+        int level = compressionPolicy.selectLevel(method, requestBytes.length);
+        byte[] finalRequest = requestBytes;
+        long compressionStart = System.nanoTime();
+        if (level != RPCCompressionPolicy.NO_COMPRESSION) {
+            // header and compressed request are framed in one buffer
+            finalRequest = CompressionUtils.compressFrame(requestBytes, level);
         }
+        compressionPolicy.recordSent(method, requestBytes.length, finalRequest.length, level, System.nanoTime() - compressionStart);
+
+        PipelinedRPCTransport.TimingListener timingListener = new PipelinedRPCTransport.TimingListener() {
+            @Override
+            public void onSent(long transferNanos) {
+                compressionPolicy.recordTransfer(method, transferNanos);
+            }
+
+            @Override
+            public void onReply(long roundTripNanos) {
+                compressionPolicy.recordRoundTrip(roundTripNanos);
+            }
+        };
+        return currentTransport.send(requestId, finalRequest, timingListener).whenComplete((reply, error) -> {
+            if (error == null) {
+                RPCTrace.getInstance().record(RPCTrace.Direction.RESPONSE, method, requestId, reply);
+            }
+        });
+    }
+
+    private byte[] decompressReply(byte[] serverResponse) {
+        return getDecompressedBytes(serverResponse);
+    }
 
-        context.destroySocket(requester);
-        requester = buildRequester();
-        requester.connect(connectionString);
-        return requester.send(msg);
+    String nextRequestId() {
+        PipelinedRPCTransport currentTransport = transport;
+        return currentTransport != null
+            ? currentTransport.nextRequestId()
+            : Util.getRandomID(Constants.RPC_REQUEST_ID_LENGTH);
     }
 
-    private byte[] concatByteArrays(byte[] firstDataArray, byte[] secondDataArray) {
-        byte[] concatedDataArray = new byte[firstDataArray.length + secondDataArray.length];
-        System.arraycopy(firstDataArray, 0, concatedDataArray, 0, firstDataArray.length);
-        System.arraycopy(secondDataArray, 0, concatedDataArray, firstDataArray.length, secondDataArray.length);
-        return concatedDataArray;
+    private static <T> CompletableFuture<T> failedFuture(Throwable cause) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(cause);
+        return future;
+    }
+
+    /**
+     * @return policy deciding request compression, with per method counters
+     */
+    public RPCCompressionPolicy getCompressionPolicy() {
+        return compressionPolicy;
     }
 
     void setApiH(String apiH) {
@@ -704,23 +674,14 @@ public class ConnectionManager {
 
     public void disconnect() {
         setConnected(false);
+        LOG.debug("RPC compression stats: " + compressionPolicy.getMethodStats());
 
         disconnectSubscriber();
         disconnectRequester();
         disconnectScapy();
         getTrexClient().disconnect();
 
-        if (poller != null) {
-            try {
-                poller.close();
-            } catch (IOException ex) {
-                LOG.error("Error poller closing", ex);
-            }
-            poller.destroy();
-        }
-
         context = new ZContext();
-        poller = new ZPoller(context);
     }
 
     void notifyServerWasRestarted() {
@@ -0,0 +1,92 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.core;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of a coordinated multi port start.
+ * <p>
+ * All ports are started by one batched request carrying the same server
+ * start time. A port whose request was handled after that time started
+ * late, the skew is the spread of the actual start times, taken from the
+ * server timestamps of the start replies.
+ */
+public class CoordinatedStart {
+
+    private final Map<Integer, PortResult> results;
+    private final double startAt;
+    private final double skew;
+    private final List<Integer> notTransmitting;
+
+    CoordinatedStart(Map<Integer, PortResult> results, double startAt, double skew, List<Integer> notTransmitting) {
+        this.results = results;
+        this.startAt = startAt;
+        this.skew = skew;
+        this.notTransmitting = notTransmitting;
+    }
+
+    /**
+     * @return results by port
+     */
+    public Map<Integer, PortResult> getResults() {
+        return results;
+    }
+
+    /**
+     * @return requested server start time in seconds, NaN if the server
+     * time was not available and the ports were started immediately
+     */
+    public double getStartAt() {
+        return startAt;
+    }
+
+    /**
+     * @return false if the ports were started immediately because the server
+     * time was not available
+     */
+    public boolean isServerTimeAvailable() {
+        return !Double.isNaN(startAt);
+    }
+
+    /**
+     * @return start skew in seconds, NaN if unknown
+     */
+    public double getSkew() {
+        return skew;
+    }
+
+    /**
+     * @return started ports which were not transmitting after the start time
+     */
+    public List<Integer> getNotTransmitting() {
+        return notTransmitting;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("Coordinated start on ports ").append(results.keySet());
+        if (!Double.isNaN(startAt)) {
+            sb.append(String.format(" at server time %.3f", startAt));
+        }
+        sb.append(Double.isNaN(skew) ? ", skew unknown" : String.format(", skew %.3f ms", skew * 1000));
+        if (!notTransmitting.isEmpty()) {
+            sb.append(", not transmitting: ").append(notTransmitting);
+        }
+        return sb.toString();
+    }
+}
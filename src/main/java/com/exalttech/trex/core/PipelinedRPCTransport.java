@@ -0,0 +1,358 @@
+/*
+ * *****************************************************************************
+ * Copyright (c) 2016
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *****************************************************************************
+ */
+
+package com.exalttech.trex.core;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.apache.log4j.Logger;
+import org.zeromq.ZContext;
+import org.zeromq.ZMQ;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * RPC transport keeping several requests in flight over one DEALER socket.
+ * <p>
+ * The socket is owned by a single I/O thread. Callers only enqueue framed
+ * requests and get a future which is completed when the reply carrying the
+ * same JSON-RPC id arrives, so a slow call no longer stalls the others.
+ * Replies are decoded and handed to the callers on a separate pool so the
+ * I/O thread only moves frames. The I/O thread sleeps in a poll on the
+ * socket and on an inproc wakeup socket, queueing a request signals the
+ * wakeup socket so it is sent at once.
+ */
+class PipelinedRPCTransport {
+
+    private static final Logger LOG = Logger.getLogger(PipelinedRPCTransport.class.getName());
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    // requests are checked for expiry at least this often, in milliseconds
+    private static final int EXPIRE_INTERVAL = 100;
+    private static final int SEND_TIMEOUT = 1000;
+    private static final int COMPLETION_THREADS = 2;
+    private static final byte[] WAKEUP_SIGNAL = new byte[0];
+    private static final AtomicLong WAKEUP_SEQUENCE = new AtomicLong();
+
+    private final ZContext context;
+    private final String connectionString;
+    private final int timeout;
+    private final Function<byte[], byte[]> decoder;
+
+    private final Queue<PendingRequest> outgoing = new ConcurrentLinkedQueue<>();
+    private final Map<String, PendingRequest> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong idSequence = new AtomicLong();
+    private final ExecutorService completionExecutor = Executors.newFixedThreadPool(COMPLETION_THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "trex-rpc-completion");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // set while a wakeup signal is on its way to the I/O thread
+    private final AtomicBoolean wakeupPending = new AtomicBoolean();
+    // shared by the callers, guarded by itself
+    private volatile ZMQ.Socket wakeupSender;
+    private ZMQ.Socket wakeupReceiver;
+
+    private volatile boolean running = false;
+    private Thread ioThread;
+
+    /**
+     * Timing of one request
+     */
+    interface TimingListener {
+        /**
+         * Called on the I/O thread once the socket took the request
+         *
+         * @param transferNanos time from queueing the request until it was
+         * written to the socket
+         */
+        void onSent(long transferNanos);
+
+        /**
+         * Called when the reply arrived
+         *
+         * @param roundTripNanos time from writing the request until the reply
+         * arrived, server processing included
+         */
+        void onReply(long roundTripNanos);
+    }
+
+    /**
+     * @param context ZMQ context the socket is created from
+     * @param connectionString server RPC endpoint
+     * @param timeout time in milliseconds a request may stay unanswered
+     * @param decoder converts a raw reply frame into the JSON payload
+     */
+    PipelinedRPCTransport(ZContext context, String connectionString, int timeout, Function<byte[], byte[]> decoder) {
+        this.context = context;
+        this.connectionString = connectionString;
+        this.timeout = timeout;
+        this.decoder = decoder;
+    }
+
+    void start() {
+        // inproc requires the bind before the connect
+        String wakeupEndpoint = "inproc://trex-rpc-wakeup-" + WAKEUP_SEQUENCE.incrementAndGet();
+        wakeupReceiver = context.createSocket(ZMQ.PAIR);
+        wakeupReceiver.bind(wakeupEndpoint);
+        wakeupSender = context.createSocket(ZMQ.PAIR);
+        wakeupSender.connect(wakeupEndpoint);
+        running = true;
+        ioThread = new Thread(this::run, "trex-rpc-transport");
+        ioThread.setDaemon(true);
+        ioThread.start();
+    }
+
+    void stop() {
+        running = false;
+        wakeUp();
+        if (ioThread != null) {
+            try {
+                ioThread.join(SEND_TIMEOUT);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            ioThread = null;
+        }
+        completionExecutor.shutdown();
+        failPending(new IOException("RPC transport closed"));
+    }
+
+    /**
+     * @return id unique for this transport, to be used as JSON-RPC request id
+     */
+    String nextRequestId() {
+        return Long.toString(idSequence.incrementAndGet(), Character.MAX_RADIX);
+    }
+
+    /**
+     * Queue framed request for sending
+     *
+     * @param requestId JSON-RPC id of the request, or of the first request in a batch
+     * @param frame framed request bytes
+     * @param timingListener may be null
+     * @return future completed with the decoded reply
+     */
+    CompletableFuture<byte[]> send(String requestId, byte[] frame, TimingListener timingListener) {
+        PendingRequest request = new PendingRequest(requestId, frame, timingListener);
+        if (!running) {
+            request.future.completeExceptionally(new IOException("RPC transport is not running"));
+            return request.future;
+        }
+        outgoing.add(request);
+        wakeUp();
+        return request.future;
+    }
+
+    private void wakeUp() {
+        // one signal at a time is enough, the I/O thread sends everything queued
+        if (wakeupPending.compareAndSet(false, true)) {
+            ZMQ.Socket sender = wakeupSender;
+            if (sender == null) {
+                return;
+            }
+            synchronized (sender) {
+                if (wakeupSender != null) {
+                    sender.send(WAKEUP_SIGNAL, ZMQ.DONTWAIT);
+                }
+            }
+        }
+    }
+
+    /**
+     * Fail all queued and in flight requests
+     *
+     * @param cause
+     */
+    void failPending(Throwable cause) {
+        PendingRequest request;
+        while ((request = outgoing.poll()) != null) {
+            request.future.completeExceptionally(cause);
+        }
+        for (Iterator<PendingRequest> it = inFlight.values().iterator(); it.hasNext(); ) {
+            it.next().future.completeExceptionally(cause);
+            it.remove();
+        }
+    }
+
+    private void run() {
+        ZMQ.Socket socket = context.createSocket(ZMQ.DEALER);
+        socket.setSendTimeOut(SEND_TIMEOUT);
+        socket.setLinger(0);
+        socket.connect(connectionString);
+        ZMQ.Poller poller = context.getContext().poller(2);
+        int socketIndex = poller.register(socket, ZMQ.Poller.POLLIN);
+        int wakeupIndex = poller.register(wakeupReceiver, ZMQ.Poller.POLLIN);
+        try {
+            while (running) {
+                sendQueued(socket);
+                poller.poll(EXPIRE_INTERVAL);
+                if (poller.pollin(wakeupIndex)) {
+                    while (wakeupReceiver.recv(ZMQ.DONTWAIT) != null) {
+                        // signals carry no data
+                    }
+                    // requests queued from now on signal again
+                    wakeupPending.set(false);
+                }
+                if (poller.pollin(socketIndex)) {
+                    byte[] reply = receive(socket);
+                    while (reply != null) {
+                        final byte[] frame = reply;
+                        final long receivedNanos = System.nanoTime();
+                        completionExecutor.execute(() -> dispatch(frame, receivedNanos));
+                        reply = receive(socket);
+                    }
+                }
+                expire();
+            }
+        } catch (Exception ex) {
+            LOG.error("RPC transport failed", ex);
+            failPending(ex);
+        } finally {
+            running = false;
+            poller.unregister(socket);
+            poller.unregister(wakeupReceiver);
+            context.destroySocket(socket);
+            closeWakeupSockets();
+        }
+    }
+
+    private void closeWakeupSockets() {
+        ZMQ.Socket sender = wakeupSender;
+        synchronized (sender) {
+            wakeupSender = null;
+            context.destroySocket(sender);
+        }
+        context.destroySocket(wakeupReceiver);
+        wakeupReceiver = null;
+    }
+
+    private void sendQueued(ZMQ.Socket socket) {
+        PendingRequest request;
+        while ((request = outgoing.poll()) != null) {
+            request.deadline = System.currentTimeMillis() + timeout;
+            inFlight.put(request.id, request);
+            // REP peer expects an empty delimiter frame in front of the request
+            if (!socket.sendMore("") || !socket.send(request.frame)) {
+                inFlight.remove(request.id);
+                request.future.completeExceptionally(new IOException("Error sending request"));
+                continue;
+            }
+            request.sentNanos = System.nanoTime();
+            if (request.timingListener != null) {
+                request.timingListener.onSent(request.sentNanos - request.queuedNanos);
+            }
+        }
+    }
+
+    private byte[] receive(ZMQ.Socket socket) {
+        byte[] frame = socket.recv(ZMQ.DONTWAIT);
+        while (frame != null && socket.hasReceiveMore()) {
+            frame = socket.recv(0);
+        }
+        return frame;
+    }
+
+    private void dispatch(byte[] reply, long receivedNanos) {
+        byte[] decoded;
+        try {
+            decoded = decoder.apply(reply);
+        } catch (Exception ex) {
+            LOG.error("Unable to decode RPC response", ex);
+            return;
+        }
+        String id = extractId(decoded);
+        PendingRequest request = id != null ? inFlight.remove(id) : null;
+        if (request == null) {
+            LOG.warn("Dropping RPC response with unknown id: " + id);
+            return;
+        }
+        if (request.timingListener != null) {
+            request.timingListener.onReply(receivedNanos - request.sentNanos);
+        }
+        request.future.complete(decoded);
+    }
+
+    private void expire() {
+        long now = System.currentTimeMillis();
+        for (Iterator<PendingRequest> it = inFlight.values().iterator(); it.hasNext(); ) {
+            PendingRequest request = it.next();
+            if (request.deadline < now) {
+                it.remove();
+                request.future.completeExceptionally(new TimeoutException("No response for request " + request.id));
+            }
+        }
+    }
+
+    /**
+     * Read the id of a JSON-RPC response, or of the first response in a batch,
+     * without building a tree of the whole message.
+     *
+     * @param json
+     * @return the id or null if it is missing
+     */
+    static String extractId(byte[] json) {
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                token = parser.nextToken();
+            }
+            if (token != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if ("id".equals(field)) {
+                    return parser.getValueAsString();
+                }
+                parser.skipChildren();
+            }
+        } catch (IOException ex) {
+            LOG.warn("Unable to read RPC response id", ex);
+        }
+        return null;
+    }
+
+    private static class PendingRequest {
+        private final String id;
+        private final byte[] frame;
+        private final TimingListener timingListener;
+        private final CompletableFuture<byte[]> future = new CompletableFuture<>();
+        private final long queuedNanos = System.nanoTime();
+        private volatile long sentNanos;
+        private volatile long deadline;
+
+        PendingRequest(String id, byte[] frame, TimingListener timingListener) {
+            this.id = id;
+            this.frame = frame;
+            this.timingListener = timingListener;
+        }
+    }
+}
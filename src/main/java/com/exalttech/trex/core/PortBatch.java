@@ -0,0 +1,167 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.core;
+
+import com.cisco.trex.stateless.model.RPCResponse;
+import com.exalttech.trex.remote.models.common.RPCRequest;
+import com.exalttech.trex.remote.models.params.Params;
+import com.exalttech.trex.util.JsonCodec;
+import com.exalttech.trex.util.Util;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Requests for several ports sent as one JSON-RPC batch.
+ * <p>
+ * The server runs the requests in order and answers with one array, so an
+ * operation on all ports costs a single round trip. Requests of a port
+ * are merged in one {@link PortResult}, failed if any of them failed, the
+ * result of a single method stays available with {@link #getResults(String)}.
+ */
+class PortBatch {
+
+    private static final Logger LOG = Logger.getLogger(PortBatch.class.getName());
+
+    private final ConnectionManager connectionManager;
+    private final String method;
+    private final StringBuilder request = new StringBuilder("[");
+    private final List<Integer> requestPorts = new ArrayList<>();
+    private final List<String> requestMethods = new ArrayList<>();
+    private final List<PortResult> requestResults = new ArrayList<>();
+    private String firstRequestId;
+
+    /**
+     * @param connectionManager
+     * @param method name of the operation, used for tracing and compression
+     */
+    PortBatch(ConnectionManager connectionManager, String method) {
+        this.connectionManager = connectionManager;
+        this.method = method;
+    }
+
+    /**
+     * Add request to the batch
+     *
+     * @param portId port the request applies to
+     * @param method
+     * @param params
+     * @return this batch
+     * @throws JsonProcessingException
+     */
+    PortBatch add(int portId, String method, Params params) throws JsonProcessingException {
+        String requestId = connectionManager.nextRequestId();
+        RPCRequest rpcRequest = new RPCRequest();
+        rpcRequest.setId(requestId);
+        rpcRequest.setMethod(method);
+        rpcRequest.setParams(params);
+        String jsonRequestString = JsonCodec.getInstance().writeRPCRequest(rpcRequest);
+        jsonRequestString = Util.tuneJSONParams(jsonRequestString, params, connectionManager.getApiH());
+
+        if (firstRequestId == null) {
+            firstRequestId = requestId;
+        } else {
+            request.append(',');
+        }
+        request.append(jsonRequestString);
+        requestPorts.add(portId);
+        requestMethods.add(method);
+        return this;
+    }
+
+    boolean isEmpty() {
+        return requestPorts.isEmpty();
+    }
+
+    /**
+     * Send the batch and wait for the server response
+     *
+     * @return results by port, in the order the ports were added
+     */
+    Map<Integer, PortResult> execute() {
+        Map<Integer, PortResult> results = new LinkedHashMap<>();
+        if (isEmpty()) {
+            return results;
+        }
+
+        RPCResponse[] responses;
+        try {
+            request.append(']');
+            byte[] reply = connectionManager.getServerRPCResponseAsync(method, firstRequestId, request.toString()).get();
+            responses = JsonCodec.getInstance().readRPCResponses(new String(reply, StandardCharsets.UTF_8));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return failAll("Interrupted");
+        } catch (ExecutionException ex) {
+            LOG.error("Error sending " + method + " batch", ex.getCause());
+            return failAll(String.valueOf(ex.getCause().getMessage()));
+        } catch (IOException ex) {
+            LOG.error("Invalid " + method + " batch response", ex);
+            return failAll("Invalid response");
+        }
+
+        for (int i = 0; i < requestPorts.size(); i++) {
+            int portId = requestPorts.get(i);
+            PortResult result;
+            if (i >= responses.length) {
+                result = new PortResult(portId, null, "Missing response");
+            } else if (responses[i].getError() != null) {
+                result = new PortResult(portId, null, responses[i].getError().getSpecificErr());
+            } else {
+                result = new PortResult(portId, responses[i].getResult(), null);
+            }
+            requestResults.add(result);
+            PortResult previous = results.get(portId);
+            if (previous == null || previous.isSuccess()) {
+                results.put(portId, result);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Results of one method, once the batch was executed
+     *
+     * @param method
+     * @return results by port of the requests of the method
+     */
+    Map<Integer, PortResult> getResults(String method) {
+        Map<Integer, PortResult> results = new LinkedHashMap<>();
+        for (int i = 0; i < requestResults.size(); i++) {
+            if (method.equals(requestMethods.get(i))) {
+                results.put(requestPorts.get(i), requestResults.get(i));
+            }
+        }
+        return results;
+    }
+
+    private Map<Integer, PortResult> failAll(String error) {
+        Map<Integer, PortResult> results = new LinkedHashMap<>();
+        for (Integer portId : requestPorts) {
+            PortResult result = new PortResult(portId, null, error);
+            requestResults.add(result);
+            results.put(portId, result);
+        }
+        return results;
+    }
+}
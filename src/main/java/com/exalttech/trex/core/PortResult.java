@@ -0,0 +1,59 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.core;
+
+/**
+ * Result of a multi port operation on one port
+ */
+public class PortResult {
+
+    private final int portId;
+    private final String result;
+    private final String error;
+
+    PortResult(int portId, String result, String error) {
+        this.portId = portId;
+        this.result = result;
+        this.error = error;
+    }
+
+    public int getPortId() {
+        return portId;
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    /**
+     * @return raw JSON result of the last request sent for the port
+     */
+    public String getResult() {
+        return result;
+    }
+
+    /**
+     * @return error message, null on success
+     */
+    public String getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return "Port " + portId + (isSuccess() ? ": OK" : ": " + error);
+    }
+}
@@ -6,7 +6,7 @@ import com.cisco.trex.stateless.model.stats.PGIdStatsRPCResult;
 import com.cisco.trex.stateless.model.RPCResponse;
 import com.cisco.trex.stateless.model.stats.Utilization;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.exalttech.trex.util.JsonCodec;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -26,7 +26,7 @@ public class RPCCommands {
 
     public static ActivePGIdsRPCResult getActivePGIds() throws IOException {
         final String jsonResult = sendRequest(Commands.GET_ACTIVE_PGIDS, null);
-        return new ObjectMapper().readValue(jsonResult, ActivePGIdsRPCResult.class);
+        return JsonCodec.getInstance().readActivePGIds(jsonResult);
     }
 
     public static PGIdStatsRPCResult getPGIdStats(List<Integer> pgIds) throws IOException {
@@ -36,12 +36,12 @@ public class RPCCommands {
         final Map<String, Object> parameters = new HashMap<>();
         parameters.put("pgids", pgIds);
         final String jsonResult = sendRequest(Commands.GET_PGID_STATS, parameters);
-        return new ObjectMapper().readValue(jsonResult, PGIdStatsRPCResult.class);
+        return JsonCodec.getInstance().readPGIdStats(jsonResult);
     }
 
     public static Utilization getUtilization() throws IOException {
         final String jsonResult = sendRequest(Commands.GET_UTILIZATION, null);
-        return new ObjectMapper().readValue(jsonResult, Utilization.class);
+        return JsonCodec.getInstance().readUtilization(jsonResult);
     }
 
     // Should be removed from here, it is needed only for old architecture
@@ -50,11 +50,11 @@ public class RPCCommands {
     {
         String stringParameters = "";
         if (parameters != null) {
-            final String jsonParameters = new ObjectMapper().writeValueAsString(parameters);
+            final String jsonParameters = JsonCodec.getInstance().write(parameters);
             stringParameters = jsonParameters.substring(1, jsonParameters.length() - 1);
         }
         final String jsonRPCResult = ConnectionManager.getInstance().sendRequest(command, stringParameters);
-        final RPCResponse[] rpcResult = new ObjectMapper().readValue(jsonRPCResult, RPCResponse[].class);
+        final RPCResponse[] rpcResult = JsonCodec.getInstance().readRPCResponses(jsonRPCResult);
         final String specError = extractSpecError(rpcResult[0]);
         final String invalidHandlerErrorPart = "API handler provided mismatch";
 
@@ -0,0 +1,258 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.core;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.Deflater;
+
+/**
+ * Decides whether and how hard an outgoing RPC request is deflated.
+ * <p>
+ * Requests below the threshold are sent as plain JSON. For larger ones the
+ * level follows the link latency: on a local link zlib time dominates so the
+ * fastest level is used, over WAN the smaller message pays off. Round trips
+ * include the server processing time, so the link latency is taken as the
+ * smallest round trip of the connection over a window of requests rather
+ * than the round trip of the method. The time a request waits before it is
+ * written to the socket is measured separately as transfer time. Methods
+ * whose payload does not shrink are sent plain, with a periodic probe among
+ * the requests large enough to be compressed to notice when that changes.
+ */
+public class RPCCompressionPolicy {
+
+    /**
+     * Level value meaning the request is sent uncompressed
+     */
+    public static final int NO_COMPRESSION = -1;
+
+    public static final int DEFAULT_THRESHOLD = 512;
+
+    private static final double SMOOTHING = 0.2;
+    private static final double INCOMPRESSIBLE_RATIO = 0.9;
+    private static final int MIN_SAMPLES = 8;
+    private static final int PROBE_INTERVAL = 32;
+    private static final double LAN_LATENCY_MS = 2;
+    private static final double WAN_LATENCY_MS = 20;
+    private static final int LATENCY_WINDOW = 64;
+
+    private volatile int threshold = DEFAULT_THRESHOLD;
+    private final Map<String, MethodStats> methodStats = new ConcurrentHashMap<>();
+
+    // smallest round trip of the current and of the previous window
+    private double windowMinMillis;
+    private double previousWindowMinMillis;
+    private int windowSamples;
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Set minimal request size in bytes to be compressed
+     *
+     * @param threshold
+     */
+    public void setThreshold(int threshold) {
+        this.threshold = Math.max(0, threshold);
+    }
+
+    /**
+     * Select deflate level for the request
+     *
+     * @param method RPC method, or first method of a batch
+     * @param size uncompressed request size in bytes
+     * @return deflate level or {@link #NO_COMPRESSION}
+     */
+    public int selectLevel(String method, int size) {
+        if (size < threshold) {
+            return NO_COMPRESSION;
+        }
+        return getStats(method).selectLevel(getLinkLatencyMillis());
+    }
+
+    void recordSent(String method, int rawSize, int sentSize, int level, long compressionNanos) {
+        getStats(method).recordSent(rawSize, sentSize, level, compressionNanos);
+    }
+
+    void recordTransfer(String method, long transferNanos) {
+        getStats(method).recordTransfer(transferNanos);
+    }
+
+    /**
+     * @param roundTripNanos time from writing a request to the socket until
+     * its reply arrived
+     */
+    synchronized void recordRoundTrip(long roundTripNanos) {
+        double roundTripMillis = roundTripNanos / 1e6;
+        windowMinMillis = windowSamples == 0 ? roundTripMillis : Math.min(windowMinMillis, roundTripMillis);
+        if (++windowSamples >= LATENCY_WINDOW) {
+            previousWindowMinMillis = windowMinMillis;
+            windowSamples = 0;
+        }
+    }
+
+    /**
+     * @return estimated link latency in milliseconds, 0 if unknown
+     */
+    public synchronized double getLinkLatencyMillis() {
+        if (windowSamples == 0) {
+            return previousWindowMinMillis;
+        }
+        return previousWindowMinMillis == 0 ? windowMinMillis : Math.min(windowMinMillis, previousWindowMinMillis);
+    }
+
+    /**
+     * @return snapshot of per method counters, sorted by method name
+     */
+    public Map<String, MethodStats> getMethodStats() {
+        Map<String, MethodStats> snapshot = new TreeMap<>();
+        methodStats.forEach((method, stats) -> snapshot.put(method, stats.copy()));
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    public synchronized void reset() {
+        methodStats.clear();
+        windowMinMillis = 0;
+        previousWindowMinMillis = 0;
+        windowSamples = 0;
+    }
+
+    private MethodStats getStats(String method) {
+        return methodStats.computeIfAbsent(method != null ? method : "", name -> new MethodStats());
+    }
+
+    /**
+     * Counters of one RPC method
+     */
+    public static class MethodStats {
+        private long requests;
+        private long eligibleRequests;
+        private long compressedRequests;
+        private long rawBytes;
+        private long sentBytes;
+        private int lastLevel = NO_COMPRESSION;
+        private int samples;
+        private double ratio = 1;
+        private double compressionMillis;
+        private double transferMillis;
+
+        private synchronized int selectLevel(double linkLatencyMillis) {
+            eligibleRequests++;
+            boolean incompressible = samples >= MIN_SAMPLES && ratio > INCOMPRESSIBLE_RATIO;
+            if (incompressible && eligibleRequests % PROBE_INTERVAL != 0) {
+                return NO_COMPRESSION;
+            }
+            if (linkLatencyMillis < LAN_LATENCY_MS || compressionMillis > linkLatencyMillis / 4) {
+                return Deflater.BEST_SPEED;
+            }
+            return linkLatencyMillis < WAN_LATENCY_MS ? Deflater.DEFAULT_COMPRESSION : Deflater.BEST_COMPRESSION;
+        }
+
+        private synchronized void recordSent(int rawSize, int sentSize, int level, long compressionNanos) {
+            requests++;
+            rawBytes += rawSize;
+            sentBytes += sentSize;
+            lastLevel = level;
+            if (level != NO_COMPRESSION && rawSize > 0) {
+                compressedRequests++;
+                samples++;
+                ratio = smooth(ratio, (double) sentSize / rawSize, samples == 1);
+                compressionMillis = smooth(compressionMillis, compressionNanos / 1e6, samples == 1);
+            }
+        }
+
+        private synchronized void recordTransfer(long transferNanos) {
+            transferMillis = smooth(transferMillis, transferNanos / 1e6, transferMillis == 0);
+        }
+
+        private static double smooth(double current, double sample, boolean first) {
+            return first ? sample : current + SMOOTHING * (sample - current);
+        }
+
+        private synchronized MethodStats copy() {
+            MethodStats copy = new MethodStats();
+            copy.requests = requests;
+            copy.eligibleRequests = eligibleRequests;
+            copy.compressedRequests = compressedRequests;
+            copy.rawBytes = rawBytes;
+            copy.sentBytes = sentBytes;
+            copy.lastLevel = lastLevel;
+            copy.samples = samples;
+            copy.ratio = ratio;
+            copy.compressionMillis = compressionMillis;
+            copy.transferMillis = transferMillis;
+            return copy;
+        }
+
+        public synchronized long getRequests() {
+            return requests;
+        }
+
+        /**
+         * @return requests large enough to be compressed
+         */
+        public synchronized long getEligibleRequests() {
+            return eligibleRequests;
+        }
+
+        public synchronized long getCompressedRequests() {
+            return compressedRequests;
+        }
+
+        public synchronized long getRawBytes() {
+            return rawBytes;
+        }
+
+        public synchronized long getSentBytes() {
+            return sentBytes;
+        }
+
+        public synchronized int getLastLevel() {
+            return lastLevel;
+        }
+
+        /**
+         * @return smoothed compressed to raw size ratio
+         */
+        public synchronized double getRatio() {
+            return ratio;
+        }
+
+        public synchronized double getCompressionMillis() {
+            return compressionMillis;
+        }
+
+        /**
+         * @return smoothed time requests wait before they are written to the
+         * socket
+         */
+        public synchronized double getTransferMillis() {
+            return transferMillis;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return "MethodStats{" + "requests=" + requests + ", eligibleRequests=" + eligibleRequests
+                    + ", compressedRequests=" + compressedRequests
+                    + ", rawBytes=" + rawBytes + ", sentBytes=" + sentBytes + ", lastLevel=" + lastLevel
+                    + ", ratio=" + ratio + ", compressionMillis=" + compressionMillis
+                    + ", transferMillis=" + transferMillis + '}';
+        }
+    }
+}
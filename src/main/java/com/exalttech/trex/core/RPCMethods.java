@@ -29,17 +29,27 @@ import com.exalttech.trex.remote.models.validate.StreamValidation;
 import com.exalttech.trex.ui.models.Port;
 import com.exalttech.trex.ui.views.logs.LogType;
 import com.exalttech.trex.ui.views.logs.LogsController;
+import com.exalttech.trex.util.AddStreamWriter;
 import com.exalttech.trex.util.Constants;
-import com.exalttech.trex.util.TrafficProfile;
+import com.exalttech.trex.util.JsonCodec;
+import com.exalttech.trex.util.ProfileCache;
 import com.exalttech.trex.util.Util;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.inject.Inject;
 import org.apache.log4j.Logger;
 
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.logging.Level;
 
 /**
@@ -52,8 +62,17 @@ public class RPCMethods {
     private static final int API_VERSION_MAJOR = 4;
     private static final int API_VERSION_MINOR = 0;
     private static final String API_VERSION_TYPE = "core";
-    private HashMap connectionHandler = new HashMap();
+    private static final int MAX_PARALLEL_ASSIGNS = 8;
+    // coordinated start lead time, in seconds
+    private static final double MIN_START_LEAD = 0.05;
+    private static final double START_LEAD_PER_PORT = 0.002;
+    // delay after the start time before checking the port states, in milliseconds
+    private static final long START_CHECK_DELAY = 100;
+    // handlers are also read by the multi port operations running off the FX thread
+    private final Map<Integer, String> connectionHandler = new ConcurrentHashMap<>();
     private final ConnectionManager serverConnectionManager = ConnectionManager.getInstance();
+    @Inject
+    private JsonCodec codec;
     private String apiH = "";
 
     /**
@@ -72,14 +91,16 @@ public class RPCMethods {
         acquireParams.setForce(force);
         acquireParams.setUser(serverConnectionManager.getClientName());
         acquireParams.setSessionId(Util.getRandomID());
-        ObjectMapper mapper = new ObjectMapper();
 
         try {
             String response = serverConnectionManager.sendRPCRequest(Constants.ACQUIRE_METHOD, acquireParams);
             response = Util.removeFirstBrackets(response);
 
-            RPCResponse rpcResult = mapper.readValue(response, RPCResponse.class);
-            String handler = mapper.readValue(rpcResult.getResult(), String.class);
+            RPCResponse rpcResult = codec.readRPCResponse(response);
+            String handler = codec.read(rpcResult.getResult(), String.class);
+            if (handler == null) {
+                throw new PortAcquireException("Invalid acquire response");
+            }
             connectionHandler.put(portID, handler);
             serverConnectionManager.propagatePortHandler(portID, handler);
             return handler;
@@ -100,8 +121,7 @@ public class RPCMethods {
             String params = "\"api_vers\": [ {\"major\": " + API_VERSION_MAJOR + ",\"minor\": " + API_VERSION_MINOR + ",\"type\": \"" + API_VERSION_TYPE + "\"}]";
             String apiSync = ConnectionManager.getInstance().sendRequest("api_sync", params);
             apiSync = Util.removeFirstBrackets(apiSync);
-            ObjectMapper mapper = new ObjectMapper();
-            ApiSyncResult apiSyncResult = mapper.readValue(apiSync, ApiSyncResult.class);
+            ApiSyncResult apiSyncResult = codec.read(apiSync, ApiSyncResult.class);
             apiH = apiSyncResult.getResult().getApiVers().get(0).getApiH();
             serverConnectionManager.setApiH(apiH);
 
@@ -156,8 +176,7 @@ public class RPCMethods {
      */
     private double getMultiplierValue(String updateTrafficResponse) {
         try {
-            ObjectMapper mapper = new ObjectMapper();
-            TrafficResponse trafficResponse = mapper.readValue(Util.removeFirstBrackets(updateTrafficResponse), TrafficResponse.class);
+            TrafficResponse trafficResponse = codec.read(Util.removeFirstBrackets(updateTrafficResponse), TrafficResponse.class);
             return trafficResponse.getResult().getMultiplier();
         } catch (IOException ex) {
             return -1;
@@ -173,15 +192,27 @@ public class RPCMethods {
      * @throws java.lang.Exception
      */
     public StreamValidation assignTrafficProfile(int portID, Profile[] profileList) throws Exception {
+        return assignTrafficProfile(portID, profileList, null);
+    }
+
+    /**
+     *
+     * @param portID
+     * @param profileList
+     * @param listener stream upload progress listener, may be null
+     * @return true in case of success
+     * @throws java.lang.Exception
+     */
+    public StreamValidation assignTrafficProfile(int portID, Profile[] profileList, StreamUploader.ProgressListener listener) throws Exception {
+        return assignTrafficProfile(portID, profileList, null, listener);
+    }
+
+    private StreamValidation assignTrafficProfile(int portID, Profile[] profileList, String[] compiledStreams, StreamUploader.ProgressListener listener) throws Exception {
         String handler = (String) connectionHandler.get(portID);
         stopTraffic(portID);
         removeAllStreams(portID);
         LogsController.getInstance().appendText(LogType.INFO, "Assigning Traffic Profile on Port " + portID);
-        TrafficProfile trexTrafficProfile = new TrafficProfile();
-        Profile[] updatedProfileList;
-
-        updatedProfileList = trexTrafficProfile.prepareTrafficProfile(profileList, portID, handler);
-        serverConnectionManager.sendAddStreamRequest(updatedProfileList);
+        serverConnectionManager.sendAddStreamRequest(profileList, compiledStreams, portID, handler, listener);
         return validateStream(portID);
 
     }
@@ -310,12 +341,11 @@ public class RPCMethods {
         String handler = (String) connectionHandler.get(portID);
         CommonParams params = new CommonParams(portID, handler);
 
-        ObjectMapper mapper = new ObjectMapper();
         String response = serverConnectionManager.sendRPCRequest(Constants.VALIDATE_METHOD, params);
 
         response = Util.removeFirstBrackets(response);
 
-        StreamValidation streamValidationResponse = mapper.readValue(response, StreamValidation.class);
+        StreamValidation streamValidationResponse = codec.read(response, StreamValidation.class);
         LOG.trace("Stream Validation response :" + streamValidationResponse.getResult().getRate().toString());
         LogsController.getInstance().appendText(LogType.INFO, "Stream Validation response :" + streamValidationResponse.getResult().getRate().toString());
         return streamValidationResponse;
@@ -328,17 +358,392 @@ public class RPCMethods {
      * @param force
      */
     public void acquireAllServerPorts(List<Port> portList, Boolean force) {
+        connectionHandler.clear();
+        List<Integer> portIds = new ArrayList<>();
+        for (Port port : portList) {
+            portIds.add(port.getIndex());
+        }
+        acquirePorts(portIds, force);
+    }
+
+    /**
+     * Acquire ports with one batched request
+     *
+     * @param portIds
+     * @param force acquire ports owned by others too
+     * @return results by port
+     */
+    public Map<Integer, PortResult> acquirePorts(List<Integer> portIds, boolean force) {
+        LogsController.getInstance().appendText(LogType.INFO, "Acquiring ports " + portIds);
+        PortBatch batch = new PortBatch(serverConnectionManager, Constants.ACQUIRE_METHOD);
+        Map<Integer, PortResult> results;
+        try {
+            for (Integer portID : portIds) {
+                AcquireParams acquireParams = new AcquireParams();
+                acquireParams.setPortId(portID);
+                acquireParams.setForce(force);
+                acquireParams.setUser(serverConnectionManager.getClientName());
+                acquireParams.setSessionId(Util.getRandomID());
+                batch.add(portID, Constants.ACQUIRE_METHOD, acquireParams);
+            }
+            results = batch.execute();
+        } catch (JsonProcessingException ex) {
+            results = failAll(portIds, ex.getMessage());
+        }
+
+        for (PortResult result : results.values()) {
+            if (!result.isSuccess()) {
+                continue;
+            }
+            try {
+                String handler = codec.read(result.getResult(), String.class);
+                if (handler == null) {
+                    results.put(result.getPortId(), new PortResult(result.getPortId(), null, "Invalid acquire response"));
+                    continue;
+                }
+                connectionHandler.put(result.getPortId(), handler);
+                serverConnectionManager.propagatePortHandler(result.getPortId(), handler);
+            } catch (IOException ex) {
+                results.put(result.getPortId(), new PortResult(result.getPortId(), null, "Invalid acquire response"));
+            }
+        }
+        return logResults("Acquire", results);
+    }
+
+    /**
+     * Start traffic on ports with one batched request
+     *
+     * @param multipliers multiplier by port
+     * @param duration
+     * @param force
+     * @return results by port
+     */
+    public Map<Integer, PortResult> startTraffic(Map<Integer, Multiplier> multipliers, double duration, boolean force) {
+        LogsController.getInstance().appendText(LogType.INFO, "Starting Traffic on Ports " + multipliers.keySet());
+        PortBatch batch = new PortBatch(serverConnectionManager, Constants.START_TRAFFIC_METHOD);
+        try {
+            for (Map.Entry<Integer, Multiplier> entry : multipliers.entrySet()) {
+                TrafficParams trafficParams = new TrafficParams(force, connectionHandler.get(entry.getKey()), entry.getValue(), entry.getKey());
+                trafficParams.setDuration(duration);
+                batch.add(entry.getKey(), Constants.START_TRAFFIC_METHOD, trafficParams);
+            }
+            return logResults("Start traffic", batch.execute());
+        } catch (JsonProcessingException ex) {
+            return failAll(multipliers.keySet(), ex.getMessage());
+        }
+    }
+
+    /**
+     * Start traffic on ports at the same server time. The start time is set
+     * ahead by the measured round trip so every port gets the request before
+     * it, then the actual skew is computed from the server reply timestamps
+     * and the port states are checked.
+     *
+     * @param multipliers multiplier by port
+     * @param duration
+     * @param force
+     * @return results and measured skew
+     */
+    public CoordinatedStart startTrafficCoordinated(Map<Integer, Multiplier> multipliers, double duration, boolean force) {
+        long pingStart = System.nanoTime();
+        double serverTime = getServerTime();
+        long pingEnd = System.nanoTime();
+        double rtt = (pingEnd - pingStart) / 1e9;
+
+        double startAt = Double.NaN;
+        if (!Double.isNaN(serverTime)) {
+            // server time of the ping is taken half way through the round trip
+            double lead = Math.max(MIN_START_LEAD, 2 * rtt + multipliers.size() * START_LEAD_PER_PORT);
+            startAt = serverTime + rtt / 2 + lead;
+        }
+
+        LogsController.getInstance().appendText(LogType.INFO, "Starting Traffic on Ports " + multipliers.keySet() + " at once");
+        PortBatch batch = new PortBatch(serverConnectionManager, Constants.START_TRAFFIC_METHOD);
+        Map<Integer, PortResult> results;
+        try {
+            for (Map.Entry<Integer, Multiplier> entry : multipliers.entrySet()) {
+                TrafficParams trafficParams = new TrafficParams(force, connectionHandler.get(entry.getKey()), entry.getValue(), entry.getKey());
+                trafficParams.setDuration(duration);
+                if (!Double.isNaN(startAt)) {
+                    trafficParams.setStartAtTs(startAt);
+                }
+                batch.add(entry.getKey(), Constants.START_TRAFFIC_METHOD, trafficParams);
+            }
+            results = logResults("Start traffic", batch.execute());
+        } catch (JsonProcessingException ex) {
+            results = failAll(multipliers.keySet(), ex.getMessage());
+        }
+
+        // a port handled after the start time started when its request was handled
+        double first = Double.NaN;
+        double last = Double.NaN;
+        List<Integer> started = new ArrayList<>();
+        for (PortResult result : results.values()) {
+            if (!result.isSuccess()) {
+                continue;
+            }
+            started.add(result.getPortId());
+            double handledAt = readTimestamp(result.getResult());
+            if (Double.isNaN(handledAt)) {
+                first = Double.NaN;
+                last = Double.NaN;
+                break;
+            }
+            double actualStart = Double.isNaN(startAt) ? handledAt : Math.max(startAt, handledAt);
+            first = Double.isNaN(first) ? actualStart : Math.min(first, actualStart);
+            last = Double.isNaN(last) ? actualStart : Math.max(last, actualStart);
+        }
+
+        if (!Double.isNaN(startAt)) {
+            long elapsed = System.nanoTime() - pingEnd;
+            long wait = (long) ((startAt - serverTime - rtt / 2) * 1000) - elapsed / 1000000 + START_CHECK_DELAY;
+            try {
+                Thread.sleep(Math.max(0, wait));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        List<Integer> notTransmitting = getNotTransmitting(started);
+
+        CoordinatedStart coordinatedStart = new CoordinatedStart(results, startAt, last - first, notTransmitting);
+        LOG.info(coordinatedStart);
+        LogsController.getInstance().appendText(notTransmitting.isEmpty() ? LogType.INFO : LogType.ERROR, coordinatedStart.toString());
+        return coordinatedStart;
+    }
+
+    /**
+     * The server replies to ping with its time as {"ts": seconds}, the same
+     * clock the start_at_ts of start_traffic and the "ts" of its reply are
+     * on. The Python client reads it the same way for its synchronized start.
+     *
+     * @return server time in seconds, NaN if not available
+     */
+    private double getServerTime() {
+        try {
+            String response = serverConnectionManager.sendRPCRequest(Constants.PING_METHOD, null);
+            RPCResponse rpcResponse = codec.readRPCResponse(Util.removeFirstBrackets(response));
+            double serverTime = readTimestamp(rpcResponse.getResult());
+            if (Double.isNaN(serverTime)) {
+                LOG.warn("Ping reply has no server time, ports are started immediately: " + rpcResponse.getResult());
+            }
+            return serverTime;
+        } catch (IOException | InvalidRPCResponseException | IncorrectRPCMethodException | NullPointerException ex) {
+            LOG.warn("Unable to get server time, ports are started immediately", ex);
+            return Double.NaN;
+        }
+    }
+
+    private static double readTimestamp(String result) {
+        if (result == null) {
+            return Double.NaN;
+        }
+        try {
+            JsonNode ts = codec.getMapper().readTree(result).get("ts");
+            return ts != null && ts.isNumber() ? ts.asDouble() : Double.NaN;
+        } catch (IOException ex) {
+            return Double.NaN;
+        }
+    }
+
+    private List<Integer> getNotTransmitting(List<Integer> portIds) {
+        List<Integer> notTransmitting = new ArrayList<>();
+        if (portIds.isEmpty()) {
+            return notTransmitting;
+        }
+        PortBatch batch = new PortBatch(serverConnectionManager, Constants.PORT_STATUS_METHOD);
+        try {
+            for (Integer portID : portIds) {
+                batch.add(portID, Constants.PORT_STATUS_METHOD, new CommonParams(portID, null));
+            }
+        } catch (JsonProcessingException ex) {
+            return notTransmitting;
+        }
+        for (PortResult result : batch.execute().values()) {
+            String state = null;
+            if (result.isSuccess()) {
+                try {
+                    state = codec.getMapper().readTree(result.getResult()).path("state").asText();
+                } catch (IOException ex) {
+                    LOG.warn("Invalid port status", ex);
+                }
+            }
+            if (!"TX".equalsIgnoreCase(state)) {
+                notTransmitting.add(result.getPortId());
+            }
+        }
+        return notTransmitting;
+    }
+
+    /**
+     * Resume traffic on ports with one batched request
+     *
+     * @param portIds
+     * @return results by port
+     */
+    public Map<Integer, PortResult> resumeTraffic(List<Integer> portIds) {
+        LogsController.getInstance().appendText(LogType.INFO, "Resuming Traffic on Ports " + portIds);
+        return executeCommon("Resume traffic", portIds, Constants.RESUME_TRAFFIC_METHOD);
+    }
+
+    /**
+     * Stop traffic and remove RX filters on ports with one batched request
+     *
+     * @param portIds
+     * @return results by port
+     */
+    public Map<Integer, PortResult> stopPortTraffic(List<Integer> portIds) {
+        LogsController.getInstance().appendText(LogType.INFO, "Stopping traffic on Ports " + portIds);
+        return executeCommon("Stop traffic", portIds, Constants.STOP_TRAFFIC_METHOD, Constants.REMOVE_RX_FILTER_METHOD);
+    }
+
+    /**
+     * Release ports with one batched request
+     *
+     * @param portIds
+     * @param stopTraffic stop traffic and remove streams before releasing
+     * @return results by port
+     */
+    public Map<Integer, PortResult> releasePorts(List<Integer> portIds, boolean stopTraffic) {
+        LogsController.getInstance().appendText(LogType.INFO, "Releasing Ports " + portIds);
+        PortBatch batch = stopTraffic
+            ? commonBatch(portIds, Constants.STOP_TRAFFIC_METHOD, Constants.REMOVE_ALL_STREAMS_METHOD, Constants.RELEASE_HANDLER_METHOD)
+            : commonBatch(portIds, Constants.RELEASE_HANDLER_METHOD);
+        if (batch == null) {
+            return failAll(portIds, "Unable to build release request");
+        }
+        Map<Integer, PortResult> results = logResults("Release", batch.execute());
+        // a port whose streams could not be removed may still be released
+        for (PortResult release : batch.getResults(Constants.RELEASE_HANDLER_METHOD).values()) {
+            if (release.isSuccess()) {
+                serverConnectionManager.invalidatePortHandler(release.getPortId());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Assign profile to ports, the streams of the ports are uploaded
+     * concurrently over the pipelined transport
+     *
+     * @param portIds
+     * @param profileList profiles, must not be edited until the call returns
+     * @return results by port, with the stream validation as result
+     */
+    public Map<Integer, PortResult> assignTrafficProfile(List<Integer> portIds, Profile[] profileList) {
+        return assignTrafficProfile(portIds, profileList, null);
+    }
+
+    /**
+     * Assign profile to ports, the streams of the ports are uploaded
+     * concurrently over the pipelined transport
+     *
+     * @param portIds
+     * @param profileList profiles, must not be edited until the call returns
+     * @param listener progress of the streams uploaded to all ports, may be null
+     * @return results by port, with the stream validation as result
+     */
+    public Map<Integer, PortResult> assignTrafficProfile(List<Integer> portIds, Profile[] profileList, StreamUploader.ProgressListener listener) {
+        String[] compiledStreams;
         try {
-            connectionHandler.clear();
-            for (Port port : portList) {
-                String handler = this.acquireServerPort(port.getIndex(), force);
-                connectionHandler.put(port.getIndex(), handler);
+            compiledStreams = new AddStreamWriter(profileList, 0, null, null).compileStreams();
+        } catch (IOException ex) {
+            LOG.error("Unable to serialize the profile streams", ex);
+            return failAll(portIds, "Unable to serialize the profile streams");
+        }
+        return assignTrafficProfile(portIds, new ProfileCache.CompiledProfile(profileList, compiledStreams), listener);
+    }
 
+    /**
+     * Assign a compiled profile to ports, the compiled streams are shared by
+     * all the ports and only the port fields are written per port
+     *
+     * @param portIds
+     * @param profile
+     * @param listener progress of the streams uploaded to all ports, may be null
+     * @return results by port, with the stream validation as result
+     */
+    public Map<Integer, PortResult> assignTrafficProfile(List<Integer> portIds, ProfileCache.CompiledProfile profile, StreamUploader.ProgressListener listener) {
+        Profile[] profileList = profile.getProfiles();
+        int totalStreams = portIds.size() * profileList.length;
+        Map<Integer, Integer> uploadedByPort = new ConcurrentHashMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(portIds.size(), MAX_PARALLEL_ASSIGNS)));
+        try {
+            Map<Integer, CompletableFuture<PortResult>> futures = new LinkedHashMap<>();
+            for (Integer portID : portIds) {
+                futures.put(portID, CompletableFuture.supplyAsync(() -> {
+                    try {
+                        StreamValidation validation = assignTrafficProfile(portID, profileList, profile.getStreams(), listener == null ? null : (uploaded, total) -> {
+                            uploadedByPort.put(portID, uploaded);
+                            listener.onProgress(uploadedByPort.values().stream().mapToInt(Integer::intValue).sum(), totalStreams);
+                        });
+                        return new PortResult(portID, codec.write(validation), null);
+                    } catch (Exception ex) {
+                        LOG.error("Failed to assign profile on port " + portID, ex);
+                        return new PortResult(portID, null, String.valueOf(ex.getMessage()));
+                    }
+                }, executor));
             }
+            Map<Integer, PortResult> results = new LinkedHashMap<>();
+            for (Map.Entry<Integer, CompletableFuture<PortResult>> entry : futures.entrySet()) {
+                try {
+                    results.put(entry.getKey(), entry.getValue().get());
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    results.put(entry.getKey(), new PortResult(entry.getKey(), null, "Interrupted"));
+                } catch (ExecutionException ex) {
+                    results.put(entry.getKey(), new PortResult(entry.getKey(), null, String.valueOf(ex.getCause().getMessage())));
+                }
+            }
+            return logResults("Assign profile", results);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private Map<Integer, PortResult> executeCommon(String operation, List<Integer> portIds, String... methods) {
+        PortBatch batch = commonBatch(portIds, methods);
+        if (batch == null) {
+            return failAll(portIds, "Unable to build " + methods[0] + " request");
+        }
+        return logResults(operation, batch.execute());
+    }
+
+    /**
+     * @return batch of the methods for each port, null if a request could
+     * not be serialized
+     */
+    private PortBatch commonBatch(List<Integer> portIds, String... methods) {
+        PortBatch batch = new PortBatch(serverConnectionManager, methods[0]);
+        try {
+            for (Integer portID : portIds) {
+                CommonParams params = new CommonParams(portID, connectionHandler.get(portID));
+                for (String method : methods) {
+                    batch.add(portID, method, params);
+                }
+            }
+            return batch;
+        } catch (JsonProcessingException ex) {
+            LOG.error("Unable to build " + methods[0] + " batch", ex);
+            return null;
+        }
+    }
 
-        } catch (PortAcquireException ex) {
-            LOG.error("------" + ex.getMessage());
+    private Map<Integer, PortResult> failAll(Iterable<Integer> portIds, String error) {
+        Map<Integer, PortResult> results = new LinkedHashMap<>();
+        for (Integer portID : portIds) {
+            results.put(portID, new PortResult(portID, null, error));
+        }
+        return logResults("Batch", results);
+    }
+
+    private Map<Integer, PortResult> logResults(String operation, Map<Integer, PortResult> results) {
+        for (PortResult result : results.values()) {
+            if (!result.isSuccess()) {
+                LOG.error(operation + " failed on port " + result.getPortId() + ": " + result.getError());
+                LogsController.getInstance().appendText(LogType.ERROR, operation + " failed on port " + result.getPortId() + ": " + result.getError());
+            }
         }
+        return results;
     }
 
     /**
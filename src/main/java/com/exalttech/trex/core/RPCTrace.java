@@ -0,0 +1,237 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.core;
+
+import com.exalttech.trex.util.MemoryMonitor;
+import com.exalttech.trex.util.Util;
+import org.apache.log4j.Logger;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Bounded trace of the raw RPC requests and responses.
+ * <p>
+ * Nothing is recorded unless tracing is turned on with
+ * {@link #setEnabled(boolean)}, from the RPC Trace tab of the logs pane, or TRACE is enabled for this class, in which
+ * case messages are only logged. Payloads are kept as the byte arrays already
+ * produced by the transport, nothing is decoded or formatted when recording.
+ * Pretty printing happens only when an entry is viewed or logged. The oldest
+ * entries are dropped once the entry count or the total payload size exceeds
+ * the limits.
+ */
+public class RPCTrace implements MemoryMonitor.MemoryReleaser {
+
+    private static final Logger LOG = Logger.getLogger(RPCTrace.class.getName());
+
+    public static final int DEFAULT_CAPACITY = 256;
+    public static final long DEFAULT_MAX_BYTES = 8L * 1024 * 1024;
+
+    /**
+     * Direction of the traced message
+     */
+    public enum Direction {
+        REQUEST, RESPONSE
+    }
+
+    private static RPCTrace instance = null;
+
+    /**
+     *
+     * @return
+     */
+    public static synchronized RPCTrace getInstance() {
+        if (instance == null) {
+            instance = new RPCTrace();
+            MemoryMonitor.getInstance().addReleaser(instance);
+        }
+        return instance;
+    }
+
+    private final Deque<Entry> entries = new ArrayDeque<>();
+    private volatile boolean enabled = false;
+    private int capacity = DEFAULT_CAPACITY;
+    private long maxBytes = DEFAULT_MAX_BYTES;
+    private long totalBytes = 0;
+    private long dropped = 0;
+
+    protected RPCTrace() {
+    }
+
+    /**
+     * Record message, the payload array is kept as is and must not be
+     * modified afterwards
+     *
+     * @param direction
+     * @param method
+     * @param requestId
+     * @param payload uncompressed JSON bytes
+     */
+    public void record(Direction direction, String method, String requestId, byte[] payload) {
+        boolean logged = LOG.isTraceEnabled();
+        if (payload == null || (!enabled && !logged)) {
+            return;
+        }
+        Entry entry = new Entry(System.currentTimeMillis(), direction, method, requestId, payload);
+        if (enabled) {
+            synchronized (this) {
+                entries.addLast(entry);
+                totalBytes += payload.length;
+                trim();
+            }
+        }
+        if (logged) {
+            LOG.trace(entry.getSummary() + "\n" + entry.getPrettyPayload());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Start or stop retaining messages, the retained entries are dropped
+     * when tracing is turned off
+     *
+     * @param enabled
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            clear();
+        }
+    }
+
+    /**
+     * @return snapshot of the retained entries, oldest first
+     */
+    public synchronized List<Entry> getEntries() {
+        return new ArrayList<>(entries);
+    }
+
+    /**
+     * @return number of entries evicted since the last clear
+     */
+    public synchronized long getDroppedCount() {
+        return dropped;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        totalBytes = 0;
+        dropped = 0;
+    }
+
+    @Override
+    public synchronized void releaseMemory() {
+        dropped += entries.size();
+        entries.clear();
+        totalBytes = 0;
+    }
+
+    /**
+     * Set limits of the buffer
+     *
+     * @param capacity max number of entries
+     * @param maxBytes max total payload size
+     */
+    public synchronized void setLimits(int capacity, long maxBytes) {
+        this.capacity = Math.max(0, capacity);
+        this.maxBytes = Math.max(0, maxBytes);
+        trim();
+    }
+
+    public synchronized int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized long getMaxBytes() {
+        return maxBytes;
+    }
+
+    private void trim() {
+        while (!entries.isEmpty() && (entries.size() > capacity || totalBytes > maxBytes)) {
+            totalBytes -= entries.removeFirst().payload.length;
+            dropped++;
+        }
+    }
+
+    /**
+     * One traced request or response
+     */
+    public static final class Entry {
+        private final long timestamp;
+        private final Direction direction;
+        private final String method;
+        private final String requestId;
+        private final byte[] payload;
+
+        Entry(long timestamp, Direction direction, String method, String requestId, byte[] payload) {
+            this.timestamp = timestamp;
+            this.direction = direction;
+            this.method = method;
+            this.requestId = requestId;
+            this.payload = payload;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public Direction getDirection() {
+            return direction;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getRequestId() {
+            return requestId;
+        }
+
+        public int getSize() {
+            return payload.length;
+        }
+
+        /**
+         * @return payload as received or sent
+         */
+        public String getPayload() {
+            return new String(payload, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * @return indented payload, formatted on each call
+         */
+        public String getPrettyPayload() {
+            return Util.toPrettyFormat(getPayload());
+        }
+
+        public String getSummary() {
+            return (direction == Direction.REQUEST ? "Sending request " : "Received Server response ")
+                    + method + " [" + requestId + "] " + payload.length + " bytes";
+        }
+
+        @Override
+        public String toString() {
+            return getSummary();
+        }
+    }
+}
@@ -0,0 +1,275 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.core;
+
+import com.cisco.trex.stateless.model.RPCResponse;
+import com.exalttech.trex.remote.exceptions.IncorrectRPCMethodException;
+import com.exalttech.trex.remote.exceptions.InvalidRPCResponseException;
+import com.exalttech.trex.remote.models.common.RPCRequest;
+import com.exalttech.trex.remote.models.params.Params;
+import com.exalttech.trex.remote.models.params.StreamParams;
+import com.exalttech.trex.remote.models.profiles.Profile;
+import com.exalttech.trex.ui.views.logs.LogType;
+import com.exalttech.trex.ui.views.logs.LogsController;
+import com.exalttech.trex.util.AddStreamWriter;
+import com.exalttech.trex.util.Constants;
+import com.exalttech.trex.util.JsonCodec;
+import com.exalttech.trex.util.Util;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.apache.commons.io.output.StringBuilderWriter;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Uploads the streams of a profile with batched add_stream requests.
+ * <p>
+ * Streams are serialized straight from the loaded profiles into chunks
+ * limited by stream count and size, and a few chunks are kept in flight on the pipelined transport. The
+ * chunk is compressed by the transport according to the compression policy.
+ * When a stream is rejected or a chunk is lost, every stream sent so far is
+ * removed again, whether or not its reply arrived, so the port is left as it
+ * was. Streams the server never added just fail to be removed.
+ */
+public class StreamUploader {
+
+    private static final Logger LOG = Logger.getLogger(StreamUploader.class.getName());
+
+    static final int DEFAULT_CHUNK_STREAMS = 256;
+    static final int DEFAULT_CHUNK_BYTES = 512 * 1024;
+    private static final int MAX_CHUNKS_IN_FLIGHT = 4;
+
+    /**
+     * Upload progress callback, called on the uploading thread
+     */
+    public interface ProgressListener {
+        void onProgress(int uploadedStreams, int totalStreams);
+    }
+
+    private final ConnectionManager connectionManager;
+    private final int chunkStreams;
+    private final int chunkBytes;
+
+    StreamUploader(ConnectionManager connectionManager) {
+        this(connectionManager, DEFAULT_CHUNK_STREAMS, DEFAULT_CHUNK_BYTES);
+    }
+
+    /**
+     * @param connectionManager
+     * @param chunkStreams max number of streams in one request
+     * @param chunkBytes max uncompressed size of one request, a single bigger
+     * stream is still sent alone
+     */
+    StreamUploader(ConnectionManager connectionManager, int chunkStreams, int chunkBytes) {
+        this.connectionManager = connectionManager;
+        this.chunkStreams = Math.max(1, chunkStreams);
+        this.chunkBytes = Math.max(1, chunkBytes);
+    }
+
+    /**
+     * Upload all streams, blocks until the server accepted them
+     *
+     * @param profiles loaded profiles
+     * @param compiledStreams stream objects compiled from the profiles, may be null
+     * @param portID
+     * @param handler
+     * @param listener progress listener, may be null
+     * @throws IOException if a stream could not be serialized
+     * @throws IncorrectRPCMethodException if the server rejected a stream
+     * @throws InvalidRPCResponseException if a chunk got no valid response
+     */
+    void upload(Profile[] profiles, String[] compiledStreams, int portID, String handler, ProgressListener listener) throws IOException, IncorrectRPCMethodException, InvalidRPCResponseException {
+        AddStreamWriter streamWriter = new AddStreamWriter(profiles, compiledStreams, portID, handler, connectionManager.getApiH());
+        StringBuilder request = new StringBuilder();
+        StringBuilderWriter requestWriter = new StringBuilderWriter(request);
+        Deque<Chunk> inFlight = new ArrayDeque<>();
+        List<Integer> sent = new ArrayList<>();
+        int accepted = 0;
+        Chunk chunk = new Chunk(Constants.ADD_STREAM_METHOD);
+        Exception failure = null;
+
+        for (int i = 0; i < profiles.length && failure == null; i++) {
+            String requestId = connectionManager.nextRequestId();
+            request.setLength(0);
+            streamWriter.writeRequest(requestWriter, requestId, i);
+            if (!chunk.isEmpty() && (chunk.size() >= chunkStreams || chunk.length() + request.length() > chunkBytes)) {
+                inFlight.add(chunk.send());
+                sent.addAll(chunk.streamIds);
+                chunk = new Chunk(Constants.ADD_STREAM_METHOD);
+            }
+            chunk.add(streamWriter.getStreamId(i), requestId, request);
+
+            while (failure == null && inFlight.size() >= MAX_CHUNKS_IN_FLIGHT) {
+                Chunk completed = inFlight.poll();
+                failure = complete(completed);
+                accepted += failure == null ? completed.size() : 0;
+                notifyProgress(listener, failure, accepted, profiles.length);
+            }
+        }
+        if (failure == null && !chunk.isEmpty()) {
+            inFlight.add(chunk.send());
+            sent.addAll(chunk.streamIds);
+        }
+        while (!inFlight.isEmpty()) {
+            Chunk completed = inFlight.poll();
+            Exception chunkFailure = complete(completed);
+            if (failure == null) {
+                failure = chunkFailure;
+                accepted += failure == null ? completed.size() : 0;
+                notifyProgress(listener, failure, accepted, profiles.length);
+            }
+        }
+
+        if (failure != null) {
+            LOG.error("Uploading streams failed after " + accepted + " of " + profiles.length + " streams", failure);
+            rollback(sent, portID, handler);
+            if (failure instanceof IncorrectRPCMethodException) {
+                throw (IncorrectRPCMethodException) failure;
+            }
+            throw new InvalidRPCResponseException();
+        }
+    }
+
+    private void notifyProgress(ProgressListener listener, Exception failure, int accepted, int total) {
+        if (listener != null && failure == null) {
+            listener.onProgress(accepted, total);
+        }
+    }
+
+    /**
+     * Wait for chunk response
+     *
+     * @param chunk
+     * @return failure or null if all streams of the chunk were accepted
+     */
+    private Exception complete(Chunk chunk) {
+        RPCResponse[] responses;
+        try {
+            byte[] reply = chunk.response.get();
+            responses = JsonCodec.getInstance().readRPCResponses(new String(reply, StandardCharsets.UTF_8));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return ex;
+        } catch (ExecutionException ex) {
+            return ex.getCause() instanceof Exception ? (Exception) ex.getCause() : ex;
+        } catch (IOException ex) {
+            return ex;
+        }
+
+        String error = null;
+        for (int i = 0; i < chunk.streamIds.size() && error == null; i++) {
+            if (i >= responses.length) {
+                error = "Missing add_stream response";
+            } else if (responses[i].getError() != null) {
+                error = responses[i].getError().getSpecificErr();
+            }
+        }
+        if (error != null) {
+            LogsController.getInstance().appendText(LogType.ERROR, error);
+            return new IncorrectRPCMethodException(error);
+        }
+        return null;
+    }
+
+    /**
+     * Remove the sent streams, errors for streams the server did not add are
+     * expected and ignored
+     */
+    private void rollback(List<Integer> sent, int portID, String handler) {
+        if (sent.isEmpty()) {
+            return;
+        }
+        LOG.info("Removing " + sent.size() + " uploaded streams");
+        Chunk chunk = new Chunk(Constants.REMOVE_STREAM_METHOD);
+        List<CompletableFuture<byte[]>> responses = new ArrayList<>();
+        try {
+            for (Integer streamId : sent) {
+                StreamParams params = new StreamParams(portID, streamId, handler);
+                if (chunk.size() >= chunkStreams) {
+                    responses.add(chunk.send().response);
+                    chunk = new Chunk(Constants.REMOVE_STREAM_METHOD);
+                }
+                String requestId = connectionManager.nextRequestId();
+                chunk.add(streamId, requestId, buildRequest(requestId, Constants.REMOVE_STREAM_METHOD, params));
+            }
+            responses.add(chunk.send().response);
+            CompletableFuture.allOf(responses.toArray(new CompletableFuture[responses.size()])).get();
+        } catch (JsonProcessingException | ExecutionException ex) {
+            LOG.error("Unable to remove uploaded streams", ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String buildRequest(String requestId, String method, Params params) throws JsonProcessingException {
+        RPCRequest rpcRequest = new RPCRequest();
+        rpcRequest.setId(requestId);
+        rpcRequest.setMethod(method);
+        rpcRequest.setParams(params);
+        String jsonRequestString = JsonCodec.getInstance().writeRPCRequest(rpcRequest);
+        return Util.tuneJSONParams(jsonRequestString, params, connectionManager.getApiH());
+    }
+
+    /**
+     * Batch request under construction, then in flight
+     */
+    private class Chunk {
+        private final List<Integer> streamIds = new ArrayList<>();
+        private final StringBuilder request = new StringBuilder("[");
+        private final String method;
+        private String firstRequestId;
+        private CompletableFuture<byte[]> response;
+
+        Chunk(String method) {
+            this.method = method;
+        }
+
+        void add(int streamId, String requestId, CharSequence jsonRequest) {
+            if (firstRequestId == null) {
+                firstRequestId = requestId;
+            } else {
+                request.append(',');
+            }
+            request.append(jsonRequest);
+            streamIds.add(streamId);
+        }
+
+        boolean isEmpty() {
+            return streamIds.isEmpty();
+        }
+
+        int size() {
+            return streamIds.size();
+        }
+
+        int length() {
+            return request.length();
+        }
+
+        Chunk send() {
+            request.append(']');
+            response = connectionManager.getServerRPCResponseAsync(method, firstRequestId, request.toString());
+            return this;
+        }
+    }
+}
@@ -5,6 +5,8 @@ import com.google.gson.JsonObject;
 
 public class TrexEvent {
     private TrexEventType type;
+
+    private int rawType;
     
     private String name;
     
@@ -22,8 +24,12 @@ public class TrexEvent {
         return data;
     }
 
+    public int getRawType() {
+        return rawType;
+    }
+
     public TrexEvent(int type, String name, JsonObject data) {
-        
+        this.rawType = type;
         switch (type) {
             case 0:
                 this.type = TrexEventType.PORT_STARTED;
@@ -70,6 +76,9 @@ public class TrexEvent {
     }
 
     public String getUser() {
+        if (data == null) {
+            return null;
+        }
         JsonElement who = data.get("who"); 
         return who != null ? who.getAsString() : null;
     }
@@ -32,7 +32,8 @@ import javax.annotation.Generated;
     "force",
     "handler",
     "mul",
-    "port_id"
+    "port_id",
+    "start_at_ts"
 })
 public class TrafficParams extends Params {
 
@@ -46,6 +47,8 @@ public class TrafficParams extends Params {
     private Multiplier mul;
     @JsonProperty("port_id")
     private Integer portId;
+    @JsonProperty("start_at_ts")
+    private Double startAtTs;
 
     /**
      *
@@ -152,4 +155,22 @@ public class TrafficParams extends Params {
         this.portId = portId;
     }
 
+    /**
+     *
+     * @return The server time to start at
+     */
+    @JsonProperty("start_at_ts")
+    public Double getStartAtTs() {
+        return startAtTs;
+    }
+
+    /**
+     *
+     * @param startAtTs The server time to start at, in seconds
+     */
+    @JsonProperty("start_at_ts")
+    public void setStartAtTs(Double startAtTs) {
+        this.startAtTs = startAtTs;
+    }
+
 }
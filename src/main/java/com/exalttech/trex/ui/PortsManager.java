@@ -20,8 +20,8 @@ import com.exalttech.trex.core.ConnectionManager;
 import com.exalttech.trex.ui.models.Port;
 import com.exalttech.trex.ui.models.PortModel;
 import com.exalttech.trex.ui.models.PortStatus;
+import com.exalttech.trex.util.JsonCodec;
 import com.exalttech.trex.util.Util;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.log4j.Logger;
 
 import java.util.*;
@@ -42,8 +42,6 @@ public class PortsManager {
     
     private static PortsManager instance = null;
 
-    ObjectMapper mapper = new ObjectMapper();
-    
     private List<PortServiceModeChangedListener> portServiceModeChangedListeners = Collections.synchronizedList(new ArrayList<>());
     
     /**
@@ -144,7 +142,7 @@ public class PortsManager {
             if (response == null) {
                 return;
             }
-            List<PortStatus> portStatusList = mapper.readValue(response, mapper.getTypeFactory().constructCollectionType(List.class, PortStatus.class));
+            List<PortStatus> portStatusList = JsonCodec.getInstance().readPortStatusList(response);
             for (Port port : list) {
                 PortStatus.PortStatusResult portStatus = portStatusList.get(list.indexOf(port)).getResult();
                 port.setOwner(portStatus.getOwner());
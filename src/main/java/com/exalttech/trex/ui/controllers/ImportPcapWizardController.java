@@ -16,12 +16,11 @@ import com.exalttech.trex.util.Util;
 import com.exalttech.trex.util.files.FileManager;
 import com.exalttech.trex.util.files.FileType;
 
-import java.io.EOFException;
 import java.io.File;
+import java.io.IOException;
 import java.net.URL;
 import java.util.List;
 import java.util.ResourceBundle;
-import java.util.concurrent.TimeoutException;
 
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
@@ -31,8 +30,6 @@ import javafx.scene.control.Button;
 import javafx.scene.layout.Pane;
 import javafx.stage.Stage;
 import javafx.stage.WindowEvent;
-import org.pcap4j.core.NotOpenException;
-import org.pcap4j.core.PcapNativeException;
 
 /**
  * FXML Controller class
@@ -81,6 +78,8 @@ public class ImportPcapWizardController extends DialogView implements Initializa
 
         importedPacketPropertiesView = new ImportedPacketPropertiesView();
         importedPacketTableView = new ImportedPacketTableView(profilesList, yamlFileName);
+        // rows can't be imported before the whole file is parsed
+        importBtn.disableProperty().bind(importedPacketTableView.parsingProperty());
 
         wizardViewContainer.getChildren().add(importedPacketPropertiesView);
 
@@ -108,16 +107,11 @@ public class ImportPcapWizardController extends DialogView implements Initializa
             File pcapFile = FileManager.getSelectedFile("Open Pcap File", "", owner, FileType.PCAP, loadFolderPath, false);
             if (pcapFile != null) {
                 try {
-                    if (importedPacketTableView.setPcapFile(pcapFile)) {
-                        wizardViewContainer.getChildren().clear();
-                        wizardViewContainer.getChildren().add(importedPacketTableView);
-                        updateBtnState(false);
-                    } else {
-                        Alert wrongPcapMsg = Util.getAlert(Alert.AlertType.ERROR);
-                        wrongPcapMsg.setContentText("Invalid Pcap, it should be one flow with IPV4 packets");
-                        wrongPcapMsg.showAndWait();
-                    }
-                } catch (PcapNativeException | EOFException | TimeoutException | NotOpenException ex) {
+                    importedPacketTableView.setPcapFile(pcapFile, this::handleInvalidPcap);
+                    wizardViewContainer.getChildren().clear();
+                    wizardViewContainer.getChildren().add(importedPacketTableView);
+                    updateBtnState(false);
+                } catch (IOException ex) {
                     AlertUtils.construct(
                             Alert.AlertType.ERROR,
                             "Import error",
@@ -129,6 +123,16 @@ public class ImportPcapWizardController extends DialogView implements Initializa
         }
     }
 
+    /**
+     * Return to the properties view when the parsed pcap is not valid
+     */
+    private void handleInvalidPcap() {
+        Alert wrongPcapMsg = Util.getAlert(Alert.AlertType.ERROR);
+        wrongPcapMsg.setContentText("Invalid Pcap, it should be one flow with IPV4 packets");
+        wrongPcapMsg.showAndWait();
+        handleBackBtnClicked(null);
+    }
+
     /**
      * Handle cancel button click event
      * @param event 
@@ -155,6 +159,7 @@ public class ImportPcapWizardController extends DialogView implements Initializa
      */
     @FXML
     public void handleBackBtnClicked(ActionEvent event) {
+        importedPacketTableView.cancelImport();
         wizardViewContainer.getChildren().clear();
         wizardViewContainer.getChildren().add(importedPacketPropertiesView);
         updateBtnState(true);
@@ -164,6 +169,7 @@ public class ImportPcapWizardController extends DialogView implements Initializa
      * Close import dialog
      */
     private void closeDialog() {
+        importedPacketTableView.cancelImport();
         Stage currentStage = (Stage) wizardViewContainer.getScene().getWindow();
         currentStage.fireEvent(new WindowEvent(currentStage, WindowEvent.WINDOW_CLOSE_REQUEST));
     }
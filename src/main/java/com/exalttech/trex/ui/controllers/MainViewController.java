@@ -21,12 +21,13 @@ import com.cisco.trex.stl.gui.util.RunningConfiguration;
 import com.exalttech.trex.application.TrexApp;
 import com.exalttech.trex.core.AsyncResponseManager;
 import com.exalttech.trex.core.ConnectionManager;
+import com.exalttech.trex.core.CoordinatedStart;
+import com.exalttech.trex.core.PortResult;
 import com.exalttech.trex.core.RPCMethods;
 import com.exalttech.trex.core.TrexEvent;
-import com.exalttech.trex.remote.exceptions.IncorrectRPCMethodException;
-import com.exalttech.trex.remote.exceptions.InvalidRPCResponseException;
 import com.exalttech.trex.remote.exceptions.PortAcquireException;
 import com.exalttech.trex.remote.exceptions.TrafficException;
+import com.exalttech.trex.remote.models.multiplier.Multiplier;
 import com.exalttech.trex.remote.models.profiles.FlowStats;
 import com.exalttech.trex.remote.models.profiles.Profile;
 import com.exalttech.trex.remote.models.validate.StreamValidation;
@@ -52,6 +53,8 @@ import com.exalttech.trex.ui.views.PacketTableUpdatedHandler;
 import com.exalttech.trex.ui.views.PacketTableView;
 import com.exalttech.trex.ui.views.logs.LogType;
 import com.exalttech.trex.ui.views.logs.LogsController;
+import com.exalttech.trex.ui.views.logs.RPCStatsView;
+import com.exalttech.trex.ui.views.logs.RPCTraceView;
 import com.exalttech.trex.ui.views.models.AssignedProfile;
 import com.exalttech.trex.ui.views.models.ProfileMultiplier;
 import com.exalttech.trex.ui.views.services.CountdownService;
@@ -59,6 +62,10 @@ import com.exalttech.trex.ui.views.services.RefreshingService;
 import com.exalttech.trex.ui.views.statistics.StatsLoader;
 import com.exalttech.trex.ui.views.statistics.StatsTableGenerator;
 import com.exalttech.trex.util.Constants;
+import com.exalttech.trex.util.JsonCodec;
+import com.exalttech.trex.util.MemoryMonitor;
+import com.exalttech.trex.util.PreferencesManager;
+import com.exalttech.trex.util.ProfileCache;
 import com.exalttech.trex.util.ProfileManager;
 import com.exalttech.trex.util.Util;
 import com.exalttech.trex.util.files.XMLFileManager;
@@ -89,6 +96,7 @@ import javafx.scene.input.KeyEvent;
 import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.AnchorPane;
+import javafx.scene.layout.HBox;
 import javafx.scene.layout.Pane;
 import javafx.stage.WindowEvent;
 import javafx.util.Duration;
@@ -99,8 +107,10 @@ import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Consumer;
-import java.util.logging.Level;
 
 /**
  * Main view FXML controller
@@ -140,6 +150,16 @@ public class MainViewController implements Initializable, EventHandler<KeyEvent>
     @FXML
     Label serverStatusLabel;
     @FXML
+    Label memoryStatusLabel;
+    @FXML
+    HBox uploadProgressBox;
+    @FXML
+    Label uploadStatusLabel;
+    @FXML
+    ProgressBar uploadProgressBar;
+    @FXML
+    Label startStatusLabel;
+    @FXML
     ImageView serverStatusIcon;
     @FXML
     MenuItem statsMenuItem;
@@ -193,6 +213,14 @@ public class MainViewController implements Initializable, EventHandler<KeyEvent>
     @FXML
     Tab logTab;
     @FXML
+    Tab rpcTraceTab;
+    @FXML
+    AnchorPane rpcTraceContainer;
+    @FXML
+    Tab rpcStatsTab;
+    @FXML
+    AnchorPane rpcStatsContainer;
+    @FXML
     Button copyToClipboardBtn;
     @FXML
     Label dashboardIcon;
@@ -222,6 +250,12 @@ public class MainViewController implements Initializable, EventHandler<KeyEvent>
     private final Map<Integer, CustomTreeItem> portTreeItemMap = new HashMap<>();
     private final BooleanProperty updateProfileListProperty = new SimpleBooleanProperty();
     private final Map<Integer, AssignedProfile> assignedPortProfileMap = new HashMap<>();
+    // profile assignments are uploaded one after the other, off the FX thread
+    private final ExecutorService assignExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "profile-assign");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     private Profile[] loadedProfiles;
     private String currentSelectedProfile;
@@ -262,6 +296,7 @@ public class MainViewController implements Initializable, EventHandler<KeyEvent>
         eventBus = TrexApp.injector.getInstance(EventBus.class);
         portView.visibleProperty().bind(portViewVisibilityProperty);
         statTableContainer.visibleProperty().bindBidirectional(systemInfoVisibilityProperty);
+        MemoryMonitor.getInstance().addStatusListener(status -> Platform.runLater(() -> memoryStatusLabel.setText(status.toString())));
 
         ConnectionManager.getInstance().addDisconnectListener(() -> resetApplication(true));
         // Handle update port state event
@@ -340,8 +375,7 @@ public class MainViewController implements Initializable, EventHandler<KeyEvent>
     @FXML
     public void handleExitMenuItemClick(ActionEvent event) {
         // release all port
-        handleAppClose();
-        System.exit(0);
+        handleAppClose(() -> System.exit(0));
     }
 
     /**
@@ -589,10 +623,14 @@ public class MainViewController implements Initializable, EventHandler<KeyEvent>
      * Reset the application to initial state
      */
     private void resetApplication(boolean didServerCrash) {
-        if (!didServerCrash) {
-            releaseAllPort(false);
+        if (didServerCrash) {
+            doResetApplication(true);
+        } else {
+            releaseAllPort(false, () -> doResetApplication(false));
         }
+    }
 
+    private void doResetApplication(boolean didServerCrash) {
         DialogManager.getInstance().closeAll();
         portManager.clearPorts();
 
@@ -734,36 +772,73 @@ public class MainViewController implements Initializable, EventHandler<KeyEvent>
      * @param profileName
      */
     private void assignProfile(String profileName, double currentBandwidth, boolean assignPrevBandwidth, int portID) {
+        // update selected profile
+        AssignedProfile assignedProf = assignedPortProfileMap.get(portID);
+        if (assignedProf == null) {
+            return;
+        }
+        assignedProf.setProfileName(profileName);
+        assignedProf.setAllStreamsWithLatency(allStreamWithLatency);
+        PortModel port = PortsManager.getInstance().getPortModel(portID);
+        String portState = port.getPortStatus();
+        // the table may edit the loaded profiles while they are uploaded
+        Profile[] profiles = new Profile[loadedProfiles.length];
         try {
-            // update selected profile
-            AssignedProfile assignedProf = assignedPortProfileMap.get(portID);
-            if (assignedProf == null) {
-                return;
+            for (int i = 0; i < profiles.length; i++) {
+                profiles[i] = (Profile) loadedProfiles[i].clone();
             }
-            assignedProf.setProfileName(profileName);
-            assignedProf.setAllStreamsWithLatency(allStreamWithLatency);
-            PortModel port = PortsManager.getInstance().getPortModel(portID);
-            String portState = port.getPortStatus();
-            StreamValidation streamValidationGraph = serverRPCMethods.assignTrafficProfile(portID, loadedProfiles);
+        } catch (CloneNotSupportedException ex) {
+            LOG.error("Failed to copy profile streams", ex);
+            return;
+        }
+        startStream.setDisable(true);
 
+        Task<StreamValidation> assignTask = new Task<StreamValidation>() {
+            @Override
+            protected StreamValidation call() throws Exception {
+                updateMessage("Assigning profile to port " + portID);
+                return serverRPCMethods.assignTrafficProfile(portID, profiles, (uploaded, total) -> {
+                    updateProgress(uploaded, total);
+                    updateMessage("Uploading streams to port " + portID + ": " + uploaded + "/" + total);
+                });
+            }
+        };
+        assignTask.setOnSucceeded(event -> {
+            StreamValidation streamValidationGraph = assignTask.getValue();
             portManager.getPortModel(portID).setStreamLoaded(true);
             startStream.setDisable(false);
             // update current multiplier data
             assignedProf.setRate(streamValidationGraph.getResult().getRate());
-            multiplierView.assignNewProfile(assignedProf);
-            updateMultiplierValues(assignedProf);
+            if (getSelectedPortIndex() == portID) {
+                multiplierView.assignNewProfile(assignedProf);
+                updateMultiplierValues(assignedProf);
+            }
             if (portState.equalsIgnoreCase("tx")) {
                 startTraffic(portID);
             }
-        } catch (IOException | InvalidRPCResponseException | IncorrectRPCMethodException ex) {
+            portManager.updatedPorts(Arrays.asList(portID));
+        });
+        assignTask.setOnFailed(event -> {
             startStream.setDisable(true);
             portManager.getPortModel(portID).setStreamLoaded(false);
-            LOG.error("Failed to load Stream", ex);
-        } catch (Exception ex) {
-            java.util.logging.Logger.getLogger(MainViewController.class.getName()).log(Level.SEVERE, null, ex);
-        } finally {
+            LOG.error("Failed to load Stream", assignTask.getException());
             portManager.updatedPorts(Arrays.asList(portID));
-        }
+        });
+        showProgress(assignTask);
+        assignExecutor.submit(assignTask);
+    }
+
+    /**
+     * Show the progress of the task in the status bar while it is running
+     *
+     * @param task
+     */
+    private void showProgress(Task<?> task) {
+        task.setOnRunning(event -> {
+            uploadProgressBar.progressProperty().bind(task.progressProperty());
+            uploadStatusLabel.textProperty().bind(task.messageProperty());
+            uploadProgressBox.visibleProperty().bind(task.runningProperty());
+        });
     }
 
     /**
@@ -847,6 +922,7 @@ public class MainViewController implements Initializable, EventHandler<KeyEvent>
         addMenuItem(rightClickProfileMenu, "Play", ContextMenuClickType.PLAY, false);
         addMenuItem(rightClickProfileMenu, "Pause", ContextMenuClickType.PAUSE, false);
         addMenuItem(rightClickProfileMenu, "Stop", ContextMenuClickType.STOP, false);
+        addMenuItem(rightClickProfileMenu, "Assign to All Owned Ports", ContextMenuClickType.ASSIGN_OWNED_PORTS, false);
 
         rightClickGlobalMenu = new ContextMenu();
         addMenuItem(rightClickGlobalMenu, "Release All Ports", ContextMenuClickType.RELEASE_ALL, false);
@@ -865,8 +941,9 @@ public class MainViewController implements Initializable, EventHandler<KeyEvent>
             @Override
             public void handle(WindowEvent event) {
                 // handle aplpication close
+                event.consume();
                 DialogManager.getInstance().closeAll();
-                handleAppClose();
+                handleAppClose(() -> System.exit(0));
             }
         });
         TrexApp.getPrimaryStage().setOnShown(new EventHandler<WindowEvent>() {
@@ -887,6 +964,16 @@ public class MainViewController implements Initializable, EventHandler<KeyEvent>
             }
         });
         logContainer.getChildren().add(LogsController.getInstance().getView());
+        RPCTraceView rpcTraceView = new RPCTraceView();
+        rpcTraceContainer.getChildren().add(rpcTraceView);
+        rpcTraceTab.setOnSelectionChanged(event -> {
+            if (rpcTraceTab.isSelected()) {
+                rpcTraceView.refresh();
+            }
+        });
+        RPCStatsView rpcStatsView = new RPCStatsView();
+        rpcStatsContainer.getChildren().add(rpcStatsView);
+        rpcStatsTab.setOnSelectionChanged(event -> rpcStatsView.setRefreshing(rpcStatsTab.isSelected()));
 
         // initialize countdown service
         countdownService = new CountdownService();
@@ -1127,16 +1214,126 @@ public class MainViewController implements Initializable, EventHandler<KeyEvent>
     @FXML
     public void startAllTransitBtnCLicked(MouseEvent event) {
         LOG.trace("Clicked on the Start All Transit Button");
-        portManager.getPortList().stream().forEach(new Consumer<Port>() {
-            @Override
-            public void accept(Port port) {
-                PortState portState = PortState.getPortStatus(port.getStatus());
-                if (portManager.isCurrentUserOwner(port.getIndex())
-                    && portState != PortState.TX && portState != PortState.IDLE) {
-                    doStartResume(port.getIndex());
+        List<Integer> resumedPorts = new ArrayList<>();
+        Map<Integer, Multiplier> startedPorts = new LinkedHashMap<>();
+        for (Port port : portManager.getPortList()) {
+            PortState portState = PortState.getPortStatus(port.getStatus());
+            if (portManager.isCurrentUserOwner(port.getIndex())
+                && portState != PortState.TX && portState != PortState.IDLE) {
+                if (portState == PortState.PAUSE) {
+                    resumedPorts.add(port.getIndex());
+                } else {
+                    startedPorts.put(port.getIndex(), getStartMultiplier(port.getIndex()));
+                }
+            }
+        }
+        if (resumedPorts.isEmpty() && startedPorts.isEmpty()) {
+            return;
+        }
+
+        // disable start button to avoid another quick click
+        startStream.setDisable(true);
+        double duration = multiplierView.getDuration();
+        boolean hasDuration = multiplierView.isDurationEnable();
+        boolean coordinated = startedPorts.size() > 1 && PreferencesManager.getInstance().isCoordinatedStart();
+        CoordinatedStart[] coordinatedStart = new CoordinatedStart[1];
+        runPortOperation(() -> {
+            Map<Integer, PortResult> results = new LinkedHashMap<>();
+            if (!resumedPorts.isEmpty()) {
+                results.putAll(serverRPCMethods.resumeTraffic(resumedPorts));
+            }
+            if (coordinated) {
+                coordinatedStart[0] = serverRPCMethods.startTrafficCoordinated(startedPorts, duration, false);
+                results.putAll(coordinatedStart[0].getResults());
+            } else if (!startedPorts.isEmpty()) {
+                results.putAll(serverRPCMethods.startTraffic(startedPorts, duration, false));
+            }
+            return results;
+        }, results -> {
+            boolean failed = false;
+            for (PortResult result : results.values()) {
+                AssignedProfile assignedProf = assignedPortProfileMap.get(result.getPortId());
+                if (!result.isSuccess()) {
+                    failed = true;
+                } else if (assignedProf != null && startedPorts.containsKey(result.getPortId())) {
+                    assignedProf.setStreamStarted(true);
+                    assignedProf.setHasDuration(hasDuration);
+                    updateMultiplierValues(assignedProf);
                 }
             }
+            if (failed) {
+                // re-enable start button in case of errors
+                startStream.setDisable(false);
+            }
+            if (coordinatedStart[0] != null) {
+                showCoordinatedStart(coordinatedStart[0]);
+            }
+            portManager.updatedPorts(new ArrayList<>(results.keySet()));
+        });
+    }
+
+    /**
+     * Show the skew of the coordinated start in the status bar
+     *
+     * @param coordinatedStart
+     */
+    private void showCoordinatedStart(CoordinatedStart coordinatedStart) {
+        double skew = coordinatedStart.getSkew();
+        String status = Double.isNaN(skew) ? "skew unknown" : String.format("skew %.3f ms", skew * 1000);
+        if (!coordinatedStart.isServerTimeAvailable()) {
+            status = "Server time unavailable, ports started immediately, " + status;
+            LogsController.getInstance().appendText(LogType.ERROR, "Server time unavailable, ports were not started at the same time");
+        } else {
+            status = "Coordinated start, " + status;
+        }
+        if (!coordinatedStart.getNotTransmitting().isEmpty()) {
+            status += ", not transmitting: " + coordinatedStart.getNotTransmitting();
+        }
+        startStatusLabel.setText(status);
+        startStatusLabel.setTooltip(new Tooltip(coordinatedStart.toString()));
+    }
+
+    /**
+     * Return the multiplier a port is started with
+     *
+     * @param portID
+     * @return
+     */
+    private Multiplier getStartMultiplier(int portID) {
+        AssignedProfile assignedProf = assignedPortProfileMap.get(portID);
+        if (assignedProf != null && assignedProf.isAllStreamsWithLatency()) {
+            return new Multiplier("percentage", 100);
+        }
+        return new Multiplier("pps", multiplierView.getPPSValue());
+    }
+
+    /**
+     * Run multi port operation in background, the ports are handled by one
+     * batched request so the UI is not blocked meanwhile
+     *
+     * @param operation
+     * @param onDone called on the FX thread with the results by port, with
+     * no results if the operation failed
+     */
+    private void runPortOperation(Callable<Map<Integer, PortResult>> operation, Consumer<Map<Integer, PortResult>> onDone) {
+        Task<Map<Integer, PortResult>> operationTask = new Task<Map<Integer, PortResult>>() {
+            @Override
+            protected Map<Integer, PortResult> call() throws Exception {
+                return operation.call();
+            }
+        };
+        operationTask.setOnSucceeded(event -> onDone.accept(operationTask.getValue()));
+        operationTask.setOnFailed(event -> {
+            LOG.error("Port operation failed", operationTask.getException());
+            LogsController.getInstance().appendText(LogType.ERROR, "Port operation failed: " + operationTask.getException().getMessage());
+            // buttons disabled while the operation was running
+            updateHeaderBtnStat();
+            enableDisableStartStopAllBtn();
+            onDone.accept(Collections.emptyMap());
         });
+        Thread thread = new Thread(operationTask, "port-operation");
+        thread.setDaemon(true);
+        thread.start();
     }
 
     /**
@@ -1192,14 +1389,18 @@ public class MainViewController implements Initializable, EventHandler<KeyEvent>
     @FXML
     public void stopAllTransitBtnCLicked(MouseEvent event) {
         LOG.trace("Clicked on the Stop All Transit Button ");
-        portManager.getPortList().stream().forEach(port -> {
+        List<Integer> stoppedPorts = new ArrayList<>();
+        for (Port port : portManager.getPortList()) {
             PortState portState = PortState.getPortStatus(port.getStatus());
             if (portManager.isCurrentUserOwner(port.getIndex()) && portState == PortState.TX) {
-                serverRPCMethods.stopPortTraffic(port.getIndex());
-                portManager.updatedPorts(Arrays.asList(port.getIndex()));
+                stoppedPorts.add(port.getIndex());
             }
-        });
+        }
         enableUpdateBtn(false, false);
+        if (!stoppedPorts.isEmpty()) {
+            runPortOperation(() -> serverRPCMethods.stopPortTraffic(stoppedPorts),
+                results -> portManager.updatedPorts(stoppedPorts));
+        }
     }
 
     /**
@@ -1283,8 +1484,10 @@ public class MainViewController implements Initializable, EventHandler<KeyEvent>
                     acquireAllPorts(true, true);
                     break;
                 case RELEASE_ALL:
-                    releaseAllPort(true);
-                    portManager.updatePortForce();
+                    releaseAllPort(true, portManager::updatePortForce);
+                    break;
+                case ASSIGN_OWNED_PORTS:
+                    assignProfileToOwnedPorts(portIndex);
                     break;
 
                 case UNLOAD_PROFILE:
@@ -1332,16 +1535,99 @@ public class MainViewController implements Initializable, EventHandler<KeyEvent>
     }
 
     /**
-     * Release all ports
+     * Release all ports in background
+     *
+     * @param stopTraffic
+     * @param onReleased called on the FX thread once the ports are released
      */
-    private void releaseAllPort(boolean stopTraffic) {
-        portManager.getPortList().stream().forEach(port -> {
+    private void releaseAllPort(boolean stopTraffic, Runnable onReleased) {
+        List<Integer> ownedPorts = new ArrayList<>();
+        for (Port port : portManager.getPortList()) {
             if (PortsManager.getInstance().isCurrentUserOwner(port.getIndex())) {
-                releasePort(port.getIndex(), false, stopTraffic);
+                ownedPorts.add(port.getIndex());
+            }
+        }
+        if (ownedPorts.isEmpty()) {
+            onReleased.run();
+            return;
+        }
+        runPortOperation(() -> serverRPCMethods.releasePorts(ownedPorts, stopTraffic), results -> {
+            // remove saved assigned profiles
+            ownedPorts.forEach(assignedPortProfileMap::remove);
+            if (!resetAppInProgress) {
+                final int selectedPortIndex = getSelectedPortIndex();
+                if (selectedPortIndex != -1) {
+                    portManager.getPortModel(selectedPortIndex).setIsOwned(false);
+                }
             }
+            onReleased.run();
         });
     }
 
+    /**
+     * Assign the profile of the port to the other owned ports which are not
+     * transmitting, the ports are assigned in background
+     *
+     * @param sourcePort
+     */
+    private void assignProfileToOwnedPorts(int sourcePort) {
+        AssignedProfile source = assignedPortProfileMap.get(sourcePort);
+        if (source == null || !source.isProfileAssigned()) {
+            return;
+        }
+        List<Integer> targetPorts = new ArrayList<>();
+        for (Port port : portManager.getPortList()) {
+            PortState portState = PortState.getPortStatus(port.getStatus());
+            if (port.getIndex() != sourcePort && portManager.isCurrentUserOwner(port.getIndex())
+                && portState != PortState.TX && portState != PortState.PAUSE) {
+                targetPorts.add(port.getIndex());
+            }
+        }
+        if (targetPorts.isEmpty()) {
+            return;
+        }
+        String profileName = source.getProfileName();
+        boolean withLatency = source.isAllStreamsWithLatency();
+        File profileFile = new File(ProfileManager.getInstance().getProfileFilePath(profileName));
+        Task<Map<Integer, PortResult>> assignTask = new Task<Map<Integer, PortResult>>() {
+            @Override
+            protected Map<Integer, PortResult> call() throws Exception {
+                updateMessage("Assigning " + profileName + " to " + targetPorts.size() + " ports");
+                ProfileCache.CompiledProfile profile = ProfileCache.getInstance().getCompiledProfile(profileFile);
+                return serverRPCMethods.assignTrafficProfile(targetPorts, profile, (uploaded, total) -> {
+                    updateProgress(uploaded, total);
+                    updateMessage("Uploading streams to " + targetPorts.size() + " ports: " + uploaded + "/" + total);
+                });
+            }
+        };
+        assignTask.setOnSucceeded(event -> {
+            Map<Integer, PortResult> results = assignTask.getValue();
+            for (PortResult result : results.values()) {
+                int portID = result.getPortId();
+                portManager.getPortModel(portID).setStreamLoaded(result.isSuccess());
+                if (!result.isSuccess()) {
+                    continue;
+                }
+                AssignedProfile assigned = new AssignedProfile();
+                assigned.setProfileName(profileName);
+                assigned.setAllStreamsWithLatency(withLatency);
+                try {
+                    assigned.setRate(JsonCodec.getInstance().read(result.getResult(), StreamValidation.class).getResult().getRate());
+                } catch (IOException ex) {
+                    LOG.warn("Unable to read stream validation of port " + portID, ex);
+                }
+                assignedPortProfileMap.put(portID, assigned);
+            }
+            portManager.updatedPorts(new ArrayList<>(results.keySet()));
+        });
+        assignTask.setOnFailed(event -> {
+            LOG.error("Failed to assign profile to owned ports", assignTask.getException());
+            LogsController.getInstance().appendText(LogType.ERROR, "Failed to assign profile: " + assignTask.getException().getMessage());
+        });
+        showProgress(assignTask);
+        assignExecutor.submit(assignTask);
+    }
+
     /**
      * Acquire all ports
      *
@@ -1350,16 +1636,14 @@ public class MainViewController implements Initializable, EventHandler<KeyEvent>
      * @throws PortAcquireException
      */
     private void acquireAllPorts(boolean force, boolean acquireOwnedOnly) {
+        List<Integer> acquiredPorts = new ArrayList<>();
         for (Port port : portManager.getPortList()) {
-            try {
-                if (!acquireOwnedOnly || (acquireOwnedOnly && portManager.isCurrentUserOwner(port.getIndex()))) {
-                    serverRPCMethods.acquireServerPort(port.getIndex(), force);
-                }
-            } catch (PortAcquireException ex) {
-                LOG.error("Error handling context menu item clicked", ex);
+            if (!acquireOwnedOnly || portManager.isCurrentUserOwner(port.getIndex())) {
+                acquiredPorts.add(port.getIndex());
             }
         }
-        portManager.updatePortForce();
+        runPortOperation(() -> serverRPCMethods.acquirePorts(acquiredPorts, force),
+            results -> portManager.updatePortForce());
     }
 
     /**
@@ -1411,18 +1695,25 @@ public class MainViewController implements Initializable, EventHandler<KeyEvent>
 
     /**
      * Handle application close
+     *
+     * @param onClosed called on the FX thread once the ports are released
+     * and the connection is closed
      */
-    private void handleAppClose() {
+    private void handleAppClose(Runnable onClosed) {
         try {
             // stop running thread
             shutdownRunningServices();
-            if (!portManager.getPortList().isEmpty() && !portManager.getPortList().isEmpty()) {
-                releaseAllPort(false);
-            }
-            // stop async subscriber
-            if (ConnectionManager.getInstance().isConnected()) {
-                ConnectionManager.getInstance().disconnect();
-            }
+            releaseAllPort(false, () -> {
+                try {
+                    // stop async subscriber
+                    if (ConnectionManager.getInstance().isConnected()) {
+                        ConnectionManager.getInstance().disconnect();
+                    }
+                } catch (Exception ex) {
+                    LOG.error("Error closing the application", ex);
+                }
+                onClosed.run();
+            });
         } catch (Exception ex) {
             LOG.error("Error closing the application", ex);
             System.exit(0);
@@ -1602,14 +1893,15 @@ public class MainViewController implements Initializable, EventHandler<KeyEvent>
      * Re-acquire owned port on login
      */
     private void reAcquireOwnedPorts() {
-        try {
-            for (Port port : portManager.getPortList()) {
-                if (portManager.isCurrentUserOwner(port.getIndex())) {
-                    serverRPCMethods.acquireServerPort(port.getIndex(), true);
-                }
+        List<Integer> ownedPorts = new ArrayList<>();
+        for (Port port : portManager.getPortList()) {
+            if (portManager.isCurrentUserOwner(port.getIndex())) {
+                ownedPorts.add(port.getIndex());
             }
-        } catch (PortAcquireException ex) {
-            LOG.error("Error re-acquiring port", ex);
+        }
+        if (!ownedPorts.isEmpty()) {
+            runPortOperation(() -> serverRPCMethods.acquirePorts(ownedPorts, true),
+                results -> portManager.updatePortForce());
         }
     }
 
@@ -1656,7 +1948,6 @@ public class MainViewController implements Initializable, EventHandler<KeyEvent>
         if (refreshStatsService.isRunning()) {
             refreshStatsService.cancel();
         }
-        Util.optimizeMemory();
     }
 
     /**
@@ -1756,7 +2047,8 @@ public class MainViewController implements Initializable, EventHandler<KeyEvent>
         ACQUIRE_ALL,
         FORCE_ACQUIRE_ALL,
         RELEASE_ALL,
-        ACQUIRE_MY_PORT
+        ACQUIRE_MY_PORT,
+        ASSIGN_OWNED_PORTS
     }
 
     @Subscribe
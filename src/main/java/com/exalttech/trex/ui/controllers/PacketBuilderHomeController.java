@@ -44,7 +44,6 @@ import java.util.Base64;
 import java.util.List;
 import java.util.ResourceBundle;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 import com.xored.javafx.packeteditor.controllers.FieldEditorController;
 import com.xored.javafx.packeteditor.events.ScapyClientNeedConnectEvent;
@@ -60,6 +59,7 @@ import com.exalttech.trex.ui.views.streams.binders.BuilderDataBinding;
 import com.exalttech.trex.ui.views.streams.builder.PacketBuilderHelper;
 import com.exalttech.trex.ui.views.streams.viewer.PacketHex;
 import com.exalttech.trex.ui.views.streams.viewer.PacketParser;
+import com.exalttech.trex.util.JsonCodec;
 import com.exalttech.trex.util.TrafficProfile;
 import com.exalttech.trex.util.Util;
 
@@ -110,6 +110,8 @@ public class PacketBuilderHomeController extends DialogView implements Initializ
     private FieldEditorController packetBuilderController;
     @Inject
     private EventBus eventBus;
+    @Inject
+    private JsonCodec jsonCodec;
 
     private PacketInfo packetInfo = null;
     private PacketParser parser;
@@ -245,7 +247,7 @@ public class PacketBuilderHomeController extends DialogView implements Initializ
             return null;
         }
         try {
-            return new ObjectMapper().readValue(metaJSON, BuilderDataBinding.class);
+            return jsonCodec.read(metaJSON, BuilderDataBinding.class);
         } catch (Exception exc) {
             LOG.error("Can't read packet meta", exc);
             AlertUtils.construct(
@@ -335,7 +337,6 @@ public class PacketBuilderHomeController extends DialogView implements Initializ
             if (streamPropertiesController.isValidStreamPropertiesFields()) {
                 String yamlData = trafficProfile.convertTrafficProfileToYaml(profileList.toArray(new Profile[profileList.size()]));
                 FileUtils.writeStringToFile(new File(yamlFileName), yamlData);
-                Util.optimizeMemory();
                 return true;
             }
         } catch (Exception ex) {
@@ -395,7 +396,6 @@ public class PacketBuilderHomeController extends DialogView implements Initializ
 
     private void loadProfile(boolean isNext) {
         try {
-            Util.optimizeMemory();
             updateCurrentProfile();
             if (streamPropertiesController.isValidStreamPropertiesFields()) {
                 if (isNext) {
@@ -458,7 +458,7 @@ public class PacketBuilderHomeController extends DialogView implements Initializ
             selectedProfile.getStream().setFlags(protocolDataController.getFlagsValue());
 
             // save stream selected in stream property
-            final String metaJSON = new ObjectMapper().writeValueAsString(builderDataBinder);
+            final String metaJSON = jsonCodec.write(builderDataBinder);
             final String encodedMeta = Base64.getEncoder().encodeToString(metaJSON.getBytes());
             selectedProfile.getStream().getPacket().setMeta(encodedMeta);
         }
@@ -15,8 +15,11 @@
  */
 package com.exalttech.trex.ui.controllers;
 
+import com.exalttech.trex.core.ConnectionManager;
+import com.exalttech.trex.core.RPCCompressionPolicy;
 import com.exalttech.trex.ui.dialog.DialogView;
 import com.exalttech.trex.ui.models.datastore.Preferences;
+import com.exalttech.trex.util.MemoryMonitor;
 import com.exalttech.trex.util.PreferencesManager;
 import com.exalttech.trex.util.Util;
 import com.exalttech.trex.util.files.FileManager;
@@ -25,6 +28,7 @@ import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.Node;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.TextField;
 import javafx.scene.input.MouseEvent;
 import javafx.stage.DirectoryChooser;
@@ -50,6 +54,12 @@ public class PreferencesController extends DialogView implements Initializable {
     TextField templatesLocation;
     @FXML
     TextField wiresharkLocation;
+    @FXML
+    TextField memoryBudget;
+    @FXML
+    CheckBox coordinatedStart;
+    @FXML
+    TextField compressionThreshold;
 
     DirectoryChooser chooser = new DirectoryChooser();
     
@@ -85,8 +95,12 @@ public class PreferencesController extends DialogView implements Initializable {
     private void savePreferences(Stage current) {
         // update prefernces file
         Preferences pref = new Preferences(loadLocation.getText(), savedLocation.getText(), templatesLocation.getText(), wiresharkLocation.getText());
-        
+        pref.setMemoryBudget(getMemoryBudget());
+        pref.setCoordinatedStart(coordinatedStart.isSelected());
+        pref.setCompressionThreshold(getCompressionThreshold());
+
         PreferencesManager.getInstance().savePreferences(pref);
+        ConnectionManager.getInstance().getCompressionPolicy().setThreshold(PreferencesManager.getInstance().getCompressionThreshold());
 
         current.hide();
     }
@@ -103,6 +117,43 @@ public class PreferencesController extends DialogView implements Initializable {
             templatesLocation.setText(pref.getTemplatesLocation());
             templatesLocation.setPromptText(FileManager.getTemplatesFilePath());
         }
+        memoryBudget.setText(String.valueOf(PreferencesManager.getInstance().getMemoryBudget()));
+        coordinatedStart.setSelected(PreferencesManager.getInstance().isCoordinatedStart());
+        compressionThreshold.setText(String.valueOf(PreferencesManager.getInstance().getCompressionThreshold()));
+    }
+
+    /**
+     * Return entered memory budget, or the default one if invalid
+     *
+     * @return
+     */
+    private int getMemoryBudget() {
+        try {
+            int budget = Integer.parseInt(memoryBudget.getText().trim());
+            if (budget > 0 && budget <= 100) {
+                return budget;
+            }
+        } catch (NumberFormatException ex) {
+            // fall back to default
+        }
+        return MemoryMonitor.DEFAULT_BUDGET_PERCENT;
+    }
+
+    /**
+     * Return entered compression threshold, or the default one if invalid
+     *
+     * @return
+     */
+    private int getCompressionThreshold() {
+        try {
+            int threshold = Integer.parseInt(compressionThreshold.getText().trim());
+            if (threshold >= 0) {
+                return threshold;
+            }
+        } catch (NumberFormatException ex) {
+            // fall back to default
+        }
+        return RPCCompressionPolicy.DEFAULT_THRESHOLD;
     }
 
     /**
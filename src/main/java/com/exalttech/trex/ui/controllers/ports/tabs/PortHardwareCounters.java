@@ -4,10 +4,11 @@ import com.exalttech.trex.core.ConnectionManager;
 import com.exalttech.trex.ui.PortsManager;
 import com.exalttech.trex.ui.models.Port;
 import com.exalttech.trex.ui.models.PortModel;
+import com.exalttech.trex.ui.models.XStats;
 import com.exalttech.trex.ui.views.services.RefreshingService;
 import com.exalttech.trex.ui.views.statistics.StatsTableGenerator;
 import com.exalttech.trex.util.Initialization;
-import com.exalttech.trex.util.Util;
+import com.exalttech.trex.util.JsonCodec;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
 import javafx.scene.control.CheckBox;
@@ -18,8 +19,6 @@ import javafx.scene.layout.Pane;
 import javafx.util.Duration;
 import org.controlsfx.control.textfield.CustomTextField;
 
-import java.util.Map;
-
 public class PortHardwareCounters extends BorderPane {
 
     @FXML
@@ -69,12 +68,23 @@ public class PortHardwareCounters extends BorderPane {
     
     private void update() {
         try {
-            String xStatsNames = ConnectionManager.getInstance().sendPortXStatsNamesRequest(port);
+            // names don't change while connected, they are fetched once per port
+            XStats xstats = port.getXstats();
+            if (xstats == null) {
+                String xStatsNames = ConnectionManager.getInstance().sendPortXStatsNamesRequest(port);
+                xstats = new XStats(JsonCodec.getInstance().readXStatsNames(xStatsNames));
+                port.setXstats(xstats);
+            }
             String xStatsValues = ConnectionManager.getInstance().sendPortXStatsValuesRequest(port);
-            Map<String, Long> loadedXStatsList = Util.getXStatsFromJSONString(xStatsNames, xStatsValues);
-            port.setXstats(loadedXStatsList);
-            Pane pane = statsTableGenerator.generateXStatPane(true, port, statXTableNotEmpty.isSelected(), statXTableFilter.getText(), resetCountersRequested);
-            statXTableContainer.setContent(pane);
+            if (!xstats.update(JsonCodec.getInstance().readXStatsValues(xStatsValues))) {
+                // counters list changed on the server, names are fetched again on the next update
+                port.setXstats(null);
+                return;
+            }
+            Pane pane = statsTableGenerator.generateXStatPane(false, port, statXTableNotEmpty.isSelected(), statXTableFilter.getText(), resetCountersRequested);
+            if (statXTableContainer.getContent() != pane) {
+                statXTableContainer.setContent(pane);
+            }
             statXTableContainer.setVisible(true);
             if (resetCountersRequested) {
                 resetCountersRequested = false;
@@ -23,9 +23,8 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.gson.Gson;
 import javafx.beans.property.*;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 /**
  * Port model
@@ -85,9 +84,9 @@ public class Port {
 
     PortStatus.PortStatusResult.PortStatusResultRxInfo rx_info;
 
-    Map<String, Long> xstats;
+    XStats xstats;
 
-    Map<String, Long> xstatsPinned;
+    Set<String> xstatsPinned;
 
     CaptureStatus[] captureStatus;
 
@@ -278,22 +277,25 @@ public class Port {
         }
     }
 
-    public Map<String, Long> getXstats() {
-        return xstats == null ? Collections.emptyMap() : xstats;
+    /**
+     * @return extended counters, null until the names are fetched
+     */
+    public XStats getXstats() {
+        return xstats;
     }
 
-    public void setXstats(Map<String, Long> xstats) {
+    public void setXstats(XStats xstats) {
         this.xstats = xstats;
     }
 
-    public Map<String, Long> getXstatsPinned() {
+    public Set<String> getXstatsPinned() {
         if (xstatsPinned==null) {
-            xstatsPinned = new HashMap<>();
+            xstatsPinned = new LinkedHashSet<>();
         }
         return xstatsPinned;
     }
 
-    public void setXstatsPinned(Map<String, Long> xstatsPinned) {
+    public void setXstatsPinned(Set<String> xstatsPinned) {
         this.xstatsPinned = xstatsPinned;
     }
 
@@ -0,0 +1,152 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.ui.models;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Port extended counters.
+ * <p>
+ * The counter names are fetched once per port and connection, values are
+ * kept in a primitive array aligned with the names. Counters changed by the
+ * last update are flagged so only those need to be redrawn.
+ *
+ * @author GeorgeKh
+ */
+public class XStats {
+
+    private final String[] names;
+    private final Map<String, Integer> indexes;
+    private final long[] values;
+    private final long[] shadow;
+    private final boolean[] changed;
+
+    private String lastFilter;
+    private int[] lastFilterIndexes;
+
+    /**
+     *
+     * @param names counter names in the server order
+     */
+    public XStats(String[] names) {
+        this.names = names;
+        this.values = new long[names.length];
+        this.shadow = new long[names.length];
+        this.changed = new boolean[names.length];
+        this.indexes = new HashMap<>(names.length * 2);
+        for (int i = 0; i < names.length; i++) {
+            indexes.put(names[i], i);
+        }
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public String getName(int index) {
+        return names[index];
+    }
+
+    /**
+     * @param name
+     * @return counter index or -1
+     */
+    public int indexOf(String name) {
+        Integer index = indexes.get(name);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * @param index
+     * @return counter value since the last reset
+     */
+    public long getValue(int index) {
+        return values[index] - shadow[index];
+    }
+
+    /**
+     * @param index
+     * @return true if the displayed value changed in the last update
+     */
+    public boolean isChanged(int index) {
+        return changed[index];
+    }
+
+    /**
+     * Set values received from the server
+     *
+     * @param newValues values aligned with the names
+     * @return false if the values don't match the names
+     */
+    public boolean update(long[] newValues) {
+        if (newValues.length != values.length) {
+            return false;
+        }
+        for (int i = 0; i < values.length; i++) {
+            changed[i] = values[i] != newValues[i];
+            values[i] = newValues[i];
+        }
+        return true;
+    }
+
+    /**
+     * Start counting from the current values
+     */
+    public void resetCounters() {
+        System.arraycopy(values, 0, shadow, 0, values.length);
+        Arrays.fill(changed, true);
+    }
+
+    /**
+     * Return indexes of the counters to display
+     *
+     * @param filter name filter, may be null or empty
+     * @param notEmpty only counters with a non zero value
+     * @return
+     */
+    public int[] filter(String filter, boolean notEmpty) {
+        int[] matching = getMatching(filter == null ? "" : filter.trim());
+        if (!notEmpty) {
+            return matching;
+        }
+        int[] result = new int[matching.length];
+        int count = 0;
+        for (int index : matching) {
+            if (getValue(index) != 0) {
+                result[count++] = index;
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    private int[] getMatching(String filter) {
+        if (filter.equals(lastFilter)) {
+            return lastFilterIndexes;
+        }
+        int[] result = new int[names.length];
+        int count = 0;
+        for (int i = 0; i < names.length; i++) {
+            if (filter.isEmpty() || names[i].contains(filter)) {
+                result[count++] = i;
+            }
+        }
+        lastFilter = filter;
+        lastFilterIndexes = Arrays.copyOf(result, count);
+        return lastFilterIndexes;
+    }
+}
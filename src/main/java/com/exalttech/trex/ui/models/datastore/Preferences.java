@@ -20,6 +20,9 @@
  */
 package com.exalttech.trex.ui.models.datastore;
 
+import com.exalttech.trex.core.RPCCompressionPolicy;
+import com.exalttech.trex.util.MemoryMonitor;
+
 import javax.xml.bind.annotation.XmlElement;
 
 /**
@@ -33,6 +36,9 @@ public class Preferences {
     private String savedLocation = "";
     private String templatesLocation = "";
     private String wireSharkLocation = "";
+    private int memoryBudget = MemoryMonitor.DEFAULT_BUDGET_PERCENT;
+    private boolean coordinatedStart = false;
+    private int compressionThreshold = RPCCompressionPolicy.DEFAULT_THRESHOLD;
 
     /**
      *
@@ -109,4 +115,46 @@ public class Preferences {
     public void setWireSharkLocation(String wireSharkLocation) {
         this.wireSharkLocation = wireSharkLocation;
     }
+
+    /**
+     * Return heap budget in percent of the max heap
+     *
+     * @return
+     */
+    @XmlElement(name = "memory_budget")
+    public int getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    public void setMemoryBudget(int memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Return true if start all starts the ports at the same server time
+     *
+     * @return
+     */
+    @XmlElement(name = "coordinated_start")
+    public boolean isCoordinatedStart() {
+        return coordinatedStart;
+    }
+
+    public void setCoordinatedStart(boolean coordinatedStart) {
+        this.coordinatedStart = coordinatedStart;
+    }
+
+    /**
+     * Return minimal RPC request size in bytes to be compressed
+     *
+     * @return
+     */
+    @XmlElement(name = "compression_threshold")
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    public void setCompressionThreshold(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
 }
@@ -0,0 +1,117 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.ui.views.importPcap;
+
+/**
+ * Header offsets of an Ethernet frame carrying IPv4.
+ * <p>
+ * One instance is reused for every frame, parsing only reads the raw bytes
+ * and sets the fields below.
+ */
+final class FrameHeaders {
+
+    static final int PROTOCOL_TCP = 6;
+    static final int PROTOCOL_UDP = 17;
+
+    private static final int ETHERNET_HEADER_SIZE = 14;
+    private static final int ETHERTYPE_IPV4 = 0x0800;
+    private static final int ETHERTYPE_VLAN = 0x8100;
+    private static final int ETHERTYPE_QINQ = 0x88a8;
+
+    int vlanCount;
+    int ipOffset;
+    int protocol;
+    // -1 if the frame has no TCP/UDP header, for other protocols or fragments
+    int l4Offset;
+
+    /**
+     * @param frame
+     * @return true if the frame carries an IPv4 header
+     */
+    boolean parse(byte[] frame) {
+        vlanCount = 0;
+        ipOffset = -1;
+        protocol = -1;
+        l4Offset = -1;
+        if (frame.length < ETHERNET_HEADER_SIZE) {
+            return false;
+        }
+        int offset = 12;
+        int etherType = getShort(frame, offset);
+        while ((etherType == ETHERTYPE_VLAN || etherType == ETHERTYPE_QINQ) && offset + 6 <= frame.length) {
+            vlanCount++;
+            offset += 4;
+            etherType = getShort(frame, offset);
+        }
+        offset += 2;
+        if (etherType != ETHERTYPE_IPV4 || offset + 20 > frame.length || (frame[offset] & 0xf0) != 0x40) {
+            return false;
+        }
+        ipOffset = offset;
+        protocol = frame[offset + 9] & 0xff;
+        int headerLength = (frame[offset] & 0x0f) * 4;
+        boolean firstFragment = (getShort(frame, offset + 6) & 0x1fff) == 0;
+        int minL4Length = protocol == PROTOCOL_TCP ? 20 : 8;
+        if (firstFragment && (protocol == PROTOCOL_TCP || protocol == PROTOCOL_UDP)
+                && offset + headerLength + minL4Length <= frame.length) {
+            l4Offset = offset + headerLength;
+        }
+        return true;
+    }
+
+    int getSrcAddress(byte[] frame) {
+        return getInt(frame, ipOffset + 12);
+    }
+
+    int getDstAddress(byte[] frame) {
+        return getInt(frame, ipOffset + 16);
+    }
+
+    /**
+     * @return source port, 0 without TCP/UDP header
+     */
+    int getSrcPort(byte[] frame) {
+        return l4Offset < 0 ? 0 : getShort(frame, l4Offset);
+    }
+
+    /**
+     * @return destination port, 0 without TCP/UDP header
+     */
+    int getDstPort(byte[] frame) {
+        return l4Offset < 0 ? 0 : getShort(frame, l4Offset + 2);
+    }
+
+    static int getShort(byte[] data, int offset) {
+        return ((data[offset] & 0xff) << 8) | (data[offset + 1] & 0xff);
+    }
+
+    static int getInt(byte[] data, int offset) {
+        return ((data[offset] & 0xff) << 24) | ((data[offset + 1] & 0xff) << 16)
+                | ((data[offset + 2] & 0xff) << 8) | (data[offset + 3] & 0xff);
+    }
+
+    static void putShort(byte[] data, int offset, int value) {
+        data[offset] = (byte) (value >>> 8);
+        data[offset + 1] = (byte) value;
+    }
+
+    static void putInt(byte[] data, int offset, int value) {
+        data[offset] = (byte) (value >>> 24);
+        data[offset + 1] = (byte) (value >>> 16);
+        data[offset + 2] = (byte) (value >>> 8);
+        data[offset + 3] = (byte) value;
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.ui.views.importPcap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Raw bytes of the imported packets.
+ * <p>
+ * Packets are appended to large shared blocks and addressed by block and
+ * offset, so a packet costs its bytes plus a few primitive slots instead of
+ * a decoded object graph. Packets are appended by the parsing thread and
+ * read from the FX thread.
+ */
+public class ImportedPacketIndex {
+
+    private static final int BLOCK_SIZE = 1024 * 1024;
+
+    private final List<byte[]> blocks = new ArrayList<>();
+    private int blockUsed = BLOCK_SIZE;
+    private long[] positions = new long[1024];
+    private int[] lengths = new int[1024];
+    private int size;
+
+    /**
+     * Append packet
+     *
+     * @param rawData
+     * @return index of the packet
+     */
+    public synchronized int add(byte[] rawData) {
+        if (size == positions.length) {
+            positions = Arrays.copyOf(positions, size * 2);
+            lengths = Arrays.copyOf(lengths, size * 2);
+        }
+        if (blockUsed + rawData.length > BLOCK_SIZE) {
+            // oversized packets get a block of their own
+            blocks.add(new byte[Math.max(BLOCK_SIZE, rawData.length)]);
+            blockUsed = 0;
+        }
+        int block = blocks.size() - 1;
+        System.arraycopy(rawData, 0, blocks.get(block), blockUsed, rawData.length);
+        positions[size] = ((long) block << 32) | blockUsed;
+        lengths[size] = rawData.length;
+        blockUsed += rawData.length;
+        return size++;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @param index
+     * @return copy of the packet bytes
+     */
+    public synchronized byte[] getRawData(int index) {
+        checkIndex(index);
+        byte[] block = blocks.get((int) (positions[index] >>> 32));
+        int offset = (int) positions[index];
+        return Arrays.copyOfRange(block, offset, offset + lengths[index]);
+    }
+
+    public synchronized int getLength(int index) {
+        checkIndex(index);
+        return lengths[index];
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Packet " + index + " of " + size);
+        }
+    }
+}
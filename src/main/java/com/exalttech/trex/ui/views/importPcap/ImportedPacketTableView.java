@@ -7,20 +7,23 @@ package com.exalttech.trex.ui.views.importPcap;
 
 import com.exalttech.trex.remote.models.profiles.Profile;
 import com.exalttech.trex.ui.components.TextFieldTableViewCell;
-import com.exalttech.trex.ui.models.PacketInfo;
 import com.exalttech.trex.ui.util.AlertUtils;
 import com.exalttech.trex.ui.views.models.ImportPcapTableData;
 import com.exalttech.trex.ui.views.streams.builder.PacketBuilderHelper;
 import com.exalttech.trex.ui.views.streams.builder.VMInstructionBuilder;
 import com.exalttech.trex.ui.views.streams.builder.VMInstructionBuilder.InstructionType;
-import com.exalttech.trex.ui.views.streams.viewer.PacketParser;
 import com.exalttech.trex.util.TrafficProfile;
 import com.exalttech.trex.util.Util;
+import com.exalttech.trex.util.files.PcapFileReader;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.control.*;
@@ -30,20 +33,16 @@ import javafx.scene.layout.AnchorPane;
 import javafx.util.Callback;
 import org.apache.commons.io.FileUtils;
 import org.apache.log4j.Logger;
-import org.pcap4j.core.NotOpenException;
-import org.pcap4j.core.PcapHandle;
-import org.pcap4j.core.PcapNativeException;
-import org.pcap4j.core.Pcaps;
-import org.pcap4j.packet.Packet;
 
-import java.io.EOFException;
 import java.io.File;
+import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.TimeoutException;
 
 
 public class ImportedPacketTableView extends AnchorPane {
     private static final Logger LOG = Logger.getLogger(ImportedPacketTableView.class.getName());
+    private static final int ROWS_PER_UPDATE = 1000;
+    private static final long UPDATE_INTERVAL = 200;
 
     @FXML
     TableColumn selectedColumn;
@@ -78,6 +77,10 @@ public class ImportedPacketTableView extends AnchorPane {
     int index = 0;
     ImportedPacketProperties propertiesBinder;
     ImportPcapTableData firstPacket = null;
+    Task<Boolean> importTask;
+    Thread importThread;
+    PcapFileReader importReader;
+    ReadOnlyBooleanWrapper parsing = new ReadOnlyBooleanWrapper(false);
 
     /**
      * Constructor
@@ -169,61 +172,180 @@ public class ImportedPacketTableView extends AnchorPane {
     }
 
     /**
-     * Parse pcap file to get all streams
+     * Parse pcap file in the background, rows are added to the table while
+     * the file is parsed
      *
      * @param pcapFile
-     * @return
+     * @param onInvalid called on the FX thread if the pcap is not one flow
+     * of IPV4 packets
+     * @throws IOException if the file is not a pcap or pcapng file
      */
-    public boolean setPcapFile(File pcapFile) throws PcapNativeException,
-                                                     EOFException,
-                                                     TimeoutException,
-                                                     NotOpenException {
-        List<PacketInfo> packetInfoList = new ArrayList<>();
+    public void setPcapFile(File pcapFile, Runnable onInvalid) throws IOException {
+        cancelImport();
         PacketUpdater.getInstance().reset();
-        PcapHandle handler = Pcaps.openOffline(pcapFile.getAbsolutePath());
-        PacketParser parser = new PacketParser();
-        Packet packet;
-        while ((packet = handler.getNextPacketEx()) != null) {
-            if (!PacketUpdater.getInstance().validatePacket(packet)) {
-                break;
+        tableDataList.clear();
+        importedStreamTable.setItems(tableDataList);
+        PcapFileReader reader = new PcapFileReader(pcapFile);
+        ImportedPacketIndex packetIndex = new ImportedPacketIndex();
+
+        Task<Boolean> task = new Task<Boolean>() {
+            @Override
+            protected Boolean call() throws Exception {
+                try {
+                    return parsePackets();
+                } finally {
+                    reader.close();
+                }
+            }
+
+            private boolean parsePackets() throws IOException {
+                PacketUpdater updater = PacketUpdater.getInstance();
+                FrameHeaders headers = new FrameHeaders();
+                List<ImportPcapTableData> rows = new ArrayList<>();
+                long lastUpdate = System.currentTimeMillis();
+                boolean valid = true;
+                int next;
+                while (!isCancelled() && (next = reader.readNext()) >= 0) {
+                    byte[] frame = reader.getPacketBytes(next);
+                    if (reader.getLinkType(next) != PcapFileReader.LINKTYPE_ETHERNET || !updater.validatePacket(frame)) {
+                        valid = false;
+                        break;
+                    }
+                    updater.updatePacketSrcDst(frame);
+                    int position = packetIndex.add(frame);
+                    headers.parse(frame);
+                    rows.add(createRow(frame, headers, packetIndex, position, reader.getTimestampMillis(next)));
+
+                    long now = System.currentTimeMillis();
+                    if (rows.size() >= ROWS_PER_UPDATE || now - lastUpdate >= UPDATE_INTERVAL) {
+                        publish(rows);
+                        rows = new ArrayList<>();
+                        lastUpdate = now;
+                    }
+                }
+                publish(rows);
+                return valid;
+            }
+
+            private void publish(List<ImportPcapTableData> rows) {
+                if (!rows.isEmpty()) {
+                    Platform.runLater(() -> {
+                        if (!isCancelled()) {
+                            if (!selectAll.isSelected()) {
+                                rows.forEach(row -> row.setSelected(false));
+                            }
+                            tableDataList.addAll(rows);
+                        }
+                    });
+                }
+            }
+        };
+        task.setOnSucceeded(event -> {
+            parsing.set(false);
+            if (!task.getValue()) {
+                onInvalid.run();
+            }
+        });
+        task.setOnFailed(event -> {
+            parsing.set(false);
+            LOG.error("Error parsing pcap file", task.getException());
+            AlertUtils.construct(
+                    Alert.AlertType.ERROR,
+                    "Import error",
+                    "An error has occurred while attempting to import.",
+                    task.getException().getLocalizedMessage())
+                    .showAndWait();
+        });
+
+        importTask = task;
+        importReader = reader;
+        importThread = new Thread(task, "pcap-import");
+        importThread.setDaemon(true);
+        parsing.set(true);
+        importThread.start();
+    }
+
+    /**
+     * Stop parsing the pcap file, returns once the parsing thread is done
+     * with the shared packet updater
+     */
+    public void cancelImport() {
+        if (importTask != null) {
+            importTask.cancel();
+            try {
+                // the loop checks for cancellation after each packet
+                importThread.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
             }
-            PacketInfo packetInfo = new PacketInfo();
-            packet = PacketUpdater.getInstance().updatePacketSrcDst(packet);
-            packetInfo.setPacket(packet);
-            packetInfo.setTimeStamp(handler.getTimestamp().getTime());
-            parser.parsePacket(packet, packetInfo);
-            packetInfoList.add(packetInfo);
+            try {
+                // a task cancelled before it ran never closes its reader
+                importReader.close();
+            } catch (IOException ex) {
+                LOG.debug("Unable to close pcap file", ex);
+            }
+            importTask = null;
+            importThread = null;
+            importReader = null;
         }
-        setTableData(packetInfoList);
-        return PacketUpdater.getInstance().isValidPacket();
+        parsing.set(false);
+    }
+
+    /**
+     * @return true while the pcap file is parsed
+     */
+    public ReadOnlyBooleanProperty parsingProperty() {
+        return parsing.getReadOnlyProperty();
     }
 
     /**
-     * Set table data
+     * Create table row from the raw frame, the packet itself is kept in the
+     * index only
      *
-     * @param packetInfoList
+     * @param frame
+     * @param headers parsed headers of the frame
+     * @param packetIndex
+     * @param position
+     * @param timeStamp
+     * @return
      */
-    private void setTableData(List<PacketInfo> packetInfoList) {
+    private ImportPcapTableData createRow(byte[] frame, FrameHeaders headers, ImportedPacketIndex packetIndex, int position, long timeStamp) {
+        int number = position + 1;
+        ImportPcapTableData tableData = new ImportPcapTableData();
+        tableData.setName("packet_" + number);
+        tableData.setIndex(number);
+        tableData.setLength(frame.length);
+        tableData.setMacDst(formatMac(frame, 0));
+        tableData.setMacSrc(formatMac(frame, 6));
+        tableData.setIpSrc(formatIp(headers.getSrcAddress(frame)));
+        tableData.setIpDst(formatIp(headers.getDstAddress(frame)));
+        String packetType = "Ethernet/IPV4";
+        if (headers.protocol == FrameHeaders.PROTOCOL_TCP) {
+            packetType += "/TCP";
+        } else if (headers.protocol == FrameHeaders.PROTOCOL_UDP) {
+            packetType += "/UDP";
+        }
+        tableData.setPacketType(packetType);
+        tableData.setPacket(packetIndex, position);
+        tableData.setHasVlan(headers.vlanCount > 0);
+        tableData.setTimeStamp(timeStamp);
+        return tableData;
+    }
 
-        index = 1;
-        tableDataList.clear();
-        for (PacketInfo packetInfo : packetInfoList) {
-            ImportPcapTableData tableData = new ImportPcapTableData();
-            tableData.setName("packet_" + index);
-            tableData.setIndex(index);
-            tableData.setLength(packetInfo.getPacket().length());
-            tableData.setMacSrc(packetInfo.getSrcMac());
-            tableData.setMacDst(packetInfo.getDestMac());
-            tableData.setIpSrc(packetInfo.getSrcIpv4());
-            tableData.setIpDst(packetInfo.getDestIpv4());
-            tableData.setPacketType(trafficProfile.getPacketTypeText(packetInfo.getPacket()).getType());
-            tableData.setPacket(packetInfo.getPacket());
-            tableData.setHasVlan(packetInfo.hasVlan());
-            tableData.setTimeStamp(packetInfo.getTimeStamp());
-            tableDataList.add(tableData);
-            index++;
+    private static String formatMac(byte[] frame, int offset) {
+        StringBuilder mac = new StringBuilder(17);
+        for (int i = 0; i < 6; i++) {
+            if (i > 0) {
+                mac.append(':');
+            }
+            mac.append(Character.forDigit((frame[offset + i] >> 4) & 0xf, 16))
+                    .append(Character.forDigit(frame[offset + i] & 0xf, 16));
         }
-        importedStreamTable.setItems(tableDataList);
+        return mac.toString();
+    }
+
+    private static String formatIp(int address) {
+        return ((address >>> 24) & 0xff) + "." + ((address >>> 16) & 0xff) + "." + ((address >>> 8) & 0xff) + "." + (address & 0xff);
     }
 
     /**
@@ -245,7 +367,7 @@ public class ImportedPacketTableView extends AnchorPane {
                         Profile profile = new Profile();
                         profile.setName(current.getName());
                         profile.getStream().getMode().setType("single_burst");
-                        String hexDataString = PacketBuilderHelper.getPacketHex(current.getPacket().getRawData());
+                        String hexDataString = PacketBuilderHelper.getPacketHex(current.getRawData());
                         profile.getStream().getPacket().setBinary(trafficProfile.encodeBinaryFromHexString(hexDataString));
 
                         // add vm
@@ -289,16 +411,14 @@ public class ImportedPacketTableView extends AnchorPane {
      * @return
      */
     private ImportPcapTableData getNextSelectedPacket() {
-        if (index == tableDataList.size()) {
-            index++;
-            return null;
+        while (index < tableDataList.size()) {
+            ImportPcapTableData tableData = tableDataList.get(index++);
+            if (tableData.isSelected()) {
+                return tableData;
+            }
         }
-        ImportPcapTableData tableData = tableDataList.get(index);
         index++;
-        if (tableData.isSelected()) {
-            return tableData;
-        }
-        return getNextSelectedPacket();
+        return null;
     }
 
     /**
@@ -5,16 +5,14 @@
  */
 package com.exalttech.trex.ui.views.importPcap;
 
-import java.net.Inet4Address;
-import java.net.UnknownHostException;
 import org.apache.log4j.Logger;
-import org.pcap4j.packet.IpV4Packet;
-import org.pcap4j.packet.Packet;
-import org.pcap4j.packet.TcpPacket;
-import org.pcap4j.packet.UdpPacket;
 
 /**
  * Packet source destination updater
+ * <p>
+ * Works on the raw frame: addresses are patched in place and the IPv4 and
+ * TCP/UDP checksums are adjusted incrementally (RFC 1624). The flow of the
+ * first packet and the replacement addresses are kept as primitives.
  *
  * @author GeorgeKH
  */
@@ -22,16 +20,24 @@ public class PacketUpdater {
 
     private static final Logger LOG = Logger.getLogger(PacketUpdater.class.getName());
     private static PacketUpdater instance = null;
-    private String defaultSrcAddress = null;
-    private String defaultDstAddress = null;
     ImportedPacketProperties importedProperties;
-    String defaultSrcAddressPort;
-    String defaultDstAddressPort;
     boolean validPacket = true;
-    String protocolType;
 
-    String currentSrcAddressPort;
-    String currentDstAddressPort;
+    private final FrameHeaders headers = new FrameHeaders();
+
+    // flow of the first packet
+    private boolean initialized;
+    private int protocol;
+    private int defaultSrcAddress;
+    private int defaultSrcPort;
+    private int defaultDstAddress;
+    private int defaultDstPort;
+
+    // replacement addresses, parsed once per import
+    private boolean srcEnabled;
+    private int srcReplacement;
+    private boolean dstEnabled;
+    private int dstReplacement;
 
     private PacketUpdater() {
 
@@ -60,149 +66,137 @@ public class PacketUpdater {
     }
 
     /**
-     * Update packet source/destination address
+     * Update packet source/destination address in place
      *
-     * @param packet
-     * @return
+     * @param frame
      */
-    public Packet updatePacketSrcDst(Packet packet) {
+    public void updatePacketSrcDst(byte[] frame) {
         // initialze default src/dst address and protocol type
-        if (packet.get(IpV4Packet.class) != null) {
-            if (defaultSrcAddress == null && defaultDstAddress == null) {
-                initializeUpdater(packet);
+        if (headers.parse(frame)) {
+            if (!initialized) {
+                initializeUpdater(frame);
+            }
+            if (srcEnabled) {
+                int offset = headers.getSrcAddress(frame) == defaultSrcAddress ? headers.ipOffset + 12 : headers.ipOffset + 16;
+                setAddress(frame, offset, srcReplacement);
+            }
+            if (dstEnabled) {
+                int offset = headers.getDstAddress(frame) == defaultDstAddress ? headers.ipOffset + 16 : headers.ipOffset + 12;
+                setAddress(frame, offset, dstReplacement);
             }
-            packet = updateSrcAddress(packet);
-            packet = updateDstAddress(packet);
         }
-
-        return packet;
     }
 
     /**
      * Initialize default source/destination address according to first packet
      *
-     * @param firstPacket
+     * @param firstFrame
      */
-    private void initializeUpdater(Packet firstPacket) {
-        defaultSrcAddress = firstPacket.get(IpV4Packet.class).getHeader().getSrcAddr().getHostAddress();
-        defaultDstAddress = firstPacket.get(IpV4Packet.class).getHeader().getDstAddr().getHostAddress();
-        protocolType = firstPacket.get(IpV4Packet.class).getHeader().getProtocol().name();
-        defaultSrcAddressPort = defaultSrcAddress + ":" + getSrcPort(firstPacket);
-        defaultDstAddressPort = defaultDstAddress + ":" + getDstPort(firstPacket);
+    private void initializeUpdater(byte[] firstFrame) {
+        protocol = headers.protocol;
+        defaultSrcAddress = headers.getSrcAddress(firstFrame);
+        defaultDstAddress = headers.getDstAddress(firstFrame);
+        defaultSrcPort = headers.getSrcPort(firstFrame);
+        defaultDstPort = headers.getDstPort(firstFrame);
+        initialized = true;
     }
 
     /**
-     * Validate packet
+     * Validate packet, it should be IPV4 and belong to the flow of the first
+     * packet
      *
-     * @param packet
+     * @param frame
      * @return
      */
-    public boolean validatePacket(Packet packet) {
+    public boolean validatePacket(byte[] frame) {
         validPacket = true;
-        if(packet.get(IpV4Packet.class) == null){
+        if (!headers.parse(frame)) {
             validPacket = false;
-        }else if (defaultSrcAddress == null) {
+        } else if (!initialized) {
             return true;
-        } else if (!packet.get(IpV4Packet.class).getHeader().getProtocol().name().equals(protocolType)) {
+        } else if (headers.protocol != protocol) {
             validPacket = false;
         } else {
             // check src/dst port combination
-            currentSrcAddressPort = packet.get(IpV4Packet.class).getHeader().getSrcAddr().getHostAddress() + ":" + getSrcPort(packet);
-            currentDstAddressPort = packet.get(IpV4Packet.class).getHeader().getDstAddr().getHostAddress() + ":" + getDstPort(packet);
-            if ((!currentSrcAddressPort.equals(defaultSrcAddressPort) && !currentSrcAddressPort.equals(defaultDstAddressPort))
-                    || (!currentDstAddressPort.equals(defaultSrcAddressPort) && !currentDstAddressPort.equals(defaultDstAddressPort))) {
-                validPacket = false;
-            }
+            validPacket = isFlowEndpoint(headers.getSrcAddress(frame), headers.getSrcPort(frame))
+                    && isFlowEndpoint(headers.getDstAddress(frame), headers.getDstPort(frame));
         }
         return validPacket;
     }
 
-    /**
-     * Return source port
-     *
-     * @param packet
-     * @return
-     */
-    private String getSrcPort(Packet packet) {
-        if (protocolType.equals("TCP")) {
-            return packet.get(TcpPacket.class).getHeader().getSrcPort().toString();
-
-        } else if (protocolType.equals("UDP")) {
-            return packet.get(UdpPacket.class).getHeader().getSrcPort().toString();
-        }
-
-        return "80";
+    private boolean isFlowEndpoint(int address, int port) {
+        return (address == defaultSrcAddress && port == defaultSrcPort)
+                || (address == defaultDstAddress && port == defaultDstPort);
     }
 
     /**
-     * Return destination port
+     * Replace the IPV4 address at offset and adjust the checksums
      *
-     * @param packet
-     * @return
+     * @param frame
+     * @param offset
+     * @param address
      */
-    private String getDstPort(Packet packet) {
-        if (protocolType.equals("TCP")) {
-            return packet.get(TcpPacket.class).getHeader().getDstPort().toString();
-
-        } else if (protocolType.equals("UDP")) {
-            return packet.get(UdpPacket.class).getHeader().getDstPort().toString();
+    private void setAddress(byte[] frame, int offset, int address) {
+        int oldAddress = FrameHeaders.getInt(frame, offset);
+        if (oldAddress == address) {
+            return;
         }
-
-        return "80";
-    }
-
-    /**
-     * Update source IP address
-     */
-    private Packet updateSrcAddress(Packet packet) {
-        try {
-            if (importedProperties.isSourceEnabled()) {
-                Inet4Address modifiedAddress = (Inet4Address) Inet4Address.getByAddress(convertIPToByte(importedProperties.getSrcAddress()));
-                Packet.Builder builder = packet.getBuilder();
-                if (packet.get(IpV4Packet.class).getHeader().getSrcAddr().getHostAddress().equals(defaultSrcAddress)) {
-                    builder.get(IpV4Packet.Builder.class).srcAddr(modifiedAddress);
-                } else {
-                    builder.get(IpV4Packet.Builder.class).dstAddr(modifiedAddress);
-                }
-                packet = builder.build();
+        FrameHeaders.putInt(frame, offset, address);
+
+        int ipChecksumOffset = headers.ipOffset + 10;
+        FrameHeaders.putShort(frame, ipChecksumOffset, adjustChecksum(FrameHeaders.getShort(frame, ipChecksumOffset), oldAddress, address));
+
+        // TCP/UDP checksums cover the addresses through the pseudo header
+        if (headers.l4Offset >= 0) {
+            boolean udp = headers.protocol == FrameHeaders.PROTOCOL_UDP;
+            int checksumOffset = headers.l4Offset + (udp ? 6 : 16);
+            int checksum = FrameHeaders.getShort(frame, checksumOffset);
+            if (udp && checksum == 0) {
+                // checksum not computed by the sender
+                return;
             }
-
-        } catch (Exception ex) {
-            LOG.error("Error updating source IP", ex);
+            checksum = adjustChecksum(checksum, oldAddress, address);
+            FrameHeaders.putShort(frame, checksumOffset, udp && checksum == 0 ? 0xffff : checksum);
         }
-        return packet;
     }
 
     /**
-     * Update destination IP address
+     * Incremental checksum update, HC' = ~(~HC + ~m + m')
+     *
+     * @param checksum
+     * @param oldValue replaced 32 bits
+     * @param newValue
+     * @return
      */
-    private Packet updateDstAddress(Packet packet) {
-        try {
-            if (importedProperties.isDestinationEnabled()) {
-                Inet4Address modifiedAddress = (Inet4Address) Inet4Address.getByAddress(convertIPToByte(importedProperties.getDstAddress()));
-                Packet.Builder builder = packet.getBuilder();
-                if (packet.get(IpV4Packet.class).getHeader().getDstAddr().getHostAddress().equals(defaultDstAddress)) {
-                    builder.get(IpV4Packet.Builder.class).dstAddr(modifiedAddress);
-                } else {
-                    builder.get(IpV4Packet.Builder.class).srcAddr(modifiedAddress);
-                }
-                packet = builder.build();
-            }
-        } catch (Exception ex) {
-            LOG.error("Error updating destination IP", ex);
+    static int adjustChecksum(int checksum, int oldValue, int newValue) {
+        int sum = (~checksum & 0xffff)
+                + (~(oldValue >>> 16) & 0xffff) + (~oldValue & 0xffff)
+                + (newValue >>> 16) + (newValue & 0xffff);
+        while ((sum >>> 16) != 0) {
+            sum = (sum & 0xffff) + (sum >>> 16);
         }
-        return packet;
+        return ~sum & 0xffff;
     }
 
     /**
-     * Convert IP address to presenting byte array
+     * Convert IP address to integer
      * @param ipAddress
      * @return
-     * @throws UnknownHostException 
      */
-    private byte[] convertIPToByte(String ipAddress) throws UnknownHostException {
-        String[] splittedIP = ipAddress.split("\\.");
-        return new byte[]{(byte) Integer.parseInt(splittedIP[0]), (byte) Integer.parseInt(splittedIP[1]), (byte) Integer.parseInt(splittedIP[2]), (byte) Integer.parseInt(splittedIP[3])};
+    private static int parseAddress(String ipAddress) {
+        String[] splittedIP = ipAddress.trim().split("\\.");
+        if (splittedIP.length != 4) {
+            throw new IllegalArgumentException("Invalid IPV4 address " + ipAddress);
+        }
+        int address = 0;
+        for (String part : splittedIP) {
+            int value = Integer.parseInt(part);
+            if (value < 0 || value > 255) {
+                throw new IllegalArgumentException("Invalid IPV4 address " + ipAddress);
+            }
+            address = (address << 8) | value;
+        }
+        return address;
     }
 
     /**
@@ -214,10 +208,27 @@ public class PacketUpdater {
     }
 
     /**
-     * Reset to default values
+     * Reset to default values and read the replacement addresses
      */
     public void reset() {
-        defaultDstAddress = null;
-        defaultSrcAddress = null;
+        initialized = false;
+        validPacket = true;
+        srcEnabled = false;
+        dstEnabled = false;
+        if (importedProperties == null) {
+            return;
+        }
+        try {
+            if (importedProperties.isSourceEnabled()) {
+                srcReplacement = parseAddress(importedProperties.getSrcAddress());
+                srcEnabled = true;
+            }
+            if (importedProperties.isDestinationEnabled()) {
+                dstReplacement = parseAddress(importedProperties.getDstAddress());
+                dstEnabled = true;
+            }
+        } catch (IllegalArgumentException ex) {
+            LOG.error("Error parsing replacement address", ex);
+        }
     }
 }
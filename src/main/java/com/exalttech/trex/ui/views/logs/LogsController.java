@@ -20,6 +20,8 @@
  */
 package com.exalttech.trex.ui.views.logs;
 
+import com.exalttech.trex.util.MemoryMonitor;
+
 /**
  *
  * @author GeorgeKh
@@ -45,6 +47,7 @@ public class LogsController {
      */
     protected LogsController() {
         view = new LogsView();
+        MemoryMonitor.getInstance().addReleaser(view);
     }
 
     /**
@@ -20,6 +20,7 @@
  */
 package com.exalttech.trex.ui.views.logs;
 
+import com.exalttech.trex.util.MemoryMonitor;
 import com.exalttech.trex.util.Util;
 import javafx.application.Platform;
 import javafx.scene.control.Label;
@@ -36,7 +37,9 @@ import java.util.Date;
  *
  * @author GeorgeKh
  */
-public class LogsView extends AnchorPane {
+public class LogsView extends AnchorPane implements MemoryMonitor.MemoryReleaser {
+
+    private static final int RETAINED_ENTRIES_ON_RELEASE = 500;
 
     VBox logsContent;
     ScrollPane contentWrapper;
@@ -90,7 +93,9 @@ public class LogsView extends AnchorPane {
         msgContainer.getChildren().add(getMsgLabel(typeMsg, type.getStyle()));
         msgContainer.getChildren().add(getMsgLabel(textToAppend, type.getStyle()));
 
-        sb.append(typeMsg).append("   ").append(textToAppend).append('\n');
+        synchronized (sb) {
+            sb.append(typeMsg).append("   ").append(textToAppend).append('\n');
+        }
         Platform.runLater(() -> {
             logsContent.getChildren().add(msgContainer);
             contentWrapper.setVvalue(1.0);
@@ -110,7 +115,9 @@ public class LogsView extends AnchorPane {
     public void copyToClipboard() {
         final Clipboard clipboard = Clipboard.getSystemClipboard();
         final ClipboardContent content = new ClipboardContent();
-        content.putString(sb.toString());
+        synchronized (sb) {
+            content.putString(sb.toString());
+        }
         clipboard.setContent(content);
     }
 
@@ -118,8 +125,31 @@ public class LogsView extends AnchorPane {
      * Clear log view
      */
     public void clear() {
-        sb.setLength(0);
+        synchronized (sb) {
+            sb.setLength(0);
+        }
         logsContent.getChildren().clear();
-        Util.optimizeMemory();
+    }
+
+    /**
+     * Drop all but the latest log entries
+     */
+    @Override
+    public void releaseMemory() {
+        synchronized (sb) {
+            int index = sb.length() - 1;
+            for (int i = 0; i < RETAINED_ENTRIES_ON_RELEASE && index > 0; i++) {
+                index = sb.lastIndexOf("\n", index - 1);
+            }
+            if (index > 0) {
+                sb.delete(0, index + 1);
+            }
+        }
+        Platform.runLater(() -> {
+            int size = logsContent.getChildren().size();
+            if (size > RETAINED_ENTRIES_ON_RELEASE) {
+                logsContent.getChildren().remove(0, size - RETAINED_ENTRIES_ON_RELEASE);
+            }
+        });
     }
 }
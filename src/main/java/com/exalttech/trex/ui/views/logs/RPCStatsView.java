@@ -0,0 +1,107 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.ui.views.logs;
+
+import com.exalttech.trex.core.ConnectionManager;
+import com.exalttech.trex.core.RPCCompressionPolicy;
+import com.exalttech.trex.core.RPCCompressionPolicy.MethodStats;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.layout.AnchorPane;
+import javafx.util.Duration;
+
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Per method RPC request counters of the compression policy
+ */
+public class RPCStatsView extends AnchorPane {
+
+    private static final Duration REFRESH_INTERVAL = Duration.seconds(1);
+
+    private final TableView<Map.Entry<String, MethodStats>> table = new TableView<>();
+    private final Timeline refreshTimeline = new Timeline(new KeyFrame(REFRESH_INTERVAL, event -> refresh()));
+
+    /**
+     *
+     */
+    public RPCStatsView() {
+        setTopAnchor(this, 0d);
+        setLeftAnchor(this, 0d);
+        setBottomAnchor(this, 0d);
+        setRightAnchor(this, 0d);
+        refreshTimeline.setCycleCount(Animation.INDEFINITE);
+        buildUI();
+    }
+
+    private void buildUI() {
+        table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+        table.setPlaceholder(new Label("No requests sent"));
+        table.getColumns().add(createColumn("Method", Map.Entry::getKey));
+        table.getColumns().add(createStatsColumn("Requests", stats -> String.valueOf(stats.getRequests())));
+        table.getColumns().add(createStatsColumn("Compressed", stats -> String.valueOf(stats.getCompressedRequests())));
+        table.getColumns().add(createStatsColumn("Raw KB", stats -> String.format("%.1f", stats.getRawBytes() / 1024.0)));
+        table.getColumns().add(createStatsColumn("Sent KB", stats -> String.format("%.1f", stats.getSentBytes() / 1024.0)));
+        table.getColumns().add(createStatsColumn("Ratio", stats -> String.format("%.2f", stats.getRatio())));
+        table.getColumns().add(createStatsColumn("Level", stats -> stats.getLastLevel() == RPCCompressionPolicy.NO_COMPRESSION ? "none" : String.valueOf(stats.getLastLevel())));
+        table.getColumns().add(createStatsColumn("Deflate ms", stats -> String.format("%.3f", stats.getCompressionMillis())));
+        table.getColumns().add(createStatsColumn("Transfer ms", stats -> String.format("%.3f", stats.getTransferMillis())));
+
+        getChildren().add(table);
+        setTopAnchor(table, 0d);
+        setLeftAnchor(table, 0d);
+        setBottomAnchor(table, 0d);
+        setRightAnchor(table, 0d);
+    }
+
+    private TableColumn<Map.Entry<String, MethodStats>, String> createStatsColumn(String title, Function<MethodStats, String> value) {
+        return createColumn(title, entry -> value.apply(entry.getValue()));
+    }
+
+    private TableColumn<Map.Entry<String, MethodStats>, String> createColumn(String title, Function<Map.Entry<String, MethodStats>, String> value) {
+        TableColumn<Map.Entry<String, MethodStats>, String> column = new TableColumn<>(title);
+        column.setCellValueFactory(cell -> new ReadOnlyStringWrapper(value.apply(cell.getValue())));
+        return column;
+    }
+
+    /**
+     * Reload the counters periodically while the view is shown
+     *
+     * @param refreshing
+     */
+    public void setRefreshing(boolean refreshing) {
+        if (refreshing) {
+            refresh();
+            refreshTimeline.play();
+        } else {
+            refreshTimeline.stop();
+        }
+    }
+
+    /**
+     * Reload counters of the current connection
+     */
+    public void refresh() {
+        RPCCompressionPolicy policy = ConnectionManager.getInstance().getCompressionPolicy();
+        table.getItems().setAll(policy.getMethodStats().entrySet());
+    }
+}
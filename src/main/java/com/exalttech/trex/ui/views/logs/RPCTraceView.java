@@ -0,0 +1,140 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.ui.views.logs;
+
+import com.exalttech.trex.core.RPCTrace;
+import com.exalttech.trex.util.Util;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.SplitPane;
+import javafx.scene.control.TextArea;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.AnchorPane;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
+
+import java.util.Date;
+
+/**
+ * Viewer of the RPC trace, the payload of an entry is only formatted when
+ * it is selected
+ */
+public class RPCTraceView extends AnchorPane {
+
+    private final RPCTrace trace = RPCTrace.getInstance();
+
+    private final CheckBox recordCheckBox = new CheckBox("Record RPC messages");
+    private final TextField capacityField = new TextField();
+    private final TextField maxSizeField = new TextField();
+    private final Label droppedLabel = new Label();
+    private final ListView<RPCTrace.Entry> entryList = new ListView<>();
+    private final TextArea payloadArea = new TextArea();
+
+    /**
+     *
+     */
+    public RPCTraceView() {
+        setTopAnchor(this, 0d);
+        setLeftAnchor(this, 0d);
+        setBottomAnchor(this, 0d);
+        setRightAnchor(this, 0d);
+        buildUI();
+    }
+
+    private void buildUI() {
+        recordCheckBox.setSelected(trace.isEnabled());
+        recordCheckBox.selectedProperty().addListener((observable, oldValue, newValue) -> {
+            trace.setEnabled(newValue);
+            refresh();
+        });
+
+        capacityField.setPrefWidth(60);
+        capacityField.setText(String.valueOf(trace.getCapacity()));
+        capacityField.setOnAction(event -> applyLimits());
+        maxSizeField.setPrefWidth(60);
+        maxSizeField.setText(String.valueOf(trace.getMaxBytes() / 1024));
+        maxSizeField.setOnAction(event -> applyLimits());
+
+        Button refreshButton = new Button("Refresh");
+        refreshButton.getStyleClass().add("normalButton");
+        refreshButton.setOnAction(event -> refresh());
+        Button clearButton = new Button("Clear");
+        clearButton.getStyleClass().add("normalButton");
+        clearButton.setOnAction(event -> {
+            trace.clear();
+            refresh();
+        });
+
+        HBox controls = new HBox(10, recordCheckBox, new Label("Max entries:"), capacityField,
+                new Label("Max KB:"), maxSizeField, refreshButton, clearButton, droppedLabel);
+        controls.setAlignment(Pos.CENTER_LEFT);
+        controls.setPadding(new Insets(5));
+
+        entryList.setCellFactory(list -> new ListCell<RPCTrace.Entry>() {
+            @Override
+            protected void updateItem(RPCTrace.Entry entry, boolean empty) {
+                super.updateItem(entry, empty);
+                setText(empty || entry == null ? null : Util.formatDate(new Date(entry.getTimestamp())) + "   " + entry.getSummary());
+            }
+        });
+        entryList.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) -> {
+            payloadArea.setText(newValue == null ? "" : newValue.getPrettyPayload());
+        });
+        payloadArea.setEditable(false);
+
+        SplitPane content = new SplitPane(entryList, payloadArea);
+        content.setDividerPositions(0.4);
+
+        BorderPane root = new BorderPane(content);
+        root.setTop(controls);
+        getChildren().add(root);
+        setTopAnchor(root, 0d);
+        setLeftAnchor(root, 0d);
+        setBottomAnchor(root, 0d);
+        setRightAnchor(root, 0d);
+    }
+
+    private void applyLimits() {
+        try {
+            int capacity = Integer.parseInt(capacityField.getText().trim());
+            long maxBytes = Long.parseLong(maxSizeField.getText().trim()) * 1024;
+            trace.setLimits(capacity, maxBytes);
+        } catch (NumberFormatException ex) {
+            // keep the current limits
+        }
+        capacityField.setText(String.valueOf(trace.getCapacity()));
+        maxSizeField.setText(String.valueOf(trace.getMaxBytes() / 1024));
+        refresh();
+    }
+
+    /**
+     * Reload the retained entries
+     */
+    public void refresh() {
+        RPCTrace.Entry selected = entryList.getSelectionModel().getSelectedItem();
+        entryList.getItems().setAll(trace.getEntries());
+        if (selected != null && entryList.getItems().contains(selected)) {
+            entryList.getSelectionModel().select(selected);
+        }
+        long dropped = trace.getDroppedCount();
+        droppedLabel.setText(dropped > 0 ? dropped + " older entries dropped" : "");
+    }
+}
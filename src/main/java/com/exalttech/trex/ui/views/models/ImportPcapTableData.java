@@ -5,31 +5,41 @@
  */
 package com.exalttech.trex.ui.views.models;
 
+import com.exalttech.trex.ui.views.importPcap.ImportedPacketIndex;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.SimpleBooleanProperty;
-import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
+import org.apache.log4j.Logger;
+import org.pcap4j.packet.EthernetPacket;
+import org.pcap4j.packet.IllegalRawDataException;
 import org.pcap4j.packet.Packet;
+import org.pcap4j.packet.UnknownPacket;
 
 /**
  * Import pcap table data model
+ * <p>
+ * Only the editable columns are properties, the packet itself stays in the
+ * import index and is decoded on demand.
  *
  * @author GeorgeKH
  */
 public class ImportPcapTableData {
 
+    private static final Logger LOG = Logger.getLogger(ImportPcapTableData.class.getName());
+
     private BooleanProperty selected = new SimpleBooleanProperty(true);
     private SimpleStringProperty name = new SimpleStringProperty("");
-    private SimpleIntegerProperty index = new SimpleIntegerProperty();
-    private SimpleIntegerProperty length = new SimpleIntegerProperty();
-    private SimpleStringProperty macSrc = new SimpleStringProperty("");
-    private SimpleStringProperty macDst = new SimpleStringProperty("");
-    private SimpleStringProperty ipSrc = new SimpleStringProperty("");
-    private SimpleStringProperty ipDst = new SimpleStringProperty("");
-    private SimpleStringProperty packetType = new SimpleStringProperty("");
-
-    private Packet packet;
+    private int index;
+    private int length;
+    private String macSrc = "";
+    private String macDst = "";
+    private String ipSrc = "";
+    private String ipDst = "";
+    private String packetType = "";
+
+    private ImportedPacketIndex packetIndex;
+    private int packetIndexPosition;
     private boolean hasVlan;
     private long timeStamp;
 
@@ -102,7 +112,7 @@ public class ImportPcapTableData {
      * @return
      */
     public int getIndex() {
-        return index.getValue();
+        return index;
     }
 
     /**
@@ -111,7 +121,7 @@ public class ImportPcapTableData {
      * @param index
      */
     public void setIndex(int index) {
-        this.index.setValue(index);
+        this.index = index;
     }
 
     /**
@@ -120,7 +130,7 @@ public class ImportPcapTableData {
      * @return
      */
     public int getLength() {
-        return length.getValue();
+        return length;
     }
 
     /**
@@ -129,7 +139,7 @@ public class ImportPcapTableData {
      * @param length
      */
     public void setLength(int length) {
-        this.length.setValue(length);
+        this.length = length;
     }
 
     /**
@@ -138,7 +148,7 @@ public class ImportPcapTableData {
      * @return
      */
     public String getMacSrc() {
-        return macSrc.getValue();
+        return macSrc;
     }
 
     /**
@@ -147,7 +157,7 @@ public class ImportPcapTableData {
      * @param macSrc
      */
     public void setMacSrc(String macSrc) {
-        this.macSrc.setValue(macSrc);
+        this.macSrc = macSrc;
     }
 
     /**
@@ -156,7 +166,7 @@ public class ImportPcapTableData {
      * @return
      */
     public String getMacDst() {
-        return macDst.getValue();
+        return macDst;
     }
 
     /**
@@ -165,7 +175,7 @@ public class ImportPcapTableData {
      * @param macDst
      */
     public void setMacDst(String macDst) {
-        this.macDst.setValue(macDst);
+        this.macDst = macDst;
     }
 
     /**
@@ -174,7 +184,7 @@ public class ImportPcapTableData {
      * @return
      */
     public String getIpSrc() {
-        return ipSrc.getValue();
+        return ipSrc;
     }
 
     /**
@@ -183,7 +193,7 @@ public class ImportPcapTableData {
      * @param ipSrc
      */
     public void setIpSrc(String ipSrc) {
-        this.ipSrc.setValue(ipSrc);
+        this.ipSrc = ipSrc;
     }
 
     /**
@@ -192,7 +202,7 @@ public class ImportPcapTableData {
      * @return
      */
     public String getIpDst() {
-        return ipDst.getValue();
+        return ipDst;
     }
 
     /**
@@ -201,7 +211,7 @@ public class ImportPcapTableData {
      * @param ipDst
      */
     public void setIpDst(String ipDst) {
-        this.ipDst.setValue(ipDst);
+        this.ipDst = ipDst;
     }
 
     /**
@@ -210,7 +220,7 @@ public class ImportPcapTableData {
      * @return
      */
     public String getPacketType() {
-        return packetType.getValue();
+        return packetType;
     }
 
     /**
@@ -219,25 +229,42 @@ public class ImportPcapTableData {
      * @param packetType
      */
     public void setPacketType(String packetType) {
-        this.packetType.setValue(packetType);
+        this.packetType = packetType;
     }
 
     /**
-     * Return packet
+     * Decode and return packet
      *
      * @return
      */
     public Packet getPacket() {
-        return packet;
+        byte[] rawData = getRawData();
+        try {
+            return EthernetPacket.newPacket(rawData, 0, rawData.length);
+        } catch (IllegalRawDataException ex) {
+            LOG.warn("Unable to decode packet " + index, ex);
+            return UnknownPacket.newPacket(rawData, 0, rawData.length);
+        }
+    }
+
+    /**
+     * Return packet bytes
+     *
+     * @return
+     */
+    public byte[] getRawData() {
+        return packetIndex.getRawData(packetIndexPosition);
     }
 
     /**
-     * Set packet
+     * Set packet location in the import index
      *
-     * @param packet
+     * @param packetIndex
+     * @param position
      */
-    public void setPacket(Packet packet) {
-        this.packet = packet;
+    public void setPacket(ImportedPacketIndex packetIndex, int position) {
+        this.packetIndex = packetIndex;
+        this.packetIndexPosition = position;
     }
 
     public void setHasVlan(boolean hasVlan) {
@@ -1,14 +1,12 @@
 package com.exalttech.trex.ui.views.statistics;
 
-import javafx.beans.value.ObservableValue;
-
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
-import com.exalttech.trex.core.AsyncResponseManager;
-import com.exalttech.trex.util.Util;
+import com.exalttech.trex.core.AsyncEventRouter;
 
 
 public class StatsLoader {
@@ -31,6 +29,8 @@ public class StatsLoader {
     private Map<String, String> previousStatsList = new HashMap<>();
     private Map<String, String> shadowStatsList = null;
 
+    private final Consumer<Map<String, String>> globalStatsSubscriber = this::handleGlobalStatsReceived;
+
     private StatsLoader() {}
 
     public Map<String, String> getLoadedStatsList() {
@@ -45,8 +45,8 @@ public class StatsLoader {
         return shadowStatsList != null ? shadowStatsList : new HashMap<>();
     }
 
-    private boolean validAsyncResponse(String jsonString) {
-        return !Util.isNullOrEmpty(jsonString) && jsonString.contains("m_cpu_util");
+    private boolean validAsyncResponse(Map<String, String> data) {
+        return data.containsKey("m_cpu_util");
     }
 
     public void start() {
@@ -60,7 +60,8 @@ public class StatsLoader {
 
         handleGlobalStatsChanged();
 
-        AsyncResponseManager.getInstance().getTrexGlobalProperty().addListener(this::handleGlobalPropertyChanged);
+        AsyncEventRouter.getInstance().unsubscribe(AsyncEventRouter.GLOBAL_STATS, globalStatsSubscriber);
+        AsyncEventRouter.getInstance().subscribe(AsyncEventRouter.GLOBAL_STATS, globalStatsSubscriber);
     }
 
     public void reset() {
@@ -81,22 +82,11 @@ public class StatsLoader {
         }
     }
 
-    private void handleGlobalPropertyChanged(
-            ObservableValue<? extends String> observable,
-            String oldValue,
-            String newValue
-    ) {
-        if (newValue == null) {
-            return;
-        }
-
-        String data = Util.fromJSONResult(newValue, "data");
-        if (!validAsyncResponse(data)) {
+    private void handleGlobalStatsReceived(Map<String, String> parsedData) {
+        if (!validAsyncResponse(parsedData)) {
             return;
         }
 
-        Map<String, String> parsedData = Util.getStatsFromJSONString(data);
-
         if (shadowStatsList == null) {
             shadowStatsList = parsedData;
         }
@@ -18,21 +18,21 @@ package com.exalttech.trex.ui.views.statistics;
 import com.exalttech.trex.ui.PortsManager;
 import com.exalttech.trex.ui.models.Port;
 import com.exalttech.trex.ui.models.SystemInfoReq;
+import com.exalttech.trex.ui.models.XStats;
 import com.exalttech.trex.ui.views.statistics.cells.*;
 import com.exalttech.trex.util.Util;
 import javafx.geometry.HPos;
 import javafx.scene.Node;
-import javafx.scene.control.Label;
-import javafx.scene.control.Tooltip;
-import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.GridPane;
 import org.apache.log4j.Logger;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
-import java.util.function.Consumer;
 
 /**
  *
@@ -52,6 +52,13 @@ public class StatsTableGenerator {
 
     Map<String, StatisticCell> gridCellsMap = new HashMap<>();
     StringBuilder keyBuffer = new StringBuilder(30);
+    StringBuilder dirtyKeyBuffer = new StringBuilder(30);
+
+    // port stats table layout, cells are only placed again when it changes
+    private String portStatLayout;
+    private boolean rebuildLayout;
+    private Set<String> lastDirtyKeys;
+    private Map<String, String> writtenValues = new HashMap<>();
 
     private boolean odd;
     private int rowIndex;
@@ -60,7 +67,11 @@ public class StatsTableGenerator {
     private static final int WIDTH_COL_1 = 150;
     private static final int WIDTH_COL_PIN = 48;
 
-    private Map<Integer, Map<String, Long>> hardwareShadowCounters = new HashMap<>();
+    // extended counters table state, counter index and pin state shown in every row
+    private XStats shownXStats;
+    private Set<String> shownXStatsPinned;
+    private int[] xstatRowCounters = new int[0];
+    private boolean[] xstatRowPinned = new boolean[0];
     
     /**
      * Constructor
@@ -97,6 +108,7 @@ public class StatsTableGenerator {
         this.currentStatsList = StatsLoader.getInstance().getLoadedStatsList();
         this.prevStatsList = StatsLoader.getInstance().getPreviousStatsList();
         this.prevTotalValues = totalValues;
+        boolean cachedChanged = cached != cachedStatsList;
         this.cachedStatsList = cached;
 
         int startPortIndex = portIndex;
@@ -107,11 +119,24 @@ public class StatsTableGenerator {
         }
         rowIndex = 0;
         totalValues = new HashMap<>();
-        statTable.getChildren().clear();
 
-        Util.optimizeMemory();
+        String layout = getPortStatLayout(startPortIndex, endPortIndex, isMultiPort, columnWidth, visiblePorts);
+        rebuildLayout = !layout.equals(portStatLayout);
+        portStatLayout = layout;
+        if (rebuildLayout) {
+            statTable.getChildren().clear();
+            writtenValues.clear();
+            addCounterColumn(StatisticConstantsKeys.PORT_STATS_ROW_NAME);
+        }
 
-        addCounterColumn(StatisticConstantsKeys.PORT_STATS_ROW_NAME);
+        // keys changed in the previous update are refreshed too, so the arrows get reset
+        Set<String> dirtyKeys = rebuildLayout || cachedChanged ? null : getDirtyKeys();
+        Set<String> refreshKeys = null;
+        if (dirtyKeys != null && lastDirtyKeys != null) {
+            refreshKeys = new HashSet<>(dirtyKeys);
+            refreshKeys.addAll(lastDirtyKeys);
+        }
+        lastDirtyKeys = dirtyKeys;
 
         double tx_bps_l1_total = 0;
         double rx_bps_l1_total = 0;
@@ -159,9 +184,10 @@ public class StatsTableGenerator {
 
                     StatisticCell cell = getGridCell(key, columnWidth, keyBuffer.toString());
                     String stat_value = getStatValue(key, i);
-                    cell.updateItem(getPrevValue(key, i, false), stat_value);
-                    statTable.getChildren().remove(cell);
-                    statTable.add((Node) cell, columnIndex, rowIndex++);
+                    if (isDirty(refreshKeys, key, i)) {
+                        cell.updateItem(getPrevValue(key, i, false), stat_value);
+                    }
+                    placeCell(cell, columnIndex, rowIndex++);
 
                     if (keyBuffer.toString().startsWith("m_total_tx_bps-" + i)) {
                         row_m_tx_bps = key;
@@ -238,11 +264,74 @@ public class StatsTableGenerator {
         keyBuffer.setLength(0);
         keyBuffer.append(l1Key.getKey()).append("-").append(portIndex);
         StatisticCell cell = getGridCell(l1Key, columnWidth, keyBuffer.toString());
-        cell.updateItem("" + l1_bps, "" + l1_bps);
-        statTable.getChildren().remove(cell);
-        statTable.add((Node) cell, columnIndex, l1_index);
+        writeCell(keyBuffer.toString(), cell, "" + l1_bps, "" + l1_bps);
+        placeCell(cell, columnIndex, l1_index);
         return l1_bps;
     }
+
+    /**
+     * Return port stats table layout signature
+     *
+     * @return
+     */
+    private String getPortStatLayout(int startPortIndex, int endPortIndex, boolean isMultiPort, double columnWidth, Set<Integer> visiblePorts) {
+        StringBuilder layout = new StringBuilder();
+        layout.append(isMultiPort).append('/').append(columnWidth).append('/');
+        for (int i = startPortIndex; i < endPortIndex; i++) {
+            Port port = PortsManager.getInstance().getPortList().get(i);
+            if (visiblePorts == null || visiblePorts.contains(port.getIndex())) {
+                layout.append(port.getIndex()).append(',');
+            }
+        }
+        return layout.toString();
+    }
+
+    /**
+     * Return keys which value changed since previous stats
+     *
+     * @return changed keys or null if all should be considered as changed
+     */
+    private Set<String> getDirtyKeys() {
+        if (prevStatsList == null || prevStatsList.isEmpty()) {
+            return null;
+        }
+        Set<String> dirtyKeys = new HashSet<>();
+        currentStatsList.forEach((key, value) -> {
+            if (!Objects.equals(value, prevStatsList.get(key))) {
+                dirtyKeys.add(key);
+            }
+        });
+        return dirtyKeys;
+    }
+
+    private boolean isDirty(Set<String> refreshKeys, StatisticRow row, int portIndex) {
+        if (refreshKeys == null) {
+            return true;
+        }
+        dirtyKeyBuffer.setLength(0);
+        dirtyKeyBuffer.append(row.getAttributeName()).append("-").append(portIndex);
+        return refreshKeys.contains(dirtyKeyBuffer.toString());
+    }
+
+    /**
+     * Update cell only if the values differ from the written ones
+     */
+    private void writeCell(String key, StatisticCell cell, String oldValue, String newValue) {
+        String written = oldValue + '\u0000' + newValue;
+        if (!written.equals(writtenValues.put(key, written))) {
+            cell.updateItem(oldValue, newValue);
+        }
+    }
+
+    /**
+     * Add cell to the port stats table when its layout is rebuilt
+     */
+    private void placeCell(StatisticCell cell, int columnIndex, int rowIndex) {
+        if (rebuildLayout) {
+            statTable.getChildren().remove(cell);
+            statTable.add((Node) cell, columnIndex, rowIndex);
+        }
+    }
     
     /**
      * Add counter column
@@ -277,25 +366,22 @@ public class StatsTableGenerator {
         row = new StatisticRow(keyBuffer.toString(), "", CellType.HEADER_WITH_ICON, false, "");
         HeaderCellWithIcon headerCell = (HeaderCellWithIcon) getGridCell(row, width, row.getKey());
         headerCell.setTitle("Port " + port.getIndex());
-        headerCell.updateItem("", port.getStatus());
-        statTable.getChildren().remove(headerCell);
-        statTable.add((Node) headerCell, columnIndex, rowIndex++);
+        writeCell(row.getKey(), headerCell, "", port.getStatus());
+        placeCell(headerCell, columnIndex, rowIndex++);
 
         keyBuffer.setLength(0);
         keyBuffer.append("owner-").append(port.getIndex());
         row = new StatisticRow(keyBuffer.toString(), "owner", CellType.DEFAULT_CELL, false, "");
         StatisticCell cell = getGridCell(row, width, row.getKey());
-        cell.updateItem("", port.getOwner());
-        statTable.getChildren().remove(cell);
-        statTable.add((Node) cell, columnIndex, rowIndex++);
+        writeCell(row.getKey(), cell, "", port.getOwner());
+        placeCell(cell, columnIndex, rowIndex++);
 
         keyBuffer.setLength(0);
         keyBuffer.append("status-").append(port.getIndex());
         row = new StatisticRow(keyBuffer.toString(), "status", CellType.STATUS_CELL, false, "");
         cell = getGridCell(row, width, row.getKey());
-        cell.updateItem("", port.getStatus());
-        statTable.getChildren().remove(cell);
-        statTable.add((Node) cell, columnIndex, rowIndex++);
+        writeCell(row.getKey(), cell, "", port.getStatus());
+        placeCell(cell, columnIndex, rowIndex++);
         row = null;
     }
 
@@ -428,28 +514,32 @@ public class StatsTableGenerator {
     private void addTotalColumn(double columnWidth, int columnIndex, double tx_bps_l1_total, double rx_bps_l1_total) {
         rowIndex = 1;
         odd = true;
-        addHeaderCell("Total", columnIndex, columnWidth);
-        addEmptyCell("total-owner", columnIndex, columnWidth);
-        addEmptyCell("total-status", columnIndex, columnWidth);
+        if (rebuildLayout) {
+            addHeaderCell("Total", columnIndex, columnWidth);
+            addEmptyCell("total-owner", columnIndex, columnWidth);
+            addEmptyCell("total-status", columnIndex, columnWidth);
+        } else {
+            rowIndex += 2;
+        }
         for (StatisticRow row : StatisticConstantsKeys.PORT_STATS_KEY) {
-            StatisticCell cell = getGridCell(row, columnWidth, row.getKey() + "-total");
-            if ((row.getKey() + "-total").startsWith("m_total_tx_bps_l1-total")) {
-                cell.updateItem("" + tx_bps_l1_total, "" + tx_bps_l1_total);
+            String key = row.getKey() + "-total";
+            StatisticCell cell = getGridCell(row, columnWidth, key);
+            if (key.startsWith("m_total_tx_bps_l1-total")) {
+                writeCell(key, cell, "" + tx_bps_l1_total, "" + tx_bps_l1_total);
             }
-            if ((row.getKey() + "-total").startsWith("m_total_rx_bps_l1-total")) {
-                cell.updateItem("" + rx_bps_l1_total, "" + rx_bps_l1_total);
+            if (key.startsWith("m_total_rx_bps_l1-total")) {
+                writeCell(key, cell, "" + rx_bps_l1_total, "" + rx_bps_l1_total);
             }
             else {
                 if (row.isFormatted()) {
-                    cell.updateItem(getPrevValue(row, 0, true),
+                    writeCell(key, cell, getPrevValue(row, 0, true),
                             Util.getFormatted(getTotalValue(row), true, row.getUnit()));
                 }
                 else {
-                    cell.updateItem(getPrevValue(row, 0, true), getTotalValue(row));
+                    writeCell(key, cell, getPrevValue(row, 0, true), getTotalValue(row));
                 }
             }
-            statTable.getChildren().remove(cell);
-            statTable.add((Node) cell, columnIndex, rowIndex++);
+            placeCell(cell, columnIndex, rowIndex++);
         }
     }
 
@@ -489,46 +579,6 @@ public class StatsTableGenerator {
         return cell;
     }
 
-    private void addXstatRow(GridPane table
-            , Consumer<MouseEvent> col2MouseHandler, String col2AddStyleClass, String col2RemoveStyleClass, Tooltip tooltip
-            , String key0, String value0, double columnWidth0, int columnIndex0
-            , String key1, String value1, double columnWidth1, int columnIndex1
-            , String key2, String value2, double columnWidth2, int columnIndex2)
-    {
-        boolean odd2 = odd;
-        StatisticRow row0 = new StatisticRow(key0, key0, CellType.ATTR_CELL, false, "");
-        row0.setRightPosition(false);
-        StatisticCell cell0 = getGridCell(row0, columnWidth0, key0);
-        cell0.updateItem("", value0);
-        table.getChildren().remove(cell0);
-        table.add((Node) cell0, columnIndex0, rowIndex);
-
-        odd = odd2;
-        StatisticRow row1 = new StatisticRow(key1, key1, CellType.ATTR_CELL, false, "");
-        row1.setRightPosition(false);
-        StatisticCell cell1 = getGridCell(row1, columnWidth1, key1);
-        cell1.updateItem("", value1);
-        table.getChildren().remove(cell1);
-        table.add((Node) cell1, columnIndex1, rowIndex);
-
-        odd = odd2;
-        StatisticRow row2 = new StatisticRow(key2, key2, CellType.ATTR_CELL, false, "");
-        row2.setRightPosition(false);
-        StatisticCell cell2 = getGridCell(row2, columnWidth2, key2);
-        cell2.updateItem("", value2);
-        table.getChildren().remove(cell2);
-        table.add((Node) cell2, columnIndex2, rowIndex);
-        GridPane.setHalignment((Node) cell2, HPos.CENTER);
-        ((Node) cell2).getStyleClass().removeAll(col2RemoveStyleClass);
-        ((Node) cell2).getStyleClass().add(col2AddStyleClass);
-        ((Node) cell2).setOnMouseClicked((event) -> {
-            col2MouseHandler.accept(event);
-            event.consume();
-        });
-
-        rowIndex++;
-    }
-
     /**
      * Return Difference between current and cached stats value
      *
@@ -603,10 +653,13 @@ public class StatsTableGenerator {
     public void reset() {
 
         statTable.getChildren().clear();
-        Util.optimizeMemory();
 
         statTable = null;
 
+        portStatLayout = null;
+        lastDirtyKeys = null;
+        writtenValues.clear();
+
         gridCellsMap.clear();
         gridCellsMap = null;
 
@@ -641,7 +694,7 @@ public class StatsTableGenerator {
      */
     public GridPane generateSystemInfoPane(SystemInfoReq systemInfoReq) {
         statTable.getChildren().clear();
-        Util.optimizeMemory();
+        portStatLayout = null;
 
         double columnWidth = 450;
         addHeaderCell("Value", 1, columnWidth);
@@ -662,83 +715,113 @@ public class StatsTableGenerator {
         return statTable;
     }
 
+    /**
+     * Build the port extended counters table. Rows are kept between updates
+     * and only the cells of changed counters are written.
+     *
+     * @param full rebuild all rows
+     * @param port
+     * @param notempty show only non zero counters
+     * @param filter counter name filter
+     * @param resetCounters start counting from the current values
+     * @return
+     */
     public GridPane generateXStatPane(boolean full, Port port, boolean notempty, String filter, boolean resetCounters) {
-        if (full) {
+        XStats xstats = port.getXstats();
+        Set<String> xstatsPinned = port.getXstatsPinned();
+        if (full || xstats != shownXStats) {
             statXTable.getChildren().clear();
-            Util.optimizeMemory();
+            xstatRowCounters = new int[0];
+            xstatRowPinned = new boolean[0];
+            shownXStats = xstats;
+            addHeaderCell(statXTable, "xstats-header0", "Counter", 0, WIDTH_COL_0 * 1.5);
+            addHeaderCell(statXTable, "xstats-header1", "Value", 1, WIDTH_COL_1);
+            addHeaderCell(statXTable, "xstats-header2", "Pin", 2, WIDTH_COL_PIN);
+        }
+        shownXStatsPinned = xstatsPinned;
+        if (xstats == null) {
+            return statXTable;
+        }
+        if (resetCounters) {
+            xstats.resetCounters();
         }
-        Map<String, Long> xstatsList = port.getXstats();
-        Map<String, Long> xstatsListPinned = port.getXstatsPinned();
-        String pinnedChar = "\u2716";
-        String notPinnedChar = "\u271a";
-        /*String pinnedChar = "\u2611";
-        String notPinnedChar = "\u2610";*/
 
-        rowIndex = 0;
-        addHeaderCell(statXTable, "xstats-header0", "Counter", 0, WIDTH_COL_0 * 1.5);
-        addHeaderCell(statXTable, "xstats-header1", "Value", 1, WIDTH_COL_1);
-        addHeaderCell(statXTable, "xstats-header2", "Pin", 2, WIDTH_COL_PIN);
-        rowIndex = 1;
-        odd = true;
-        xstatsListPinned.forEach( (k,v) -> {
-            if (v != null) {
-                if(resetCounters) {
-                    fixCounter(port.getIndex(), k, v);
-                }
-                Node check = new Label(pinnedChar);
-                GridPane.setHalignment(check, HPos.CENTER);
-                addXstatRow(statXTable,
-                        (event) -> xstatsListPinned.remove(k, v),
-                        "xstat-red", "xstat-green",
-                        new Tooltip("Click '" + pinnedChar + "' to un-pin the counter."),
-                        "xstats-val-0-" + rowIndex, k, WIDTH_COL_0 * 1.5, 0,
-                        "xstats-val-1-" + rowIndex, String.valueOf(v - getShadowCounter(port.getIndex(), k)), WIDTH_COL_1, 1,
-                        "xstats-val-2-" + rowIndex, pinnedChar, WIDTH_COL_PIN, 2);
+        int[] filtered = xstats.filter(filter, notempty);
+        int[] order = new int[xstatsPinned.size() + filtered.length];
+        int pinnedCount = 0;
+        for (String name : xstatsPinned) {
+            int index = xstats.indexOf(name);
+            if (index >= 0) {
+                order[pinnedCount++] = index;
             }
-        });
-        xstatsList.forEach( (k,v) -> {
-            if (v != null && (!notempty || (notempty && (v - getShadowCounter(port.getIndex(), k) != 0))) && xstatsListPinned.get(k) == null) {
-                if ((filter == null || filter.trim().length() == 0) || k.contains(filter)) {
-                    if(resetCounters) {
-                        fixCounter(port.getIndex(), k, v);
-                    }
-                    Node check = new Label(notPinnedChar);
-                    GridPane.setHalignment(check, HPos.CENTER);
-                    addXstatRow(statXTable,
-                            (event) -> xstatsListPinned.put(k, v),
-                            "xstat-green", "xstat-red",
-                            new Tooltip("Click '" + notPinnedChar + "' to pin the counter.\nPinned counter is always visible."),
-                            "xstats-val-0-" + rowIndex, k, WIDTH_COL_0 * 1.5, 0,
-                            "xstats-val-1-" + rowIndex, String.valueOf(v - getShadowCounter(port.getIndex(), k)), WIDTH_COL_1, 1,
-                            "xstats-val-2-" + rowIndex, notPinnedChar, WIDTH_COL_PIN, 2);
-                }
+        }
+        int count = pinnedCount;
+        for (int index : filtered) {
+            if (!xstatsPinned.contains(xstats.getName(index))) {
+                order[count++] = index;
             }
-        });
+        }
 
-        GridPane gp = new GridPane();
-        gp.setGridLinesVisible(false);
-        gp.add(statXTable, 1, 1, 1, 2);
+        int placedRows = xstatRowCounters.length;
+        if (placedRows != count) {
+            xstatRowCounters = Arrays.copyOf(xstatRowCounters, count);
+            xstatRowPinned = Arrays.copyOf(xstatRowPinned, count);
+        }
+        for (int row = 0; row < count; row++) {
+            int counter = order[row];
+            boolean pinned = row < pinnedCount;
+            if (row >= placedRows) {
+                addXstatRow(row);
+            } else if (xstatRowCounters[row] == counter && xstatRowPinned[row] == pinned) {
+                if (xstats.isChanged(counter)) {
+                    gridCellsMap.get("xstats-val-1-" + row).updateItem("", String.valueOf(xstats.getValue(counter)));
+                }
+                continue;
+            }
+            xstatRowCounters[row] = counter;
+            xstatRowPinned[row] = pinned;
+            gridCellsMap.get("xstats-val-0-" + row).updateItem("", xstats.getName(counter));
+            gridCellsMap.get("xstats-val-1-" + row).updateItem("", String.valueOf(xstats.getValue(counter)));
+            Node pin = (Node) gridCellsMap.get("xstats-val-2-" + row);
+            ((StatisticCell) pin).updateItem("", pinned ? "\u2716" : "\u271a");
+            pin.getStyleClass().removeAll("xstat-red", "xstat-green");
+            pin.getStyleClass().add(pinned ? "xstat-red" : "xstat-green");
+        }
+        for (int row = count; row < placedRows; row++) {
+            statXTable.getChildren().removeAll(
+                    (Node) gridCellsMap.get("xstats-val-0-" + row),
+                    (Node) gridCellsMap.get("xstats-val-1-" + row),
+                    (Node) gridCellsMap.get("xstats-val-2-" + row));
+        }
 
-        return gp;
+        return statXTable;
     }
-    
-    private void fixCounter(Integer portIndex, String counterName , Long value) {
-        Map<String, Long> portCounters = hardwareShadowCounters.get(portIndex);
-        if (portCounters == null) {
-            portCounters = new HashMap<>();
-            hardwareShadowCounters.put(portIndex, portCounters);
-        }
-        portCounters.put(counterName, value);
+
+    private void addXstatRow(int row) {
+        StatisticCell cell0 = getXstatCell("xstats-val-0-" + row, WIDTH_COL_0 * 1.5, row);
+        StatisticCell cell1 = getXstatCell("xstats-val-1-" + row, WIDTH_COL_1, row);
+        StatisticCell cell2 = getXstatCell("xstats-val-2-" + row, WIDTH_COL_PIN, row);
+        statXTable.add((Node) cell0, 0, row + 1);
+        statXTable.add((Node) cell1, 1, row + 1);
+        statXTable.add((Node) cell2, 2, row + 1);
+        GridPane.setHalignment((Node) cell2, HPos.CENTER);
+        // the handler resolves the counter shown in the row when clicked
+        ((Node) cell2).setOnMouseClicked((event) -> {
+            if (row < xstatRowCounters.length && shownXStats != null) {
+                String name = shownXStats.getName(xstatRowCounters[row]);
+                if (!shownXStatsPinned.remove(name)) {
+                    shownXStatsPinned.add(name);
+                }
+            }
+            event.consume();
+        });
     }
-    
-    private Long getShadowCounter(Integer portIndex, String counterName) {
-        Map<String, Long> portCounters = hardwareShadowCounters.get(portIndex);
-        if (portCounters == null) {
-            return 0l;
-        }
-        
-        Long counter = portCounters.get(counterName);
-        
-        return counter == null? 0l : counter;
+
+    private StatisticCell getXstatCell(String key, double width, int row) {
+        // cells are cached by row, so the row stripes stay in place
+        odd = row % 2 == 0;
+        StatisticRow statisticRow = new StatisticRow(key, key, CellType.ATTR_CELL, false, "");
+        statisticRow.setRightPosition(false);
+        return getGridCell(statisticRow, width, key);
     }
 }
@@ -0,0 +1,227 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.ui.views.statistics;
+
+import com.exalttech.trex.ui.views.statistics.cells.CellType;
+import com.exalttech.trex.ui.views.statistics.cells.HeaderCell;
+import com.exalttech.trex.ui.views.statistics.cells.StatisticLabelCell;
+import javafx.geometry.Insets;
+import javafx.scene.Node;
+import javafx.scene.control.Label;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.VBox;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Statistics table with one column per item, which creates cells only for
+ * the columns in the viewport.
+ * <p>
+ * Column cells are pooled and reused while scrolling and between updates,
+ * and a cell text is only set when its value changed. The hidden columns are
+ * replaced by spacers, so the scroll range is the one of the full table.
+ */
+public class VirtualStatsTable extends ScrollPane {
+
+    private static final String MARKED_CELL_STYLE = "stats-table-marked-cell";
+    private static final int DEFAULT_FIRST_COLUMN_WIDTH = 120;
+    private static final int DEFAULT_COLUMN_WIDTH = 150;
+
+    private final HBox content = new HBox();
+    private final VBox rowHeaders = new VBox();
+    private final Region leadingSpacer = new Region();
+    private final Region trailingSpacer = new Region();
+    private final List<ColumnView> pool = new ArrayList<>();
+
+    private double firstColumnWidth = DEFAULT_FIRST_COLUMN_WIDTH;
+    private double columnWidth = DEFAULT_COLUMN_WIDTH;
+    private String title;
+    private String[] rowNames = new String[0];
+    private CellType[] rowTypes = new CellType[0];
+    private List<Column> columns = Collections.emptyList();
+    private int visibleCount = -1;
+
+    public VirtualStatsTable() {
+        getStyleClass().add("stats-table-container");
+        content.getStyleClass().add("statsTable");
+        content.setPadding(new Insets(5));
+        setContent(content);
+
+        hvalueProperty().addListener((observable, oldValue, newValue) -> layoutColumns());
+        viewportBoundsProperty().addListener((observable, oldValue, newValue) -> layoutColumns());
+    }
+
+    /**
+     * Set columns width, applied to the cells created afterwards
+     *
+     * @param firstColumnWidth width of the row names column
+     * @param columnWidth width of the value columns
+     */
+    public void setColumnWidths(double firstColumnWidth, double columnWidth) {
+        this.firstColumnWidth = firstColumnWidth;
+        this.columnWidth = columnWidth;
+    }
+
+    /**
+     * Set the row names, the cells are rebuilt only if the rows changed
+     *
+     * @param title header of the row names column
+     * @param rowNames
+     * @param rowTypes cell type of every row
+     */
+    public void setRows(String title, String[] rowNames, CellType[] rowTypes) {
+        if (!Arrays.equals(this.rowTypes, rowTypes)) {
+            this.rowTypes = rowTypes.clone();
+            pool.clear();
+            visibleCount = -1;
+            this.rowNames = null;
+        }
+        if (Objects.equals(this.title, title) && Arrays.equals(this.rowNames, rowNames)) {
+            return;
+        }
+        this.title = title;
+        this.rowNames = rowNames.clone();
+
+        List<Node> cells = new ArrayList<>(rowNames.length + 1);
+        cells.add(new HeaderCell(firstColumnWidth, title));
+        for (int row = 1; row <= rowNames.length; row++) {
+            cells.add(new StatisticLabelCell(rowNames[row - 1], firstColumnWidth, row % 2 == 0, CellType.DEFAULT_CELL, false));
+        }
+        rowHeaders.getChildren().setAll(cells);
+        layoutColumns();
+    }
+
+    /**
+     * Set the table columns, only the visible ones are rendered
+     *
+     * @param columns
+     */
+    public void setColumns(List<Column> columns) {
+        this.columns = columns;
+        layoutColumns();
+    }
+
+    private void layoutColumns() {
+        if (rowNames == null) {
+            return;
+        }
+        int count = columns.size();
+        double viewportWidth = getViewportBounds().getWidth();
+        double tableWidth = firstColumnWidth + count * columnWidth + content.getPadding().getLeft() + content.getPadding().getRight();
+        double offset = Math.max(0, getHvalue() * (tableWidth - viewportWidth)) - firstColumnWidth - content.getPadding().getLeft();
+
+        int first = Math.max(0, Math.min(count, (int) Math.floor(offset / columnWidth)));
+        int last = Math.max(first, Math.min(count, (int) Math.ceil((offset + viewportWidth) / columnWidth)));
+        if (viewportWidth <= 0) {
+            last = count;
+        }
+
+        leadingSpacer.setMinWidth(first * columnWidth);
+        trailingSpacer.setMinWidth((count - last) * columnWidth);
+
+        while (pool.size() < last - first) {
+            pool.add(new ColumnView());
+        }
+        for (int i = first; i < last; i++) {
+            pool.get(i - first).update(columns.get(i));
+        }
+
+        if (visibleCount != last - first) {
+            visibleCount = last - first;
+            List<Node> children = new ArrayList<>(visibleCount + 3);
+            children.add(rowHeaders);
+            children.add(leadingSpacer);
+            children.addAll(pool.subList(0, visibleCount));
+            children.add(trailingSpacer);
+            content.getChildren().setAll(children);
+        }
+    }
+
+    /**
+     * Values of one table column
+     */
+    public static final class Column {
+        private final String header;
+        private final boolean stopped;
+        private final String[] values;
+
+        /**
+         * @param header
+         * @param stopped marks the column cells
+         * @param values one value per row
+         */
+        public Column(String header, boolean stopped, String[] values) {
+            this.header = header;
+            this.stopped = stopped;
+            this.values = values;
+        }
+    }
+
+    /**
+     * Reusable column cells
+     */
+    private final class ColumnView extends VBox {
+        private final HeaderCell header;
+        private final StatisticLabelCell[] cells;
+        private final String[] texts;
+        private boolean stopped = false;
+
+        ColumnView() {
+            header = new HeaderCell(columnWidth);
+            cells = new StatisticLabelCell[rowTypes.length];
+            texts = new String[rowTypes.length];
+            getChildren().add(header);
+            for (int row = 0; row < cells.length; row++) {
+                cells[row] = new StatisticLabelCell(columnWidth, (row + 1) % 2 == 0, rowTypes[row], true);
+                getChildren().add(cells[row]);
+            }
+        }
+
+        void update(Column column) {
+            if (!Objects.equals(header.getText(), column.header)) {
+                header.setText(column.header);
+            }
+            for (int row = 0; row < cells.length && row < column.values.length; row++) {
+                String value = column.values[row];
+                if (!Objects.equals(texts[row], value)) {
+                    cells[row].updateItem(texts[row], value);
+                    texts[row] = value;
+                }
+            }
+            if (stopped != column.stopped) {
+                stopped = column.stopped;
+                setMarked(header);
+                for (StatisticLabelCell cell : cells) {
+                    setMarked(cell);
+                }
+            }
+        }
+
+        private void setMarked(Label cell) {
+            if (stopped) {
+                cell.getStyleClass().add(MARKED_CELL_STYLE);
+            } else {
+                cell.getStyleClass().remove(MARKED_CELL_STYLE);
+            }
+        }
+    }
+}
@@ -21,18 +21,15 @@
 package com.exalttech.trex.ui.views.streams.viewer;
 
 import com.exalttech.trex.ui.models.PacketInfo;
+import com.exalttech.trex.util.TrafficProfile;
+import com.exalttech.trex.util.files.PcapFileReader;
 import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
-import java.util.concurrent.TimeoutException;
 import javax.xml.bind.DatatypeConverter;
 import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.io.FileUtils;
 import org.apache.log4j.Logger;
-import org.pcap4j.core.NotOpenException;
-import org.pcap4j.core.PcapHandle;
-import org.pcap4j.core.PcapNativeException;
-import org.pcap4j.core.Pcaps;
 import org.pcap4j.packet.Dot1qVlanTagPacket;
 import org.pcap4j.packet.EthernetPacket;
 import org.pcap4j.packet.IllegalRawDataException;
@@ -103,15 +100,16 @@ public class PacketParser {
      */
     public void parseFile(String fileName, PacketInfo packetInfo){
         Packet packet;
-        try {
-            this.packetInfo = packetInfo;
-            total_octetes = 0;
-            PcapHandle handle = Pcaps.openOffline(fileName);
-            packet = handle.getNextPacketEx();
+        this.packetInfo = packetInfo;
+        total_octetes = 0;
+        try (PcapFileReader reader = new PcapFileReader(new File(fileName))) {
+            if (reader.readNext() < 0) {
+                throw new EOFException("No packets in " + fileName);
+            }
+            packet = TrafficProfile.decodePacket(reader.getPacketBytes(0), reader.getLinkType(0));
             packetInfo.setPacket(packet);
             extractPacketInfo(packet);
-            handle.close();
-        } catch (PcapNativeException | EOFException | TimeoutException | NotOpenException ex) {
+        } catch (IOException | IllegalRawDataException ex) {
             packet = null;
             LOG.warn("Failed to extract packet info from first try");
         }
@@ -0,0 +1,300 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.util;
+
+import com.exalttech.trex.remote.models.profiles.Packet;
+import com.exalttech.trex.remote.models.profiles.Profile;
+import com.exalttech.trex.remote.models.profiles.Stream;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.JsonGeneratorDelegate;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the add_stream requests of a profile for one port.
+ * <p>
+ * The JSON is generated in one pass from the loaded profiles, which are left
+ * untouched: stream ids, port, handler and api_h are written as the streams
+ * are serialized, missing vm and rx_stats get their defaults and "0x" hex
+ * strings are written as numbers.
+ * <p>
+ * The stream objects do not depend on the port, they may be compiled once
+ * with {@link #compileStreams()} and written as is for every port.
+ */
+public class AddStreamWriter {
+
+    private final ObjectMapper mapper = JsonCodec.getInstance().getMapper();
+    // nested values are written into the request generator without flushing it
+    private final ObjectWriter valueWriter = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    private final Profile[] profiles;
+    private final String[] compiledStreams;
+    private final int portID;
+    private final String handler;
+    private final String apiH;
+    private final Map<String, Integer> streamIds;
+
+    /**
+     * @param profiles loaded profiles
+     * @param portID
+     * @param handler
+     * @param apiH API handler, not written if null
+     */
+    public AddStreamWriter(Profile[] profiles, int portID, String handler, String apiH) {
+        this(profiles, null, portID, handler, apiH);
+    }
+
+    /**
+     * @param profiles loaded profiles
+     * @param compiledStreams stream objects compiled from the same profiles,
+     * the streams are serialized from the profiles if null
+     * @param portID
+     * @param handler
+     * @param apiH API handler, not written if null
+     */
+    public AddStreamWriter(Profile[] profiles, String[] compiledStreams, int portID, String handler, String apiH) {
+        if (compiledStreams != null && compiledStreams.length != profiles.length) {
+            throw new IllegalArgumentException("Compiled streams do not match the profiles");
+        }
+        this.profiles = profiles;
+        this.compiledStreams = compiledStreams;
+        this.portID = portID;
+        this.handler = handler;
+        this.apiH = apiH;
+        this.streamIds = new TrafficProfile().convertStreamNameToInteger(profiles);
+    }
+
+    public int size() {
+        return profiles.length;
+    }
+
+    /**
+     * @param index profile index
+     * @return stream id the profile is added with
+     */
+    public int getStreamId(int index) {
+        return streamIds.get(profiles[index].getName());
+    }
+
+    /**
+     * Write the add_stream request of one profile
+     *
+     * @param out
+     * @param requestId
+     * @param index profile index
+     * @throws IOException
+     */
+    public void writeRequest(Writer out, String requestId, int index) throws IOException {
+        try (JsonGenerator generator = createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeStringField("id", requestId);
+            generator.writeStringField("jsonrpc", "2.0");
+            generator.writeStringField("method", Constants.ADD_STREAM_METHOD);
+            generator.writeFieldName("params");
+            writeParams(generator, index);
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Write the add_stream params of all profiles as an array
+     *
+     * @param out
+     * @throws IOException
+     */
+    public void writeParamsArray(Writer out) throws IOException {
+        try (JsonGenerator generator = createGenerator(out)) {
+            generator.writeStartArray();
+            for (int i = 0; i < profiles.length; i++) {
+                writeParams(generator, i);
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    /**
+     * Serialize the stream object of every profile, the result does not
+     * depend on the port, handler or api_h of this writer
+     *
+     * @return stream objects by profile index
+     * @throws IOException
+     */
+    public String[] compileStreams() throws IOException {
+        String[] streams = new String[profiles.length];
+        StringWriter out = new StringWriter();
+        for (int i = 0; i < profiles.length; i++) {
+            out.getBuffer().setLength(0);
+            try (JsonGenerator generator = createGenerator(out)) {
+                writeStream(generator, profiles[i]);
+            }
+            streams[i] = out.toString();
+        }
+        return streams;
+    }
+
+    private JsonGenerator createGenerator(Writer out) throws IOException {
+        JsonGenerator generator = mapper.getFactory().createGenerator(out);
+        // the writer is owned by the caller
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return new HexNumberGenerator(generator);
+    }
+
+    private void writeParams(JsonGenerator generator, int index) throws IOException {
+        Profile profile = profiles[index];
+        generator.writeStartObject();
+        if (apiH != null) {
+            generator.writeStringField("api_h", apiH);
+        }
+        generator.writeFieldName("stream");
+        if (compiledStreams != null) {
+            generator.writeRawValue(compiledStreams[index]);
+        } else {
+            writeStream(generator, profile);
+        }
+        generator.writeNumberField("stream_id", getStreamId(index));
+        generator.writeStringField("handler", handler);
+        generator.writeNumberField("port_id", portID);
+        writeProperties(generator, profile.getAdditionalProperties());
+        generator.writeEndObject();
+    }
+
+    private void writeStream(JsonGenerator generator, Profile profile) throws IOException {
+        Stream stream = profile.getStream();
+        generator.writeStartObject();
+        generator.writeNumberField("action_count", stream.getActionCount());
+        generator.writeBooleanField("enabled", stream.isEnabled());
+        generator.writeNumberField("flags", stream.getFlags());
+        writeObjectField(generator, "flow_stats", stream.getFlowStats());
+        writeObjectField(generator, "isg", stream.getIsg());
+        writeObjectField(generator, "mode", stream.getMode());
+        generator.writeNumberField("next_stream_id", getNextStreamId(profile));
+        generator.writeFieldName("packet");
+        writePacket(generator, stream.getPacket());
+        generator.writeBooleanField("self_start", stream.isSelfStart());
+        generator.writeBooleanField("advanced_mode", stream.getAdvancedMode());
+
+        Map<String, Object> properties = stream.getAdditionalProperties();
+        generator.writeFieldName("vm");
+        writeVm(generator, properties.get("vm"));
+        generator.writeFieldName("rx_stats");
+        writeRxStats(generator, properties.get("rx_stats"));
+        for (Map.Entry<String, Object> entry : properties.entrySet()) {
+            if (!"vm".equals(entry.getKey()) && !"rx_stats".equals(entry.getKey())) {
+                writeObjectField(generator, entry.getKey(), entry.getValue());
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    private int getNextStreamId(Profile profile) {
+        String next = profile.getNext();
+        if (next == null || "-1".equals(next)) {
+            return profile.getStream().getNextStreamId();
+        }
+        Integer nextStreamId = streamIds.get(next);
+        return nextStreamId != null ? nextStreamId : -1;
+    }
+
+    private void writePacket(JsonGenerator generator, Packet packet) throws IOException {
+        // the pcap is only used by the GUI
+        generator.writeStartObject();
+        writeObjectField(generator, "binary", packet.getBinary());
+        writeObjectField(generator, "meta", packet.getMeta());
+        writeObjectField(generator, "model", packet.getModel());
+        writeProperties(generator, packet.getAdditionalProperties());
+        generator.writeEndObject();
+    }
+
+    private void writeVm(JsonGenerator generator, Object vm) throws IOException {
+        if (vm instanceof Map) {
+            Map<?, ?> vmMap = (Map<?, ?>) vm;
+            generator.writeStartObject();
+            if (!vmMap.containsKey("split_by_var")) {
+                generator.writeStringField("split_by_var", "");
+            }
+            for (Map.Entry<?, ?> entry : vmMap.entrySet()) {
+                writeObjectField(generator, String.valueOf(entry.getKey()), entry.getValue());
+            }
+            generator.writeEndObject();
+        } else if (vm != null && !isEmptyList(vm)) {
+            valueWriter.writeValue(generator, vm);
+        } else {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("instructions");
+            generator.writeEndArray();
+            generator.writeStringField("split_by_var", "");
+            generator.writeEndObject();
+        }
+    }
+
+    private void writeRxStats(JsonGenerator generator, Object rxStats) throws IOException {
+        if (rxStats != null && !isEmptyList(rxStats)) {
+            valueWriter.writeValue(generator, rxStats);
+        } else {
+            generator.writeStartObject();
+            generator.writeBooleanField("enabled", false);
+            generator.writeEndObject();
+        }
+    }
+
+    private static boolean isEmptyList(Object value) {
+        return value instanceof List && ((List<?>) value).isEmpty();
+    }
+
+    private void writeProperties(JsonGenerator generator, Map<String, Object> properties) throws IOException {
+        for (Map.Entry<String, Object> entry : properties.entrySet()) {
+            writeObjectField(generator, entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void writeObjectField(JsonGenerator generator, String name, Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        generator.writeFieldName(name);
+        valueWriter.writeValue(generator, value);
+    }
+
+    /**
+     * Writes "0x" prefixed strings as numbers, the server expects uint32
+     * values where the YAML has hex strings
+     */
+    private static class HexNumberGenerator extends JsonGeneratorDelegate {
+
+        HexNumberGenerator(JsonGenerator delegate) {
+            super(delegate, false);
+        }
+
+        @Override
+        public void writeString(String text) throws IOException {
+            if (text != null && text.startsWith("0x")) {
+                try {
+                    delegate.writeNumber(Long.parseLong(text.substring(2), 16));
+                    return;
+                } catch (NumberFormatException ex) {
+                    // not a number, written as is
+                }
+            }
+            delegate.writeString(text);
+        }
+    }
+}
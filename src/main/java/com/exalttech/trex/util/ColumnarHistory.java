@@ -0,0 +1,85 @@
+package com.exalttech.trex.util;
+
+
+/**
+ * Fixed length history of numeric samples stored column by column.
+ * <p>
+ * Every metric is a primitive array sharing the ring position, so adding a
+ * sample only writes array slots. Index 0 is the oldest sample.
+ */
+public class ColumnarHistory {
+    private final int historyLength;
+    private final long[][] longColumns;
+    private final double[][] doubleColumns;
+    private int next;
+    private int size;
+
+    public ColumnarHistory(final int historyLength, final int longColumnCount, final int doubleColumnCount) {
+        this.historyLength = historyLength;
+        longColumns = new long[longColumnCount][historyLength];
+        doubleColumns = new double[doubleColumnCount][historyLength];
+        next = 0;
+        size = 0;
+    }
+
+    /**
+     * Reserve slot for a new sample, overwriting the oldest one when full
+     *
+     * @return slot to pass to the setters
+     */
+    protected int append() {
+        final int slot = next;
+        next = next + 1 == historyLength ? 0 : next + 1;
+        if (size < historyLength) {
+            size++;
+        }
+        return slot;
+    }
+
+    protected void setLong(final int column, final int slot, final long value) {
+        longColumns[column][slot] = value;
+    }
+
+    protected void setDouble(final int column, final int slot, final double value) {
+        doubleColumns[column][slot] = value;
+    }
+
+    protected long getLong(final int column, final int index) {
+        return longColumns[column][slot(index)];
+    }
+
+    protected double getDouble(final int column, final int index) {
+        return doubleColumns[column][slot(index)];
+    }
+
+    private int slot(final int index) {
+        final int slot = next - size + index;
+        return slot < 0 ? slot + historyLength : slot;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int lastIndex() {
+        return size - 1;
+    }
+
+    /**
+     * Drop all samples except the newest one
+     */
+    public void retainLast() {
+        if (size > 1) {
+            size = 1;
+        }
+    }
+
+    public void clear() {
+        next = 0;
+        size = 0;
+    }
+}
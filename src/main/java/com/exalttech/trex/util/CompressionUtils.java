@@ -15,42 +15,184 @@
 
 package com.exalttech.trex.util;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.zip.DataFormatException;
 import java.util.zip.Deflater;
 import java.util.zip.Inflater;
 
+/**
+ * Zlib helpers for the TRex RPC and publisher framing.
+ * <p>
+ * A compressed frame is the {@link #MAGIC} word, the uncompressed length and
+ * the deflated payload. Deflaters and inflaters are borrowed from small pools
+ * and used by one thread at a time; codecs which do not fit back into the pool
+ * are ended right away so native zlib memory does not pile up.
+ */
 public class CompressionUtils {
 
+    public static final int MAGIC = 0xABE85CEA;
+    public static final int HEADER_LENGTH = 8;
+
+    private static final int POOL_SIZE = 8;
+    private static final int MIN_BUFFER_SIZE = 1024;
+    private static final int MAX_RETAINED_BUFFER_SIZE = 4 * 1024 * 1024;
+    private static final int MAX_UNCOMPRESSED_LENGTH = 256 * 1024 * 1024;
+
+    private static final CodecPool<Deflater> DEFLATERS = new CodecPool<>();
+    private static final CodecPool<Inflater> INFLATERS = new CodecPool<>();
+    private static final ThreadLocal<byte[]> SCRATCH = new ThreadLocal<>();
+
     public static byte[] compress(byte[] data) throws IOException {
-        Deflater deflater = new Deflater();
-        deflater.setInput(data);
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(data.length);
-        deflater.finish();
-        byte[] buffer = new byte[1024];
-        while (!deflater.finished()) {
-            int count = deflater.deflate(buffer); 
-            outputStream.write(buffer, 0, count);
+        byte[] frame = compressFrame(data);
+        return Arrays.copyOfRange(frame, HEADER_LENGTH, frame.length);
+    }
+
+    public static byte[] decompress(byte[] data) throws IOException, DataFormatException {
+        return inflate(data, 0, data.length, -1);
+    }
+
+    /**
+     * Build compressed frame: header and deflated payload are written into one
+     * per thread scratch buffer which is copied once into the returned frame
+     *
+     * @param data uncompressed message
+     * @return framed message
+     */
+    public static byte[] compressFrame(byte[] data) {
+        return compressFrame(data, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Build compressed frame using the given deflate level
+     *
+     * @param data uncompressed message
+     * @param level deflate level
+     * @return framed message
+     */
+    public static byte[] compressFrame(byte[] data, int level) {
+        Deflater deflater = DEFLATERS.borrow();
+        if (deflater == null) {
+            deflater = new Deflater();
+        }
+        try {
+            deflater.setLevel(level);
+            deflater.setInput(data);
+            deflater.finish();
+
+            byte[] buffer = scratch(HEADER_LENGTH + data.length / 2 + MIN_BUFFER_SIZE);
+            ByteBuffer.wrap(buffer).putInt(MAGIC).putInt(data.length);
+            int length = HEADER_LENGTH;
+            while (!deflater.finished()) {
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+            retain(buffer);
+            return Arrays.copyOf(buffer, length);
+        } finally {
+            deflater.reset();
+            if (!DEFLATERS.release(deflater)) {
+                deflater.end();
+            }
         }
-        outputStream.close();
-        byte[] output = outputStream.toByteArray();
+    }
 
-        return output;
+    /**
+     * Check for the compression magic word
+     *
+     * @param data
+     * @return
+     */
+    public static boolean isCompressedFrame(byte[] data) {
+        return data != null
+                && data.length > HEADER_LENGTH
+                && ByteBuffer.wrap(data).getInt(0) == MAGIC;
     }
 
-    public static byte[] decompress(byte[] data) throws IOException, DataFormatException {
-        Inflater inflater = new Inflater();
-        inflater.setInput(data);
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(data.length);
-        byte[] buffer = new byte[1024];
-        while (!inflater.finished()) {
-            int count = inflater.inflate(buffer);
-            outputStream.write(buffer, 0, count);
-        }
-        outputStream.close();
-        byte[] output = outputStream.toByteArray();
-      
-        return output;
+    /**
+     * Return the payload of a frame, inflating it into an array sized from the
+     * length stored in the header if the frame is compressed
+     *
+     * @param frame
+     * @return uncompressed message
+     * @throws DataFormatException
+     */
+    public static byte[] decompressFrame(byte[] frame) throws DataFormatException {
+        if (!isCompressedFrame(frame)) {
+            return frame;
+        }
+        int uncompressedLength = ByteBuffer.wrap(frame).getInt(4);
+        return inflate(frame, HEADER_LENGTH, frame.length - HEADER_LENGTH, uncompressedLength);
+    }
+
+    private static byte[] inflate(byte[] data, int offset, int length, int expectedLength) throws DataFormatException {
+        Inflater inflater = INFLATERS.borrow();
+        if (inflater == null) {
+            inflater = new Inflater();
+        }
+        try {
+            inflater.setInput(data, offset, length);
+            boolean exactSize = expectedLength >= 0 && expectedLength <= MAX_UNCOMPRESSED_LENGTH;
+            byte[] output = new byte[exactSize ? expectedLength : Math.max(MIN_BUFFER_SIZE, length * 4)];
+            int count = 0;
+            while (!inflater.finished()) {
+                if (count == output.length) {
+                    output = Arrays.copyOf(output, Math.max(MIN_BUFFER_SIZE, output.length * 2));
+                }
+                int inflated = inflater.inflate(output, count, output.length - count);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("Truncated compressed data");
+                }
+                count += inflated;
+            }
+            return count == output.length ? output : Arrays.copyOf(output, count);
+        } finally {
+            inflater.reset();
+            if (!INFLATERS.release(inflater)) {
+                inflater.end();
+            }
+        }
+    }
+
+    private static byte[] scratch(int minSize) {
+        byte[] buffer = SCRATCH.get();
+        if (buffer == null || buffer.length < minSize) {
+            buffer = new byte[Math.max(minSize, MIN_BUFFER_SIZE)];
+        }
+        return buffer;
+    }
+
+    private static void retain(byte[] buffer) {
+        if (buffer.length <= MAX_RETAINED_BUFFER_SIZE) {
+            SCRATCH.set(buffer);
+        }
+    }
+
+    private static class CodecPool<T> {
+        private final Queue<T> codecs = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+
+        T borrow() {
+            T codec = codecs.poll();
+            if (codec != null) {
+                size.decrementAndGet();
+            }
+            return codec;
+        }
+
+        boolean release(T codec) {
+            if (size.incrementAndGet() > POOL_SIZE) {
+                size.decrementAndGet();
+                return false;
+            }
+            codecs.offer(codec);
+            return true;
+        }
     }
 }
@@ -76,6 +76,11 @@ public class Constants {
      */
     public static final String REMOVE_ALL_STREAMS_METHOD = "remove_all_streams";
 
+    /**
+     *
+     */
+    public static final String REMOVE_STREAM_METHOD = "remove_stream";
+
     /**
      *
      */
@@ -0,0 +1,242 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.util;
+
+import com.cisco.trex.stateless.model.RPCResponse;
+import com.cisco.trex.stateless.model.stats.ActivePGIdsRPCResult;
+import com.cisco.trex.stateless.model.stats.PGIdStatsRPCResult;
+import com.cisco.trex.stateless.model.stats.Utilization;
+import com.exalttech.trex.remote.models.common.RPCError;
+import com.exalttech.trex.remote.models.common.RPCRequest;
+import com.exalttech.trex.remote.models.profiles.Profile;
+import com.exalttech.trex.ui.models.PortStatus;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Shared JSON and YAML codec.
+ * <p>
+ * ObjectMapper instances are expensive to create and keep the serializer and
+ * deserializer caches, so one mapper with the default Jackson settings is
+ * shared by all RPC paths.
+ * Readers and writers of the types parsed on every poll are built up front,
+ * other types get a reader cached on first use. All of them are thread safe.
+ */
+public class JsonCodec {
+
+    private static final JsonCodec INSTANCE = new JsonCodec();
+
+    /**
+     * Classes created by Guice get the same codec injected
+     *
+     * @return the shared codec
+     */
+    public static JsonCodec getInstance() {
+        return INSTANCE;
+    }
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ObjectMapper yamlMapper = new ObjectMapper(new YAMLFactory());
+
+    private final ConcurrentMap<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+
+    private final ObjectReader rpcResponseReader = mapper.readerFor(RPCResponse.class);
+    private final ObjectReader rpcResponseArrayReader = mapper.readerFor(RPCResponse[].class);
+    private final ObjectReader rpcErrorReader = mapper.readerFor(RPCError.class);
+    private final ObjectReader pgIdStatsReader = mapper.readerFor(PGIdStatsRPCResult.class);
+    private final ObjectReader activePGIdsReader = mapper.readerFor(ActivePGIdsRPCResult.class);
+    private final ObjectReader utilizationReader = mapper.readerFor(Utilization.class);
+    private final ObjectReader portStatusListReader = mapper.readerFor(
+            mapper.getTypeFactory().constructCollectionType(List.class, PortStatus.class));
+    private final ObjectReader profileArrayReader = mapper.readerFor(Profile[].class);
+    private final ObjectReader yamlProfileArrayReader = yamlMapper.readerFor(Profile[].class);
+
+    private final ObjectWriter writer = mapper.writer();
+    private final ObjectWriter rpcRequestWriter = mapper.writerFor(RPCRequest.class);
+    private final ObjectWriter profileArrayWriter = mapper.writerFor(Profile[].class);
+    private final ObjectWriter yamlProfileArrayWriter = yamlMapper.writerFor(Profile[].class);
+
+    protected JsonCodec() {
+        readers.put(RPCResponse.class, rpcResponseReader);
+        readers.put(RPCResponse[].class, rpcResponseArrayReader);
+        readers.put(RPCError.class, rpcErrorReader);
+        readers.put(PGIdStatsRPCResult.class, pgIdStatsReader);
+        readers.put(ActivePGIdsRPCResult.class, activePGIdsReader);
+        readers.put(Utilization.class, utilizationReader);
+        readers.put(Profile[].class, profileArrayReader);
+    }
+
+    /**
+     * @return the shared mapper, must not be reconfigured
+     */
+    public ObjectMapper getMapper() {
+        return mapper;
+    }
+
+    /**
+     * Return cached reader for the type
+     *
+     * @param type
+     * @return
+     */
+    public ObjectReader readerFor(Class<?> type) {
+        return readers.computeIfAbsent(type, mapper::readerFor);
+    }
+
+    /**
+     * Parse JSON string
+     *
+     * @param json
+     * @param type
+     * @param <T>
+     * @return
+     * @throws IOException
+     */
+    public <T> T read(String json, Class<T> type) throws IOException {
+        return readerFor(type).readValue(json);
+    }
+
+    /**
+     * Serialize value to JSON string
+     *
+     * @param value
+     * @return
+     * @throws JsonProcessingException
+     */
+    public String write(Object value) throws JsonProcessingException {
+        return writer.writeValueAsString(value);
+    }
+
+    public RPCResponse readRPCResponse(String json) throws IOException {
+        return rpcResponseReader.readValue(json);
+    }
+
+    public RPCResponse[] readRPCResponses(String json) throws IOException {
+        return rpcResponseArrayReader.readValue(json);
+    }
+
+    public RPCError readRPCError(String json) throws IOException {
+        return rpcErrorReader.readValue(json);
+    }
+
+    public PGIdStatsRPCResult readPGIdStats(String json) throws IOException {
+        return pgIdStatsReader.readValue(json);
+    }
+
+    public ActivePGIdsRPCResult readActivePGIds(String json) throws IOException {
+        return activePGIdsReader.readValue(json);
+    }
+
+    public Utilization readUtilization(String json) throws IOException {
+        return utilizationReader.readValue(json);
+    }
+
+    public List<PortStatus> readPortStatusList(String json) throws IOException {
+        return portStatusListReader.readValue(json);
+    }
+
+    public Profile[] readProfiles(String json) throws IOException {
+        return profileArrayReader.readValue(json);
+    }
+
+    public Profile[] readYamlProfiles(File yamlFile) throws IOException {
+        return yamlProfileArrayReader.readValue(yamlFile);
+    }
+
+    public Profile[] readYamlProfiles(byte[] yaml) throws IOException {
+        return yamlProfileArrayReader.readValue(yaml);
+    }
+
+    /**
+     * Stream the xstats names out of a get_port_xstats_names response
+     *
+     * @param json single response or batch of one response
+     * @return counter names in the server order
+     * @throws IOException
+     */
+    public String[] readXStatsNames(String json) throws IOException {
+        try (JsonParser parser = mapper.getFactory().createParser(json)) {
+            findArray(parser, "xstats_names");
+            List<String> names = new ArrayList<>();
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                names.add(parser.getText());
+            }
+            return names.toArray(new String[names.size()]);
+        }
+    }
+
+    /**
+     * Stream the xstats values out of a get_port_xstats_values response
+     *
+     * @param json single response or batch of one response
+     * @return counter values aligned with the names
+     * @throws IOException
+     */
+    public long[] readXStatsValues(String json) throws IOException {
+        try (JsonParser parser = mapper.getFactory().createParser(json)) {
+            findArray(parser, "xstats_values");
+            long[] values = new long[64];
+            int count = 0;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (count == values.length) {
+                    values = Arrays.copyOf(values, count * 2);
+                }
+                values[count++] = parser.getValueAsLong();
+            }
+            return count == values.length ? values : Arrays.copyOf(values, count);
+        }
+    }
+
+    private static void findArray(JsonParser parser, String field) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null) {
+            if (token == JsonToken.FIELD_NAME && field.equals(parser.getCurrentName())
+                    && parser.nextToken() == JsonToken.START_ARRAY) {
+                return;
+            }
+        }
+        throw new IOException("Field '" + field + "' not found in response");
+    }
+
+    public String writeRPCRequest(RPCRequest request) throws JsonProcessingException {
+        return rpcRequestWriter.writeValueAsString(request);
+    }
+
+    public String writeProfiles(Profile[] profiles) throws JsonProcessingException {
+        return profileArrayWriter.writeValueAsString(profiles);
+    }
+
+    public String writeYamlProfiles(Profile[] profiles) throws JsonProcessingException {
+        return yamlProfileArrayWriter.writeValueAsString(profiles);
+    }
+
+    public void writeYamlProfiles(File yamlFile, Profile[] profiles) throws IOException {
+        yamlProfileArrayWriter.writeValue(yamlFile, profiles);
+    }
+}
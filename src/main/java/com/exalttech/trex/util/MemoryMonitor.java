@@ -0,0 +1,313 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.util;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import org.apache.log4j.Logger;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap and allocation rate monitor.
+ * <p>
+ * Heap usage is sampled every second through the MemoryMXBean, the amount
+ * collected is taken from the GC notifications, and together they give the
+ * allocation rate. When the heap used after a collection exceeds the budget,
+ * the registered releasers drop their caches. Nothing here triggers a GC.
+ */
+public class MemoryMonitor {
+
+    private static final Logger LOG = Logger.getLogger(MemoryMonitor.class.getName());
+
+    public static final int DEFAULT_BUDGET_PERCENT = 75;
+    private static final long SAMPLE_PERIOD_MS = 1000;
+    private static final long RELEASE_COOLDOWN_MS = 30000;
+
+    /**
+     * Cache owner that can drop its content on memory pressure. Releasers
+     * are called from the monitor thread and are weakly referenced.
+     */
+    public interface MemoryReleaser {
+        void releaseMemory();
+    }
+
+    /**
+     * Memory status listener, called from the monitor thread
+     */
+    public interface MemoryStatusListener {
+        void memoryStatusChanged(MemoryStatus status);
+    }
+
+    private static MemoryMonitor instance = null;
+
+    /**
+     *
+     * @return
+     */
+    public static synchronized MemoryMonitor getInstance() {
+        if (instance == null) {
+            instance = new MemoryMonitor();
+        }
+        return instance;
+    }
+
+    private final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+    private final Set<MemoryReleaser> releasers = Collections.newSetFromMap(new WeakHashMap<>());
+    private final List<MemoryStatusListener> listeners = new CopyOnWriteArrayList<>();
+    private final NotificationListener gcListener = this::handleGcNotification;
+
+    private ScheduledExecutorService executor;
+    private volatile int budgetPercent = DEFAULT_BUDGET_PERCENT;
+
+    private long lastSampleTime;
+    private long lastUsed;
+    private long collectedBytes;
+    private long usedAfterGc = -1;
+    private long lastReleaseTime;
+    private volatile MemoryStatus status;
+
+    protected MemoryMonitor() {
+    }
+
+    /**
+     * Start sampling, does nothing if already started
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gcBean instanceof NotificationEmitter) {
+                ((NotificationEmitter) gcBean).addNotificationListener(gcListener, null, null);
+            }
+        }
+        lastSampleTime = System.nanoTime();
+        lastUsed = memoryBean.getHeapMemoryUsage().getUsed();
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "memory-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(this::sample, SAMPLE_PERIOD_MS, SAMPLE_PERIOD_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdownNow();
+        executor = null;
+        for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gcBean instanceof NotificationEmitter) {
+                try {
+                    ((NotificationEmitter) gcBean).removeNotificationListener(gcListener);
+                } catch (Exception ex) {
+                    LOG.warn("Unable to remove GC listener", ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Set the heap budget, caches are released when the heap used after a
+     * collection exceeds it
+     *
+     * @param budgetPercent percent of the max heap, 1-100
+     */
+    public void setBudgetPercent(int budgetPercent) {
+        this.budgetPercent = Math.max(1, Math.min(100, budgetPercent));
+    }
+
+    public int getBudgetPercent() {
+        return budgetPercent;
+    }
+
+    public void addReleaser(MemoryReleaser releaser) {
+        synchronized (releasers) {
+            releasers.add(releaser);
+        }
+    }
+
+    public void removeReleaser(MemoryReleaser releaser) {
+        synchronized (releasers) {
+            releasers.remove(releaser);
+        }
+    }
+
+    public void addStatusListener(MemoryStatusListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeStatusListener(MemoryStatusListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @return last sampled status, null before the first sample
+     */
+    public MemoryStatus getStatus() {
+        return status;
+    }
+
+    private void handleGcNotification(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        long before = sumUsed(info.getGcInfo().getMemoryUsageBeforeGc());
+        long after = sumUsed(info.getGcInfo().getMemoryUsageAfterGc());
+        synchronized (this) {
+            collectedBytes += Math.max(0, before - after);
+            usedAfterGc = after;
+        }
+    }
+
+    private static long sumUsed(Map<String, MemoryUsage> usages) {
+        long used = 0;
+        for (MemoryUsage usage : usages.values()) {
+            used += usage.getUsed();
+        }
+        return used;
+    }
+
+    private void sample() {
+        try {
+            MemoryUsage heap = memoryBean.getHeapMemoryUsage();
+            long now = System.nanoTime();
+            long gcCount = 0;
+            long gcTime = 0;
+            for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+                gcCount += Math.max(0, gcBean.getCollectionCount());
+                gcTime += Math.max(0, gcBean.getCollectionTime());
+            }
+
+            long allocated;
+            long afterGc;
+            synchronized (this) {
+                allocated = Math.max(0, heap.getUsed() - lastUsed + collectedBytes);
+                collectedBytes = 0;
+                afterGc = usedAfterGc;
+                usedAfterGc = -1;
+            }
+            double seconds = (now - lastSampleTime) / 1e9;
+            lastSampleTime = now;
+            lastUsed = heap.getUsed();
+
+            long max = heap.getMax() > 0 ? heap.getMax() : heap.getCommitted();
+            long budget = max / 100 * budgetPercent;
+            status = new MemoryStatus(heap.getUsed(), max, budget, seconds > 0 ? (long) (allocated / seconds) : 0, gcCount, gcTime);
+            for (MemoryStatusListener listener : listeners) {
+                listener.memoryStatusChanged(status);
+            }
+
+            if (afterGc > budget && System.currentTimeMillis() - lastReleaseTime > RELEASE_COOLDOWN_MS) {
+                lastReleaseTime = System.currentTimeMillis();
+                releaseMemory(afterGc, budget);
+            }
+        } catch (Exception ex) {
+            LOG.error("Memory sampling failed", ex);
+        }
+    }
+
+    private void releaseMemory(long used, long budget) {
+        List<MemoryReleaser> toRelease;
+        synchronized (releasers) {
+            toRelease = new ArrayList<>(releasers);
+        }
+        LOG.info("Heap used after GC " + (used >> 20) + " MB exceeds budget of " + (budget >> 20) + " MB, releasing caches");
+        for (MemoryReleaser releaser : toRelease) {
+            try {
+                releaser.releaseMemory();
+            } catch (Exception ex) {
+                LOG.error("Unable to release memory", ex);
+            }
+        }
+    }
+
+    /**
+     * Snapshot of the heap state
+     */
+    public static final class MemoryStatus {
+        private final long used;
+        private final long max;
+        private final long budget;
+        private final long allocationRate;
+        private final long gcCount;
+        private final long gcTime;
+
+        MemoryStatus(long used, long max, long budget, long allocationRate, long gcCount, long gcTime) {
+            this.used = used;
+            this.max = max;
+            this.budget = budget;
+            this.allocationRate = allocationRate;
+            this.gcCount = gcCount;
+            this.gcTime = gcTime;
+        }
+
+        public long getUsed() {
+            return used;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public long getBudget() {
+            return budget;
+        }
+
+        /**
+         * @return bytes allocated per second since the previous sample
+         */
+        public long getAllocationRate() {
+            return allocationRate;
+        }
+
+        public long getGcCount() {
+            return gcCount;
+        }
+
+        /**
+         * @return accumulated collection time in milliseconds
+         */
+        public long getGcTime() {
+            return gcTime;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Heap %d/%d MB, alloc %.1f MB/s, GC %d (%d ms)",
+                    used >> 20, max >> 20, allocationRate / 1048576.0, gcCount, gcTime);
+        }
+    }
+}
@@ -15,6 +15,7 @@
  */
 package com.exalttech.trex.util;
 
+import com.exalttech.trex.core.RPCCompressionPolicy;
 import com.exalttech.trex.ui.models.datastore.Preferences;
 import com.exalttech.trex.ui.models.datastore.PreferencesWrapper;
 import com.exalttech.trex.util.files.XMLFileManager;
@@ -69,6 +70,7 @@ public class PreferencesManager {
         if (preferencesWrapper != null) {
             preferences = preferencesWrapper.getPreferences();
         }
+        MemoryMonitor.getInstance().setBudgetPercent(getMemoryBudget());
     }
 
     /**
@@ -124,6 +126,39 @@ public class PreferencesManager {
         }
     }
 
+    /**
+     * Return heap budget in percent of the max heap
+     *
+     * @return
+     */
+    public int getMemoryBudget() {
+        if (preferences != null && preferences.getMemoryBudget() > 0) {
+            return preferences.getMemoryBudget();
+        }
+        return MemoryMonitor.DEFAULT_BUDGET_PERCENT;
+    }
+
+    /**
+     * Return true if start all starts the ports at the same server time
+     *
+     * @return
+     */
+    public boolean isCoordinatedStart() {
+        return preferences != null && preferences.isCoordinatedStart();
+    }
+
+    /**
+     * Return minimal RPC request size in bytes to be compressed
+     *
+     * @return
+     */
+    public int getCompressionThreshold() {
+        if (preferences != null && preferences.getCompressionThreshold() >= 0) {
+            return preferences.getCompressionThreshold();
+        }
+        return RPCCompressionPolicy.DEFAULT_THRESHOLD;
+    }
+
     public ConfigurationService getPacketEditorConfigurations() {
         return packetEditorConfigurations;
     }
@@ -0,0 +1,228 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.util;
+
+import com.exalttech.trex.remote.models.profiles.Profile;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.log4j.Logger;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cache of parsed traffic profiles.
+ * <p>
+ * Entries are keyed by the content hash of the YAML and of the pcap files it
+ * references, so a profile and its pcap files are parsed once however many
+ * ports it is loaded on. The content hash of a file is kept with its size and
+ * modification time and the file is only hashed again when one of them
+ * changes, an edited YAML or pcap misses the cache and is parsed again.
+ * <p>
+ * Callers get their own copy of the profiles, which they may edit, the cached
+ * profiles are never handed out. The add_stream payload compiled from the
+ * cached profiles is immutable and shared by all callers.
+ */
+public class ProfileCache {
+
+    private static final Logger LOG = Logger.getLogger(ProfileCache.class.getName());
+
+    private static final int MAX_ENTRIES = 16;
+    private static final int MAX_FILES = 256;
+
+    private static ProfileCache instance;
+
+    public static synchronized ProfileCache getInstance() {
+        if (instance == null) {
+            instance = new ProfileCache();
+        }
+        return instance;
+    }
+
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(MAX_ENTRIES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private final Map<String, FileState> fileStates = new LinkedHashMap<String, FileState>(MAX_FILES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, FileState> eldest) {
+            return size() > MAX_FILES;
+        }
+    };
+
+    ProfileCache() {
+    }
+
+    /**
+     * @param yamlFile
+     * @return copy of the profiles of the file
+     * @throws IOException
+     */
+    public synchronized Profile[] getProfiles(File yamlFile) throws IOException {
+        return getEntry(yamlFile).copyProfiles();
+    }
+
+    /**
+     * @param yamlFile
+     * @return copy of the profiles of the file with their shared compiled
+     * stream objects
+     * @throws IOException
+     */
+    public synchronized CompiledProfile getCompiledProfile(File yamlFile) throws IOException {
+        Entry entry = getEntry(yamlFile);
+        return new CompiledProfile(entry.copyProfiles(), entry.getCompiledStreams());
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        fileStates.clear();
+    }
+
+    private Entry getEntry(File yamlFile) throws IOException {
+        String yamlHash = hashFile(yamlFile);
+        if (yamlHash == null) {
+            throw new NoSuchFileException(yamlFile.getPath());
+        }
+        File directory = yamlFile.getAbsoluteFile().getParentFile();
+
+        Entry entry = entries.get(yamlHash);
+        if (entry == null || !entry.pcapHash.equals(hashPcapFiles(directory, entry.pcapFiles))) {
+            byte[] yaml = Files.readAllBytes(yamlFile.toPath());
+            Set<String> pcapFiles = new LinkedHashSet<>();
+            Profile[] profiles = new TrafficProfile().readTrafficProfile(yamlFile, yaml, pcapFiles);
+            entry = new Entry(profiles, pcapFiles, hashPcapFiles(directory, pcapFiles));
+            entries.put(yamlHash, entry);
+            LOG.debug("Cached profile " + yamlFile.getName() + " with " + profiles.length + " streams");
+        }
+        return entry;
+    }
+
+    private String hashPcapFiles(File directory, Set<String> pcapFiles) throws IOException {
+        if (pcapFiles.isEmpty()) {
+            return "";
+        }
+        MessageDigest digest = DigestUtils.getSha256Digest();
+        for (String pcapFile : pcapFiles) {
+            digest.update(pcapFile.getBytes(StandardCharsets.UTF_8));
+            String hash = hashFile(new File(directory, pcapFile));
+            // a missing pcap is part of the content, it is encoded as its path
+            digest.update(hash != null ? hash.getBytes(StandardCharsets.UTF_8) : new byte[1]);
+        }
+        return Hex.encodeHexString(digest.digest());
+    }
+
+    /**
+     * @param file
+     * @return content hash of the file, null if it does not exist
+     * @throws IOException
+     */
+    private String hashFile(File file) throws IOException {
+        String path = file.getAbsolutePath();
+        if (!file.isFile()) {
+            fileStates.remove(path);
+            return null;
+        }
+        long size = file.length();
+        long lastModified = file.lastModified();
+        FileState state = fileStates.get(path);
+        if (state == null || state.size != size || state.lastModified != lastModified) {
+            try (InputStream in = new FileInputStream(file)) {
+                state = new FileState(size, lastModified, DigestUtils.sha256Hex(in));
+            }
+            fileStates.put(path, state);
+        }
+        return state.hash;
+    }
+
+    /**
+     * Profiles of a file with the stream objects compiled from them, the
+     * compiled streams must not be modified
+     */
+    public static class CompiledProfile {
+        private final Profile[] profiles;
+        private final String[] streams;
+
+        public CompiledProfile(Profile[] profiles, String[] streams) {
+            this.profiles = profiles;
+            this.streams = streams;
+        }
+
+        public Profile[] getProfiles() {
+            return profiles;
+        }
+
+        public String[] getStreams() {
+            return streams;
+        }
+    }
+
+    private static class FileState {
+        private final long size;
+        private final long lastModified;
+        private final String hash;
+
+        FileState(long size, long lastModified, String hash) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+    }
+
+    private static class Entry {
+        private final Profile[] profiles;
+        private final Set<String> pcapFiles;
+        private final String pcapHash;
+        private String[] compiledStreams;
+
+        Entry(Profile[] profiles, Set<String> pcapFiles, String pcapHash) {
+            this.profiles = profiles;
+            this.pcapFiles = pcapFiles;
+            this.pcapHash = pcapHash;
+        }
+
+        Profile[] copyProfiles() {
+            Profile[] copy = new Profile[profiles.length];
+            for (int i = 0; i < profiles.length; i++) {
+                try {
+                    copy[i] = (Profile) profiles[i].clone();
+                } catch (CloneNotSupportedException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            }
+            return copy;
+        }
+
+        String[] getCompiledStreams() throws IOException {
+            if (compiledStreams == null) {
+                compiledStreams = new AddStreamWriter(profiles, 0, null, null).compileStreams();
+            }
+            return compiledStreams;
+        }
+    }
+}
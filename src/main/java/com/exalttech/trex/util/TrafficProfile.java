@@ -22,27 +22,25 @@ import com.exalttech.trex.remote.models.profiles.Rate;
 import com.exalttech.trex.ui.views.models.TableProfileStream;
 import com.exalttech.trex.util.files.FileManager;
 import com.exalttech.trex.util.files.FileType;
+import com.exalttech.trex.util.files.PcapFileReader;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import javafx.stage.Window;
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.io.FileUtils;
 import org.apache.log4j.Logger;
-import org.pcap4j.core.NotOpenException;
-import org.pcap4j.core.PcapHandle;
-import org.pcap4j.core.PcapNativeException;
-import org.pcap4j.core.Pcaps;
 import org.pcap4j.packet.*;
+import org.pcap4j.packet.factory.PacketFactories;
+import org.pcap4j.packet.namednumber.DataLinkType;
 
 import javax.xml.bind.DatatypeConverter;
 import java.io.File;
 import java.io.IOException;
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.TimeoutException;
+import java.util.Set;
 
 /**
  *
@@ -118,21 +116,36 @@ public class TrafficProfile {
 
     }
 
+    /**
+     * Decode packet read from a capture file
+     *
+     * @param rawData
+     * @param linkType link type of the capture file
+     * @return
+     * @throws IllegalRawDataException
+     */
+    public static Packet decodePacket(byte[] rawData, int linkType) throws IllegalRawDataException {
+        if (linkType == PcapFileReader.LINKTYPE_ETHERNET) {
+            return EthernetPacket.newPacket(rawData, 0, rawData.length);
+        }
+        return PacketFactories.getFactory(Packet.class, DataLinkType.class)
+                .newInstance(rawData, 0, rawData.length, DataLinkType.getInstance(linkType));
+    }
+
     /**
      * @param binaryFile
      * @return Encodes the bytes array of a PCAP File using Base64
      */
     public String encodePcapFile(String binaryFile) {
 
-        try {
-            PcapHandle handle = Pcaps.openOffline(binaryFile);
-            Packet packet = handle.getNextPacketEx();
-            handle.close();
-            byte[] pkt = packet.getRawData();
-            byte[] bytesEncoded = Base64.encodeBase64(pkt);
+        try (PcapFileReader reader = new PcapFileReader(new File(binaryFile))) {
+            if (reader.readNext() < 0) {
+                throw new IOException("No packets in " + binaryFile);
+            }
+            byte[] bytesEncoded = Base64.encodeBase64(reader.getPacketBytes(0));
 
             return new String(bytesEncoded);
-        } catch (IOException | PcapNativeException | TimeoutException | NotOpenException ex) {
+        } catch (IOException ex) {
             LOG.error("Error encoding pcap file", ex);
             return binaryFile;
         }
@@ -168,12 +181,25 @@ public class TrafficProfile {
 
     /**
      * @param yamlFile File containing the Traffic Profile Yaml.
-     * @return parsed Yaml file
+     * @return parsed Yaml file, served from the profile cache while the YAML
+     * and its pcap files are unchanged
      * @throws java.io.IOException
      */
     public Profile[] getTrafficProfile(File yamlFile) throws IOException {
-        ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
-        Profile[] trafficProfileArray = mapper.readValue(yamlFile, Profile[].class);
+        return ProfileCache.getInstance().getProfiles(yamlFile);
+    }
+
+    /**
+     * @param yamlFile File containing the Traffic Profile Yaml.
+     * @param yaml content of the file
+     * @param pcapFiles receives the pcap files referenced by the Yaml
+     * @return parsed Yaml file
+     * @throws java.io.IOException
+     */
+    Profile[] readTrafficProfile(File yamlFile, byte[] yaml, Set<String> pcapFiles) throws IOException {
+        Profile[] trafficProfileArray = JsonCodec.getInstance().readYamlProfiles(yaml);
+        // streams often share a pcap file, it is encoded once
+        Map<String, String> encodedPcaps = new HashMap<>();
         int i = 0;
         for (Profile profile : trafficProfileArray) {
             Map<String, Object> streamAdditionalProperties = profile.getStream().getAdditionalProperties();
@@ -189,7 +215,8 @@ public class TrafficProfile {
                 String filePath = absolutePath.
                         substring(0, absolutePath.lastIndexOf(File.separator));
                 String pacpFile = profile.getStream().getPacket().getPcap();
-                String encodedPcap = encodePcapFile(filePath + File.separator + pacpFile);
+                pcapFiles.add(pacpFile);
+                String encodedPcap = encodedPcaps.computeIfAbsent(pacpFile, name -> encodePcapFile(filePath + File.separator + name));
                 profile.getStream().getPacket().setBinary(encodedPcap);
             }
             profile.getStream().getPacket().setPcap(null);
@@ -257,11 +284,9 @@ public class TrafficProfile {
      *
      */
     public String convertTrafficProfileToJson(Profile[] trafficProfileArray, int portID, String handler) throws Exception {
-        Profile[] preparedTrafficProfile = prepareTrafficProfile(trafficProfileArray, portID, handler);
-
-        ObjectMapper mapper = new ObjectMapper();
-        String jsonString = mapper.writeValueAsString(preparedTrafficProfile);
-        return Util.toPrettyFormat(jsonString);
+        StringWriter writer = new StringWriter();
+        new AddStreamWriter(trafficProfileArray, portID, handler, null).writeParamsArray(writer);
+        return Util.toPrettyFormat(writer.toString());
 
     }
 
@@ -273,8 +298,7 @@ public class TrafficProfile {
      *
      */
     public String convertTrafficProfileToYaml(Profile[] trafficProfileArray) throws JsonProcessingException {
-        ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
-        return mapper.writeValueAsString(trafficProfileArray);
+        return JsonCodec.getInstance().writeYamlProfiles(trafficProfileArray);
     }
 
     /**
@@ -286,10 +310,9 @@ public class TrafficProfile {
      *
      */
     public File convertTrafficProfileToYamlFile(Profile[] trafficProfileArray, String fileName) throws IOException {
-        ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
         String localFileName = FileManager.getProfilesFilePath() + fileName;
         File yamlFile = new File(localFileName);
-        mapper.writeValue(yamlFile, trafficProfileArray);
+        JsonCodec.getInstance().writeYamlProfiles(yamlFile, trafficProfileArray);
         return yamlFile;
     }
 
@@ -301,50 +324,6 @@ public class TrafficProfile {
         return nextStream;
     }
 
-    /**
-     *
-     * @param trafficProfileArray
-     * @param portID
-     * @param handler
-     * @return
-     * @throws java.lang.Exception
-     */
-    public Profile[] prepareTrafficProfile(Profile[] trafficProfileArray, int portID, String handler) throws Exception {
-        Map<String, Integer> mapStreamToInteger = convertStreamNameToInteger(trafficProfileArray);
-
-        ObjectMapper mapper = new ObjectMapper();
-        String profileJsonString = mapper.writeValueAsString(trafficProfileArray);
-        Profile[] updatedProfileArray = mapper.readValue(profileJsonString, Profile[].class);
-        for (int i = 0; i < updatedProfileArray.length; i++) {
-
-            Profile trafficProfile = updatedProfileArray[i];
-            Profile originalProfile = trafficProfileArray[i];
-            trafficProfile.setStreamId(mapStreamToInteger.get(trafficProfile.getName()));
-            if (!"-1".equals(trafficProfile.getNext())) {
-                trafficProfile.getStream().setNextStreamId(mapStreamToInteger.get(trafficProfile.getNext()));
-            }
-
-            trafficProfile.setName(null);
-            trafficProfile.setNext(null);
-            trafficProfile.getStream().getPacket().setPcap(null);
-            String vm = (!originalProfile.getStream().getVmRaw().isEmpty() && !"[]".equals(originalProfile.getStream().getVmRaw())) ? originalProfile.getStream().getVmRaw() : "{\n"
-                    + "                    \"instructions\": [],\n"
-                    + "                    \"split_by_var\": \"\"\n"
-                    + "                }";
-            String rx = (!originalProfile.getStream().getRxStatsRaw().isEmpty() && !"[]".equals(originalProfile.getStream().getRxStatsRaw())) ? originalProfile.getStream().getRxStatsRaw() : "{\n"
-                    + "                    \"enabled\": false\n"
-                    + "                }";
-            trafficProfile.getStream().setVmRaw(vm);
-            trafficProfile.getStream().setRxStatsRaw(rx);
-
-            trafficProfile.setHandler(handler);
-            trafficProfile.setPortId(portID);
-            updatedProfileArray[i] = trafficProfile;
-
-        }
-        return updatedProfileArray;
-    }
-
     /**
      * Convert stream name to integer
      *
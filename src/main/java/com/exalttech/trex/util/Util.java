@@ -20,7 +20,6 @@ import com.exalttech.trex.remote.models.params.Params;
 import com.exalttech.trex.remote.models.profiles.Profile;
 import com.exalttech.trex.ui.MultiplierType;
 import com.exalttech.trex.ui.models.datastore.CaptureStatus;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
@@ -91,7 +90,7 @@ public class Util {
      */
     public static Object fromJSONString(final String jsonString, Class<?> domainClass) {
         try {
-            return new ObjectMapper().readValue(jsonString, domainClass);
+            return JsonCodec.getInstance().read(jsonString, domainClass);
         } catch (IOException ex) {
             LOG.error("Error parsing string", ex);
             return null;
@@ -134,53 +133,6 @@ public class Util {
         return statsList;
     }
 
-    /**
-     * Prepare and return list of Stats object from JSON string
-     *
-     * @param jsonNames
-     * @param jsonValues
-     * @return
-     */
-    public static Map<String, Long> getXStatsFromJSONString(String jsonNames, String jsonValues) {
-        Map<String, Long> statsList = new HashMap<>();
-        JSONObject jsonObjN = null;
-        JSONObject jsonObjV = null;
-        JSONArray  jsonArrN = null;
-        JSONArray  jsonArrV = null;
-
-        if (jsonValues.startsWith("[")) {
-            jsonArrV = new JSONArray(jsonValues);
-        }
-        else {
-            jsonObjV = new JSONObject(jsonValues);
-            jsonArrV = new JSONArray();
-            jsonArrV.put(jsonObjV);
-        }
-
-        if (jsonNames.startsWith("[")) {
-            jsonArrN = new JSONArray(jsonNames);
-        }
-        else {
-            jsonObjN = new JSONObject(jsonNames);
-            jsonArrN = new JSONArray();
-            jsonArrN.put(jsonObjN);
-        }
-
-        for (int i = 0; i < jsonArrV.length(); i++) {
-            jsonObjN = jsonArrN.getJSONObject(i);
-            jsonObjV = jsonArrV.getJSONObject(i);
-
-            JSONArray names = jsonObjN.getJSONObject("result").getJSONArray("xstats_names");
-            JSONArray values = jsonObjV.getJSONObject("result").getJSONArray("xstats_values");
-
-            for (int j = 0; j < names.length(); j++) {
-                statsList.put(names.getString(j), values.getLong(j));
-            }
-        }
-
-        return statsList;
-    }
-
     /**
      * Prepare and return list of Stats object from JSON string
      *
@@ -902,10 +854,4 @@ public class Util {
         }
     }
 
-    /**
-     */
-    public static void optimizeMemory() {
-        System.gc();
-    }
-
 }
@@ -0,0 +1,476 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.util.files;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.log4j.Logger;
+
+/**
+ * Pure Java reader of pcap and pcapng files.
+ * <p>
+ * The file is memory mapped and packets are returned as read only slices of
+ * the mapping, no packet bytes are copied. Packets are indexed while they
+ * are read, so any packet already read can be accessed again by index.
+ * Files larger than 2GB are mapped in overlapping segments. The mappings
+ * are released on {@link #close()}, packet buffers must not be used after
+ * the reader is closed.
+ */
+public class PcapFileReader implements Closeable {
+
+    private static final Logger LOG = Logger.getLogger(PcapFileReader.class.getName());
+
+    /**
+     * Ethernet link type
+     */
+    public static final int LINKTYPE_ETHERNET = 1;
+
+    private static final int PCAP_MAGIC = 0xa1b2c3d4;
+    private static final int PCAP_MAGIC_NANO = 0xa1b23c4d;
+    private static final int PCAP_HEADER_SIZE = 24;
+    private static final int PCAP_RECORD_HEADER_SIZE = 16;
+
+    private static final int PCAPNG_SECTION_HEADER = 0x0a0d0d0a;
+    private static final int PCAPNG_BYTE_ORDER_MAGIC = 0x1a2b3c4d;
+    private static final int PCAPNG_INTERFACE_DESCRIPTION = 1;
+    private static final int PCAPNG_OBSOLETE_PACKET = 2;
+    private static final int PCAPNG_SIMPLE_PACKET = 3;
+    private static final int PCAPNG_ENHANCED_PACKET = 6;
+    private static final int PCAPNG_OPTION_TSRESOL = 9;
+
+    private static final long SEGMENT_SIZE = 1L << 30;
+    // largest record or block that can be read, segments overlap by this size
+    private static final int MAX_RECORD_SIZE = 16 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final boolean pcapng;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+    private ByteOrder order;
+    private long position;
+    // pcap: timestamp unit of the file, pcapng: interfaces of the current section
+    private boolean nanoResolution;
+    private int fileLinkType;
+    private final List<Interface> interfaces = new ArrayList<>();
+
+    private long[] offsets = new long[1024];
+    private int[] lengths = new int[1024];
+    private int[] originalLengths = new int[1024];
+    private long[] timestamps = new long[1024];
+    private int[] linkTypes = new int[1024];
+    private int size;
+    private boolean complete;
+
+    /**
+     * Open pcap or pcapng file
+     *
+     * @param file
+     * @throws IOException if the file is not a valid capture file
+     */
+    public PcapFileReader(File file) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            fileSize = channel.size();
+            if (fileSize < 4) {
+                throw new IOException("Not a pcap file: " + file.getName());
+            }
+            int magic = segmentAt(0).order(ByteOrder.BIG_ENDIAN).getInt(0);
+            pcapng = magic == PCAPNG_SECTION_HEADER;
+            if (pcapng) {
+                position = 0;
+            } else {
+                readPcapHeader(file);
+            }
+        } catch (IOException | RuntimeException ex) {
+            close();
+            throw ex;
+        }
+    }
+
+    private void readPcapHeader(File file) throws IOException {
+        if (fileSize < PCAP_HEADER_SIZE) {
+            throw new IOException("Not a pcap file: " + file.getName());
+        }
+        ByteBuffer header = segmentAt(0);
+        for (ByteOrder candidate : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+            int magic = header.order(candidate).getInt(0);
+            if (magic == PCAP_MAGIC || magic == PCAP_MAGIC_NANO) {
+                order = candidate;
+                nanoResolution = magic == PCAP_MAGIC_NANO;
+                fileLinkType = header.getInt(20) & 0x0fffffff;
+                position = PCAP_HEADER_SIZE;
+                return;
+            }
+        }
+        throw new IOException("Not a pcap file: " + file.getName());
+    }
+
+    /**
+     * @return true for pcapng files
+     */
+    public boolean isPcapng() {
+        return pcapng;
+    }
+
+    /**
+     * Read the next packet into the index
+     *
+     * @return index of the packet or -1 at the end of the file
+     * @throws IOException if the file is corrupted
+     */
+    public int readNext() throws IOException {
+        while (!complete) {
+            int index = pcapng ? readBlock() : readRecord();
+            if (index >= 0) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Read all remaining packets into the index
+     *
+     * @return number of packets in the file
+     * @throws IOException
+     */
+    public int readAll() throws IOException {
+        while (readNext() >= 0) {
+            // indexing only
+        }
+        return size;
+    }
+
+    /**
+     * @return number of packets read so far
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index
+     * @return read only view of the packet bytes, positioned at 0
+     */
+    public ByteBuffer getPacket(int index) {
+        checkIndex(index);
+        ByteBuffer segment = segmentFor(offsets[index]);
+        segment.position((int) (offsets[index] % SEGMENT_SIZE));
+        segment.limit(segment.position() + lengths[index]);
+        return segment.slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * @param index
+     * @return copy of the packet bytes
+     */
+    public byte[] getPacketBytes(int index) {
+        ByteBuffer packet = getPacket(index);
+        byte[] bytes = new byte[packet.remaining()];
+        packet.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * @param index
+     * @return captured length
+     */
+    public int getLength(int index) {
+        checkIndex(index);
+        return lengths[index];
+    }
+
+    /**
+     * @param index
+     * @return length of the packet on the wire
+     */
+    public int getOriginalLength(int index) {
+        checkIndex(index);
+        return originalLengths[index];
+    }
+
+    /**
+     * @param index
+     * @return capture time in nanoseconds since the epoch
+     */
+    public long getTimestampNanos(int index) {
+        checkIndex(index);
+        return timestamps[index];
+    }
+
+    /**
+     * @param index
+     * @return capture time in milliseconds since the epoch
+     */
+    public long getTimestampMillis(int index) {
+        return getTimestampNanos(index) / 1_000_000;
+    }
+
+    /**
+     * @param index
+     * @return link type of the packet, {@link #LINKTYPE_ETHERNET} for
+     * Ethernet frames
+     */
+    public int getLinkType(int index) {
+        checkIndex(index);
+        return linkTypes[index];
+    }
+
+    @Override
+    public void close() throws IOException {
+        // a mapping keeps the file locked on Windows until it is garbage collected
+        segments.forEach(PcapFileReader::unmap);
+        segments.clear();
+        channel.close();
+    }
+
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            try {
+                // Java 9 and later
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                invokeCleaner.invoke(theUnsafe.get(null), buffer);
+            } catch (NoSuchMethodException ex) {
+                // Java 8
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null) {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+            }
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            LOG.debug("Unable to unmap pcap file, it is released on garbage collection", ex);
+        }
+    }
+
+    private int readRecord() throws IOException {
+        if (position + PCAP_RECORD_HEADER_SIZE > fileSize) {
+            complete = true;
+            return -1;
+        }
+        ByteBuffer buffer = bufferAt(position);
+        long seconds = buffer.getInt() & 0xffffffffL;
+        long fraction = buffer.getInt() & 0xffffffffL;
+        int capturedLength = buffer.getInt();
+        int originalLength = buffer.getInt();
+        long dataOffset = position + PCAP_RECORD_HEADER_SIZE;
+        if (capturedLength < 0 || capturedLength > MAX_RECORD_SIZE || dataOffset + capturedLength > fileSize) {
+            // truncated capture, keep the packets read so far
+            complete = true;
+            return -1;
+        }
+        position = dataOffset + capturedLength;
+        long nanos = seconds * 1_000_000_000L + (nanoResolution ? fraction : fraction * 1000);
+        return addPacket(dataOffset, capturedLength, originalLength, nanos, fileLinkType);
+    }
+
+    private int readBlock() throws IOException {
+        if (position + 12 > fileSize) {
+            complete = true;
+            return -1;
+        }
+        ByteBuffer buffer = bufferAt(position);
+        int type = buffer.getInt();
+        if (type == PCAPNG_SECTION_HEADER) {
+            readSectionHeader();
+            buffer = bufferAt(position + 4);
+        }
+        long blockLength = buffer.getInt() & 0xffffffffL;
+        if (blockLength < 12 || blockLength > MAX_RECORD_SIZE || position + blockLength > fileSize) {
+            complete = true;
+            return -1;
+        }
+        long blockStart = position;
+        long bodyOffset = blockStart + 8;
+        int bodyLength = (int) blockLength - 12;
+        position = blockStart + blockLength;
+
+        ByteBuffer body = bufferAt(bodyOffset);
+        switch (type) {
+            case PCAPNG_SECTION_HEADER:
+                return -1;
+            case PCAPNG_INTERFACE_DESCRIPTION:
+                readInterface(body, bodyLength);
+                return -1;
+            case PCAPNG_ENHANCED_PACKET: {
+                Interface iface = getInterface(body.getInt());
+                long units = ((body.getInt() & 0xffffffffL) << 32) | (body.getInt() & 0xffffffffL);
+                int capturedLength = Math.min(body.getInt(), bodyLength - 20);
+                int originalLength = body.getInt();
+                return addPacket(bodyOffset + 20, capturedLength, originalLength, iface.toNanos(units), iface.linkType);
+            }
+            case PCAPNG_OBSOLETE_PACKET: {
+                Interface iface = getInterface(body.getShort() & 0xffff);
+                body.getShort();
+                long units = ((body.getInt() & 0xffffffffL) << 32) | (body.getInt() & 0xffffffffL);
+                int capturedLength = Math.min(body.getInt(), bodyLength - 20);
+                int originalLength = body.getInt();
+                return addPacket(bodyOffset + 20, capturedLength, originalLength, iface.toNanos(units), iface.linkType);
+            }
+            case PCAPNG_SIMPLE_PACKET: {
+                Interface iface = getInterface(0);
+                int originalLength = body.getInt();
+                int capturedLength = Math.min(originalLength, bodyLength - 4);
+                if (iface.snapLength > 0) {
+                    capturedLength = Math.min(capturedLength, iface.snapLength);
+                }
+                return addPacket(bodyOffset + 4, capturedLength, originalLength, 0, iface.linkType);
+            }
+            default:
+                // statistics, name resolution and custom blocks
+                return -1;
+        }
+    }
+
+    private void readSectionHeader() throws IOException {
+        ByteBuffer magic = bufferAt(position + 8);
+        for (ByteOrder candidate : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+            if (magic.order(candidate).getInt(magic.position()) == PCAPNG_BYTE_ORDER_MAGIC) {
+                order = candidate;
+                interfaces.clear();
+                return;
+            }
+        }
+        throw new IOException("Invalid pcapng section header at " + position);
+    }
+
+    private void readInterface(ByteBuffer body, int bodyLength) {
+        Interface iface = new Interface();
+        iface.linkType = body.getShort() & 0xffff;
+        body.getShort();
+        iface.snapLength = body.getInt();
+        int end = body.position() + bodyLength - 8;
+        while (body.position() + 4 <= end) {
+            int code = body.getShort() & 0xffff;
+            int length = body.getShort() & 0xffff;
+            if (code == 0) {
+                break;
+            }
+            if (code == PCAPNG_OPTION_TSRESOL && length >= 1) {
+                iface.resolution = body.get(body.position());
+            }
+            body.position(body.position() + ((length + 3) & ~3));
+        }
+        interfaces.add(iface);
+    }
+
+    private Interface getInterface(int id) throws IOException {
+        if (id >= interfaces.size()) {
+            throw new IOException("Packet of unknown interface " + id + " at " + position);
+        }
+        return interfaces.get(id);
+    }
+
+    private int addPacket(long offset, int capturedLength, int originalLength, long nanos, int linkType) throws IOException {
+        if (capturedLength < 0) {
+            throw new IOException("Invalid packet length at " + offset);
+        }
+        if (size == offsets.length) {
+            int capacity = size * 2;
+            offsets = Arrays.copyOf(offsets, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            originalLengths = Arrays.copyOf(originalLengths, capacity);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            linkTypes = Arrays.copyOf(linkTypes, capacity);
+        }
+        offsets[size] = offset;
+        lengths[size] = capturedLength;
+        originalLengths[size] = originalLength;
+        timestamps[size] = nanos;
+        linkTypes[size] = linkType;
+        return size++;
+    }
+
+    /**
+     * @param offset
+     * @return buffer in the current byte order positioned at the offset
+     */
+    private ByteBuffer bufferAt(long offset) throws IOException {
+        ByteBuffer buffer = segmentFor(offset).duplicate().order(order == null ? ByteOrder.BIG_ENDIAN : order);
+        buffer.position((int) (offset % SEGMENT_SIZE));
+        return buffer;
+    }
+
+    private ByteBuffer segmentFor(long offset) {
+        try {
+            return segmentAt((int) (offset / SEGMENT_SIZE)).duplicate();
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private MappedByteBuffer segmentAt(int index) throws IOException {
+        while (segments.size() <= index) {
+            long start = segments.size() * SEGMENT_SIZE;
+            long length = Math.min(SEGMENT_SIZE + MAX_RECORD_SIZE, fileSize - start);
+            segments.add(channel.map(FileChannel.MapMode.READ_ONLY, start, length));
+        }
+        return segments.get(index);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Packet " + index + " of " + size);
+        }
+    }
+
+    /**
+     * pcapng interface description
+     */
+    private static class Interface {
+        private int linkType;
+        private int snapLength;
+        // if_tsresol, negative power of 10, or of 2 if the high bit is set
+        private byte resolution = 6;
+
+        long toNanos(long units) {
+            int exponent = resolution & 0x7f;
+            if ((resolution & 0x80) != 0) {
+                long seconds = units >>> exponent;
+                long fraction = units & ((1L << exponent) - 1);
+                return seconds * 1_000_000_000L + (long) (fraction * 1e9 / (1L << exponent));
+            }
+            if (exponent <= 9) {
+                long scale = 1;
+                for (int i = exponent; i < 9; i++) {
+                    scale *= 10;
+                }
+                return units * scale;
+            }
+            long divisor = 1;
+            for (int i = 9; i < exponent; i++) {
+                divisor *= 10;
+            }
+            return units / divisor;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.util.files;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Pure Java writer of pcap files with microsecond timestamps.
+ * <p>
+ * Records are appended to a buffered stream as they come, nothing is kept in
+ * memory, so it can write to a file as well as to a pipe.
+ */
+public class PcapFileWriter implements Closeable, Flushable {
+
+    /**
+     * Largest captured length written by default
+     */
+    public static final int DEFAULT_SNAP_LENGTH = 65535;
+
+    private static final int PCAP_MAGIC = 0xa1b2c3d4;
+    private static final int PCAP_HEADER_SIZE = 24;
+    private static final int PCAP_RECORD_HEADER_SIZE = 16;
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private final OutputStream out;
+    private final int snapLength;
+    private final ByteBuffer recordHeader = ByteBuffer.allocate(PCAP_RECORD_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    private long packetsWritten;
+    private long bytesWritten;
+
+    /**
+     * Start an Ethernet pcap stream
+     *
+     * @param out
+     * @throws IOException
+     */
+    public PcapFileWriter(OutputStream out) throws IOException {
+        this(out, PcapFileReader.LINKTYPE_ETHERNET, DEFAULT_SNAP_LENGTH);
+    }
+
+    /**
+     * Start a pcap stream, packets longer than snapLength are truncated
+     *
+     * @param out
+     * @param linkType
+     * @param snapLength
+     * @throws IOException
+     */
+    public PcapFileWriter(OutputStream out, int linkType, int snapLength) throws IOException {
+        this(out, linkType, snapLength, BUFFER_SIZE);
+    }
+
+    /**
+     * Start a pcap stream, records reach out only when bufferSize bytes are
+     * pending or on {@link #flush()}
+     *
+     * @param out
+     * @param linkType
+     * @param snapLength
+     * @param bufferSize
+     * @throws IOException
+     */
+    public PcapFileWriter(OutputStream out, int linkType, int snapLength, int bufferSize) throws IOException {
+        this.out = new BufferedOutputStream(out, bufferSize);
+        this.snapLength = snapLength;
+        ByteBuffer header = ByteBuffer.allocate(PCAP_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(PCAP_MAGIC).putShort((short) 2).putShort((short) 4)
+                .putInt(0).putInt(0).putInt(snapLength).putInt(linkType);
+        this.out.write(header.array());
+        bytesWritten = PCAP_HEADER_SIZE;
+    }
+
+    /**
+     * Append packet
+     *
+     * @param packet
+     * @param timestampNanos
+     * @throws IOException
+     */
+    public void write(byte[] packet, long timestampNanos) throws IOException {
+        write(packet, packet.length, timestampNanos);
+    }
+
+    /**
+     * Append packet which may already be truncated
+     *
+     * @param packet captured bytes
+     * @param originalLength length of the packet on the wire
+     * @param timestampNanos
+     * @throws IOException
+     */
+    public void write(byte[] packet, int originalLength, long timestampNanos) throws IOException {
+        int length = Math.min(packet.length, snapLength);
+        recordHeader.clear();
+        recordHeader.putInt((int) (timestampNanos / 1_000_000_000L))
+                .putInt((int) (timestampNanos % 1_000_000_000L / 1000))
+                .putInt(length)
+                .putInt(Math.max(originalLength, length));
+        out.write(recordHeader.array());
+        out.write(packet, 0, length);
+        packetsWritten++;
+        bytesWritten += PCAP_RECORD_HEADER_SIZE + length;
+    }
+
+    public long getPacketsWritten() {
+        return packetsWritten;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Convert a timestamp in seconds to nanoseconds
+     *
+     * @param seconds
+     * @return
+     */
+    public static long toNanos(double seconds) {
+        return Math.round(seconds * 1e9);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
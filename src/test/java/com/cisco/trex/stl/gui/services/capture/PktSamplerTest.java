@@ -0,0 +1,111 @@
+package com.cisco.trex.stl.gui.services.capture;
+
+import com.cisco.trex.stateless.model.capture.CapturedPkt;
+import com.cisco.trex.stl.gui.models.CaptureSampling;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Packet sampler tests class
+ */
+public class PktSamplerTest {
+
+    @Test
+    public void testNoSamplingKeepsList() {
+        List<CapturedPkt> pkts = Arrays.asList(pkt(0, 1.0), pkt(0, 1.1));
+        Assert.assertSame(new PktSampler(CaptureSampling.NONE).sample(pkts), pkts);
+    }
+
+    @Test
+    public void testEveryNth() {
+        PktSampler sampler = new PktSampler(new CaptureSampling(3, 0, 0));
+        List<CapturedPkt> first = pkts(0, 5);
+        List<CapturedPkt> second = pkts(5, 5);
+
+        Assert.assertEquals(sampler.sample(first), Arrays.asList(first.get(0), first.get(3)));
+        // the count goes on across fetches
+        Assert.assertEquals(sampler.sample(second), Arrays.asList(second.get(1), second.get(4)));
+    }
+
+    @Test
+    public void testRateWindowPerPort() {
+        PktSampler sampler = new PktSampler(new CaptureSampling(0, 2, 0));
+        CapturedPkt first = pkt(0, 1.1);
+        CapturedPkt second = pkt(0, 1.2);
+        CapturedPkt otherPort = pkt(1, 1.4);
+        CapturedPkt nextSecond = pkt(0, 2.0);
+
+        List<CapturedPkt> sampled = sampler.sample(Arrays.asList(first, second, pkt(0, 1.3), otherPort, pkt(0, 1.9), nextSecond));
+        Assert.assertEquals(sampled, Arrays.asList(first, second, otherPort, nextSecond));
+
+        // windows go on across fetches, port 0 is in second 2 and port 1 in second 1
+        CapturedPkt last = pkt(0, 2.5);
+        CapturedPkt otherPortLast = pkt(1, 1.8);
+        sampled = sampler.sample(Arrays.asList(last, pkt(0, 2.7), otherPortLast, pkt(1, 1.9)));
+        Assert.assertEquals(sampled, Arrays.asList(last, otherPortLast));
+    }
+
+    @Test
+    public void testEveryNthBeforeRateLimit() {
+        PktSampler sampler = new PktSampler(new CaptureSampling(2, 1, 0));
+        List<CapturedPkt> pkts = Arrays.asList(pkt(0, 1.0), pkt(0, 1.1), pkt(0, 1.2), pkt(0, 2.0), pkt(0, 2.1));
+        Assert.assertEquals(sampler.sample(pkts), Arrays.asList(pkts.get(0), pkts.get(4)));
+    }
+
+    @Test
+    public void testSnapLengthDecoding() {
+        byte[] bytes = new byte[100];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        String binary = Base64.getEncoder().encodeToString(bytes);
+
+        for (int snapLength : new int[]{1, 10, 12, 14, 99}) {
+            byte[] decoded = new PktSampler(new CaptureSampling(0, 0, snapLength)).decode(binary);
+            Assert.assertEquals(decoded, Arrays.copyOf(bytes, snapLength), "snap length " + snapLength);
+        }
+        Assert.assertEquals(new PktSampler(new CaptureSampling(0, 0, 100)).decode(binary), bytes);
+        Assert.assertEquals(new PktSampler(new CaptureSampling(0, 0, 1500)).decode(binary), bytes);
+        Assert.assertEquals(new PktSampler(CaptureSampling.NONE).decode(binary), bytes);
+    }
+
+    @Test
+    public void testDecodedLength() {
+        for (int length = 0; length < 8; length++) {
+            String binary = Base64.getEncoder().encodeToString(new byte[length]);
+            Assert.assertEquals(PktSampler.getDecodedLength(binary), length);
+        }
+    }
+
+    private static List<CapturedPkt> pkts(int first, int count) {
+        List<CapturedPkt> pkts = new ArrayList<>();
+        for (int i = first; i < first + count; i++) {
+            pkts.add(pkt(0, i * 0.1));
+        }
+        return pkts;
+    }
+
+    private static CapturedPkt pkt(int port, double timeStamp) {
+        return new CapturedPkt() {
+            @Override
+            public int getPort() {
+                return port;
+            }
+
+            @Override
+            public double getTimeStamp() {
+                return timeStamp;
+            }
+
+            @Override
+            public String toString() {
+                return "port " + port + " at " + timeStamp;
+            }
+        };
+    }
+}
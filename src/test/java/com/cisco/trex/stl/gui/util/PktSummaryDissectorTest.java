@@ -0,0 +1,73 @@
+package com.cisco.trex.stl.gui.util;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Packet summary dissector tests class
+ */
+public class PktSummaryDissectorTest {
+
+    @Test
+    public void testVlanTcp() {
+        ByteBuffer buffer = ByteBuffer.allocate(14 + 4 + 20 + 20);
+        buffer.put(new byte[]{0, 1, 2, 3, 4, 5}).put(new byte[]{10, 11, 12, 13, 14, 15})
+                .putShort((short) 0x8100).putShort((short) 100).putShort((short) 0x0800);
+        buffer.put((byte) 0x45).put((byte) 0).putShort((short) 40).putInt(0)
+                .put((byte) 64).put((byte) 6).putShort((short) 0).putInt(0x0a000001).putInt(0xc0a80102);
+        buffer.putShort((short) 1024).putShort((short) 80).putInt(0xfffffffe).putInt(7)
+                .put((byte) 0x50).put((byte) 0x12).putShort((short) 8192).putInt(0);
+        byte[] pkt = buffer.array();
+
+        long summary = PktSummaryDissector.dissect(pkt);
+        Assert.assertEquals(PktSummaryDissector.getType(summary), "TCP");
+        Assert.assertEquals(PktSummaryDissector.getSrc(pkt, summary), "10.0.0.1");
+        Assert.assertEquals(PktSummaryDissector.getDst(pkt, summary), "192.168.1.2");
+        Assert.assertEquals(PktSummaryDissector.getInfo(pkt, summary),
+                            "1024 -> 80 [ACK, SYN] Seq=4294967294 Win=8192 Ack=7 Len=20");
+    }
+
+    @Test
+    public void testArpRequest() {
+        ByteBuffer buffer = ByteBuffer.allocate(14 + 28);
+        buffer.put(new byte[]{-1, -1, -1, -1, -1, -1}).put(new byte[]{0, 0x1b, 0, 0, 0, 1}).putShort((short) 0x0806);
+        buffer.putShort((short) 1).putShort((short) 0x0800).put((byte) 6).put((byte) 4).putShort((short) 1)
+                .put(new byte[]{0, 0x1b, 0, 0, 0, 1}).putInt(0x0a000001).put(new byte[6]).putInt(0x0a000002);
+        byte[] pkt = buffer.array();
+
+        long summary = PktSummaryDissector.dissect(pkt);
+        Assert.assertEquals(PktSummaryDissector.getType(summary), "ARP");
+        Assert.assertEquals(PktSummaryDissector.getSrc(pkt, summary), "00:1b:00:00:00:01");
+        Assert.assertEquals(PktSummaryDissector.getInfo(pkt, summary), "[Request] Who has 10.0.0.2 tell 10.0.0.1");
+    }
+
+    @Test
+    public void testIPv6Udp() {
+        ByteBuffer buffer = ByteBuffer.allocate(14 + 40 + 8);
+        buffer.put(new byte[12]).putShort((short) 0x86dd);
+        buffer.putInt(0x60000000).putShort((short) 8).put((byte) 17).put((byte) 64)
+                .putLong(0xfe80000000000000L).putLong(1).putLong(0x20010db800000000L).putLong(2);
+        buffer.putShort((short) 546).putShort((short) 547).putShort((short) 8).putShort((short) 0);
+        byte[] pkt = buffer.array();
+
+        long summary = PktSummaryDissector.dissect(pkt);
+        Assert.assertEquals(PktSummaryDissector.getType(summary), "UDP");
+        Assert.assertEquals(PktSummaryDissector.getSrc(pkt, summary), "fe80:0:0:0:0:0:0:1");
+        Assert.assertEquals(PktSummaryDissector.getDst(pkt, summary), "2001:db8:0:0:0:0:0:2");
+        Assert.assertEquals(PktSummaryDissector.getInfo(pkt, summary), "Source port: 546 Destination port: 547");
+    }
+
+    @Test
+    public void testTruncatedIPv4() {
+        ByteBuffer buffer = ByteBuffer.allocate(14 + 10);
+        buffer.put(new byte[12]).putShort((short) 0x0800).put((byte) 0x45);
+        byte[] pkt = buffer.array();
+
+        long summary = PktSummaryDissector.dissect(pkt);
+        Assert.assertEquals(PktSummaryDissector.getType(summary), "Ether");
+        Assert.assertEquals(PktSummaryDissector.getInfo(pkt, summary), "Unknown or malformed packet");
+        Assert.assertEquals(PktSummaryDissector.dissect(new byte[10]), PktSummaryDissector.INVALID);
+    }
+}
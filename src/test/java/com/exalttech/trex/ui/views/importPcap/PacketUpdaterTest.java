@@ -0,0 +1,74 @@
+package com.exalttech.trex.ui.views.importPcap;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Packet updater tests class
+ */
+public class PacketUpdaterTest {
+
+    @Test
+    public void testRewriteKeepsChecksumsValid() {
+        ImportedPacketProperties properties = new ImportedPacketProperties();
+        properties.getEnabledSrcProperty().set(true);
+        properties.getSrcAddressProperty().set("10.1.2.3");
+        PacketUpdater updater = PacketUpdater.getInstance();
+        updater.setImportedProperties(properties);
+        updater.reset();
+
+        byte[] frame = createUdpFrame(0xc0a80001, 0xc0a80002);
+        Assert.assertTrue(updater.validatePacket(frame));
+        updater.updatePacketSrcDst(frame);
+
+        Assert.assertEquals(FrameHeaders.getInt(frame, 26), 0x0a010203);
+        Assert.assertEquals(FrameHeaders.getInt(frame, 30), 0xc0a80002);
+        Assert.assertEquals(FrameHeaders.getShort(frame, 24), ipChecksum(frame));
+        Assert.assertEquals(FrameHeaders.getShort(frame, 40), udpChecksum(frame));
+    }
+
+    @Test
+    public void testAdjustChecksum() {
+        // RFC 1624 example: 0xdd2f with 0x5555 replaced by 0x3285
+        Assert.assertEquals(PacketUpdater.adjustChecksum(0xdd2f, 0x5555, 0x3285), 0x0000);
+    }
+
+    private static byte[] createUdpFrame(int srcAddress, int dstAddress) {
+        ByteBuffer buffer = ByteBuffer.allocate(14 + 20 + 8 + 4);
+        buffer.put(new byte[12]).putShort((short) 0x0800);
+        buffer.put((byte) 0x45).put((byte) 0).putShort((short) 32).putInt(0)
+                .put((byte) 64).put((byte) 17).putShort((short) 0).putInt(srcAddress).putInt(dstAddress);
+        buffer.putShort((short) 1024).putShort((short) 53).putShort((short) 12).putShort((short) 0)
+                .put(new byte[]{1, 2, 3, 4});
+        byte[] frame = buffer.array();
+        FrameHeaders.putShort(frame, 24, ipChecksum(frame));
+        FrameHeaders.putShort(frame, 40, udpChecksum(frame));
+        return frame;
+    }
+
+    private static int ipChecksum(byte[] frame) {
+        int sum = 0;
+        for (int offset = 14; offset < 34; offset += 2) {
+            sum += offset == 24 ? 0 : FrameHeaders.getShort(frame, offset);
+        }
+        return fold(sum);
+    }
+
+    private static int udpChecksum(byte[] frame) {
+        // pseudo header: addresses, protocol and UDP length
+        int sum = 17 + 12;
+        for (int offset = 26; offset < frame.length; offset += 2) {
+            sum += offset == 40 ? 0 : FrameHeaders.getShort(frame, offset);
+        }
+        return fold(sum);
+    }
+
+    private static int fold(int sum) {
+        while ((sum >>> 16) != 0) {
+            sum = (sum & 0xffff) + (sum >>> 16);
+        }
+        return ~sum & 0xffff;
+    }
+}
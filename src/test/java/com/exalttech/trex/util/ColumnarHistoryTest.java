@@ -0,0 +1,69 @@
+package com.exalttech.trex.util;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Columnar ring buffer tests class
+ */
+public class ColumnarHistoryTest {
+
+    private static class TestHistory extends ColumnarHistory {
+        TestHistory(int historyLength) {
+            super(historyLength, 1, 1);
+        }
+
+        void add(long value) {
+            int slot = append();
+            setLong(0, slot, value);
+            setDouble(0, slot, value / 2.0);
+        }
+
+        long get(int index) {
+            return getLong(0, index);
+        }
+
+        double getHalf(int index) {
+            return getDouble(0, index);
+        }
+    }
+
+    @Test
+    public void testOldestFirstAfterWrap() {
+        TestHistory history = new TestHistory(3);
+        for (long i = 1; i <= 5; i++) {
+            history.add(i);
+        }
+        Assert.assertEquals(history.size(), 3);
+        Assert.assertEquals(history.get(0), 3);
+        Assert.assertEquals(history.get(1), 4);
+        Assert.assertEquals(history.get(history.lastIndex()), 5);
+        Assert.assertEquals(history.getHalf(0), 1.5);
+    }
+
+    @Test
+    public void testRetainLast() {
+        TestHistory history = new TestHistory(4);
+        for (long i = 1; i <= 6; i++) {
+            history.add(i);
+        }
+        history.retainLast();
+        Assert.assertEquals(history.size(), 1);
+        Assert.assertEquals(history.get(0), 6);
+
+        history.add(7);
+        Assert.assertEquals(history.size(), 2);
+        Assert.assertEquals(history.get(0), 6);
+        Assert.assertEquals(history.get(1), 7);
+    }
+
+    @Test
+    public void testClear() {
+        TestHistory history = new TestHistory(2);
+        history.add(1);
+        history.clear();
+        Assert.assertTrue(history.isEmpty());
+        history.add(2);
+        Assert.assertEquals(history.get(0), 2);
+    }
+}
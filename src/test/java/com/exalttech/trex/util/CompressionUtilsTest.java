@@ -0,0 +1,70 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Compression framing tests class
+ */
+public class CompressionUtilsTest {
+
+    private static final String REQUEST = "{\"id\":\"1\",\"jsonrpc\":\"2.0\",\"method\":\"ping\",\"params\":{}}";
+
+    /**
+     * Test of compressFrame and decompressFrame methods, of class CompressionUtils.
+     */
+    @Test
+    public void testFrameRoundTrip() throws DataFormatException {
+        byte[] data = REQUEST.getBytes(StandardCharsets.UTF_8);
+        byte[] frame = CompressionUtils.compressFrame(data);
+
+        ByteBuffer header = ByteBuffer.wrap(frame);
+        Assert.assertEquals(header.getInt(), CompressionUtils.MAGIC);
+        Assert.assertEquals(header.getInt(), data.length);
+        Assert.assertTrue(CompressionUtils.isCompressedFrame(frame));
+        Assert.assertEquals(CompressionUtils.decompressFrame(frame), data);
+    }
+
+    /**
+     * Frames larger than the initial scratch buffer must grow it
+     */
+    @Test
+    public void testLargeFrameRoundTrip() throws DataFormatException {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            builder.append(Integer.toHexString(i * 31));
+        }
+        byte[] data = builder.toString().getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(CompressionUtils.decompressFrame(CompressionUtils.compressFrame(data)), data);
+        }
+    }
+
+    /**
+     * Uncompressed messages are returned as is
+     */
+    @Test
+    public void testUncompressedPassThrough() throws DataFormatException {
+        byte[] data = REQUEST.getBytes(StandardCharsets.UTF_8);
+        Assert.assertFalse(CompressionUtils.isCompressedFrame(data));
+        Assert.assertSame(CompressionUtils.decompressFrame(data), data);
+    }
+}
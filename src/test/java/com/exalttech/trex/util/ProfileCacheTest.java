@@ -0,0 +1,130 @@
+package com.exalttech.trex.util;
+
+import com.exalttech.trex.remote.models.profiles.Profile;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Profile cache tests class
+ */
+public class ProfileCacheTest {
+
+    private static final String PROFILE = "---\n"
+            + "- name: \"first\"\n"
+            + "  next: \"second\"\n"
+            + "  stream:\n"
+            + "    enabled: true\n"
+            + "    isg: 0.0\n"
+            + "    mode:\n"
+            + "      type: \"continuous\"\n"
+            + "    packet:\n"
+            + "      binary: \"AAAAAAAAAAAAAAAACABFAAAu\"\n"
+            + "    self_start: true\n"
+            + "- name: \"second\"\n"
+            + "  stream:\n"
+            + "    enabled: %s\n"
+            + "    isg: 0.0\n"
+            + "    mode:\n"
+            + "      type: \"continuous\"\n"
+            + "    packet:\n"
+            + "      binary: \"AAAAAAAAAAAAAAAACABFAAAu\"\n"
+            + "    self_start: false\n";
+
+    private ProfileCache cache;
+    private File yamlFile;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        cache = new ProfileCache();
+        yamlFile = File.createTempFile("profile", ".yaml");
+        write("true");
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        yamlFile.delete();
+    }
+
+    @Test
+    public void testCallersGetTheirOwnCopy() throws IOException {
+        Profile[] first = cache.getProfiles(yamlFile);
+        Profile[] second = cache.getProfiles(yamlFile);
+        Assert.assertNotSame(first, second);
+        Assert.assertNotSame(first[0], second[0]);
+        Assert.assertEquals(second[1].getName(), "second");
+        Assert.assertTrue(writeParams(first).contains("\"next_stream_id\":1"));
+    }
+
+    @Test
+    public void testEditedCopyDoesNotChangeCache() throws IOException {
+        Profile[] first = cache.getProfiles(yamlFile);
+        first[1].getStream().setEnabled(false);
+        Assert.assertTrue(cache.getProfiles(yamlFile)[1].getStream().isEnabled());
+    }
+
+    @Test
+    public void testEditedCopyIsUploadedAsEdited() throws IOException {
+        Profile[] first = cache.getProfiles(yamlFile);
+        Assert.assertFalse(writeParams(first).contains("\"enabled\":false,\"flags\""));
+
+        first[1].getStream().setEnabled(false);
+        String params = writeParams(first);
+        Assert.assertTrue(params.contains("\"enabled\":false,\"flags\""));
+        Assert.assertFalse(writeParams(cache.getProfiles(yamlFile)).contains("\"enabled\":false,\"flags\""));
+    }
+
+    @Test
+    public void testChangedFileIsParsedAgain() throws IOException {
+        cache.getProfiles(yamlFile);
+        write("false");
+        Profile[] profiles = cache.getProfiles(yamlFile);
+        Assert.assertFalse(profiles[1].getStream().isEnabled());
+    }
+
+    @Test
+    public void testCompiledStreamsAreShared() throws IOException {
+        ProfileCache.CompiledProfile first = cache.getCompiledProfile(yamlFile);
+        ProfileCache.CompiledProfile second = cache.getCompiledProfile(yamlFile);
+        Assert.assertSame(first.getStreams(), second.getStreams());
+        Assert.assertNotSame(first.getProfiles(), second.getProfiles());
+    }
+
+    @Test
+    public void testCompiledStreamsAreUploadedAsLoaded() throws IOException {
+        ProfileCache.CompiledProfile profile = cache.getCompiledProfile(yamlFile);
+        StringWriter out = new StringWriter();
+        new AddStreamWriter(profile.getProfiles(), profile.getStreams(), 1, "handler", null).writeParamsArray(out);
+        Assert.assertEquals(out.toString(), writeParams(cache.getProfiles(yamlFile), 1));
+    }
+
+    @Test
+    public void testChangedFileIsCompiledAgain() throws IOException {
+        String[] streams = cache.getCompiledProfile(yamlFile).getStreams();
+        write("false");
+        String[] changed = cache.getCompiledProfile(yamlFile).getStreams();
+        Assert.assertNotSame(changed, streams);
+        Assert.assertTrue(changed[1].contains("\"enabled\":false"));
+    }
+
+    private static String writeParams(Profile[] profiles) throws IOException {
+        return writeParams(profiles, 0);
+    }
+
+    private static String writeParams(Profile[] profiles, int portID) throws IOException {
+        StringWriter out = new StringWriter();
+        new AddStreamWriter(profiles, portID, "handler", null).writeParamsArray(out);
+        return out.toString();
+    }
+
+    private void write(String secondEnabled) throws IOException {
+        Files.write(yamlFile.toPath(), String.format(PROFILE, secondEnabled).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,80 @@
+package com.exalttech.trex.util.files;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+
+/**
+ * Pcap file reader tests class
+ */
+public class PcapFileReaderTest {
+
+    private static final byte[] FIRST = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14};
+    private static final byte[] SECOND = {21, 22, 23, 24, 25};
+
+    @Test
+    public void testPcap() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(256).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(0xa1b2c3d4).putShort((short) 2).putShort((short) 4)
+                .putInt(0).putInt(0).putInt(65535).putInt(PcapFileReader.LINKTYPE_ETHERNET);
+        buffer.putInt(10).putInt(500).putInt(FIRST.length).putInt(FIRST.length).put(FIRST);
+        buffer.putInt(11).putInt(0).putInt(SECOND.length).putInt(60).put(SECOND);
+
+        try (PcapFileReader reader = new PcapFileReader(write(buffer, ".pcap"))) {
+            Assert.assertFalse(reader.isPcapng());
+            Assert.assertEquals(reader.readAll(), 2);
+            Assert.assertEquals(reader.getPacketBytes(0), FIRST);
+            Assert.assertEquals(reader.getPacketBytes(1), SECOND);
+            Assert.assertEquals(reader.getOriginalLength(1), 60);
+            Assert.assertEquals(reader.getTimestampNanos(0), 10_000_500_000L);
+            Assert.assertEquals(reader.getLinkType(1), PcapFileReader.LINKTYPE_ETHERNET);
+            Assert.assertEquals(reader.getPacket(1).get(0), SECOND[0]);
+        }
+    }
+
+    @Test
+    public void testPcapng() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(256).order(ByteOrder.BIG_ENDIAN);
+        // section header
+        buffer.putInt(0x0a0d0d0a).putInt(28).putInt(0x1a2b3c4d).putShort((short) 1).putShort((short) 0)
+                .putLong(-1).putInt(28);
+        // interface description with nanosecond resolution
+        buffer.putInt(1).putInt(28).putShort((short) PcapFileReader.LINKTYPE_ETHERNET).putShort((short) 0)
+                .putInt(0).putShort((short) 9).putShort((short) 1).put((byte) 9).put(new byte[3]).putInt(28);
+        // enhanced packet, padded to 32 bits
+        buffer.putInt(6).putInt(48).putInt(0).putInt(0).putInt(1500).putInt(FIRST.length).putInt(FIRST.length)
+                .put(FIRST).put(new byte[2]).putInt(48);
+        // interface statistics, skipped
+        buffer.putInt(5).putInt(12).putInt(12);
+
+        try (PcapFileReader reader = new PcapFileReader(write(buffer, ".pcapng"))) {
+            Assert.assertTrue(reader.isPcapng());
+            Assert.assertEquals(reader.readNext(), 0);
+            Assert.assertEquals(reader.readNext(), -1);
+            Assert.assertEquals(reader.getPacketBytes(0), FIRST);
+            Assert.assertEquals(reader.getTimestampNanos(0), 1500L);
+        }
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testInvalidFile() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(32);
+        buffer.put(FIRST).put(FIRST);
+        new PcapFileReader(write(buffer, ".pcap")).close();
+    }
+
+    private static File write(ByteBuffer buffer, String suffix) throws IOException {
+        File file = File.createTempFile("reader", suffix);
+        file.deleteOnExit();
+        byte[] content = new byte[buffer.position()];
+        buffer.flip();
+        buffer.get(content);
+        Files.write(file.toPath(), content);
+        return file;
+    }
+}
@@ -0,0 +1,38 @@
+package com.exalttech.trex.util.files;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Pcap file writer tests class
+ */
+public class PcapFileWriterTest {
+
+    private static final byte[] FIRST = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14};
+    private static final byte[] SECOND = {21, 22, 23, 24, 25};
+
+    @Test
+    public void testWrittenFileCanBeRead() throws IOException {
+        File file = File.createTempFile("writer", ".pcap");
+        file.deleteOnExit();
+        try (PcapFileWriter writer = new PcapFileWriter(new FileOutputStream(file), PcapFileReader.LINKTYPE_ETHERNET, 8)) {
+            writer.write(FIRST, PcapFileWriter.toNanos(1.5));
+            writer.write(SECOND, 60, 2_000_001_000L);
+            Assert.assertEquals(writer.getPacketsWritten(), 2);
+        }
+
+        try (PcapFileReader reader = new PcapFileReader(file)) {
+            Assert.assertEquals(reader.readAll(), 2);
+            Assert.assertEquals(reader.getLength(0), 8);
+            Assert.assertEquals(reader.getOriginalLength(0), FIRST.length);
+            Assert.assertEquals(reader.getTimestampNanos(0), 1_500_000_000L);
+            Assert.assertEquals(reader.getPacketBytes(1), SECOND);
+            Assert.assertEquals(reader.getOriginalLength(1), 60);
+            Assert.assertEquals(reader.getTimestampNanos(1), 2_000_001_000L);
+        }
+    }
+}